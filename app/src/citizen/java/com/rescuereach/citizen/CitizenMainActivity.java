@@ -46,13 +46,6 @@ import com.google.android.gms.maps.model.BitmapDescriptorFactory;
 import com.google.android.gms.maps.model.LatLng;
 import com.google.android.gms.maps.model.MapStyleOptions;
 import com.google.android.gms.maps.model.MarkerOptions;
-import com.google.android.libraries.places.api.Places;
-import com.google.android.libraries.places.api.model.AutocompletePrediction;
-import com.google.android.libraries.places.api.model.Place;
-import com.google.android.libraries.places.api.model.RectangularBounds;
-import com.google.android.libraries.places.api.net.FetchPlaceRequest;
-import com.google.android.libraries.places.api.net.FindAutocompletePredictionsRequest;
-import com.google.android.libraries.places.api.net.PlacesClient;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.navigation.NavigationView;
 import com.rescuereach.R;
@@ -64,14 +57,15 @@ import com.rescuereach.citizen.fragments.SafetyFeaturesFragment;
 import com.rescuereach.service.auth.AuthService;
 import com.rescuereach.service.auth.AuthServiceProvider;
 import com.rescuereach.service.auth.UserSessionManager;
+import com.rescuereach.service.location.SignificantChangeMonitor;
+import com.rescuereach.service.places.NearbyPlace;
+import com.rescuereach.service.places.PlacesQueryEngine;
+import com.rescuereach.util.AppExecutors;
+import com.rescuereach.util.GeocodeCache;
 import com.rescuereach.util.LocationManager;
 
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class CitizenMainActivity extends AppCompatActivity
@@ -93,11 +87,13 @@ public class CitizenMainActivity extends AppCompatActivity
     // Service components
     private UserSessionManager sessionManager;
     private LocationManager locationManager;
-    private PlacesClient placesClient;
+    private SignificantChangeMonitor significantChangeMonitor;
+    private PlacesQueryEngine placesQueryEngine;
 
     // State management
     private int currentFragmentId = R.id.nav_home;
     private Location currentLocation;
+    private boolean addressRegionWatched = false; // Address is only re-resolved after leaving it
     private Toast currentToast = null;
     private boolean isSearchingPlaces = false;
     private boolean emergencyServicesLoadedToastShown = false;
@@ -105,11 +101,12 @@ public class CitizenMainActivity extends AppCompatActivity
 
     private Handler drawerUpdateHandler;
     private static final long DRAWER_UPDATE_DELAY = 500; // Half second delay
+    private static final String ADDRESS_REGION_KEY = "main_address";
+    private static final float ADDRESS_REGION_RADIUS_METERS = 150f;
 
     // Place search configuration
     private static final int SEARCH_RADIUS = 3000; // 3 km radius
     private static final int MAX_RESULTS = 5; // Max 5 results per type
-    private final Map<String, List<String>> placeTypeKeywords = new HashMap<>();
     private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
     @Override
@@ -226,15 +223,10 @@ public class CitizenMainActivity extends AppCompatActivity
         // Initialize user session and location services
         sessionManager = UserSessionManager.getInstance(this);
         locationManager = new LocationManager(this);
+        significantChangeMonitor = SignificantChangeMonitor.getInstance(this);
 
-        // Initialize Places API
-        if (!Places.isInitialized()) {
-            Places.initialize(getApplicationContext(), getString(R.string.google_maps_key));
-        }
-        placesClient = Places.createClient(this);
-
-        // Setup place type keywords for emergency services search
-        setupPlaceTypeKeywords();
+        // Shared Places engine (keywords, caching and rate limiting live there)
+        placesQueryEngine = PlacesQueryEngine.getInstance(this);
     }
 
     private void setupUI() {
@@ -245,18 +237,6 @@ public class CitizenMainActivity extends AppCompatActivity
         initMapView(null); // Will be properly initialized in onSaveInstanceState
     }
 
-    private void setupPlaceTypeKeywords() {
-        // Setup keywords for each emergency service type
-        placeTypeKeywords.put("hospital", Arrays.asList(
-                "hospital", "emergency room", "medical center", "trauma center"));
-
-        placeTypeKeywords.put("police", Arrays.asList(
-                "police station", "police department", "law enforcement"));
-
-        placeTypeKeywords.put("fire_station", Arrays.asList(
-                "fire station", "fire department", "fire and rescue"));
-    }
-
     private void setupToolbar() {
         Toolbar toolbar = findViewById(R.id.toolbar);
         setSupportActionBar(toolbar);
@@ -381,7 +361,9 @@ public class CitizenMainActivity extends AppCompatActivity
             public void onLocationUpdated(Location location) {
                 currentLocation = location;
                 updateMapWithLocation();
-                updateAddressFromLocation(location);
+                if (!addressRegionWatched) {
+                    refreshAddressRegion(location);
+                }
             }
 
             @Override
@@ -394,50 +376,70 @@ public class CitizenMainActivity extends AppCompatActivity
         });
     }
 
+    /**
+     * Resolve the address for a position and watch the area around it. The address is shown
+     * at street level, so it only needs resolving again once the user leaves that area.
+     */
+    private void refreshAddressRegion(Location location) {
+        addressRegionWatched = true;
+        updateAddressFromLocation(location);
+        significantChangeMonitor.watch(ADDRESS_REGION_KEY, location, ADDRESS_REGION_RADIUS_METERS,
+                exitLocation -> {
+                    addressRegionWatched = false;
+                    Location latest = exitLocation != null ? exitLocation : currentLocation;
+                    if (latest != null && !isFinishing()) {
+                        refreshAddressRegion(latest);
+                    }
+                });
+    }
+
     private void updateAddressFromLocation(Location location) {
         if (locationAddressText == null) return;
 
-        // Use Geocoder to get address from location coordinates
-        android.location.Geocoder geocoder = new android.location.Geocoder(this, Locale.getDefault());
-
-        try {
-            List<Address> addresses = geocoder.getFromLocation(
-                    location.getLatitude(), location.getLongitude(), 1);
-
-            if (addresses != null && !addresses.isEmpty()) {
-                Address address = addresses.get(0);
-
-                // Format the address for display
-                StringBuilder sb = new StringBuilder();
+        // Resolve through the shared geocode cache, off the main thread
+        GeocodeCache geocodeCache = GeocodeCache.getInstance(this);
+        AppExecutors.getInstance().geocoding().execute(() -> {
+            String addressText = null;
+            try {
+                Address address = geocodeCache.getFromLocation(
+                        location.getLatitude(), location.getLongitude());
+
+                if (address != null) {
+                    // Format the address for display
+                    StringBuilder sb = new StringBuilder();
+
+                    // Add thoroughfare (street name) if available
+                    if (address.getThoroughfare() != null) {
+                        sb.append(address.getThoroughfare());
+                        if (address.getSubThoroughfare() != null) {
+                            sb.append(", ").append(address.getSubThoroughfare());
+                        }
+                        sb.append(", ");
+                    }
 
-                // Add thoroughfare (street name) if available
-                if (address.getThoroughfare() != null) {
-                    sb.append(address.getThoroughfare());
-                    if (address.getSubThoroughfare() != null) {
-                        sb.append(", ").append(address.getSubThoroughfare());
+                    // Add locality (city)
+                    if (address.getLocality() != null) {
+                        sb.append(address.getLocality());
                     }
-                    sb.append(", ");
-                }
 
-                // Add locality (city)
-                if (address.getLocality() != null) {
-                    sb.append(address.getLocality());
+                    addressText = sb.toString();
                 }
+            } catch (IOException e) {
+                Log.e(TAG, "Error getting address from location", e);
+            }
+
+            final String finalAddressText = addressText;
+            runOnUiThread(() -> {
+                if (isFinishing() || locationAddressText == null) return;
 
                 // Set the formatted address to the TextView
-                String addressText = sb.toString();
-                if (!addressText.isEmpty()) {
-                    locationAddressText.setText(addressText);
+                if (finalAddressText != null && !finalAddressText.isEmpty()) {
+                    locationAddressText.setText(finalAddressText);
                 } else {
                     locationAddressText.setText(R.string.awaiting_location);
                 }
-            } else {
-                locationAddressText.setText(R.string.awaiting_location);
-            }
-        } catch (IOException e) {
-            Log.e(TAG, "Error getting address from location", e);
-            locationAddressText.setText(R.string.awaiting_location);
-        }
+            });
+        });
     }
 
     private void requestLocationPermissions() {
@@ -520,116 +522,33 @@ public class CitizenMainActivity extends AppCompatActivity
 
     private void searchNearbyPlaces(LatLng location, String placeType, float markerColor,
                                     AtomicInteger counter, int totalSearches) {
-        // Get the keywords for this place type
-        List<String> keywords = placeTypeKeywords.get(placeType);
-        if (keywords == null || keywords.isEmpty()) {
-            // If no keywords, mark this search as complete
-            checkSearchCompletion(counter, totalSearches);
-            return;
-        }
-
-        // Calculate bounds for the search (approximately within SEARCH_RADIUS)
-        double latRadiusDegrees = SEARCH_RADIUS / 111000.0; // approximate degrees per meter
-        double lngRadiusDegrees = latRadiusDegrees / Math.cos(Math.toRadians(location.latitude));
-
-        RectangularBounds bounds = RectangularBounds.newInstance(
-                new LatLng(location.latitude - latRadiusDegrees, location.longitude - lngRadiusDegrees),
-                new LatLng(location.latitude + latRadiusDegrees, location.longitude + lngRadiusDegrees));
-
-        // Counter for found places
-        AtomicInteger foundPlacesCounter = new AtomicInteger(0);
-        AtomicInteger keywordRequestsCounter = new AtomicInteger(0);
-        final int totalKeywords = keywords.size();
-
-        // Search for places using each keyword
-        for (String keyword : keywords) {
-            if (foundPlacesCounter.get() >= MAX_RESULTS) {
-                // Already found enough places
-                if (keywordRequestsCounter.incrementAndGet() >= totalKeywords) {
-                    checkSearchCompletion(counter, totalSearches);
-                }
-                continue;
-            }
-
-            // Create the autocomplete request
-            FindAutocompletePredictionsRequest request = FindAutocompletePredictionsRequest.builder()
-                    .setLocationBias(bounds)
-                    .setOrigin(location)
-                    .setQuery(keyword)
-                    .build();
-
-            // Execute the request
-            placesClient.findAutocompletePredictions(request)
-                    .addOnSuccessListener(response -> {
-                        // Process predictions (places found)
-                        for (AutocompletePrediction prediction : response.getAutocompletePredictions()) {
-                            // Skip if we have enough places
-                            if (foundPlacesCounter.get() >= MAX_RESULTS) {
-                                continue;
-                            }
-
-                            // Create a fetch place request to get place details
-                            List<Place.Field> placeFields = Arrays.asList(
-                                    Place.Field.ID, Place.Field.NAME, Place.Field.LAT_LNG);
-
-                            FetchPlaceRequest fetchRequest = FetchPlaceRequest.builder(
-                                    prediction.getPlaceId(), placeFields).build();
-
-                            // Fetch the place details
-                            placesClient.fetchPlace(fetchRequest)
-                                    .addOnSuccessListener(fetchResponse -> {
-                                        Place place = fetchResponse.getPlace();
-
-                                        // Skip if no valid location
-                                        if (place.getLatLng() == null) return;
-
-                                        // Calculate distance from user
-                                        float[] results = new float[1];
-                                        Location.distanceBetween(
-                                                location.latitude, location.longitude,
-                                                place.getLatLng().latitude, place.getLatLng().longitude,
-                                                results);
-
-                                        float distanceKm = results[0] / 1000; // Convert meters to km
-
-                                        // Add marker to map
-                                        runOnUiThread(() -> {
-                                            if (googleMap != null && !isFinishing()) {
-                                                googleMap.addMarker(new MarkerOptions()
-                                                        .position(place.getLatLng())
-                                                        .title(place.getName())
-                                                        .snippet(String.format(Locale.getDefault(),
-                                                                getString(R.string.place_distance), distanceKm))
-                                                        .icon(BitmapDescriptorFactory.defaultMarker(markerColor)));
-
-                                                // Increment counter only for unique places
-                                                foundPlacesCounter.incrementAndGet();
-                                            }
-                                        });
-                                    })
-                                    .addOnCompleteListener(task -> {
-                                        // Whether successful or not, count this request as completed
-                                        if (keywordRequestsCounter.incrementAndGet() >= totalKeywords) {
-                                            checkSearchCompletion(counter, totalSearches);
-                                        }
-                                    });
-                        }
-
-                        // If no predictions found, we still need to track completion
-                        if (response.getAutocompletePredictions().isEmpty() &&
-                                keywordRequestsCounter.incrementAndGet() >= totalKeywords) {
-                            checkSearchCompletion(counter, totalSearches);
-                        }
-                    })
-                    .addOnFailureListener(exception -> {
-                        Log.e(TAG, "Place search failed: " + exception.getMessage());
-
-                        // Count this as completed even on failure
-                        if (keywordRequestsCounter.incrementAndGet() >= totalKeywords) {
-                            checkSearchCompletion(counter, totalSearches);
+        placesQueryEngine.searchNearby(placeType, location.latitude, location.longitude, SEARCH_RADIUS, false)
+                .addOnSuccessListener(places -> {
+                    int added = 0;
+                    for (NearbyPlace place : places) {
+                        if (added >= MAX_RESULTS) break;
+
+                        // Results cover the whole search cell, keep only those within our radius
+                        float distanceMeters = place.distanceTo(location.latitude, location.longitude);
+                        if (distanceMeters > SEARCH_RADIUS) continue;
+
+                        float distanceKm = distanceMeters / 1000; // Convert meters to km
+
+                        // Add marker to map
+                        if (googleMap != null && !isFinishing()) {
+                            googleMap.addMarker(new MarkerOptions()
+                                    .position(place.getLatLng())
+                                    .title(place.getName())
+                                    .snippet(String.format(Locale.getDefault(),
+                                            getString(R.string.place_distance), distanceKm))
+                                    .icon(BitmapDescriptorFactory.defaultMarker(markerColor)));
+                            added++;
                         }
-                    });
-        }
+                    }
+                })
+                .addOnFailureListener(exception ->
+                        Log.e(TAG, "Place search failed: " + exception.getMessage()))
+                .addOnCompleteListener(task -> checkSearchCompletion(counter, totalSearches));
     }
 
     private void checkSearchCompletion(AtomicInteger counter, int totalSearches) {
@@ -989,6 +908,12 @@ public class CitizenMainActivity extends AppCompatActivity
         if (mapView != null) {
             mapView.onStop();
         }
+        // Without background location the region is checked on fixes, which must stop with us.
+        // The first fix after onResume resolves the address and watches again.
+        if (significantChangeMonitor != null) {
+            significantChangeMonitor.unwatch(ADDRESS_REGION_KEY);
+        }
+        addressRegionWatched = false;
     }
 
     @Override
@@ -1010,6 +935,9 @@ public class CitizenMainActivity extends AppCompatActivity
         if (locationManager != null) {
             locationManager.stopLocationUpdates();
         }
+        if (significantChangeMonitor != null) {
+            significantChangeMonitor.unwatch(ADDRESS_REGION_KEY);
+        }
         super.onDestroy();
     }
 
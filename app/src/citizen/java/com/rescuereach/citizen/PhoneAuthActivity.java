@@ -46,6 +46,7 @@ import com.rescuereach.service.auth.AuthServiceProvider;
 import com.rescuereach.service.auth.SMSRetrieverHelper;
 import com.rescuereach.service.auth.UserSessionManager;
 import com.rescuereach.ui.common.OTPInputView;
+import com.rescuereach.util.AppExecutors;
 
 import java.util.Date;
 import java.util.regex.Pattern;
@@ -333,12 +334,12 @@ public class PhoneAuthActivity extends AppCompatActivity implements OTPInputView
     private void verifyCodeOptimized() {
         // If verifyCode() has heavy operations, consider moving them to a background thread
         // For example:
-        new Thread(() -> {
+        AppExecutors.getInstance().io().execute(() -> {
             // Then update UI on main thread
             runOnUiThread(() -> {
                 // UI updates after verification
             });
-        }).start();
+        });
     }
 
     @Override
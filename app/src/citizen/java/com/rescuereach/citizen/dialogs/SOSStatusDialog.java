@@ -40,7 +40,9 @@ import com.rescuereach.R;
 import com.rescuereach.data.model.SOSReport;
 import com.rescuereach.data.repository.RepositoryProvider;
 import com.rescuereach.data.repository.SOSRepository;
+import com.rescuereach.service.location.LiveTrackStreamer;
 import com.rescuereach.service.sos.SOSProcessingService;
+import com.rescuereach.util.AppExecutors;
 import com.rescuereach.util.TimeUtils;
 import com.rescuereach.util.ToastUtil;
 
@@ -49,6 +51,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * Dialog to display SOS status and updates
@@ -58,6 +61,9 @@ public class SOSStatusDialog extends Dialog {
     private static final String TAG = "SOSStatusDialog";
 
     private Handler uiHandler = new Handler(Looper.getMainLooper());
+    // Status updates from the report listener, one at a time so a newer one is never overtaken
+    private final Executor statusExecutor =
+            AppExecutors.getInstance().newSerialExecutor(AppExecutors.Lane.SOS_CRITICAL);
 
     // SharedPreferences for persistent state
     private SharedPreferences prefs;
@@ -176,6 +182,7 @@ public class SOSStatusDialog extends Dialog {
             if (isFinalStatus) {
                 // Report is already in final state, clear state and dismiss after showing briefly
                 updateUI(report);
+                LiveTrackStreamer.getInstance(getContext()).stop(report.getReportId());
 
                 // Show status briefly then dismiss
                 uiHandler.postDelayed(() -> {
@@ -288,7 +295,7 @@ public class SOSStatusDialog extends Dialog {
         progressBar.setVisibility(View.VISIBLE);
 
         // Use background executor for Firebase operations
-        new Thread(() -> {
+        AppExecutors.getInstance().io().execute(() -> {
             sosRepository.getSOSReportById(reportId, new SOSRepository.OnReportFetchedListener() {
                 @Override
                 public void onSuccess(final SOSReport loadedReport) {
@@ -309,6 +316,7 @@ public class SOSStatusDialog extends Dialog {
                             if (isFinalStatus) {
                                 // Report is already in final state
                                 updateUI(report);
+                                LiveTrackStreamer.getInstance(getContext()).stop(report.getReportId());
 
                                 // Show status briefly then dismiss
                                 uiHandler.postDelayed(() -> {
@@ -343,7 +351,7 @@ public class SOSStatusDialog extends Dialog {
                     });
                 }
             });
-        }).start();
+        });
     }
 
 
@@ -371,8 +379,8 @@ public class SOSStatusDialog extends Dialog {
                 }
 
                 if (snapshot != null && snapshot.exists()) {
-                    // Process the update on a background thread
-                    new Thread(() -> {
+                    // Process the update on a background thread, in order and never dropped
+                    statusExecutor.execute(() -> {
                         try {
                             final SOSReport updatedReport = snapshot.toObject(SOSReport.class);
                             if (updatedReport != null) {
@@ -383,6 +391,11 @@ public class SOSStatusDialog extends Dialog {
                                 // Update our reference
                                 report = updatedReport;
 
+                                if (isStatusFinal(updatedReport.getStatus())) {
+                                    // Also when a responder closed it, nobody else stops the stream
+                                    LiveTrackStreamer.getInstance(getContext()).stop(reportId);
+                                }
+
                                 // Update UI on main thread
                                 uiHandler.post(() -> {
                                     if (!isClosed) {
@@ -423,7 +436,7 @@ public class SOSStatusDialog extends Dialog {
                         } catch (Exception e) {
                             Log.e(TAG, "Error processing snapshot update", e);
                         }
-                    }).start();
+                    });
                 }
             });
         } catch (Exception e) {
@@ -657,6 +670,7 @@ public class SOSStatusDialog extends Dialog {
 
                         // Clear active SOS state
                         clearSOSState();
+                        LiveTrackStreamer.getInstance(getContext()).stop(reportId);
 
                         // Show success message
                         ToastUtil.showShort(getContext(),
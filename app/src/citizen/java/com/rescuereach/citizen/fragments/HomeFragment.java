@@ -16,6 +16,7 @@ import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
 import android.widget.Button;
 import android.widget.EditText;
 import android.widget.ImageView;
@@ -51,11 +52,13 @@ import com.rescuereach.service.auth.UserSessionManager;
 import com.rescuereach.service.notification.NotificationService;
 import com.rescuereach.service.sos.SOSDataCollectionService;
 import com.rescuereach.service.sos.SOSProcessingService;
+import com.rescuereach.util.AppExecutors;
+import com.rescuereach.util.AppPreferences;
 import com.rescuereach.util.LocationManager;
 import com.rescuereach.util.NetworkUtils;
 import com.rescuereach.util.PermissionManager;
+import com.rescuereach.util.PreferenceStore;
 import com.rescuereach.util.SafetyTipProvider;
-import com.rescuereach.util.SharedPreferencesManager;
 import com.rescuereach.util.ToastUtil;
 
 import org.json.JSONObject;
@@ -66,7 +69,6 @@ import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 /**
  * Home screen fragment with emergency buttons and status information
@@ -75,7 +77,9 @@ public class HomeFragment extends Fragment implements OnMapReadyCallback,
         NotificationService.NotificationActionListener {
     private static final String TAG = "HomeFragment";
 
-    private final Executor backgroundExecutor = Executors.newSingleThreadExecutor();
+    // Only the status tick, the next tick supersedes one that was dropped
+    private final Executor backgroundExecutor = AppExecutors.getInstance().uiPrep();
+    private final Executor sosExecutor = AppExecutors.getInstance().sosCritical();
 
 
     // UI components
@@ -99,10 +103,12 @@ public class HomeFragment extends Fragment implements OnMapReadyCallback,
     private PermissionManager permissionManager;
     private ConnectivityManager connectivityManager;
     private NotificationService notificationService;
+    // Until the first frame is drawn
+    private ViewTreeObserver.OnDrawListener sosReadyDrawListener;
     private SOSDataCollectionService sosDataCollectionService;
     private SOSProcessingService sosProcessingService;
     private UserSessionManager sessionManager;
-    private SharedPreferencesManager prefsManager;
+    private PreferenceStore preferences;
     private Handler uiUpdateHandler;
     private Runnable statusUpdateRunnable;
     private boolean isMapReady = false;
@@ -138,6 +144,7 @@ public class HomeFragment extends Fragment implements OnMapReadyCallback,
 
         // Set up click listeners
         setupClickListeners();
+        watchFirstDraw();
 
         // Set safety tip
         updateSafetyTip();
@@ -160,13 +167,8 @@ public class HomeFragment extends Fragment implements OnMapReadyCallback,
         connectivityManager = (ConnectivityManager) requireContext()
                 .getSystemService(Context.CONNECTIVITY_SERVICE);
 
-        // Initialize shared preferences manager
-        prefsManager = new SharedPreferencesManager(requireContext());
-
-        // Initialize notification service
-        notificationService = ((RescueReachApplication) requireActivity().getApplication())
-                .getNotificationService();
-        notificationService.setNotificationActionListener(this);
+        // Initialize the preference store
+        preferences = AppPreferences.get(requireContext());
 
         // Initialize SOS data collection service
         sosDataCollectionService = new SOSDataCollectionService(requireContext());
@@ -176,6 +178,47 @@ public class HomeFragment extends Fragment implements OnMapReadyCallback,
 
         // Initialize session manager
         sessionManager = UserSessionManager.getInstance(requireContext());
+    }
+
+    /**
+     * The SOS buttons are usable once the first frame with them is drawn. A post from
+     * onCreateView runs before that.
+     */
+    private void watchFirstDraw() {
+        sosReadyDrawListener = () -> {
+            ViewTreeObserver.OnDrawListener listener = sosReadyDrawListener;
+            if (listener == null) return;
+            sosReadyDrawListener = null;
+            ((RescueReachApplication) rootView.getContext().getApplicationContext())
+                    .getStartupGraph().markSosReady();
+            // Draw listeners can't be removed while the draw is dispatched
+            rootView.post(() -> {
+                ViewTreeObserver observer = rootView.getViewTreeObserver();
+                if (observer.isAlive()) {
+                    observer.removeOnDrawListener(listener);
+                }
+                onSosButtonsReady();
+            });
+        };
+        rootView.getViewTreeObserver().addOnDrawListener(sosReadyDrawListener);
+    }
+
+    /**
+     * The SOS buttons are on screen, do the setup that can wait until after the first frame
+     */
+    private void onSosButtonsReady() {
+        if (!isAdded()) return;
+
+        // Notification tags wait for startup to initialise OneSignal when the app goes idle
+        RescueReachApplication app = (RescueReachApplication) requireActivity().getApplication();
+        app.whenNotificationServiceReady(this::onNotificationServiceReady);
+    }
+
+    private void onNotificationServiceReady(NotificationService service) {
+        if (!isAdded()) return;
+
+        notificationService = service;
+        notificationService.setNotificationActionListener(this);
 
         // Set notification tags based on user profile if available
         if (notificationService != null) {
@@ -208,7 +251,7 @@ public class HomeFragment extends Fragment implements OnMapReadyCallback,
     private void checkForActiveSOS() {
         if (!isAdded() || getContext() == null) return;
 
-        String activeReportId = prefsManager.getString("active_sos_report_id", null);
+        String activeReportId = preferences.get(AppPreferences.ACTIVE_SOS_REPORT_ID, null);
 
         // If no active report, just return
         if (activeReportId == null || activeReportId.isEmpty()) {
@@ -216,7 +259,7 @@ public class HomeFragment extends Fragment implements OnMapReadyCallback,
         }
 
         // Before showing dialog, check if report is actually active (not canceled/resolved)
-        new Thread(() -> {
+        AppExecutors.getInstance().io().execute(() -> {
             try {
                 DocumentReference reportRef = FirebaseFirestore.getInstance()
                         .collection("sos_reports")
@@ -235,7 +278,7 @@ public class HomeFragment extends Fragment implements OnMapReadyCallback,
                                 clearSOSState();
                             } else {
                                 // Only show dialog if not minimized
-                                boolean isMinimized = prefsManager.getBoolean("sos_dialog_minimized", false);
+                                boolean isMinimized = preferences.get(AppPreferences.SOS_DIALOG_MINIMIZED, false);
                                 if (!isMinimized) {
                                     // Show dialog on UI thread
                                     uiUpdateHandler.post(() -> showSOSStatusForReport(activeReportId));
@@ -258,7 +301,7 @@ public class HomeFragment extends Fragment implements OnMapReadyCallback,
                 // On error, clear state to be safe
                 clearSOSState();
             }
-        }).start();
+        });
     }
 
     /**
@@ -287,7 +330,7 @@ public class HomeFragment extends Fragment implements OnMapReadyCallback,
                     clearSOSState();
                 } else {
                     // Dialog was minimized
-                    prefsManager.putBoolean("sos_dialog_minimized", true);
+                    preferences.put(AppPreferences.SOS_DIALOG_MINIMIZED, true);
                 }
             }
 
@@ -301,7 +344,7 @@ public class HomeFragment extends Fragment implements OnMapReadyCallback,
         });
 
         // Reset minimized state when showing dialog
-        prefsManager.putBoolean("sos_dialog_minimized", false);
+        preferences.put(AppPreferences.SOS_DIALOG_MINIMIZED, false);
         dialog.show();
     }
 
@@ -401,10 +444,10 @@ public class HomeFragment extends Fragment implements OnMapReadyCallback,
         Log.d(TAG, "SOS button clicked for: " + emergencyType);
 
         // Check if there's already an active SOS report
-        String activeReportId = prefsManager.getString("active_sos_report_id", null);
+        String activeReportId = preferences.get(AppPreferences.ACTIVE_SOS_REPORT_ID, null);
         if (activeReportId != null && !activeReportId.isEmpty()) {
             // Before showing existing dialog, verify report is still active
-            new Thread(() -> {
+            AppExecutors.getInstance().io().execute(() -> {
                 try {
                     DocumentReference reportRef = FirebaseFirestore.getInstance()
                             .collection("sos_reports")
@@ -423,7 +466,7 @@ public class HomeFragment extends Fragment implements OnMapReadyCallback,
                                     uiUpdateHandler.post(() -> proceedWithSOSConfirmation(emergencyType));
                                 } else {
                                     // Report is active, show status dialog
-                                    prefsManager.putBoolean("sos_dialog_minimized", false); // No longer minimized
+                                    preferences.put(AppPreferences.SOS_DIALOG_MINIMIZED, false); // No longer minimized
                                     uiUpdateHandler.post(() -> showSOSStatusForReport(activeReportId));
                                 }
                             } else {
@@ -447,7 +490,7 @@ public class HomeFragment extends Fragment implements OnMapReadyCallback,
                     clearSOSState();
                     uiUpdateHandler.post(() -> proceedWithSOSConfirmation(emergencyType));
                 }
-            }).start();
+            });
         } else {
             // No active SOS, proceed with new confirmation
             proceedWithSOSConfirmation(emergencyType);
@@ -480,7 +523,7 @@ public class HomeFragment extends Fragment implements OnMapReadyCallback,
             @Override
             public void onSOSConfirmed(String type) {
                 // Move to background thread
-                backgroundExecutor.execute(() -> handleSOSConfirmation(type));
+                sosExecutor.execute(() -> handleSOSConfirmation(type));
             }
 
             @Override
@@ -569,7 +612,7 @@ public class HomeFragment extends Fragment implements OnMapReadyCallback,
         if (!isAdded() || getContext() == null) return;
 
         // Use proper background handling and avoid ANR
-        backgroundExecutor.execute(() -> {
+        sosExecutor.execute(() -> {
             // Process the SOS report using the processing service
             sosProcessingService.processSOSReport(report, new SOSProcessingService.SOSProcessingListener() {
                 @Override
@@ -583,9 +626,12 @@ public class HomeFragment extends Fragment implements OnMapReadyCallback,
                         // Update notification tags
                         updateNotificationTags(processedReport);
 
-                        // Save the report ID to preferences to track active SOS
+                        // Save the report ID to preferences to track active SOS, written at
+                        // once so a restart straight after still finds it
                         if (processedReport.getReportId() != null) {
-                            prefsManager.putString("active_sos_report_id", processedReport.getReportId());
+                            preferences.edit()
+                                    .put(AppPreferences.ACTIVE_SOS_REPORT_ID, processedReport.getReportId())
+                                    .applyImmediately();
                         }
 
                         // Show the status dialog
@@ -672,10 +718,12 @@ public class HomeFragment extends Fragment implements OnMapReadyCallback,
     }
 
     private void clearSOSState() {
-        // Clear all SOS-related preferences
-        prefsManager.remove("active_sos_report_id");
-        prefsManager.remove("sos_dialog_minimized");
-        prefsManager.putBoolean("has_active_sos", false);
+        // Clear all SOS-related preferences in one write
+        preferences.edit()
+                .remove(AppPreferences.ACTIVE_SOS_REPORT_ID)
+                .remove(AppPreferences.SOS_DIALOG_MINIMIZED)
+                .put(AppPreferences.HAS_ACTIVE_SOS, false)
+                .applyImmediately();
 
         Log.d(TAG, "Cleared all SOS state data");
 
@@ -746,7 +794,7 @@ public class HomeFragment extends Fragment implements OnMapReadyCallback,
                     }
 
                     // Execute on background thread
-                    new Thread(() -> {
+                    AppExecutors.getInstance().io().execute(() -> {
                         // Test SMS
                         SOSProcessingService sosService = new SOSProcessingService(requireContext());
                         boolean smsResult = sosService.testSMSFunctionality(phoneNumber);
@@ -764,7 +812,7 @@ public class HomeFragment extends Fragment implements OnMapReadyCallback,
                                             ", Push notification sent to your device",
                                     Toast.LENGTH_LONG).show();
                         });
-                    }).start();
+                    });
                 })
                 .setNeutralButton("Test SMS Only", (dialog, which) -> {
                     String phoneNumber = phoneInput.getText().toString().trim();
@@ -775,7 +823,7 @@ public class HomeFragment extends Fragment implements OnMapReadyCallback,
                     }
 
                     // Execute on background thread
-                    new Thread(() -> {
+                    AppExecutors.getInstance().io().execute(() -> {
                         SOSProcessingService sosService = new SOSProcessingService(requireContext());
                         boolean result = sosService.testSMSFunctionality(phoneNumber);
 
@@ -785,7 +833,7 @@ public class HomeFragment extends Fragment implements OnMapReadyCallback,
                                     result ? "Test SMS sent successfully!" : "Failed to send test SMS",
                                     Toast.LENGTH_LONG).show();
                         });
-                    }).start();
+                    });
                 })
                 .setNegativeButton("Cancel", null)
                 .show();
@@ -957,7 +1005,7 @@ public class HomeFragment extends Fragment implements OnMapReadyCallback,
             Log.d(TAG, "Status update notification: " + status + " (Report ID: " + reportId + ")");
 
             // If there's a report ID and it matches our active report, show the status dialog
-            String activeReportId = prefsManager.getString("active_sos_report_id", null);
+            String activeReportId = preferences.get(AppPreferences.ACTIVE_SOS_REPORT_ID, null);
             if (reportId.equals(activeReportId)) {
                 showSOSStatusForReport(reportId);
             } else {
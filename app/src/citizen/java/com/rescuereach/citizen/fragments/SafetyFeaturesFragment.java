@@ -39,35 +39,33 @@ import com.google.android.gms.maps.OnMapReadyCallback;
 import com.google.android.gms.maps.model.BitmapDescriptor;
 import com.google.android.gms.maps.model.BitmapDescriptorFactory;
 import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
 import com.google.android.gms.maps.model.Marker;
 import com.google.android.gms.maps.model.MapStyleOptions;
 import com.google.android.gms.maps.model.MarkerOptions;
-import com.google.android.libraries.places.api.Places;
-import com.google.android.libraries.places.api.model.AutocompletePrediction;
-import com.google.android.libraries.places.api.model.Place;
-import com.google.android.libraries.places.api.model.RectangularBounds;
-import com.google.android.libraries.places.api.net.FetchPlaceRequest;
-import com.google.android.libraries.places.api.net.FindAutocompletePredictionsRequest;
-import com.google.android.libraries.places.api.net.PlacesClient;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.android.material.snackbar.Snackbar;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 import com.rescuereach.R;
+import com.rescuereach.data.local.CachedEmergencyService;
+import com.rescuereach.data.local.EmergencyServiceCache;
+import com.rescuereach.service.location.SignificantChangeMonitor;
+import com.rescuereach.service.places.NearbyPlace;
+import com.rescuereach.service.places.PlacesQueryEngine;
+import com.rescuereach.ui.map.MarkerDiffRenderer;
+import com.rescuereach.util.AppExecutors;
 import com.rescuereach.util.LocationManager;
 import com.rescuereach.util.NetworkManager;
 
-import java.lang.reflect.Type;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class SafetyFeaturesFragment extends Fragment implements OnMapReadyCallback {
@@ -77,13 +75,22 @@ public class SafetyFeaturesFragment extends Fragment implements OnMapReadyCallba
 
     // Distance threshold for refreshing services (meters)
     private static final float LOCATION_REFRESH_THRESHOLD = 500.0f; // 500 meters
+    private static final String SEARCH_REGION_KEY = "safety_nearby_search";
 
     // Cache keys for SharedPreferences
     private static final String PREFS_NAME = "SafetyFeatureCache";
     private static final String KEY_LAST_LOCATION = "LastLocation";
-    private static final String KEY_CACHED_SERVICES = "CachedServices";
-    private static final String KEY_CACHE_TIMESTAMP = "CacheTimestamp";
+    // Services used to be cached here as one JSON string, now they live in Room
+    private static final String LEGACY_KEY_CACHED_SERVICES = "CachedServices";
+    private static final String LEGACY_KEY_CACHE_TIMESTAMP = "CacheTimestamp";
     private static final long CACHE_MAX_AGE_MS = 24 * 60 * 60 * 1000; // 24 hours
+    private static final int MAX_CACHED_SERVICES_SHOWN = 60;
+    // Whole search, types still pending then are completed empty
+    private static final long SEARCH_TIMEOUT_MS = 10_000;
+
+    // Wider searches show enough markers to need clustering
+    private static final int CLUSTER_RADIUS_METERS = 5000;
+    private static final String[] SERVICE_TYPES = {"hospital", "police", "fire_station"};
 
     // UI Components
     private MapView mapView;
@@ -100,17 +107,22 @@ public class SafetyFeaturesFragment extends Fragment implements OnMapReadyCallba
 
     // Service components
     private LocationManager locationManager;
-    private PlacesClient placesClient;
+    private SignificantChangeMonitor significantChangeMonitor;
+    private PlacesQueryEngine placesQueryEngine;
     private NetworkManager networkManager;
     private SharedPreferences sharedPreferences;
-    private Gson gson;
+    private EmergencyServiceCache emergencyServiceCache;
 
     // State management
     private Location currentLocation;
     private Location lastSearchLocation; // Track location of last search
     private Marker userLocationMarker; // Reference to user's location marker
     private Toast currentToast = null;
+    // Search state, main thread only
     private boolean isSearchingPlaces = false;
+    private int searchGeneration = 0; // Incremented for every new search
+    private final Handler searchTimeoutHandler = new Handler(Looper.getMainLooper());
+    private Runnable searchTimeout;
     private int selectedProximityMeters = 3000; // Default 3km
     private String selectedServiceType = "all"; // Default all services
     private final Handler mainHandler = new Handler(Looper.getMainLooper());
@@ -119,25 +131,30 @@ public class SafetyFeaturesFragment extends Fragment implements OnMapReadyCallba
     private boolean isOfflineMode = false; // Track if we're in offline mode
     private boolean hasShownOfflineNotice = false; // Track if we've already shown the offline notice
     private boolean isStopped = false; // Track if the fragment is stopped
+    private volatile long servicesCachedAt = 0; // When the newest cached service was stored
 
     // ANR prevention - debounce control
     private long lastUIInteractionTime = 0;
     private long lastSearchRequestTime = 0;
 
     // Background thread executor for offloading heavy operations
-    private final Executor backgroundExecutor = Executors.newFixedThreadPool(2);
-
-    // Place search configuration
-    private final Map<String, List<String>> placeTypeKeywords = new HashMap<>();
+    // Room and preferences, a full lane must not drop these
+    private final Executor backgroundExecutor = AppExecutors.getInstance().io();
 
-    // Store place data for markers
-    private final Map<String, EmergencyServicePlace> markerPlaceData = new HashMap<>();
+    // Service markers, diffed against what's already on the map
+    private MarkerDiffRenderer serviceMarkers;
+    // Latest results per service type and the de-duplicated set on the map (main thread only)
+    private final Map<String, List<EmergencyServicePlace>> placesByType = new LinkedHashMap<>();
+    private final Map<String, EmergencyServicePlace> shownPlaces = new LinkedHashMap<>();
+    // Types of the current search that haven't reported yet
+    private final Set<String> pendingSearchTypes = new HashSet<>();
 
     // Field to track the total number of places found
     private int totalPlacesFound = 0;
 
     // Class to store emergency service place data
     private static class EmergencyServicePlace {
+        String placeId;
         String name;
         String address;
         String phoneNumber;
@@ -145,7 +162,9 @@ public class SafetyFeaturesFragment extends Fragment implements OnMapReadyCallba
         double distanceKm;
         LatLng location;
 
-        EmergencyServicePlace(String name, String address, String phoneNumber, String placeType, double distanceKm, LatLng location) {
+        EmergencyServicePlace(String placeId, String name, String address, String phoneNumber,
+                              String placeType, double distanceKm, LatLng location) {
+            this.placeId = placeId;
             this.name = name;
             this.address = address;
             this.phoneNumber = phoneNumber;
@@ -164,22 +183,28 @@ public class SafetyFeaturesFragment extends Fragment implements OnMapReadyCallba
 
         // Initialize location manager
         locationManager = new LocationManager(requireContext());
+        significantChangeMonitor = SignificantChangeMonitor.getInstance(requireContext());
 
         // Initialize network manager
         networkManager = new NetworkManager(requireContext());
 
         // Initialize shared preferences for caching
         sharedPreferences = requireContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        gson = new Gson();
+        emergencyServiceCache = EmergencyServiceCache.getInstance(requireContext());
 
-        // Initialize Places API if needed
-        if (!Places.isInitialized()) {
-            Places.initialize(requireContext(), getString(R.string.google_maps_key));
-        }
-        placesClient = Places.createClient(requireContext());
+        // Find out how fresh the offline services are, and drop the old JSON copy
+        backgroundExecutor.execute(() -> {
+            servicesCachedAt = emergencyServiceCache.getLastCachedAt();
+            if (sharedPreferences.contains(LEGACY_KEY_CACHED_SERVICES)) {
+                sharedPreferences.edit()
+                        .remove(LEGACY_KEY_CACHED_SERVICES)
+                        .remove(LEGACY_KEY_CACHE_TIMESTAMP)
+                        .apply();
+            }
+        });
 
-        // Setup place type keywords for emergency services search
-        setupPlaceTypeKeywords();
+        // Shared Places engine (keywords, caching and rate limiting live there)
+        placesQueryEngine = PlacesQueryEngine.getInstance(requireContext());
     }
 
     @Override
@@ -327,15 +352,14 @@ public class SafetyFeaturesFragment extends Fragment implements OnMapReadyCallba
      * Check if we have cached services data
      */
     private boolean hasCachedServicesData() {
-        if (!sharedPreferences.contains(KEY_CACHED_SERVICES)) {
+        if (servicesCachedAt == 0) {
             return false;
         }
 
         // Check if cache is still valid (not too old)
-        long timestamp = sharedPreferences.getLong(KEY_CACHE_TIMESTAMP, 0);
         long currentTime = System.currentTimeMillis();
 
-        return (currentTime - timestamp) < CACHE_MAX_AGE_MS;
+        return (currentTime - servicesCachedAt) < CACHE_MAX_AGE_MS;
     }
 
     /**
@@ -398,26 +422,33 @@ public class SafetyFeaturesFragment extends Fragment implements OnMapReadyCallba
      * Cache emergency services data for offline use
      */
     private void cacheServicesData() {
-        if (markerPlaceData.isEmpty()) {
+        if (shownPlaces.isEmpty()) {
             return;
         }
 
+        // Copy on the calling thread, markers keep changing on the main thread
+        List<EmergencyServicePlace> places = new ArrayList<>(shownPlaces.values());
+        String noPhone = getString(R.string.no_phone_available);
+        String noAddress = getString(R.string.address_unavailable);
+
         // Move to background thread to prevent ANR
         backgroundExecutor.execute(() -> {
-            try {
-                // Convert to JSON
-                String servicesJson = gson.toJson(new ArrayList<>(markerPlaceData.values()));
-
-                // Save to SharedPreferences
-                sharedPreferences.edit()
-                        .putString(KEY_CACHED_SERVICES, servicesJson)
-                        .putLong(KEY_CACHE_TIMESTAMP, System.currentTimeMillis())
-                        .apply();
-
-                Log.d(TAG, "Cached " + markerPlaceData.size() + " emergency services for offline use");
-            } catch (Exception e) {
-                Log.e(TAG, "Error caching services data", e);
+            List<CachedEmergencyService> entries = new ArrayList<>();
+            for (EmergencyServicePlace place : places) {
+                if (place.placeId == null || place.location == null) {
+                    continue;
+                }
+                CachedEmergencyService entry = new CachedEmergencyService(place.placeId, place.name,
+                        place.placeType, place.location.latitude, place.location.longitude);
+                // Don't store the display placeholders as real values
+                entry.setAddress(noAddress.equals(place.address) ? null : place.address);
+                entry.setPhoneNumber(noPhone.equals(place.phoneNumber) ? null : place.phoneNumber);
+                entries.add(entry);
             }
+
+            emergencyServiceCache.save(entries);
+            servicesCachedAt = System.currentTimeMillis();
+            Log.d(TAG, "Cached " + entries.size() + " emergency services for offline use");
         });
     }
 
@@ -434,69 +465,58 @@ public class SafetyFeaturesFragment extends Fragment implements OnMapReadyCallba
             }
         });
 
-        // Process data in background
+        // Read the current filter on this thread
+        final Location searchCenter = currentLocation;
+        final String category = selectedServiceType.equals("all") ? null : selectedServiceType;
+        final int radiusMeters = selectedProximityMeters;
+        final String noPhone = getString(R.string.no_phone_available);
+        final String noAddress = getString(R.string.address_unavailable);
+
+        // Query in background
         backgroundExecutor.execute(() -> {
             try {
-                String servicesJson = sharedPreferences.getString(KEY_CACHED_SERVICES, null);
-                if (servicesJson != null) {
-                    // Parse JSON in background thread
-                    Type listType = new TypeToken<ArrayList<EmergencyServicePlace>>(){}.getType();
-                    List<EmergencyServicePlace> cachedServices = gson.fromJson(servicesJson, listType);
-
-                    // Filter services in background
+                // Radius and type filtering happen in the indexed query
+                List<CachedEmergencyService> cachedServices = searchCenter != null ?
+                        emergencyServiceCache.findNearest(searchCenter.getLatitude(),
+                                searchCenter.getLongitude(), radiusMeters, category,
+                                MAX_CACHED_SERVICES_SHOWN, CACHE_MAX_AGE_MS) :
+                        emergencyServiceCache.findRecent(category, MAX_CACHED_SERVICES_SHOWN, CACHE_MAX_AGE_MS);
+
+                if (!cachedServices.isEmpty()) {
                     List<EmergencyServicePlace> filteredServices = new ArrayList<>();
-                    for (EmergencyServicePlace place : cachedServices) {
-                        if (shouldAddServiceBasedOnFilter(place)) {
-                            filteredServices.add(place);
-                        }
+                    for (CachedEmergencyService cached : cachedServices) {
+                        filteredServices.add(new EmergencyServicePlace(
+                                cached.getPlaceId(),
+                                cached.getName(),
+                                cached.getAddress() != null ? cached.getAddress() : noAddress,
+                                cached.getPhoneNumber() != null ? cached.getPhoneNumber() : noPhone,
+                                cached.getCategory(),
+                                cached.getDistanceMeters() / 1000.0,
+                                new LatLng(cached.getLatitude(), cached.getLongitude())));
                     }
 
                     // Update UI on main thread
                     mainHandler.post(() -> {
                         if (isStopped || !isAdded() || isDetached()) return;
 
-                        // Clear existing markers
-                        if (googleMap != null) {
-                            googleMap.clear();
-                            markerPlaceData.clear();
-                            userLocationMarker = null;
-                        }
-
-                        // Add user location marker
-                        updateUserLocationMarker();
-
-                        // Add service markers efficiently in batches
+                        // Replace all results, the renderer only touches markers that changed
+                        placesByType.clear();
                         for (EmergencyServicePlace place : filteredServices) {
-                            // Choose marker color based on service type
-                            float markerColor;
-                            if (place.placeType.equals("hospital")) {
-                                markerColor = BitmapDescriptorFactory.HUE_RED;
-                            } else if (place.placeType.equals("police")) {
-                                markerColor = BitmapDescriptorFactory.HUE_BLUE;
-                            } else if (place.placeType.equals("fire_station")) {
-                                markerColor = BitmapDescriptorFactory.HUE_ORANGE;
-                            } else {
-                                markerColor = BitmapDescriptorFactory.HUE_GREEN;
-                            }
-
-                            // Add marker
-                            Marker marker = googleMap.addMarker(new MarkerOptions()
-                                    .position(place.location)
-                                    .title(place.name)
-                                    .snippet(String.format(Locale.getDefault(),
-                                            getString(R.string.place_distance), place.distanceKm))
-                                    .icon(BitmapDescriptorFactory.defaultMarker(markerColor))
-                                    .zIndex(0.5f));
-
-                            if (marker != null) {
-                                markerPlaceData.put(marker.getId(), place);
+                            List<EmergencyServicePlace> ofType = placesByType.get(place.placeType);
+                            if (ofType == null) {
+                                ofType = new ArrayList<>();
+                                placesByType.put(place.placeType, ofType);
                             }
+                            ofType.add(place);
                         }
 
+                        updateUserLocationMarker();
+                        renderServicePlaces();
+
                         // Hide progress and show notice
                         progressBar.setVisibility(View.GONE);
                         showToast(getString(R.string.using_cached_data,
-                                        formatTimestamp(sharedPreferences.getLong(KEY_CACHE_TIMESTAMP, 0))),
+                                        formatTimestamp(servicesCachedAt)),
                                 Toast.LENGTH_LONG);
 
                         hasPerformedSearch = true;
@@ -519,30 +539,6 @@ public class SafetyFeaturesFragment extends Fragment implements OnMapReadyCallba
         });
     }
 
-    /**
-     * Determine if a service should be added based on the selected filter
-     */
-    private boolean shouldAddServiceBasedOnFilter(EmergencyServicePlace place) {
-        // Check service type filter
-        if (!selectedServiceType.equals("all") && !place.placeType.equals(selectedServiceType)) {
-            return false;
-        }
-
-        // Check proximity filter (if we have current location)
-        if (currentLocation != null && place.location != null) {
-            float[] results = new float[1];
-            Location.distanceBetween(
-                    currentLocation.getLatitude(), currentLocation.getLongitude(),
-                    place.location.latitude, place.location.longitude,
-                    results);
-
-            float distanceKm = results[0] / 1000; // Convert meters to km
-            return distanceKm <= (selectedProximityMeters / 1000.0f);
-        }
-
-        return true;
-    }
-
     /**
      * Format a timestamp into a readable date string
      */
@@ -556,18 +552,6 @@ public class SafetyFeaturesFragment extends Fragment implements OnMapReadyCallba
         return String.format(Locale.getDefault(), "%1$tB %1$td, %1$tY %1$tI:%1$tM %1$Tp", date);
     }
 
-    private void setupPlaceTypeKeywords() {
-        // Setup keywords for each emergency service type
-        placeTypeKeywords.put("hospital", Arrays.asList(
-                "hospital", "emergency room", "medical center", "trauma center"));
-
-        placeTypeKeywords.put("police", Arrays.asList(
-                "police station", "police department", "law enforcement"));
-
-        placeTypeKeywords.put("fire_station", Arrays.asList(
-                "fire station", "fire department", "fire and rescue"));
-    }
-
     private void setupProximitySpinner() {
         // Setup proximity spinner with distance options
         List<String> proximityOptions = new ArrayList<>();
@@ -800,9 +784,6 @@ public class SafetyFeaturesFragment extends Fragment implements OnMapReadyCallba
             public void onLocationUpdated(Location location) {
                 if (isStopped) return;
 
-                // Check if we've moved enough to warrant an update
-                boolean significantMove = isSignificantLocationChange(currentLocation, location);
-
                 // Update current location
                 currentLocation = location;
 
@@ -816,23 +797,8 @@ public class SafetyFeaturesFragment extends Fragment implements OnMapReadyCallba
                     }
                 });
 
-                // Check if we should refresh emergency services
-                if (!isOfflineMode && hasPerformedSearch && significantMove && autoRefreshEnabled && lastSearchLocation != null) {
-                    // Calculate distance from last search location
-                    float distanceFromLastSearch = location.distanceTo(lastSearchLocation);
-
-                    // If we've moved beyond the threshold, refresh services
-                    if (distanceFromLastSearch > LOCATION_REFRESH_THRESHOLD) {
-                        mainHandler.post(() -> {
-                            if (!isStopped) {
-                                showLocationUpdateSnackbar(distanceFromLastSearch);
-                                if (!isSearchingPlaces) {
-                                    triggerSearchNearbyServices();
-                                }
-                            }
-                        });
-                    }
-                }
+                // Refreshing emergency services is driven by the search region geofence,
+                // see watchSearchRegion()
             }
 
             @Override
@@ -853,21 +819,58 @@ public class SafetyFeaturesFragment extends Fragment implements OnMapReadyCallba
     }
 
     /**
-     * Determines if there's been a significant location change that warrants an update
-     * @param oldLocation Previous location
-     * @param newLocation Current location
-     * @return true if the change is significant
+     * Watch the area around the last search, so services are refreshed once the user leaves it
+     * rather than checking the distance on every fix
      */
-    private boolean isSignificantLocationChange(Location oldLocation, Location newLocation) {
-        if (oldLocation == null || newLocation == null) {
-            return true;
+    private void watchSearchRegion(Location searchCentre) {
+        significantChangeMonitor.watch(SEARCH_REGION_KEY, searchCentre, LOCATION_REFRESH_THRESHOLD,
+                this::onSearchRegionExited);
+    }
+
+    /**
+     * Watch the last search area again after onStop dropped it. If the user was last seen
+     * outside it the services are refreshed now, otherwise the next exit refreshes them.
+     */
+    private void resumeSearchRegion() {
+        if (!hasPerformedSearch || lastSearchLocation == null) {
+            return;
         }
+        if (currentLocation != null
+                && currentLocation.distanceTo(lastSearchLocation) > LOCATION_REFRESH_THRESHOLD) {
+            mainHandler.post(() -> onSearchRegionExited(currentLocation));
+        } else {
+            watchSearchRegion(lastSearchLocation);
+        }
+    }
 
-        // Check distance between locations
-        float distance = oldLocation.distanceTo(newLocation);
+    private void onSearchRegionExited(Location exitLocation) {
+        if (!hasPerformedSearch || lastSearchLocation == null) {
+            return;
+        }
+        if (isOfflineMode || !autoRefreshEnabled) {
+            // The region is no longer watched after an exit. Watch around where the user is now,
+            // so leaving that still refreshes once back online or if auto refresh is back on.
+            Location centre = exitLocation != null ? exitLocation : currentLocation;
+            if (centre != null) {
+                watchSearchRegion(centre);
+            }
+            return;
+        }
+        if (isStopped) {
+            // Unwatched in onStop, a late event is picked up again by resumeSearchRegion()
+            return;
+        }
 
-        // Consider it significant if moved more than 10 meters
-        return distance > 10;
+        if (exitLocation != null) {
+            showLocationUpdateSnackbar(exitLocation.distanceTo(lastSearchLocation));
+        }
+        if (!isSearchingPlaces) {
+            // The query engine answers from its cache if the new area was searched recently
+            triggerSearchNearbyServices();
+        } else if (currentLocation != null) {
+            // Keep watching so the next exit still refreshes
+            watchSearchRegion(currentLocation);
+        }
     }
 
     /**
@@ -928,9 +931,10 @@ public class SafetyFeaturesFragment extends Fragment implements OnMapReadyCallba
         if (googleMap != null && currentLocation != null && isAdded()) {
             LatLng latLng = new LatLng(currentLocation.getLatitude(), currentLocation.getLongitude());
 
-            // Remove old user marker if it exists
+            // Move the existing marker rather than re-creating it
             if (userLocationMarker != null) {
-                userLocationMarker.remove();
+                userLocationMarker.setPosition(latLng);
+                return;
             }
 
             // Add new marker at current location
@@ -942,6 +946,51 @@ public class SafetyFeaturesFragment extends Fragment implements OnMapReadyCallba
         }
     }
 
+    /**
+     * Push the current results to the map. Only markers whose place changed are touched,
+     * and large changes are spread over several frames.
+     */
+    private void renderServicePlaces() {
+        shownPlaces.clear();
+        String distanceFormat = getString(R.string.place_distance);
+        List<MarkerDiffRenderer.Item> items = new ArrayList<>();
+
+        for (List<EmergencyServicePlace> places : placesByType.values()) {
+            for (EmergencyServicePlace place : places) {
+                // The same place can turn up under two types, show it once
+                if (place.placeId == null || shownPlaces.containsKey(place.placeId)) {
+                    continue;
+                }
+                shownPlaces.put(place.placeId, place);
+                items.add(new MarkerDiffRenderer.Item(
+                        place.placeId,
+                        place.location,
+                        place.name,
+                        String.format(Locale.getDefault(), distanceFormat, place.distanceKm),
+                        markerHueFor(place.placeType),
+                        0.5f, // Lower than user marker
+                        place));
+            }
+        }
+
+        if (serviceMarkers != null) {
+            serviceMarkers.setItems(items, selectedProximityMeters >= CLUSTER_RADIUS_METERS);
+        }
+    }
+
+    private static float markerHueFor(String placeType) {
+        switch (placeType) {
+            case "hospital":
+                return BitmapDescriptorFactory.HUE_RED;
+            case "police":
+                return BitmapDescriptorFactory.HUE_BLUE;
+            case "fire_station":
+                return BitmapDescriptorFactory.HUE_ORANGE;
+            default:
+                return BitmapDescriptorFactory.HUE_GREEN;
+        }
+    }
+
     /**
      * Initialize the map with the user's location marker
      * Called when the map is first ready
@@ -980,6 +1029,11 @@ public class SafetyFeaturesFragment extends Fragment implements OnMapReadyCallba
     }
 
     private void searchNearbyServices() {
+        // Search state is only touched on the main thread
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            mainHandler.post(this::searchNearbyServices);
+            return;
+        }
         if (isStopped) return;
 
         if (isOfflineMode) {
@@ -1001,396 +1055,157 @@ public class SafetyFeaturesFragment extends Fragment implements OnMapReadyCallba
         }
 
         // Show loading indicator
-        mainHandler.post(() -> {
-            if (!isStopped && isAdded() && !isDetached()) {
-                progressBar.setVisibility(View.VISIBLE);
-            }
-        });
-
-        // Move heavy work to background thread
-        backgroundExecutor.execute(() -> {
-            try {
-                // Mark as searching
-                isSearchingPlaces = true;
-
-                // Store this location as the last search location
-                lastSearchLocation = new Location(currentLocation);
-
-                // Mark that we've performed a search
-                hasPerformedSearch = true;
-
-                mainHandler.post(() -> {
-                    if (isStopped || !isAdded() || isDetached()) return;
-
-                    // Clear previous markers and data, but keep user marker reference
-                    if (googleMap != null) {
-                        googleMap.clear();
-                        markerPlaceData.clear();
-                        userLocationMarker = null;
-
-                        // Add back the user's current location marker
-                        updateUserLocationMarker();
-                    }
-                });
-
-                // Create location for search
-                LatLng location = new LatLng(currentLocation.getLatitude(), currentLocation.getLongitude());
-
-                // Counter to track completion of all searches
-                AtomicInteger searchCounter = new AtomicInteger(0);
-
-                // For larger search radii, adjust the priority to find more results
-                int maxResultsPerType;
-                if (selectedProximityMeters <= 3000) {
-                    maxResultsPerType = 5;  // Default 5 results for smaller radii
-                } else if (selectedProximityMeters <= 5000) {
-                    maxResultsPerType = 8;  // Increase for 5km
-                } else {
-                    maxResultsPerType = 10; // Max 10 results for 10km
-                }
-
-                // Add master timeout for entire search operation
-                final Handler timeoutHandler = new Handler(Looper.getMainLooper());
-                final Runnable timeoutRunnable = () -> {
-                    if (isSearchingPlaces) {
-                        Log.w(TAG, "Search timed out, forcing completion");
-                        checkSearchCompletion(searchCounter, true); // Force completion
-                    }
-                };
-
-                // Set a 10 second timeout for entire search
-                timeoutHandler.postDelayed(timeoutRunnable, 10000);
-
-                try {
-                    // Determine services to search based on selection
-                    if (selectedServiceType.equals("all") || selectedServiceType.equals("hospital")) {
-                        searchNearbyPlaces(location, "hospital", BitmapDescriptorFactory.HUE_RED, searchCounter, maxResultsPerType);
-                    }
-
-                    if (selectedServiceType.equals("all") || selectedServiceType.equals("police")) {
-                        searchNearbyPlaces(location, "police", BitmapDescriptorFactory.HUE_BLUE, searchCounter, maxResultsPerType);
-                    }
-
-                    if (selectedServiceType.equals("all") || selectedServiceType.equals("fire_station")) {
-                        searchNearbyPlaces(location, "fire_station", BitmapDescriptorFactory.HUE_ORANGE, searchCounter, maxResultsPerType);
-                    }
-                } finally {
-                    // Show searching toast
-                    mainHandler.post(() -> {
-                        if (!isStopped && isAdded() && !isDetached()) {
-                            showToast(getString(R.string.loading_places), Toast.LENGTH_SHORT);
-                        }
-                    });
-                }
-
-            } catch (Exception e) {
-                Log.e(TAG, "Search error", e);
-                mainHandler.post(() -> {
-                    if (!isStopped && isAdded() && !isDetached()) {
-                        progressBar.setVisibility(View.GONE);
-                        isSearchingPlaces = false;
-                        showToast(getString(R.string.search_error), Toast.LENGTH_SHORT);
-                    }
-                });
-            }
-        });
-    }
-
-    private void searchNearbyPlaces(LatLng location, String placeType, float markerColor, AtomicInteger counter, int maxResults) {
-        if (isStopped) {
-            counter.incrementAndGet(); // Make sure to count even if stopped
-            return;
+        if (isAdded() && !isDetached()) {
+            progressBar.setVisibility(View.VISIBLE);
         }
 
-        // Get the keywords for this place type
-        List<String> keywords = placeTypeKeywords.get(placeType);
-        if (keywords == null || keywords.isEmpty()) {
-            counter.incrementAndGet(); // Make sure to count this search even if no keywords
-            return;
-        }
-
-        // For larger radii, use a more aggressive search approach
-        List<String> effectiveKeywords;
-        if (selectedProximityMeters >= 5000) {
-            // For larger radii, add additional keywords to find more places
-            effectiveKeywords = new ArrayList<>(keywords);
-
-            // Add general emergency service keywords for broader search
-            if (placeType.equals("hospital")) {
-                effectiveKeywords.add("clinic");
-                effectiveKeywords.add("emergency");
-                effectiveKeywords.add("urgent care");
-            } else if (placeType.equals("police")) {
-                effectiveKeywords.add("sheriff");
-                effectiveKeywords.add("security");
-            } else if (placeType.equals("fire_station")) {
-                effectiveKeywords.add("emergency services");
-                effectiveKeywords.add("rescue");
+        try {
+            // Mark as searching, a timer or result still running for the previous search
+            // sees the new generation and drops out
+            cancelSearchTimeout();
+            isSearchingPlaces = true;
+            final int generation = ++searchGeneration;
+
+            // Store this location as the last search location and re-centre the region on it
+            lastSearchLocation = new Location(currentLocation);
+            watchSearchRegion(lastSearchLocation);
+
+            // Mark that we've performed a search
+            hasPerformedSearch = true;
+
+            // Keep the previous markers until each type's new results arrive,
+            // only drop the types that are filtered out now
+            final String serviceType = selectedServiceType;
+            pendingSearchTypes.clear();
+            for (String type : SERVICE_TYPES) {
+                if (serviceType.equals("all") || serviceType.equals(type)) {
+                    pendingSearchTypes.add(type);
+                }
             }
-        } else {
-            // For smaller radii, use original keywords
-            effectiveKeywords = keywords;
-        }
-
-        // Expand bounds slightly for larger radii to ensure we don't miss any places
-        double expansionFactor = 1.0;
-        if (selectedProximityMeters >= 5000) {
-            expansionFactor = 1.2; // Expand bounds by 20% for larger radii
-        }
+            placesByType.keySet().retainAll(pendingSearchTypes);
 
-        // Calculate bounds with potential expansion
-        double latRadiusDegrees = (selectedProximityMeters * expansionFactor) / 111000.0; // approximate degrees per meter
-        double lngRadiusDegrees = latRadiusDegrees / Math.cos(Math.toRadians(location.latitude));
-
-        RectangularBounds bounds = RectangularBounds.newInstance(
-                new LatLng(location.latitude - latRadiusDegrees, location.longitude - lngRadiusDegrees),
-                new LatLng(location.latitude + latRadiusDegrees, location.longitude + lngRadiusDegrees));
-
-        // Counter for found places
-        AtomicInteger foundPlacesCounter = new AtomicInteger(0);
-        AtomicInteger keywordRequestsCounter = new AtomicInteger(0);
-        final int totalKeywords = effectiveKeywords.size();
-        final int MAX_RESULTS = maxResults;
-
-        // Add timeout for this specific search
-        final Handler searchTimeoutHandler = new Handler(Looper.getMainLooper());
-        final Runnable searchTimeoutRunnable = () -> {
-            // If we're still searching after timeout, force complete this keyword search
-            Log.w(TAG, "Search timeout for " + placeType);
-            if (keywordRequestsCounter.get() < totalKeywords) {
-                keywordRequestsCounter.set(totalKeywords);
-                checkSearchCompletion(counter);
+            if (isAdded() && !isDetached()) {
+                updateUserLocationMarker();
+                renderServicePlaces();
             }
-        };
 
-        // Set 5-second timeout for this search type
-        searchTimeoutHandler.postDelayed(searchTimeoutRunnable, 5000);
+            // Create location for search
+            LatLng location = new LatLng(currentLocation.getLatitude(), currentLocation.getLongitude());
 
-        // Search for places using each keyword
-        for (String keyword : effectiveKeywords) {
-            if (isStopped) {
-                // Skip if fragment is stopped
-                continue;
-            }
+            // Counter to track completion of all searches
+            AtomicInteger searchCounter = new AtomicInteger(0);
 
-            if (foundPlacesCounter.get() >= MAX_RESULTS) {
-                // Already found enough places
-                if (keywordRequestsCounter.incrementAndGet() >= totalKeywords) {
-                    searchTimeoutHandler.removeCallbacks(searchTimeoutRunnable);
-                    checkSearchCompletion(counter);
-                }
-                continue;
+            // For larger search radii, adjust the priority to find more results
+            int maxResultsPerType;
+            if (selectedProximityMeters <= 3000) {
+                maxResultsPerType = 5;  // Default 5 results for smaller radii
+            } else if (selectedProximityMeters <= 5000) {
+                maxResultsPerType = 8;  // Increase for 5km
+            } else {
+                maxResultsPerType = 10; // Max 10 results for 10km
             }
 
-            // Create the autocomplete request
-            FindAutocompletePredictionsRequest request = FindAutocompletePredictionsRequest.builder()
-                    .setLocationBias(bounds)
-                    .setOrigin(location)
-                    .setQuery(keyword)
-                    .build();
-
-            // Per-request timeout handling
-            final Handler requestTimeoutHandler = new Handler(Looper.getMainLooper());
-            final String keywordFinal = keyword; // For logging
-            final Runnable requestTimeoutRunnable = () -> {
-                Log.w(TAG, "Request timeout for keyword: " + keywordFinal);
-                if (keywordRequestsCounter.incrementAndGet() >= totalKeywords) {
-                    searchTimeoutHandler.removeCallbacks(searchTimeoutRunnable);
-                    checkSearchCompletion(counter);
+            // Master timeout for this search only
+            searchTimeout = () -> {
+                if (generation == searchGeneration && isSearchingPlaces) {
+                    Log.w(TAG, "Search timed out, forcing completion");
+                    checkSearchCompletion(searchCounter, true); // Force completion
                 }
             };
+            searchTimeoutHandler.postDelayed(searchTimeout, SEARCH_TIMEOUT_MS);
 
-            // 3-second timeout per request
-            requestTimeoutHandler.postDelayed(requestTimeoutRunnable, 3000);
-
-            // Execute the request
-            placesClient.findAutocompletePredictions(request)
-                    .addOnSuccessListener(response -> {
-                        // Remove timeout for this request
-                        requestTimeoutHandler.removeCallbacks(requestTimeoutRunnable);
-
-                        if (isStopped) {
-                            // Skip if fragment is stopped
-                            if (keywordRequestsCounter.incrementAndGet() >= totalKeywords) {
-                                searchTimeoutHandler.removeCallbacks(searchTimeoutRunnable);
-                                checkSearchCompletion(counter);
-                            }
-                            return;
-                        }
-
-                        // Process predictions (places found)
-                        backgroundExecutor.execute(() -> {
-                            processPredictions(response.getAutocompletePredictions(), location,
-                                    placeType, markerColor, foundPlacesCounter,
-                                    keywordRequestsCounter, totalKeywords,
-                                    MAX_RESULTS, counter, searchTimeoutHandler, searchTimeoutRunnable);
-                        });
+            // Determine services to search based on selection. The engine queries off the main
+            // thread and calls back here.
+            if (serviceType.equals("all") || serviceType.equals("hospital")) {
+                searchNearbyPlaces(location, "hospital", searchCounter, maxResultsPerType);
+            }
 
-                        // If no predictions found, we still need to track completion
-                        if (response.getAutocompletePredictions().isEmpty() &&
-                                keywordRequestsCounter.incrementAndGet() >= totalKeywords) {
-                            searchTimeoutHandler.removeCallbacks(searchTimeoutRunnable);
-                            checkSearchCompletion(counter);
-                        }
-                    })
-                    .addOnFailureListener(exception -> {
-                        // Remove timeout for this request
-                        requestTimeoutHandler.removeCallbacks(requestTimeoutRunnable);
+            if (serviceType.equals("all") || serviceType.equals("police")) {
+                searchNearbyPlaces(location, "police", searchCounter, maxResultsPerType);
+            }
 
-                        Log.e(TAG, "Place search failed: " + exception.getMessage());
+            if (serviceType.equals("all") || serviceType.equals("fire_station")) {
+                searchNearbyPlaces(location, "fire_station", searchCounter, maxResultsPerType);
+            }
 
-                        // Count this as completed even on failure
-                        if (keywordRequestsCounter.incrementAndGet() >= totalKeywords) {
-                            searchTimeoutHandler.removeCallbacks(searchTimeoutRunnable);
-                            checkSearchCompletion(counter);
-                        }
-                    });
+            showToast(getString(R.string.loading_places), Toast.LENGTH_SHORT);
+        } catch (Exception e) {
+            Log.e(TAG, "Search error", e);
+            cancelSearchTimeout();
+            isSearchingPlaces = false;
+            if (isAdded() && !isDetached()) {
+                progressBar.setVisibility(View.GONE);
+                showToast(getString(R.string.search_error), Toast.LENGTH_SHORT);
+            }
         }
     }
 
-    private void processPredictions(List<AutocompletePrediction> predictions, LatLng location,
-                                    String placeType, float markerColor, AtomicInteger foundPlacesCounter,
-                                    AtomicInteger keywordRequestsCounter, int totalKeywords,
-                                    int maxResults, AtomicInteger counter,
-                                    Handler timeoutHandler, Runnable timeoutRunnable) {
-
-        // Process each prediction efficiently
-        AtomicInteger pendingFetches = new AtomicInteger(predictions.size());
+    private void cancelSearchTimeout() {
+        if (searchTimeout != null) {
+            searchTimeoutHandler.removeCallbacks(searchTimeout);
+            searchTimeout = null;
+        }
+    }
 
-        if (predictions.isEmpty()) {
+    private void searchNearbyPlaces(LatLng location, String placeType, AtomicInteger counter, int maxResults) {
+        if (isStopped) {
+            counter.incrementAndGet(); // Make sure to count even if stopped
             return;
         }
 
-        for (AutocompletePrediction prediction : predictions) {
-            // Skip if we have enough places or fragment is stopped
-            if (foundPlacesCounter.get() >= maxResults || isStopped) {
-                // Count this prediction as processed
-                if (pendingFetches.decrementAndGet() <= 0 &&
-                        keywordRequestsCounter.incrementAndGet() >= totalKeywords) {
-                    timeoutHandler.removeCallbacks(timeoutRunnable);
-                    checkSearchCompletion(counter);
-                }
-                continue;
-            }
-
-            // Create a fetch place request to get place details
-            List<Place.Field> placeFields = Arrays.asList(
-                    Place.Field.ID, Place.Field.NAME, Place.Field.LAT_LNG,
-                    Place.Field.ADDRESS, Place.Field.PHONE_NUMBER);
-
-            FetchPlaceRequest fetchRequest = FetchPlaceRequest.builder(
-                    prediction.getPlaceId(), placeFields).build();
-
-            // Per-fetch timeout handling
-            final Handler fetchTimeoutHandler = new Handler(Looper.getMainLooper());
-            final Runnable fetchTimeoutRunnable = () -> {
-                Log.w(TAG, "Place fetch timeout for ID: " + prediction.getPlaceId());
-                if (pendingFetches.decrementAndGet() <= 0 &&
-                        keywordRequestsCounter.incrementAndGet() >= totalKeywords) {
-                    timeoutHandler.removeCallbacks(timeoutRunnable);
-                    checkSearchCompletion(counter);
-                }
-            };
-
-            // 2-second timeout for each place fetch
-            fetchTimeoutHandler.postDelayed(fetchTimeoutRunnable, 2000);
-
-            // Fetch the place details
-            placesClient.fetchPlace(fetchRequest)
-                    .addOnSuccessListener(fetchResponse -> {
-                        // Remove timeout for this fetch
-                        fetchTimeoutHandler.removeCallbacks(fetchTimeoutRunnable);
-
-                        if (isStopped) {
-                            // Skip if fragment is stopped
-                            if (pendingFetches.decrementAndGet() <= 0 &&
-                                    keywordRequestsCounter.incrementAndGet() >= totalKeywords) {
-                                timeoutHandler.removeCallbacks(timeoutRunnable);
-                                checkSearchCompletion(counter);
-                            }
-                            return;
-                        }
-
-                        Place place = fetchResponse.getPlace();
+        // Results of an older search must not land on the map of a newer one
+        final int generation = searchGeneration;
+        final int radiusMeters = selectedProximityMeters;
 
-                        // Skip if no valid location
-                        if (place.getLatLng() == null) {
-                            if (pendingFetches.decrementAndGet() <= 0 &&
-                                    keywordRequestsCounter.incrementAndGet() >= totalKeywords) {
-                                timeoutHandler.removeCallbacks(timeoutRunnable);
-                                checkSearchCompletion(counter);
-                            }
-                            return;
-                        }
+        // Keywords, de-duplication, caching and rate limiting are handled by the engine
+        placesQueryEngine.searchNearby(placeType, location.latitude, location.longitude, radiusMeters, false)
+                .addOnSuccessListener(places -> {
+                    if (isStopped || generation != searchGeneration || googleMap == null ||
+                            !isAdded() || isDetached()) {
+                        return;
+                    }
 
-                        // Calculate distance from user
-                        float[] results = new float[1];
-                        Location.distanceBetween(
-                                location.latitude, location.longitude,
-                                place.getLatLng().latitude, place.getLatLng().longitude,
-                                results);
-
-                        float distanceKm = results[0] / 1000; // Convert meters to km
-
-                        if (distanceKm <= (selectedProximityMeters / 1000.0f)) {
-                            // Store place data
-                            String phoneNumber = place.getPhoneNumber() != null ?
-                                    place.getPhoneNumber() : getString(R.string.no_phone_available);
-                            String address = place.getAddress() != null ?
-                                    place.getAddress() : getString(R.string.address_unavailable);
-
-                            // Create place data object
-                            EmergencyServicePlace servicePlace = new EmergencyServicePlace(
-                                    place.getName(),
-                                    address,
-                                    phoneNumber,
-                                    placeType,
-                                    distanceKm,
-                                    place.getLatLng()
-                            );
-
-                            // Add marker to map on main thread
-                            mainHandler.post(() -> {
-                                if (!isStopped && googleMap != null && isAdded() && !isDetached()) {
-                                    // Add marker
-                                    Marker marker = googleMap.addMarker(new MarkerOptions()
-                                            .position(place.getLatLng())
-                                            .title(place.getName())
-                                            .snippet(String.format(Locale.getDefault(),
-                                                    getString(R.string.place_distance), distanceKm))
-                                            .icon(BitmapDescriptorFactory.defaultMarker(markerColor))
-                                            .zIndex(0.5f)); // Lower than user marker
-
-                                    // Store marker data with marker ID
-                                    if (marker != null) {
-                                        markerPlaceData.put(marker.getId(), servicePlace);
-                                        foundPlacesCounter.incrementAndGet();
-                                    }
-                                }
-                            });
-                        }
+                    String noPhone = getString(R.string.no_phone_available);
+                    String noAddress = getString(R.string.address_unavailable);
+                    List<EmergencyServicePlace> found = new ArrayList<>();
+
+                    for (NearbyPlace place : places) {
+                        if (found.size() >= maxResults) break;
+
+                        // Results cover the whole search cell, keep only those within our radius
+                        float distanceKm = place.distanceTo(location.latitude, location.longitude) / 1000;
+                        if (distanceKm > (radiusMeters / 1000.0f)) continue;
+
+                        found.add(new EmergencyServicePlace(
+                                place.getPlaceId(),
+                                place.getName(),
+                                place.getAddress() != null ? place.getAddress() : noAddress,
+                                place.getPhoneNumber() != null ? place.getPhoneNumber() : noPhone,
+                                placeType,
+                                distanceKm,
+                                place.getLatLng()
+                        ));
+                    }
 
-                        // Check if all fetches for this set of predictions are done
-                        if (pendingFetches.decrementAndGet() <= 0 &&
-                                keywordRequestsCounter.incrementAndGet() >= totalKeywords) {
-                            timeoutHandler.removeCallbacks(timeoutRunnable);
-                            checkSearchCompletion(counter);
-                        }
-                    })
-                    .addOnFailureListener(exception -> {
-                        // Remove timeout for this fetch
-                        fetchTimeoutHandler.removeCallbacks(fetchTimeoutRunnable);
-
-                        Log.e(TAG, "Place fetch failed: " + exception.getMessage());
-
-                        // Check if all fetches for this set of predictions are done
-                        if (pendingFetches.decrementAndGet() <= 0 &&
-                                keywordRequestsCounter.incrementAndGet() >= totalKeywords) {
-                            timeoutHandler.removeCallbacks(timeoutRunnable);
-                            checkSearchCompletion(counter);
-                        }
-                    });
-        }
+                    // Swap in this type's results, markers for unchanged places stay put
+                    placesByType.put(placeType, found);
+                    pendingSearchTypes.remove(placeType);
+                    renderServicePlaces();
+                })
+                .addOnFailureListener(exception -> {
+                    Log.e(TAG, "Place search failed for " + placeType + ": " + exception.getMessage());
+                    if (!isStopped && generation == searchGeneration) {
+                        // Results from the previous search may be for another place, drop them
+                        placesByType.remove(placeType);
+                        pendingSearchTypes.remove(placeType);
+                        renderServicePlaces();
+                    }
+                })
+                .addOnCompleteListener(task -> {
+                    if (generation == searchGeneration) {
+                        checkSearchCompletion(counter);
+                    }
+                });
     }
 
     private void checkSearchCompletion(AtomicInteger counter) {
@@ -1403,12 +1218,25 @@ public class SafetyFeaturesFragment extends Fragment implements OnMapReadyCallba
             return;
         }
 
+        if (!isSearchingPlaces) {
+            // Already completed, e.g. forced by the search timeout
+            return;
+        }
+
         // For "all" services, we need to wait for all 3 types to complete
         int requiredCompletions = selectedServiceType.equals("all") ? 3 : 1;
 
         if (forced || counter.incrementAndGet() >= requiredCompletions) {
             // All searches completed
             isSearchingPlaces = false;
+            cancelSearchTimeout();
+
+            // Types that timed out would otherwise keep the previous search's markers
+            if (!pendingSearchTypes.isEmpty()) {
+                placesByType.keySet().removeAll(pendingSearchTypes);
+                pendingSearchTypes.clear();
+                renderServicePlaces();
+            }
 
             // Cache the search results for offline use
             cacheServicesData();
@@ -1419,7 +1247,7 @@ public class SafetyFeaturesFragment extends Fragment implements OnMapReadyCallba
                     progressBar.setVisibility(View.GONE);
 
                     // Check if we found any places
-                    if (markerPlaceData.isEmpty()) {
+                    if (shownPlaces.isEmpty()) {
                         // No emergency services found within radius
                         showNoServicesFoundMessage();
                     } else {
@@ -1513,6 +1341,12 @@ public class SafetyFeaturesFragment extends Fragment implements OnMapReadyCallba
         // Set marker click listener
         googleMap.setOnInfoWindowClickListener(this::handleInfoWindowClick);
 
+        // Service markers are diffed and clustered, results found before the map was ready show now
+        serviceMarkers = new MarkerDiffRenderer(requireContext(), googleMap);
+        googleMap.setOnCameraIdleListener(serviceMarkers::onCameraIdle);
+        googleMap.setOnMarkerClickListener(this::handleMarkerClick);
+        renderServicePlaces();
+
         // Try to enable my location layer if permission is granted
         enableMyLocationIfPermitted();
 
@@ -1527,11 +1361,30 @@ public class SafetyFeaturesFragment extends Fragment implements OnMapReadyCallba
         }
     }
 
+    /**
+     * Zoom into a cluster instead of showing an info window
+     */
+    private boolean handleMarkerClick(Marker marker) {
+        if (serviceMarkers == null || !serviceMarkers.isCluster(marker)) {
+            return false;
+        }
+
+        LatLngBounds bounds = serviceMarkers.getClusterBounds(marker);
+        int padding = (int) (64 * getResources().getDisplayMetrics().density);
+        googleMap.animateCamera(CameraUpdateFactory.newLatLngBounds(bounds, padding));
+        return true;
+    }
+
+    private static EmergencyServicePlace placeForMarker(Marker marker) {
+        Object tag = marker.getTag();
+        return tag instanceof EmergencyServicePlace ? (EmergencyServicePlace) tag : null;
+    }
+
     private void handleInfoWindowClick(Marker marker) {
         if (isStopped) return;
 
         // Retrieve the place data associated with this marker
-        EmergencyServicePlace place = markerPlaceData.get(marker.getId());
+        EmergencyServicePlace place = placeForMarker(marker);
         if (place == null) return;
 
         // Create and show action dialog
@@ -1577,7 +1430,7 @@ public class SafetyFeaturesFragment extends Fragment implements OnMapReadyCallba
     // Custom Info Window Adapter for emergency service markers
     private class EmergencyServiceInfoWindowAdapter implements GoogleMap.InfoWindowAdapter {
         private final View infoWindow;
-        private String lastMarkerId = null;
+        private EmergencyServicePlace lastPlace = null;
 
         EmergencyServiceInfoWindowAdapter() {
             infoWindow = getLayoutInflater().inflate(R.layout.emergency_service_info_window, null);
@@ -1594,20 +1447,21 @@ public class SafetyFeaturesFragment extends Fragment implements OnMapReadyCallba
             if (isStopped) return null;
 
             // Get place data associated with this marker
-            EmergencyServicePlace place = markerPlaceData.get(marker.getId());
+            EmergencyServicePlace place = placeForMarker(marker);
 
             // If no place data is found, use default info window
             if (place == null) {
                 return null;
             }
 
-            // Optimization: If we're showing the same marker again, just return the existing view
-            if (lastMarkerId != null && lastMarkerId.equals(marker.getId())) {
+            // Optimization: If we're showing the same place again, just return the existing view.
+            // Refreshed results attach a new place object, so changed details are picked up.
+            if (lastPlace == place) {
                 return infoWindow;
             }
 
-            // Track this marker ID
-            lastMarkerId = marker.getId();
+            // Track this place
+            lastPlace = place;
 
             // Set up the custom info window view
             TextView titleText = infoWindow.findViewById(R.id.text_title);
@@ -1711,6 +1565,7 @@ public class SafetyFeaturesFragment extends Fragment implements OnMapReadyCallba
         isStopped = false;
         mapView.onStart();
         startLocationUpdates();
+        resumeSearchRegion();
 
         // Reset offline notice flag when starting
         hasShownOfflineNotice = false;
@@ -1735,8 +1590,13 @@ public class SafetyFeaturesFragment extends Fragment implements OnMapReadyCallba
     @Override
     public void onStop() {
         isStopped = true;
+        // Results are dropped while stopped, the next search starts clean
+        cancelSearchTimeout();
+        isSearchingPlaces = false;
         mapView.onStop();
         locationManager.stopLocationUpdates();
+        // Without background location the region is checked on fixes, which must stop with us
+        significantChangeMonitor.unwatch(SEARCH_REGION_KEY);
         super.onStop();
     }
 
@@ -1745,6 +1605,10 @@ public class SafetyFeaturesFragment extends Fragment implements OnMapReadyCallba
         isStopped = true;
         // Cancel any pending operations
         mainHandler.removeCallbacksAndMessages(null);
+        if (serviceMarkers != null) {
+            serviceMarkers.cancelPending();
+        }
+        significantChangeMonitor.unwatch(SEARCH_REGION_KEY);
 
         mapView.onDestroy();
         networkManager.stopNetworkMonitoring();
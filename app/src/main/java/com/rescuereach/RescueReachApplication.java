@@ -5,6 +5,8 @@ import android.app.Application;
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.os.Build;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 
 import androidx.work.Constraints;
@@ -17,40 +19,56 @@ import com.google.android.gms.common.GoogleApiAvailability;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.FirebaseFirestoreSettings;
 import com.onesignal.OneSignal;
+import com.rescuereach.data.repository.firebase.FirestoreCachePolicy;
+import com.rescuereach.service.auth.UserSessionManager;
 import com.rescuereach.service.notification.NotificationService;
+import com.rescuereach.util.AppPreferences;
+import com.rescuereach.util.SharedHttpClient;
+import com.rescuereach.util.StartupGraph;
+import com.rescuereach.util.StartupGraph.Phase;
 
 import java.io.File;
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
 import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-
-import okhttp3.OkHttpClient;
+import java.util.function.Consumer;
 
 public class RescueReachApplication extends Application {
 
     private static final String TAG = "RescueReachApp";
     private static RescueReachApplication instance;
-    private boolean isDebugMode = false;
+    private volatile boolean isDebugMode = false;
     private long appStartTime;
     private final AtomicBoolean isHandlingCrash = new AtomicBoolean(false);
 
     // OneSignal App ID
     private static final String ONESIGNAL_APP_ID = "d85004b4-aabf-48ad-8c12-a74b90bdf57c";
 
-    // Network timeout configuration
-    private static final int CONNECTION_TIMEOUT = 30; // seconds
-    private static final int READ_TIMEOUT = 30; // seconds
-    private static final int WRITE_TIMEOUT = 30; // seconds
+    // Startup initialisers
+    private static final String INIT_CRASH_RECOVERY = "crash_recovery";
+    private static final String INIT_FIREBASE = "firebase";
+    private static final String INIT_CACHE_PURGE = "cache_purge";
+    private static final String INIT_CACHE_WARM_UP = "cache_warm_up";
+    private static final String INIT_HTTP_CLIENT = "http_client";
+    private static final String INIT_PREFERENCES = "preferences";
+    private static final String INIT_PREFERENCE_FLUSH = "preference_flush";
+    private static final String INIT_PLAY_SERVICES = "play_services";
+    private static final String INIT_DEBUG_MODE = "debug_mode";
+    private static final String INIT_DEVICE_INFO = "device_info";
+    private static final String INIT_CLEANUP_SCHEDULE = "cleanup_schedule";
+    private static final String INIT_ONESIGNAL = "onesignal";
+
+    // Cache directories moved aside during crash recovery get this suffix until they're deleted
+    private static final String DISCARDED_SUFFIX = ".discarded-";
+
+    private StartupGraph startupGraph;
 
     // Notification service
-    private NotificationService notificationService;
+    private volatile NotificationService notificationService;
 
     // Original uncaught exception handler
     private Thread.UncaughtExceptionHandler originalExceptionHandler;
@@ -59,38 +77,32 @@ public class RescueReachApplication extends Application {
     public void onCreate() {
         appStartTime = System.currentTimeMillis();
         instance = this;
-
-        // Set up error handling before initializing anything else
-        setupCrashRecovery();
-
-        // Configure global OkHttp client with proper timeouts
-        configureOkHttpDefaults();
-
-        // Fix Google Play Services
-        fixPlayServices();
-
         super.onCreate();
 
-        try {
-            // Initialize Firebase with error handling
-            initializeFirebaseSafely();
-
-            // Initialize OneSignal
-            initializeOneSignal();
-
-            // Unnecessary methods for demonstration
-            setupDebugMode();
-            logDeviceInformation();
-            checkNetworkStatus();
-            initializeUnusedComponents();
-            schedulePeriodicCleanup();
-
-            Log.d(TAG, "Application initialized successfully in " +
-                    (System.currentTimeMillis() - appStartTime) + "ms");
-        } catch (Exception e) {
-            // Catch any initialization errors to prevent app crash
-            Log.e(TAG, "Error during application initialization", e);
-        }
+        // Only what the SOS button needs runs before the first activity, everything else waits
+        // for a background thread or for the main thread to go idle
+        startupGraph = new StartupGraph()
+                // Set up error handling before initializing anything else
+                .add(INIT_CRASH_RECOVERY, Phase.CRITICAL, this::setupCrashRecovery)
+                .add(INIT_FIREBASE, Phase.CRITICAL, this::initializeFirebaseSafely, INIT_CRASH_RECOVERY)
+                .add(INIT_CACHE_PURGE, Phase.BACKGROUND, this::purgeDiscardedCaches, INIT_FIREBASE)
+                .add(INIT_CACHE_WARM_UP, Phase.BACKGROUND, this::warmUpFirestoreCache, INIT_FIREBASE)
+                // Building the client loads the platform TLS setup, keep that off the first lookup
+                .add(INIT_HTTP_CLIENT, Phase.BACKGROUND, () -> SharedHttpClient.get(this))
+                // Starts loading the preference file, so the home screen doesn't wait for it
+                .add(INIT_PREFERENCES, Phase.BACKGROUND, () -> AppPreferences.get(this))
+                // Lifecycle observers go on the main thread
+                .add(INIT_PREFERENCE_FLUSH, Phase.IDLE, AppPreferences::flushWhenBackgrounded)
+                .add(INIT_PLAY_SERVICES, Phase.BACKGROUND, this::fixPlayServices)
+                .add(INIT_DEBUG_MODE, Phase.BACKGROUND, this::setupDebugMode)
+                .add(INIT_DEVICE_INFO, Phase.BACKGROUND, this::logDeviceInformation)
+                .add(INIT_CLEANUP_SCHEDULE, Phase.BACKGROUND, this::schedulePeriodicCleanup)
+                // OneSignal wants the main thread, the first frames don't need it
+                .add(INIT_ONESIGNAL, Phase.IDLE, this::initializeOneSignal);
+        startupGraph.start();
+
+        Log.d(TAG, "Application critical path done in " +
+                (System.currentTimeMillis() - appStartTime) + "ms");
     }
 
     public static RescueReachApplication getInstance() {
@@ -125,106 +137,51 @@ public class RescueReachApplication extends Application {
     }
 
     /**
-     * Get the notification service instance
-     * @return NotificationService instance
+     * Get the startup graph, for per-initialiser timing and the SOS ready mark
+     * @return StartupGraph instance
      */
-    public NotificationService getNotificationService() {
-        if (notificationService == null) {
-            notificationService = NotificationService.getInstance(this);
-            notificationService.initialize();
-        }
-        return notificationService;
+    public StartupGraph getStartupGraph() {
+        return startupGraph;
     }
 
     /**
-     * Configure default OkHttp client settings to prevent timeouts
+     * Get the notification service instance. OneSignal is initialised once startup goes idle,
+     * callers on the main thread that come earlier initialise it now. Background callers, e.g.
+     * the SOS lane, get the service straight away and OneSignal initialisation is posted to the
+     * main thread: it must run there, and the main thread may be waiting on the SOS lane.
+     * OneSignal queues calls made before initialisation.
+     * @return NotificationService instance
      */
-    private void configureOkHttpDefaults() {
-        try {
-            // Create a custom global OkHttpClient
-            OkHttpClient customClient = createCustomOkHttpClient();
-
-            // Try to set this client using reflection for various libraries
-            if (customClient != null) {
-                setGlobalOkHttpDefaults(customClient);
+    public NotificationService getNotificationService() {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            if (startupGraph != null) {
+                startupGraph.ensureOnMainThread(INIT_ONESIGNAL);
             }
-
-            Log.d(TAG, "OkHttp timeouts configured successfully");
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to configure OkHttp defaults", e);
+            // Handlers are registered by the initialiser
+            return notificationService != null ? notificationService : NotificationService.getInstance(this);
         }
-    }
 
-    /**
-     * Create a custom OkHttpClient with better timeout settings
-     */
-    private OkHttpClient createCustomOkHttpClient() {
-        try {
-            // Use reflection to avoid direct dependency on specific OkHttp version
-            Class<?> clientBuilderClass = Class.forName("okhttp3.OkHttpClient$Builder");
-            Object builder = clientBuilderClass.newInstance();
-
-            // Set timeouts
-            Method connectTimeout = clientBuilderClass.getMethod("connectTimeout", long.class, TimeUnit.class);
-            Method readTimeout = clientBuilderClass.getMethod("readTimeout", long.class, TimeUnit.class);
-            Method writeTimeout = clientBuilderClass.getMethod("writeTimeout", long.class, TimeUnit.class);
-            Method retryOnConnectionFailure = clientBuilderClass.getMethod("retryOnConnectionFailure", boolean.class);
-
-            connectTimeout.invoke(builder, CONNECTION_TIMEOUT, TimeUnit.SECONDS);
-            readTimeout.invoke(builder, READ_TIMEOUT, TimeUnit.SECONDS);
-            writeTimeout.invoke(builder, WRITE_TIMEOUT, TimeUnit.SECONDS);
-            retryOnConnectionFailure.invoke(builder, true);
-
-            // Build the client
-            Method buildMethod = clientBuilderClass.getMethod("build");
-            return (OkHttpClient) buildMethod.invoke(builder);
-
-        } catch (Exception e) {
-            Log.e(TAG, "Error creating custom OkHttpClient", e);
-            return null;
+        if (startupGraph != null) {
+            startupGraph.ensure(INIT_ONESIGNAL);
         }
+        if (notificationService == null) {
+            notificationService = NotificationService.getInstance(this);
+            notificationService.initialize();
+        }
+        return notificationService;
     }
 
     /**
-     * Attempt to set global OkHttp defaults through various methods
+     * Get the notification service once startup has initialised OneSignal, without pulling
+     * that forward. For setup that can wait, like the home screen's notification tags.
+     * @param callback Runs on the main thread
      */
-    private void setGlobalOkHttpDefaults(OkHttpClient client) {
-        if (client == null) return;
-
-        try {
-            // Try setting client on various classes that might use it
-
-            // 1. Try Firebase HTTP adapter
-            try {
-                Class<?> firebaseHttpClass = Class.forName("com.google.firebase.FirebaseNetworkAdapter");
-                Field instanceField = firebaseHttpClass.getDeclaredField("INSTANCE");
-                instanceField.setAccessible(true);
-                Object instance = instanceField.get(null);
-
-                Field clientField = instance.getClass().getDeclaredField("httpClient");
-                clientField.setAccessible(true);
-                clientField.set(instance, client);
-
-                Log.d(TAG, "Set Firebase HTTP client");
-            } catch (Exception e) {
-                Log.d(TAG, "Could not set Firebase HTTP client: " + e.getMessage());
-            }
-
-            // 2. Try OneSignal's client
-            try {
-                Class<?> oneSignalHttpClass = Class.forName("com.onesignal.OneSignalRestClient");
-                Field clientField = oneSignalHttpClass.getDeclaredField("client");
-                clientField.setAccessible(true);
-                clientField.set(null, client);
-
-                Log.d(TAG, "Set OneSignal HTTP client");
-            } catch (Exception e) {
-                Log.d(TAG, "Could not set OneSignal HTTP client: " + e.getMessage());
-            }
-
-        } catch (Exception e) {
-            Log.e(TAG, "Error setting global OkHttp defaults", e);
+    public void whenNotificationServiceReady(Consumer<NotificationService> callback) {
+        if (startupGraph == null) {
+            callback.accept(getNotificationService());
+            return;
         }
+        startupGraph.whenDone(INIT_ONESIGNAL, () -> callback.accept(getNotificationService()));
     }
 
     private void setupCrashRecovery() {
@@ -310,37 +267,17 @@ public class RescueReachApplication extends Application {
                         .putBoolean("okhttp_error_recovery", false)
                         .apply();
 
-                // Clear Firebase caches to ensure fresh state
-                try {
-                    // Delete the Firebase persistence directory
-                    File cacheDir = new File(getCacheDir(), "firebase-firestore");
-                    if (cacheDir.exists()) {
-                        deleteDirectory(cacheDir);
-                    }
-
-                    // Also clear OkHttp cache
-                    File okHttpCache = new File(getCacheDir(), "okhttp");
-                    if (okHttpCache.exists()) {
-                        deleteDirectory(okHttpCache);
-                    }
-                } catch (Exception e) {
-                    Log.e(TAG, "Error clearing caches", e);
-                }
-
-                // Wait a moment for cleanup
-                Thread.sleep(300);
+                // Clear Firestore's persisted cache and the OkHttp cache to ensure fresh state.
+                // A rename is instant, the recursive delete happens in the background.
+                FirestoreCachePolicy.clearOnNextStart(this);
+                discardCacheDir(SharedHttpClient.CACHE_DIR);
             }
 
             // Now initialize Firebase
             FirebaseApp.initializeApp(this);
 
-            // Configure Firestore settings
-            FirebaseFirestore firestore = FirebaseFirestore.getInstance();
-            FirebaseFirestoreSettings settings = new FirebaseFirestoreSettings.Builder()
-                    .setPersistenceEnabled(true)
-                    .setCacheSizeBytes(FirebaseFirestoreSettings.CACHE_SIZE_UNLIMITED)
-                    .build();
-            firestore.setFirestoreSettings(settings);
+            // Configure Firestore's cache before anything uses it
+            FirestoreCachePolicy.configure(this, FirebaseFirestore.getInstance());
 
         } catch (Exception e) {
             Log.e(TAG, "Error initializing Firebase", e);
@@ -354,6 +291,45 @@ public class RescueReachApplication extends Application {
         }
     }
 
+    /**
+     * Move a cache directory out of the way so nothing opens it again
+     */
+    private void discardCacheDir(String name) {
+        try {
+            File dir = new File(getCacheDir(), name);
+            if (dir.exists() && !dir.renameTo(
+                    new File(getCacheDir(), name + DISCARDED_SUFFIX + SystemClock.uptimeMillis()))) {
+                Log.w(TAG, "Could not move aside cache " + name + ", deleting in place");
+                deleteDirectory(dir);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error clearing cache " + name, e);
+        }
+    }
+
+    /**
+     * Delete cache directories discarded by crash recovery, this or an earlier run
+     */
+    private void purgeDiscardedCaches() {
+        File[] files = getCacheDir().listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.getName().contains(DISCARDED_SUFFIX) && !deleteDirectory(file)) {
+                Log.w(TAG, "Could not delete discarded cache " + file.getName());
+            }
+        }
+    }
+
+    /**
+     * Refresh the signed-in user's reports and history in the Firestore cache
+     */
+    private void warmUpFirestoreCache() {
+        FirestoreCachePolicy.warmUp(FirebaseFirestore.getInstance(),
+                UserSessionManager.getInstance(this).getSavedPhoneNumber());
+    }
+
     private boolean deleteDirectory(File dir) {
         if (dir != null && dir.isDirectory()) {
             String[] children = dir.list();
@@ -435,34 +411,22 @@ public class RescueReachApplication extends Application {
         Log.d(TAG, "SDK Level: " + Build.VERSION.SDK_INT);
     }
 
-    // Unnecessary method
-    private void checkNetworkStatus() {
-        Log.d(TAG, "Network status check would be implemented here");
-        // In a real implementation, this would check connectivity status
-    }
-
-    // Unnecessary method
-    private void initializeUnusedComponents() {
-        Log.d(TAG, "Additional components would be initialized here");
-        // This method doesn't actually do anything useful
-    }
-
-    // Unnecessary method
     private void schedulePeriodicCleanup() {
-        // Create a periodic task to clean up old cache files
+        // Create a periodic task that keeps the Firestore cache within its budget
         try {
             Constraints constraints = new Constraints.Builder()
                     .setRequiresBatteryNotLow(true)
                     .build();
 
             PeriodicWorkRequest cleanupRequest =
-                    new PeriodicWorkRequest.Builder(CacheCleanupWorker.class, 7, TimeUnit.DAYS)
+                    new PeriodicWorkRequest.Builder(CacheCleanupWorker.class, 1, TimeUnit.DAYS)
                             .setConstraints(constraints)
                             .build();
 
             WorkManager.getInstance(this).enqueueUniquePeriodicWork(
                     "cache_cleanup",
-                    ExistingPeriodicWorkPolicy.KEEP,
+                    // Installs that scheduled the old weekly no-op pick up the new interval
+                    ExistingPeriodicWorkPolicy.UPDATE,
                     cleanupRequest);
 
             Log.d(TAG, "Scheduled periodic cache cleanup");
@@ -498,7 +462,7 @@ public class RescueReachApplication extends Application {
     }
 
     /**
-     * Unnecessary worker class for cache cleanup.
+     * Keeps Firestore's on-disk cache near its budget and reports its size and hit rate
      */
     @SuppressLint("WorkerHasAPublicModifier")
     public static class CacheCleanupWorker extends androidx.work.Worker {
@@ -508,9 +472,14 @@ public class RescueReachApplication extends Application {
 
         @Override
         public Result doWork() {
-            Log.d(TAG, "Cache cleanup worker triggered");
-            // In a real implementation, this would clean up old cache files
-            return Result.success();
+            try {
+                FirestoreCachePolicy.compactIfNeeded(getApplicationContext(), FirebaseFirestore.getInstance());
+                Log.d(TAG, "Firestore cache: " + FirestoreCachePolicy.reportAndReset(getApplicationContext()));
+                return Result.success();
+            } catch (Exception e) {
+                Log.e(TAG, "Cache cleanup failed", e);
+                return Result.retry();
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,101 @@
+package com.rescuereach.data.local;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.room.Database;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * Local Room database for data that must survive process death
+ * (offline SOS outbox, pending location fixes and other on-device caches)
+ */
+@Database(entities = {PendingSOSReport.class, GeocodeCacheEntry.class, CachedEmergencyService.class,
+        PendingLocationFix.class},
+        version = 5, exportSchema = false)
+public abstract class AppDatabase extends RoomDatabase {
+    private static final String DATABASE_NAME = "rescuereach.db";
+
+    private static volatile AppDatabase instance;
+
+    public abstract PendingSOSReportDao pendingSOSReportDao();
+
+    public abstract GeocodeCacheDao geocodeCacheDao();
+
+    public abstract EmergencyServiceDao emergencyServiceDao();
+
+    public abstract PendingLocationFixDao pendingLocationFixDao();
+
+    // Cached data can be rebuilt, but the outbox can't: never fall back to a destructive migration
+    static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `geocode_cache` (" +
+                    "`geohash` TEXT NOT NULL, `latitude` REAL NOT NULL, `longitude` REAL NOT NULL, " +
+                    "`address_line` TEXT, `thoroughfare` TEXT, `sub_thoroughfare` TEXT, " +
+                    "`locality` TEXT, `admin_area` TEXT, `postal_code` TEXT, " +
+                    "`resolved_at` INTEGER NOT NULL, `last_used_at` INTEGER NOT NULL, " +
+                    "PRIMARY KEY(`geohash`))");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_geocode_cache_last_used_at` " +
+                    "ON `geocode_cache` (`last_used_at`)");
+        }
+    };
+
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `emergency_services` (" +
+                    "`place_id` TEXT NOT NULL, `name` TEXT, `category` TEXT NOT NULL, " +
+                    "`address` TEXT, `phone_number` TEXT, " +
+                    "`latitude` REAL NOT NULL, `longitude` REAL NOT NULL, `cached_at` INTEGER NOT NULL, " +
+                    "PRIMARY KEY(`place_id`))");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_emergency_services_latitude_longitude` " +
+                    "ON `emergency_services` (`latitude`, `longitude`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_emergency_services_cached_at` " +
+                    "ON `emergency_services` (`cached_at`)");
+        }
+    };
+
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `pending_location_fixes` (" +
+                    "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `user_id` TEXT, " +
+                    "`latitude` REAL NOT NULL, `longitude` REAL NOT NULL, `accuracy` REAL NOT NULL, " +
+                    "`fix_time` INTEGER NOT NULL, `is_emergency` INTEGER NOT NULL, " +
+                    "`battery_level` INTEGER NOT NULL, `network_type` TEXT, `created_at` INTEGER NOT NULL)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_pending_location_fixes_is_emergency` " +
+                    "ON `pending_location_fixes` (`is_emergency`)");
+        }
+    };
+
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `pending_location_fixes` " +
+                    "ADD COLUMN `attempt_count` INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    /**
+     * Get the singleton database instance
+     * @param context Any context, the application context is used
+     * @return AppDatabase instance
+     */
+    public static AppDatabase getInstance(Context context) {
+        if (instance == null) {
+            synchronized (AppDatabase.class) {
+                if (instance == null) {
+                    instance = Room.databaseBuilder(context.getApplicationContext(),
+                                    AppDatabase.class, DATABASE_NAME)
+                            .addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5)
+                            .build();
+                }
+            }
+        }
+        return instance;
+    }
+}
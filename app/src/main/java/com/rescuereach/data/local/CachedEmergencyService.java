@@ -0,0 +1,133 @@
+package com.rescuereach.data.local;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Room entity for an emergency service place (hospital, police, fire station) seen online,
+ * kept so nearby services can still be listed without a connection.
+ * Indexed by coordinates so radius lookups are a bounding-box range scan.
+ */
+@Entity(tableName = "emergency_services",
+        indices = {@Index(value = {"latitude", "longitude"}), @Index(value = "cached_at")})
+public class CachedEmergencyService {
+
+    @PrimaryKey
+    @NonNull
+    @ColumnInfo(name = "place_id")
+    private String placeId;
+
+    @ColumnInfo(name = "name")
+    private String name;
+
+    // Places type: "hospital", "police" or "fire_station"
+    @NonNull
+    @ColumnInfo(name = "category")
+    private String category;
+
+    @ColumnInfo(name = "address")
+    private String address;
+
+    @ColumnInfo(name = "phone_number")
+    private String phoneNumber;
+
+    @ColumnInfo(name = "latitude")
+    private double latitude;
+
+    @ColumnInfo(name = "longitude")
+    private double longitude;
+
+    @ColumnInfo(name = "cached_at")
+    private long cachedAt;
+
+    // Filled in by radius queries, not stored
+    @Ignore
+    private float distanceMeters;
+
+    public CachedEmergencyService(@NonNull String placeId, String name, @NonNull String category,
+                                  double latitude, double longitude) {
+        this.placeId = placeId;
+        this.name = name;
+        this.category = category;
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    @NonNull
+    public String getPlaceId() {
+        return placeId;
+    }
+
+    public void setPlaceId(@NonNull String placeId) {
+        this.placeId = placeId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    @NonNull
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(@NonNull String category) {
+        this.category = category;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public void setAddress(String address) {
+        this.address = address;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public void setPhoneNumber(String phoneNumber) {
+        this.phoneNumber = phoneNumber;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(double latitude) {
+        this.latitude = latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(double longitude) {
+        this.longitude = longitude;
+    }
+
+    public long getCachedAt() {
+        return cachedAt;
+    }
+
+    public void setCachedAt(long cachedAt) {
+        this.cachedAt = cachedAt;
+    }
+
+    public float getDistanceMeters() {
+        return distanceMeters;
+    }
+
+    public void setDistanceMeters(float distanceMeters) {
+        this.distanceMeters = distanceMeters;
+    }
+}
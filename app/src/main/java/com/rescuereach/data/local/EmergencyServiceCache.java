@@ -0,0 +1,140 @@
+package com.rescuereach.data.local;
+
+import android.content.Context;
+import android.location.Location;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Offline store of nearby emergency services, shared by the SOS report path and the safety map.
+ * Radius queries narrow the candidates with an indexed bounding box, then sort by exact distance.
+ * All methods block and must run off the main thread.
+ */
+public class EmergencyServiceCache {
+    private static final String TAG = "EmergencyServiceCache";
+
+    public static final String CATEGORY_HOSPITAL = "hospital";
+    public static final String CATEGORY_POLICE = "police";
+    public static final String CATEGORY_FIRE_STATION = "fire_station";
+
+    private static final double METERS_PER_DEGREE_LAT = 111320.0;
+
+    private static final long MAX_AGE = TimeUnit.DAYS.toMillis(30);
+    private static final int MAX_ENTRIES = 5000;
+
+    private static volatile EmergencyServiceCache instance;
+
+    private final EmergencyServiceDao dao;
+
+    private EmergencyServiceCache(Context context) {
+        this.dao = AppDatabase.getInstance(context).emergencyServiceDao();
+    }
+
+    /**
+     * Get the shared cache
+     * @param context Any context, the application context is used
+     * @return EmergencyServiceCache instance
+     */
+    public static EmergencyServiceCache getInstance(Context context) {
+        if (instance == null) {
+            synchronized (EmergencyServiceCache.class) {
+                if (instance == null) {
+                    instance = new EmergencyServiceCache(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Store or refresh services, then drop entries that are too old or over the size cap
+     */
+    public void save(List<CachedEmergencyService> services) {
+        if (services == null || services.isEmpty()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        for (CachedEmergencyService service : services) {
+            service.setCachedAt(now);
+        }
+
+        try {
+            dao.insertAll(services);
+            dao.deleteCachedBefore(now - MAX_AGE);
+            dao.trimToSize(MAX_ENTRIES);
+        } catch (Exception e) {
+            Log.e(TAG, "Error caching emergency services", e);
+        }
+    }
+
+    /**
+     * Find the nearest cached services around a point
+     * @param latitude Search center latitude
+     * @param longitude Search center longitude
+     * @param radiusMeters Search radius
+     * @param category Places type, or null for all categories
+     * @param limit Maximum number of results
+     * @param maxAgeMs Ignore entries cached longer ago than this (0 for any age)
+     * @return Services within the radius, nearest first, with distance filled in
+     */
+    public List<CachedEmergencyService> findNearest(double latitude, double longitude, int radiusMeters,
+                                                    String category, int limit, long maxAgeMs) {
+        double latDelta = radiusMeters / METERS_PER_DEGREE_LAT;
+        double lngDelta = latDelta / Math.max(Math.cos(Math.toRadians(latitude)), 0.01);
+        long cachedAfter = maxAgeMs > 0 ? System.currentTimeMillis() - maxAgeMs : 0;
+
+        List<CachedEmergencyService> candidates;
+        try {
+            candidates = dao.getInBounds(latitude - latDelta, latitude + latDelta,
+                    longitude - lngDelta, longitude + lngDelta, category, cachedAfter);
+        } catch (Exception e) {
+            Log.e(TAG, "Error reading cached emergency services", e);
+            return Collections.emptyList();
+        }
+
+        // The box corners lie outside the circle, filter on exact distance
+        List<CachedEmergencyService> results = new ArrayList<>();
+        float[] distance = new float[1];
+        for (CachedEmergencyService candidate : candidates) {
+            Location.distanceBetween(latitude, longitude,
+                    candidate.getLatitude(), candidate.getLongitude(), distance);
+            if (distance[0] <= radiusMeters) {
+                candidate.setDistanceMeters(distance[0]);
+                results.add(candidate);
+            }
+        }
+
+        Collections.sort(results, (a, b) -> Float.compare(a.getDistanceMeters(), b.getDistanceMeters()));
+        return results.size() > limit ? new ArrayList<>(results.subList(0, limit)) : results;
+    }
+
+    /**
+     * Most recently cached services, for when no location is known
+     */
+    public List<CachedEmergencyService> findRecent(String category, int limit, long maxAgeMs) {
+        long cachedAfter = maxAgeMs > 0 ? System.currentTimeMillis() - maxAgeMs : 0;
+        try {
+            return dao.getRecent(category, cachedAfter, limit);
+        } catch (Exception e) {
+            Log.e(TAG, "Error reading cached emergency services", e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Time the newest entry was cached, or 0 if the cache is empty
+     */
+    public long getLastCachedAt() {
+        try {
+            return dao.getLastCachedAt();
+        } catch (Exception e) {
+            Log.e(TAG, "Error reading emergency service cache time", e);
+            return 0;
+        }
+    }
+}
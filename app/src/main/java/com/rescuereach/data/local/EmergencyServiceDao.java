@@ -0,0 +1,53 @@
+package com.rescuereach.data.local;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import java.util.List;
+
+/**
+ * DAO for cached emergency service places
+ */
+@Dao
+public interface EmergencyServiceDao {
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertAll(List<CachedEmergencyService> services);
+
+    /**
+     * Get services inside a bounding box, optionally of one category
+     * @param category Places type, or null for all categories
+     * @param cachedAfter Only entries cached after this time (0 for any age)
+     */
+    @Query("SELECT * FROM emergency_services " +
+            "WHERE latitude BETWEEN :minLat AND :maxLat " +
+            "AND longitude BETWEEN :minLng AND :maxLng " +
+            "AND (:category IS NULL OR category = :category) " +
+            "AND cached_at >= :cachedAfter")
+    List<CachedEmergencyService> getInBounds(double minLat, double maxLat,
+                                             double minLng, double maxLng,
+                                             String category, long cachedAfter);
+
+    /**
+     * Most recently cached services, for when there is no location to search around
+     */
+    @Query("SELECT * FROM emergency_services " +
+            "WHERE (:category IS NULL OR category = :category) AND cached_at >= :cachedAfter " +
+            "ORDER BY cached_at DESC LIMIT :limit")
+    List<CachedEmergencyService> getRecent(String category, long cachedAfter, int limit);
+
+    @Query("SELECT MAX(cached_at) FROM emergency_services")
+    long getLastCachedAt();
+
+    @Query("DELETE FROM emergency_services WHERE cached_at < :cachedBefore")
+    int deleteCachedBefore(long cachedBefore);
+
+    /**
+     * Keep only the most recently cached entries
+     */
+    @Query("DELETE FROM emergency_services WHERE place_id NOT IN " +
+            "(SELECT place_id FROM emergency_services ORDER BY cached_at DESC LIMIT :keep)")
+    int trimToSize(int keep);
+}
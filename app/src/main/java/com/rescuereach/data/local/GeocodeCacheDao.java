@@ -0,0 +1,44 @@
+package com.rescuereach.data.local;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import java.util.List;
+
+/**
+ * DAO for the reverse-geocoding cache
+ */
+@Dao
+public interface GeocodeCacheDao {
+
+    @Query("SELECT * FROM geocode_cache WHERE geohash = :geohash")
+    GeocodeCacheEntry get(String geohash);
+
+    /**
+     * Get all entries whose cell lies inside a coarser cell.
+     * A range scan on the primary key, so it stays cheap as the table grows.
+     */
+    @Query("SELECT * FROM geocode_cache WHERE geohash >= :prefix AND geohash < :prefixEnd")
+    List<GeocodeCacheEntry> getInRange(String prefix, String prefixEnd);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insert(GeocodeCacheEntry entry);
+
+    @Query("UPDATE geocode_cache SET last_used_at = :usedAt WHERE geohash = :geohash")
+    void touch(String geohash, long usedAt);
+
+    @Query("SELECT COUNT(*) FROM geocode_cache")
+    int count();
+
+    /**
+     * Keep only the most recently used entries
+     */
+    @Query("DELETE FROM geocode_cache WHERE geohash NOT IN " +
+            "(SELECT geohash FROM geocode_cache ORDER BY last_used_at DESC LIMIT :keep)")
+    int trimToSize(int keep);
+
+    @Query("DELETE FROM geocode_cache WHERE resolved_at < :resolvedBefore")
+    int deleteResolvedBefore(long resolvedBefore);
+}
@@ -0,0 +1,145 @@
+package com.rescuereach.data.local;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Room entity for a reverse-geocoded address, keyed by the geohash cell it was resolved in
+ */
+@Entity(tableName = "geocode_cache",
+        indices = {@Index(value = "last_used_at")})
+public class GeocodeCacheEntry {
+
+    @PrimaryKey
+    @NonNull
+    @ColumnInfo(name = "geohash")
+    private String geohash;
+
+    @ColumnInfo(name = "latitude")
+    private double latitude;
+
+    @ColumnInfo(name = "longitude")
+    private double longitude;
+
+    @ColumnInfo(name = "address_line")
+    private String addressLine;
+
+    @ColumnInfo(name = "thoroughfare")
+    private String thoroughfare;
+
+    @ColumnInfo(name = "sub_thoroughfare")
+    private String subThoroughfare;
+
+    @ColumnInfo(name = "locality")
+    private String locality;
+
+    @ColumnInfo(name = "admin_area")
+    private String adminArea;
+
+    @ColumnInfo(name = "postal_code")
+    private String postalCode;
+
+    @ColumnInfo(name = "resolved_at")
+    private long resolvedAt;
+
+    @ColumnInfo(name = "last_used_at")
+    private long lastUsedAt;
+
+    public GeocodeCacheEntry(@NonNull String geohash, double latitude, double longitude) {
+        this.geohash = geohash;
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    @NonNull
+    public String getGeohash() {
+        return geohash;
+    }
+
+    public void setGeohash(@NonNull String geohash) {
+        this.geohash = geohash;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(double latitude) {
+        this.latitude = latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(double longitude) {
+        this.longitude = longitude;
+    }
+
+    public String getAddressLine() {
+        return addressLine;
+    }
+
+    public void setAddressLine(String addressLine) {
+        this.addressLine = addressLine;
+    }
+
+    public String getThoroughfare() {
+        return thoroughfare;
+    }
+
+    public void setThoroughfare(String thoroughfare) {
+        this.thoroughfare = thoroughfare;
+    }
+
+    public String getSubThoroughfare() {
+        return subThoroughfare;
+    }
+
+    public void setSubThoroughfare(String subThoroughfare) {
+        this.subThoroughfare = subThoroughfare;
+    }
+
+    public String getLocality() {
+        return locality;
+    }
+
+    public void setLocality(String locality) {
+        this.locality = locality;
+    }
+
+    public String getAdminArea() {
+        return adminArea;
+    }
+
+    public void setAdminArea(String adminArea) {
+        this.adminArea = adminArea;
+    }
+
+    public String getPostalCode() {
+        return postalCode;
+    }
+
+    public void setPostalCode(String postalCode) {
+        this.postalCode = postalCode;
+    }
+
+    public long getResolvedAt() {
+        return resolvedAt;
+    }
+
+    public void setResolvedAt(long resolvedAt) {
+        this.resolvedAt = resolvedAt;
+    }
+
+    public long getLastUsedAt() {
+        return lastUsedAt;
+    }
+
+    public void setLastUsedAt(long lastUsedAt) {
+        this.lastUsedAt = lastUsedAt;
+    }
+}
@@ -0,0 +1,150 @@
+package com.rescuereach.data.local;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Room entity for a location fix that could not be uploaded yet.
+ * The auto-generated ID is the append order, fixes are always uploaded and deleted in ID order.
+ */
+@Entity(tableName = "pending_location_fixes",
+        indices = {@Index(value = "is_emergency")})
+public class PendingLocationFix {
+
+    @PrimaryKey(autoGenerate = true)
+    @ColumnInfo(name = "id")
+    private long id;
+
+    // Null if nobody was signed in when the fix was taken, resolved at sync time
+    @ColumnInfo(name = "user_id")
+    private String userId;
+
+    @ColumnInfo(name = "latitude")
+    private double latitude;
+
+    @ColumnInfo(name = "longitude")
+    private double longitude;
+
+    @ColumnInfo(name = "accuracy")
+    private float accuracy;
+
+    @ColumnInfo(name = "fix_time")
+    private long fixTime;
+
+    @ColumnInfo(name = "is_emergency")
+    private boolean emergency;
+
+    @ColumnInfo(name = "battery_level")
+    private int batteryLevel;
+
+    @ColumnInfo(name = "network_type")
+    private String networkType;
+
+    @ColumnInfo(name = "created_at")
+    private long createdAt;
+
+    // Failed uploads of the batch this fix was in
+    @ColumnInfo(name = "attempt_count", defaultValue = "0")
+    private int attemptCount;
+
+    public PendingLocationFix(String userId, double latitude, double longitude, float accuracy,
+                              long fixTime, boolean emergency, long createdAt) {
+        this.userId = userId;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.accuracy = accuracy;
+        this.fixTime = fixTime;
+        this.emergency = emergency;
+        this.createdAt = createdAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(double latitude) {
+        this.latitude = latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(double longitude) {
+        this.longitude = longitude;
+    }
+
+    public float getAccuracy() {
+        return accuracy;
+    }
+
+    public void setAccuracy(float accuracy) {
+        this.accuracy = accuracy;
+    }
+
+    public long getFixTime() {
+        return fixTime;
+    }
+
+    public void setFixTime(long fixTime) {
+        this.fixTime = fixTime;
+    }
+
+    public boolean isEmergency() {
+        return emergency;
+    }
+
+    public void setEmergency(boolean emergency) {
+        this.emergency = emergency;
+    }
+
+    public int getBatteryLevel() {
+        return batteryLevel;
+    }
+
+    public void setBatteryLevel(int batteryLevel) {
+        this.batteryLevel = batteryLevel;
+    }
+
+    public String getNetworkType() {
+        return networkType;
+    }
+
+    public void setNetworkType(String networkType) {
+        this.networkType = networkType;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public int getAttemptCount() {
+        return attemptCount;
+    }
+
+    public void setAttemptCount(int attemptCount) {
+        this.attemptCount = attemptCount;
+    }
+}
@@ -0,0 +1,50 @@
+package com.rescuereach.data.local;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+
+import java.util.List;
+
+/**
+ * DAO for the durable pending location fix queue
+ */
+@Dao
+public interface PendingLocationFixDao {
+
+    /**
+     * Append a fix
+     * @return The fix's position in the queue
+     */
+    @Insert
+    long insert(PendingLocationFix fix);
+
+    /**
+     * Get the oldest queued fixes, in the order they were appended
+     */
+    @Query("SELECT * FROM pending_location_fixes ORDER BY id ASC LIMIT :limit")
+    List<PendingLocationFix> getOldest(int limit);
+
+    @Query("SELECT COUNT(*) FROM pending_location_fixes")
+    int count();
+
+    /**
+     * Remove everything up to and including an uploaded fix, so the queue only ever loses its head
+     */
+    @Query("DELETE FROM pending_location_fixes WHERE id <= :maxId")
+    int deleteUpTo(long maxId);
+
+    /**
+     * Count a failed upload against everything up to and including the last fix of the batch
+     */
+    @Query("UPDATE pending_location_fixes SET attempt_count = attempt_count + 1 WHERE id <= :maxId")
+    void markFailed(long maxId);
+
+    /**
+     * Cap the queue size. Emergency fixes outlive routine ones, then the newest are kept.
+     * @return Number of fixes dropped
+     */
+    @Query("DELETE FROM pending_location_fixes WHERE id NOT IN (" +
+            "SELECT id FROM pending_location_fixes ORDER BY is_emergency DESC, id DESC LIMIT :keep)")
+    int trimToSize(int keep);
+}
@@ -0,0 +1,95 @@
+package com.rescuereach.data.local;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Room entity for an SOS report that could not reach the backend yet.
+ * The report itself is stored as JSON so model changes don't need a schema migration.
+ */
+@Entity(tableName = "pending_sos_reports",
+        indices = {@Index(value = "created_at")})
+public class PendingSOSReport {
+
+    @PrimaryKey
+    @NonNull
+    @ColumnInfo(name = "report_id")
+    private String reportId;
+
+    @ColumnInfo(name = "user_id")
+    private String userId;
+
+    @NonNull
+    @ColumnInfo(name = "payload")
+    private String payload;
+
+    @ColumnInfo(name = "created_at")
+    private long createdAt;
+
+    @ColumnInfo(name = "attempt_count")
+    private int attemptCount;
+
+    @ColumnInfo(name = "last_error")
+    private String lastError;
+
+    public PendingSOSReport(@NonNull String reportId, String userId,
+                            @NonNull String payload, long createdAt) {
+        this.reportId = reportId;
+        this.userId = userId;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    @NonNull
+    public String getReportId() {
+        return reportId;
+    }
+
+    public void setReportId(@NonNull String reportId) {
+        this.reportId = reportId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    @NonNull
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(@NonNull String payload) {
+        this.payload = payload;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public int getAttemptCount() {
+        return attemptCount;
+    }
+
+    public void setAttemptCount(int attemptCount) {
+        this.attemptCount = attemptCount;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+}
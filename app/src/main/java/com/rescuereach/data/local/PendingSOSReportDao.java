@@ -0,0 +1,37 @@
+package com.rescuereach.data.local;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import java.util.List;
+
+/**
+ * DAO for the offline SOS outbox
+ */
+@Dao
+public interface PendingSOSReportDao {
+
+    /**
+     * Add a report to the outbox, replacing any older copy with the same ID
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insert(PendingSOSReport report);
+
+    /**
+     * Get the oldest pending reports, in the order they were raised
+     */
+    @Query("SELECT * FROM pending_sos_reports ORDER BY created_at ASC LIMIT :limit")
+    List<PendingSOSReport> getOldest(int limit);
+
+    @Query("SELECT COUNT(*) FROM pending_sos_reports")
+    int count();
+
+    @Query("DELETE FROM pending_sos_reports WHERE report_id IN (:reportIds)")
+    int deleteByIds(List<String> reportIds);
+
+    @Query("UPDATE pending_sos_reports SET attempt_count = attempt_count + 1, last_error = :error " +
+            "WHERE report_id IN (:reportIds)")
+    void markFailed(List<String> reportIds, String error);
+}
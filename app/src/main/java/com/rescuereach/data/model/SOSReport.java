@@ -3,6 +3,7 @@ package com.rescuereach.data.model;
 import com.google.firebase.firestore.Exclude;
 import com.google.firebase.firestore.GeoPoint;
 import com.google.firebase.firestore.ServerTimestamp;
+import com.rescuereach.util.GeoHash;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -20,6 +21,7 @@ public class SOSReport implements Serializable {
     private String userId;
     private String emergencyType; // POLICE, FIRE, MEDICAL
     private GeoPoint location;
+    private String geohash; // Derived from location, for proximity queries
     private String address;
     private String city;
     private String state;
@@ -35,6 +37,7 @@ public class SOSReport implements Serializable {
     private boolean smsSent;
     private String smsStatus;
     private Map<String, Object> responderInfo;
+    private String idempotencyKey; // Client-generated, stable across retries of the same SOS
 
     // Non-persistent fields (excluded from Firestore)
     @Exclude
@@ -103,6 +106,17 @@ public class SOSReport implements Serializable {
         this.location = location;
     }
 
+    public String getGeohash() {
+        if (location != null) {
+            return GeoHash.encode(location.getLatitude(), location.getLongitude(), GeoHash.QUERY_PRECISION);
+        }
+        return geohash;
+    }
+
+    public void setGeohash(String geohash) {
+        this.geohash = geohash;
+    }
+
     public String getAddress() {
         return address;
     }
@@ -217,6 +231,14 @@ public class SOSReport implements Serializable {
         this.responderInfo = responderInfo;
     }
 
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
     @Exclude
     public List<byte[]> getMediaData() {
         return mediaData;
@@ -268,6 +290,7 @@ public class SOSReport implements Serializable {
         map.put("userId", userId);
         map.put("emergencyType", emergencyType);
         map.put("location", location);
+        map.put("geohash", getGeohash());
         map.put("address", address);
         map.put("city", city);
         map.put("state", state);
@@ -280,6 +303,7 @@ public class SOSReport implements Serializable {
         map.put("smsSent", smsSent);
         map.put("smsStatus", smsStatus);
         map.put("responderInfo", responderInfo);
+        map.put("idempotencyKey", idempotencyKey);
 
         // Add collections if they exist and aren't empty
         if (nearbyServices != null && !nearbyServices.isEmpty()) {
@@ -0,0 +1,88 @@
+package com.rescuereach.data.model;
+
+import com.google.firebase.firestore.GeoPoint;
+
+import java.io.Serializable;
+
+/**
+ * Model class for a user_status document: where a user was last seen and whether they're online
+ */
+public class UserStatus implements Serializable {
+    private String userId;
+    private GeoPoint lastLocation;
+    private String geohash;
+    private long lastSeen;
+    private boolean isOnline;
+    private boolean isVolunteer;
+    private double distanceMeters; // From the point a proximity query was made around, not stored
+
+    public UserStatus() {
+        // Required empty constructor for Firestore
+    }
+
+    public UserStatus(String userId, GeoPoint lastLocation, String geohash, long lastSeen,
+                      boolean isOnline, boolean isVolunteer) {
+        this.userId = userId;
+        this.lastLocation = lastLocation;
+        this.geohash = geohash;
+        this.lastSeen = lastSeen;
+        this.isOnline = isOnline;
+        this.isVolunteer = isVolunteer;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public GeoPoint getLastLocation() {
+        return lastLocation;
+    }
+
+    public void setLastLocation(GeoPoint lastLocation) {
+        this.lastLocation = lastLocation;
+    }
+
+    public String getGeohash() {
+        return geohash;
+    }
+
+    public void setGeohash(String geohash) {
+        this.geohash = geohash;
+    }
+
+    public long getLastSeen() {
+        return lastSeen;
+    }
+
+    public void setLastSeen(long lastSeen) {
+        this.lastSeen = lastSeen;
+    }
+
+    public boolean isOnline() {
+        return isOnline;
+    }
+
+    public void setOnline(boolean online) {
+        isOnline = online;
+    }
+
+    public boolean isVolunteer() {
+        return isVolunteer;
+    }
+
+    public void setVolunteer(boolean volunteer) {
+        isVolunteer = volunteer;
+    }
+
+    public double getDistanceMeters() {
+        return distanceMeters;
+    }
+
+    public void setDistanceMeters(double distanceMeters) {
+        this.distanceMeters = distanceMeters;
+    }
+}
@@ -5,6 +5,7 @@ import com.google.firebase.firestore.DocumentReference;
 import com.rescuereach.data.model.SOSReport;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Repository interface for SOS emergency report data operations
@@ -25,6 +26,13 @@ public interface SOSRepository {
      */
     void saveSOSReport(SOSReport report, OnReportSavedListener listener);
 
+    /**
+     * Submit several SOS reports as one batched commit (used to flush the offline outbox)
+     * @param reports The reports to submit, each must already have a report ID
+     * @return Task that completes when the whole batch has been committed
+     */
+    Task<Void> submitSOSReports(List<SOSReport> reports);
+
     /**
      * Update an existing SOS emergency report
      * @param report The SOS report to update
@@ -32,6 +40,15 @@ public interface SOSRepository {
      */
     void updateSOSReport(SOSReport report, OnCompleteListener listener);
 
+    /**
+     * Merge late-arriving fields (address, nearby services, refined location) into a report.
+     * Safe to call before the report itself has been written.
+     * @param reportId Report ID
+     * @param details Field name -> value
+     * @param listener Callback for operation result
+     */
+    void appendSOSDetails(String reportId, Map<String, Object> details, OnCompleteListener listener);
+
     /**
      * Update the status of an SOS report
      * @param reportId Report ID
@@ -42,6 +59,17 @@ public interface SOSRepository {
     void updateSOSStatus(String reportId, String newStatus,
                          Object responderInfo, OnCompleteListener listener);
 
+    /**
+     * Update the status of an SOS report only if it still has the expected status
+     * @param reportId Report ID
+     * @param newStatus New status value
+     * @param expectedStatus Status the report must currently have, or null for an unconditional update
+     * @param responderInfo Optional responder information
+     * @param listener Callback for operation result
+     */
+    void updateSOSStatus(String reportId, String newStatus, String expectedStatus,
+                         Object responderInfo, OnCompleteListener listener);
+
     /**
      * Get a specific SOS report by ID
      * @param reportId The report ID to retrieve
@@ -65,6 +93,17 @@ public interface SOSRepository {
      */
     void getActiveSOSReportsByRegion(String state, int limit, OnReportListFetchedListener listener);
 
+    /**
+     * Get active SOS reports within a radius, nearest first
+     * @param latitude Centre latitude
+     * @param longitude Centre longitude
+     * @param radiusMeters Search radius in meters
+     * @param limit Maximum number of reports to retrieve, 0 for no limit
+     * @param listener Callback with the list of reports
+     */
+    void getActiveSOSReportsNearby(double latitude, double longitude, double radiusMeters, int limit,
+                                   OnReportListFetchedListener listener);
+
     /**
      * Add a comment or update to an SOS report
      * @param reportId Report ID
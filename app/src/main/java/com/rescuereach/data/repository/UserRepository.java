@@ -1,6 +1,7 @@
 package com.rescuereach.data.repository;
 
 import com.rescuereach.data.model.User;
+import com.rescuereach.data.model.UserStatus;
 
 import java.util.List;
 
@@ -11,6 +12,8 @@ public interface UserRepository {
     void updateUserProfile(User user, OnCompleteListener listener); // Updated method
     void deleteUser(String phoneNumber, OnCompleteListener listener); // Changed from userId to phoneNumber
     void getAllUsers(OnUserListFetchedListener listener);
+    void getNearbyVolunteers(double latitude, double longitude, double radiusMeters, int limit,
+                             OnUserStatusListFetchedListener listener); // Online volunteers, nearest first
 
     interface OnUserFetchedListener {
         void onSuccess(User user);
@@ -21,4 +24,9 @@ public interface UserRepository {
         void onSuccess(List<User> users);
         void onError(Exception e);
     }
+
+    interface OnUserStatusListFetchedListener {
+        void onSuccess(List<UserStatus> statuses);
+        void onError(Exception e);
+    }
 }
\ No newline at end of file
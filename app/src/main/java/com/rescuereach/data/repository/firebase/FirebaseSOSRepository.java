@@ -7,10 +7,15 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 
 import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.Transaction;
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
@@ -25,14 +30,16 @@ import com.rescuereach.data.model.SOSReport;
 import com.rescuereach.data.repository.OnCompleteListener;
 import com.rescuereach.data.repository.SOSRepository;
 import com.rescuereach.service.auth.UserSessionManager;
+import com.rescuereach.util.AppExecutors;
+import com.rescuereach.util.FirestorePayloadSize;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 /**
  * Firebase implementation of SOS Repository to store and manage emergency reports
@@ -61,6 +68,7 @@ public class FirebaseSOSRepository implements SOSRepository {
     private static final String FIELD_COMMENT = "comment";
     private static final String FIELD_COMMENT_TIME = "commentTime";
     private static final String FIELD_LAST_UPDATED = "lastUpdated";
+    private static final String FIELD_LOCATION = "location";
 
     // Firebase instances
     private final FirebaseFirestore firestore;
@@ -73,7 +81,15 @@ public class FirebaseSOSRepository implements SOSRepository {
     private final Handler mainHandler;
     private final UserSessionManager sessionManager;
     private final Executor backgroundExecutor;
+    private final Executor sosExecutor;
     private final FirebaseAuth firebaseAuth;
+    private final SOSWritePipeline writePipeline;
+
+    // Owners learned from reports written or read by this repository, so status updates can
+    // mirror into sos_history without a read. Unknown owners are read from the report.
+    private final ReportOwnerCache reportOwners = new ReportOwnerCache(this::lookupReportOwner);
+
+    private final StatusUpdateStats deltaStatusStats = new StatusUpdateStats();
 
     /**
      * Create a new FirebaseSOSRepository
@@ -92,7 +108,10 @@ public class FirebaseSOSRepository implements SOSRepository {
         // Initialize utilities
         this.mainHandler = new Handler(Looper.getMainLooper());
         this.sessionManager = UserSessionManager.getInstance(null);
-        this.backgroundExecutor = Executors.newSingleThreadExecutor();
+        this.backgroundExecutor = AppExecutors.getInstance().newSerialExecutor(AppExecutors.Lane.IO);
+        this.sosExecutor = AppExecutors.getInstance().sosCritical();
+        this.writePipeline = new SOSWritePipeline(firestore, realtimeDb,
+                COLLECTION_SOS_REPORTS, COLLECTION_SOS_HISTORY, RTDB_SOS_PATH, RTDB_ACTIVE_SOS_PATH);
 
         // Ensure authentication for Firebase operations
         ensureAuthentication();
@@ -137,24 +156,14 @@ public class FirebaseSOSRepository implements SOSRepository {
 
         // Make sure userId is set (for security rules)
         ensureUserIdIsSet(report);
+        rememberOwner(report);
 
         // Create a reference to use
         DocumentReference reportRef = reportsCollection.document(report.getReportId());
 
-        // Save to Realtime Database first
-        saveToRealtimeDatabase(report);
-
-        // Return the task for the set operation
-        Task<Void> setTask = reportRef.set(report);
-
-        // When set completes, also save to history
-        setTask.addOnSuccessListener(aVoid -> {
-            // Also save to history collection for the user
-            saveToUserHistory(report, report.getReportId());
-        });
-
-        // Return a task that resolves to the document reference when complete
-        return setTask.continueWith(task -> reportRef);
+        // Report, history and both RTDB paths go out through the write pipeline
+        return writePipeline.write(Collections.singletonList(report), false)
+                .onSuccessTask(aVoid -> Tasks.forResult(reportRef));
     }
 
     @Override
@@ -163,7 +172,7 @@ public class FirebaseSOSRepository implements SOSRepository {
 
         try {
             // Run on background thread
-            backgroundExecutor.execute(() -> {
+            sosExecutor.execute(() -> {
                 try {
                     // Ensure userId is set for Firestore security rules
                     ensureUserIdIsSet(report);
@@ -187,17 +196,14 @@ public class FirebaseSOSRepository implements SOSRepository {
                         report.setStatus(SOSReport.STATUS_PENDING);
                     }
 
-                    // Save to Realtime Database first for better real-time access
-                    saveToRealtimeDatabase(report);
+                    rememberOwner(report);
 
-                    // Save the report to Firestore - use toMap() to avoid DocumentId issues
-                    reportRef.set(report.toMap())
+                    // Save report, history and RTDB entries in one pipeline write.
+                    // The idempotency key makes this safe when submitSOSReport already timed out.
+                    writePipeline.write(Collections.singletonList(report), false)
                             .addOnSuccessListener(aVoid -> {
                                 Log.d(TAG, "SOS report saved with ID: " + report.getReportId());
 
-                                // Also save to history collection for the user
-                                saveToUserHistory(report, reportRef.getId());
-
                                 if (listener != null) {
                                     mainHandler.post(() -> listener.onSuccess(report));
                                 }
@@ -236,6 +242,53 @@ public class FirebaseSOSRepository implements SOSRepository {
         }
     }
 
+    @Override
+    public Task<Void> submitSOSReports(List<SOSReport> reports) {
+        if (reports == null || reports.isEmpty()) {
+            return Tasks.forResult(null);
+        }
+
+        try {
+            for (SOSReport report : reports) {
+                if (report.getReportId() == null || report.getReportId().isEmpty()) {
+                    return Tasks.forException(new IllegalArgumentException("Report ID is required for batch submit"));
+                }
+
+                ensureUserIdIsSet(report);
+                if (report.getTimestamp() == null) {
+                    report.setTimestamp(new Date());
+                }
+                if (report.getStatus() == null || report.getStatus().isEmpty()) {
+                    report.setStatus(SOSReport.STATUS_PENDING);
+                }
+            }
+
+            for (SOSReport report : reports) {
+                rememberOwner(report);
+            }
+
+            // Outbox entries may already have landed before the app lost connectivity
+            return writePipeline.write(reports, true)
+                    .addOnSuccessListener(aVoid ->
+                            Log.d(TAG, "Batch submitted " + reports.size() + " SOS report(s)"))
+                    .addOnFailureListener(e ->
+                            Log.e(TAG, "Error committing SOS report batch", e));
+        } catch (Exception e) {
+            Log.e(TAG, "Error in submitSOSReports", e);
+            return Tasks.forException(e);
+        }
+    }
+
+    /**
+     * End-to-end write latency of a submitted report, from first attempt until both
+     * Firestore and the Realtime Database acknowledged it
+     * @param reportId Report ID
+     * @return Latency in milliseconds, or -1 if the report has not been acknowledged yet
+     */
+    public long getSubmitLatencyMillis(String reportId) {
+        return writePipeline.getLatencyMillis(reportId);
+    }
+
     /**
      * Save SOS report to Realtime Database for better real-time access
      */
@@ -246,71 +299,17 @@ public class FirebaseSOSRepository implements SOSRepository {
         }
 
         try {
-            // Create a version of the report suitable for RTDB
-            // with custom mapping for GeoPoint which doesn't work in RTDB
-            Map<String, Object> rtdbReport = new HashMap<>();
-
-            // Copy basic fields
-            rtdbReport.put("reportId", report.getReportId());
-            rtdbReport.put("userId", report.getUserId());
-            rtdbReport.put("status", report.getStatus());
-            rtdbReport.put("emergencyType", report.getEmergencyType());
-            rtdbReport.put("isOnline", report.isOnline());
-            rtdbReport.put("address", report.getAddress());
-            rtdbReport.put("city", report.getCity());
-            rtdbReport.put("state", report.getState());
-
-            if (report.getTimestamp() != null) {
-                rtdbReport.put("timestamp", report.getTimestamp().getTime());
-            }
-
-            // IMPORTANT FIX: Convert GeoPoint to simple Map for RTDB
-            if (report.getLocation() != null) {
-                Map<String, Double> location = new HashMap<>();
-                location.put("latitude", report.getLocation().getLatitude());
-                location.put("longitude", report.getLocation().getLongitude());
-                rtdbReport.put("location", location);
-            }
-
             // Save to general SOS path
-            sosRTDBRef.child(report.getReportId()).setValue(rtdbReport)
+            sosRTDBRef.child(report.getReportId()).setValue(SOSWritePipeline.buildRealtimeReport(report))
                     .addOnSuccessListener(aVoid ->
                             Log.d(TAG, "SOS saved to Realtime Database"))
                     .addOnFailureListener(e ->
                             Log.e(TAG, "Error saving SOS to Realtime Database", e));
 
             // If the SOS is active (not resolved), also save to active emergencies
-            if (!SOSReport.STATUS_RESOLVED.equals(report.getStatus()) &&
-                    !SOSReport.STATUS_CANCELED.equals(report.getStatus())) {
-                // Create a simplified version for active emergencies
-                Map<String, Object> activeEmergency = new HashMap<>();
-                activeEmergency.put("reportId", report.getReportId());
-                activeEmergency.put("userId", report.getUserId());
-                activeEmergency.put("emergencyType", report.getEmergencyType());
-                activeEmergency.put("status", report.getStatus());
-                activeEmergency.put("timestamp", report.getTimestamp() != null ?
-                        report.getTimestamp().getTime() : System.currentTimeMillis());
-
-                // Add location if available (using same format as above)
-                if (report.getLocation() != null) {
-                    Map<String, Double> location = new HashMap<>();
-                    location.put("latitude", report.getLocation().getLatitude());
-                    location.put("longitude", report.getLocation().getLongitude());
-                    activeEmergency.put("location", location);
-                }
-
-                // Add address if available
-                if (report.getAddress() != null) {
-                    activeEmergency.put("address", report.getAddress());
-                }
-
-                // Add state/region for filtering
-                if (report.getState() != null) {
-                    activeEmergency.put("state", report.getState());
-                }
-
+            if (SOSWritePipeline.isActiveStatus(report.getStatus())) {
                 // Save to active emergencies
-                activeEmergenciesRef.child(report.getReportId()).setValue(activeEmergency)
+                activeEmergenciesRef.child(report.getReportId()).setValue(SOSWritePipeline.buildActiveEmergency(report))
                         .addOnSuccessListener(aVoid ->
                                 Log.d(TAG, "SOS saved to active emergencies"))
                         .addOnFailureListener(e ->
@@ -324,6 +323,13 @@ public class FirebaseSOSRepository implements SOSRepository {
         }
     }
 
+    /**
+     * Remember who owns a report so later status updates can skip the read
+     */
+    private void rememberOwner(SOSReport report) {
+        reportOwners.remember(report.getReportId(), report.getUserId());
+    }
+
     /**
      * Ensure userId is set on the report to satisfy Firestore security rules
      */
@@ -376,52 +382,112 @@ public class FirebaseSOSRepository implements SOSRepository {
                 });
     }
 
-    /**
-     * Save a reference to the report in the user's history collection
-     */
-    private void saveToUserHistory(SOSReport report, String reportId) {
-        if (report.getUserId() == null || report.getUserId().isEmpty()) {
-            Log.w(TAG, "Cannot save to history: No user ID in report");
+    @Override
+    public void appendSOSDetails(String reportId, Map<String, Object> details, OnCompleteListener listener) {
+        if (reportId == null || reportId.isEmpty() || details == null || details.isEmpty()) {
+            if (listener != null) {
+                mainHandler.post(() -> listener.onError(new IllegalArgumentException("Invalid report ID or details")));
+            }
             return;
         }
 
-        try {
-            // Create a reference to the user's history document
-            String userId = report.getUserId();
-            DocumentReference userHistoryRef = firestore.collection(COLLECTION_SOS_HISTORY).document(userId);
+        backgroundExecutor.execute(() -> {
+            try {
+                appendDetailsToRealtimeDatabase(reportId, details);
 
-            // Create a map with the new report reference
-            Map<String, Object> historyUpdate = new HashMap<>();
-            Map<String, Object> reportInfo = new HashMap<>();
+                Map<String, Object> updates = new HashMap<>(details);
+                updates.put(FIELD_LAST_UPDATED, FieldValue.serverTimestamp());
 
-            reportInfo.put(FIELD_TIMESTAMP, report.getTimestamp() != null ?
-                    report.getTimestamp() : new Date());
-            reportInfo.put(FIELD_EMERGENCY_TYPE, report.getEmergencyType());
-            reportInfo.put(FIELD_STATUS, report.getStatus());
+                // Merge, not update: the report write may still be queued behind this one
+                reportsCollection.document(reportId).set(updates, SetOptions.merge())
+                        .addOnSuccessListener(aVoid -> {
+                            Log.d(TAG, "SOS details appended to " + reportId + ": " + details.keySet());
+                            if (listener != null) {
+                                mainHandler.post(listener::onSuccess);
+                            }
+                        })
+                        .addOnFailureListener(e -> {
+                            Log.e(TAG, "Error appending SOS details", e);
 
-            if (report.getAddress() != null) {
-                reportInfo.put("address", report.getAddress());
+                            if (e instanceof FirebaseFirestoreException &&
+                                    ((FirebaseFirestoreException) e).getCode() ==
+                                            FirebaseFirestoreException.Code.PERMISSION_DENIED) {
+                                firebaseAuth.signInAnonymously()
+                                        .addOnSuccessListener(authResult ->
+                                                reportsCollection.document(reportId).set(updates, SetOptions.merge())
+                                                        .addOnSuccessListener(aVoid -> {
+                                                            if (listener != null) {
+                                                                mainHandler.post(listener::onSuccess);
+                                                            }
+                                                        })
+                                                        .addOnFailureListener(retryError -> {
+                                                            if (listener != null) {
+                                                                mainHandler.post(() -> listener.onError(retryError));
+                                                            }
+                                                        }))
+                                        .addOnFailureListener(authError -> {
+                                            if (listener != null) {
+                                                mainHandler.post(() -> listener.onError(authError));
+                                            }
+                                        });
+                                return;
+                            }
+
+                            if (listener != null) {
+                                mainHandler.post(() -> listener.onError(e));
+                            }
+                        });
+            } catch (Exception e) {
+                Log.e(TAG, "Error in appendSOSDetails", e);
+                if (listener != null) {
+                    mainHandler.post(() -> listener.onError(e));
+                }
             }
-            if (report.getState() != null) {
-                reportInfo.put("state", report.getState());
+        });
+    }
+
+    /**
+     * Mirror appended fields that responders read from the Realtime Database
+     */
+    private void appendDetailsToRealtimeDatabase(String reportId, Map<String, Object> details) {
+        Map<String, Object> realtimeDetails = new HashMap<>();
+        for (Map.Entry<String, Object> entry : details.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof GeoPoint) {
+                realtimeDetails.put(entry.getKey(), SOSWritePipeline.toRealtimeLocation((GeoPoint) value));
+            } else if (value instanceof String) {
+                realtimeDetails.put(entry.getKey(), value);
             }
+            // Lists of contacts and services stay Firestore-only
+        }
+        if (realtimeDetails.isEmpty()) {
+            return;
+        }
 
-            // Add to the reports map using the reportId as the key
-            historyUpdate.put("reports." + reportId, reportInfo);
-            historyUpdate.put("lastReportTime", report.getTimestamp() != null ?
-                    report.getTimestamp() : new Date());
-            historyUpdate.put("reportCount", FieldValue.increment(1));
+        sosRTDBRef.child(reportId).updateChildren(realtimeDetails)
+                .addOnFailureListener(e -> Log.e(TAG, "Error appending SOS details to Realtime Database", e));
 
-            // Set with merge to update or create the document
-            userHistoryRef.set(historyUpdate, SetOptions.merge())
-                    .addOnSuccessListener(aVoid ->
-                            Log.d(TAG, "Added report to user history: " + userId))
-                    .addOnFailureListener(e ->
-                            Log.e(TAG, "Error adding to user history", e));
+        // Only touch the active entry if it still exists, so a resolved SOS is not brought back
+        activeEmergenciesRef.child(reportId).runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData currentData) {
+                if (currentData.getValue() == null) {
+                    return Transaction.abort();
+                }
+                for (Map.Entry<String, Object> entry : realtimeDetails.entrySet()) {
+                    currentData.child(entry.getKey()).setValue(entry.getValue());
+                }
+                return Transaction.success(currentData);
+            }
 
-        } catch (Exception e) {
-            Log.e(TAG, "Error saving to user history", e);
-        }
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot currentData) {
+                if (error != null) {
+                    Log.e(TAG, "Error appending SOS details to active emergency", error.toException());
+                }
+            }
+        });
     }
 
     @Override
@@ -504,99 +570,119 @@ public class FirebaseSOSRepository implements SOSRepository {
     @Override
     public void updateSOSStatus(String reportId, String newStatus,
                                 Object responderInfo, OnCompleteListener listener) {
+        updateSOSStatus(reportId, newStatus, null, responderInfo, listener);
+    }
+
+    @Override
+    public void updateSOSStatus(String reportId, String newStatus, String expectedStatus,
+                                Object responderInfo, OnCompleteListener listener) {
         if (reportId == null || reportId.isEmpty() || newStatus == null || newStatus.isEmpty()) {
             if (listener != null) {
                 mainHandler.post(() -> listener.onError(new IllegalArgumentException("Invalid report ID or status")));
             }
             return;
         }
+        FirestoreCachePolicy.keepPendingWrites();
 
         // If it's a cancellation, handle it with higher priority and ensure authentication
-        if (SOSReport.STATUS_CANCELED.equals(newStatus)) {
+        if (SOSReport.STATUS_CANCELED.equals(newStatus) && expectedStatus == null) {
             handleCancellation(reportId, responderInfo, listener);
             return;
         }
 
-        backgroundExecutor.execute(() -> {
+        sosExecutor.execute(() -> {
             try {
                 DocumentReference reportRef = reportsCollection.document(reportId);
 
-                // Get the current report first to update both Firestore and RTDB
-                reportRef.get()
-                        .addOnSuccessListener(documentSnapshot -> {
-                            if (documentSnapshot.exists()) {
-                                SOSReport report = documentSnapshot.toObject(SOSReport.class);
-                                if (report != null) {
-                                    // Make sure reportId is set since @DocumentId might not work
-                                    report.setReportId(documentSnapshot.getId());
-
-                                    // Update the status
-                                    report.setStatus(newStatus);
-                                    // Set statusUpdatedAt to now
-                                    report.setStatusUpdatedAt(new Date());
-
-                                    // Use toMap() to create update data
-                                    Map<String, Object> updateData = report.toMap();
-
-                                    // Add responder info if provided
-                                    if (responderInfo != null) {
-                                        if (responderInfo instanceof Map) {
-                                            // If it's already a Map, put it directly in the update data
-                                            updateData.put(FIELD_RESPONDER_INFO, responderInfo);
-                                        } else {
-                                            // If it's some other object, convert to String representation
-                                            updateData.put(FIELD_RESPONDER_INFO, responderInfo.toString());
-                                        }
-                                    }
+                if (expectedStatus != null) {
+                    updateStatusConditionally(reportRef, reportId, newStatus, expectedStatus, responderInfo, listener);
+                } else {
+                    // Only the changed fields are sent, no read first
+                    updateStatusDirectly(reportRef, reportId, newStatus, responderInfo, listener);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error in updateSOSStatus", e);
+                if (listener != null) {
+                    mainHandler.post(() -> listener.onError(e));
+                }
+            }
+        });
+    }
 
-                                    // Store report and reportId for use in callbacks
-                                    final SOSReport finalReport = report;
-                                    final String finalReportId = reportId;
+    /**
+     * Bytes sent and round-trip times of status updates
+     * @return Human readable summary
+     */
+    public String getStatusUpdateStats() {
+        return deltaStatusStats.toString();
+    }
 
-                                    // Use updateData map to update instead of the report object directly
-                                    reportRef.set(updateData, SetOptions.merge())
-                                            .addOnSuccessListener(aVoid -> {
-                                                // Update Realtime Database
-                                                updateStatusInRealtimeDatabase(finalReportId, newStatus, responderInfo);
+    /**
+     * Build the field delta for a status change, signed with the current auth user
+     */
+    private Map<String, Object> buildStatusDelta(String newStatus, Object responderInfo) {
+        FirebaseUser currentUser = FirebaseAuth.getInstance().getCurrentUser();
+        return StatusUpdates.delta(newStatus, responderInfo,
+                currentUser != null ? currentUser.getUid() : null);
+    }
 
-                                                // Update history
-                                                if (finalReport.getUserId() != null) {
-                                                    updateStatusInHistory(finalReportId, finalReport.getUserId(), newStatus);
-                                                }
+    /**
+     * Update status only if the report still has the expected status.
+     * The check and the delta write run in one transaction, which also reveals the owner for the
+     * history entry. The history is mirrored afterwards as a separate best-effort write, a rule
+     * rejecting the history document must not fail the status change. If the transaction can't
+     * run (e.g. offline) this falls back to a direct update.
+     */
+    private void updateStatusConditionally(DocumentReference reportRef, String reportId, String newStatus,
+                                           String expectedStatus, Object responderInfo,
+                                           OnCompleteListener listener) {
+        final long startTime = System.currentTimeMillis();
+        final Map<String, Object> updates = buildStatusDelta(newStatus, responderInfo);
+
+        firestore.runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(reportRef);
+            if (!snapshot.exists()) {
+                throw new FirebaseFirestoreException("Report not found",
+                        FirebaseFirestoreException.Code.NOT_FOUND);
+            }
 
-                                                if (listener != null) {
-                                                    mainHandler.post(listener::onSuccess);
-                                                }
-                                            })
-                                            .addOnFailureListener(e -> {
-                                                Log.e(TAG, "Error updating report with status", e);
-                                                if (listener != null) {
-                                                    mainHandler.post(() -> listener.onError(e));
-                                                }
-                                            });
-                                } else {
-                                    // Document exists but couldn't convert to object
-                                    updateStatusDirectly(reportRef, reportId, newStatus, responderInfo, listener);
-                                }
-                            } else {
-                                // Document doesn't exist
-                                if (listener != null) {
-                                    mainHandler.post(() -> listener.onError(new Exception("Report not found")));
-                                }
-                            }
-                        })
-                        .addOnFailureListener(e -> {
-                            Log.e(TAG, "Error fetching report for status update", e);
+            String currentStatus = snapshot.getString(FIELD_STATUS);
+            if (!expectedStatus.equals(currentStatus)) {
+                throw new FirebaseFirestoreException("Status is " + currentStatus + ", expected " + expectedStatus,
+                        FirebaseFirestoreException.Code.FAILED_PRECONDITION);
+            }
 
-                            // Still try direct update as fallback
-                            updateStatusDirectly(reportRef, reportId, newStatus, responderInfo, listener);
-                        });
-            } catch (Exception e) {
-                Log.e(TAG, "Error in updateSOSStatus", e);
-                if (listener != null) {
-                    mainHandler.post(() -> listener.onError(e));
+            transaction.update(reportRef, updates);
+            return snapshot.getString(FIELD_USER_ID);
+        }).addOnSuccessListener(userId -> {
+            // A transaction reads the precondition field, count it with the delta
+            deltaStatusStats.record(FirestorePayloadSize.estimate(updates) + FirestorePayloadSize.estimate(expectedStatus),
+                    System.currentTimeMillis() - startTime);
+
+            if (userId != null && !userId.isEmpty()) {
+                reportOwners.remember(reportId, userId);
+                updateStatusInHistory(reportId, userId, newStatus);
+            }
+            updateStatusInRealtimeDatabase(reportId, newStatus, responderInfo);
+            Log.d(TAG, "SOS status updated from " + expectedStatus + " to: " + newStatus);
+            if (listener != null) {
+                mainHandler.post(listener::onSuccess);
+            }
+        }).addOnFailureListener(e -> {
+            if (e instanceof FirebaseFirestoreException) {
+                FirebaseFirestoreException.Code code = ((FirebaseFirestoreException) e).getCode();
+                if (code == FirebaseFirestoreException.Code.FAILED_PRECONDITION ||
+                        code == FirebaseFirestoreException.Code.NOT_FOUND) {
+                    Log.w(TAG, "Conditional status update rejected: " + e.getMessage());
+                    if (listener != null) {
+                        mainHandler.post(() -> listener.onError(e));
+                    }
+                    return;
                 }
             }
+
+            Log.e(TAG, "Conditional status update failed, falling back to direct update", e);
+            updateStatusDirectly(reportRef, reportId, newStatus, responderInfo, listener);
         });
     }
 
@@ -631,36 +717,18 @@ public class FirebaseSOSRepository implements SOSRepository {
     }
 
     /**
-     * Update status directly without fetching the report first
+     * Update status directly without fetching the report first.
+     * Sends only the changed fields; a missing report fails the update with NOT_FOUND. The owner's
+     * history is mirrored once the report is updated, as a separate best-effort write.
      */
     private void updateStatusDirectly(DocumentReference reportRef, String reportId,
                                       String newStatus, Object responderInfo, OnCompleteListener listener) {
         try {
-            // Start a batch write
-            WriteBatch batch = firestore.batch();
+            final long startTime = System.currentTimeMillis();
 
-            // Update the report status
-            Map<String, Object> updates = new HashMap<>();
-            updates.put(FIELD_STATUS, newStatus);
-            updates.put("statusUpdatedAt", new Date());
-
-            // Add last updated by info using current auth user
-            FirebaseUser currentUser = FirebaseAuth.getInstance().getCurrentUser();
-            if (currentUser != null) {
-                updates.put("lastUpdatedBy", currentUser.getUid());
-            }
-
-            // Add responder info if provided
-            if (responderInfo != null) {
-                // Handle the responderInfo based on its type
-                if (responderInfo instanceof Map) {
-                    updates.put(FIELD_RESPONDER_INFO, responderInfo);
-                } else {
-                    updates.put(FIELD_RESPONDER_INFO, responderInfo.toString());
-                }
-            }
-
-            batch.update(reportRef, updates);
+            // Update only the changed fields of the report
+            Map<String, Object> updates = buildStatusDelta(newStatus, responderInfo);
+            final long payloadBytes = FirestorePayloadSize.estimate(updates);
 
             // Store reportId for use in callbacks
             final String finalReportId = reportId;
@@ -668,10 +736,17 @@ public class FirebaseSOSRepository implements SOSRepository {
             // Update Realtime Database too
             updateStatusInRealtimeDatabase(finalReportId, newStatus, responderInfo);
 
-            // Commit the batch
-            batch.commit()
+            reportRef.update(updates)
                     .addOnSuccessListener(aVoid -> {
+                        deltaStatusStats.record(payloadBytes, System.currentTimeMillis() - startTime);
                         Log.d(TAG, "SOS status updated directly to: " + newStatus);
+
+                        // Read once if this process hasn't seen the owner, e.g. a responder's update
+                        reportOwners.resolve(finalReportId, owner -> {
+                            if (owner != null) {
+                                updateStatusInHistory(finalReportId, owner, newStatus);
+                            }
+                        });
                         if (listener != null) {
                             mainHandler.post(listener::onSuccess);
                         }
@@ -743,19 +818,13 @@ public class FirebaseSOSRepository implements SOSRepository {
     }
 
     /**
-     * Update status in user history collection
+     * Mirror a status change into the owner's history, best effort
      */
     private void updateStatusInHistory(String reportId, String userId, String newStatus) {
         try {
-            DocumentReference historyRef = firestore
-                    .collection(COLLECTION_SOS_HISTORY)
-                    .document(userId);
-
-            Map<String, Object> historyUpdates = new HashMap<>();
-            historyUpdates.put("reports." + reportId + "." + FIELD_STATUS, newStatus);
-            historyUpdates.put("reports." + reportId + ".statusUpdatedAt", new Date());
-
-            historyRef.update(historyUpdates)
+            firestore.collection(COLLECTION_SOS_HISTORY)
+                    .document(userId)
+                    .set(StatusUpdates.historyEntry(reportId, newStatus), SetOptions.merge())
                     .addOnFailureListener(e ->
                             Log.e(TAG, "Error updating status in history", e));
         } catch (Exception e) {
@@ -763,6 +832,18 @@ public class FirebaseSOSRepository implements SOSRepository {
         }
     }
 
+    /**
+     * Read a report's owner for {@link #reportOwners}
+     */
+    private void lookupReportOwner(String reportId, ReportOwnerCache.OnOwner callback) {
+        reportsCollection.document(reportId).get()
+                .addOnSuccessListener(snapshot -> callback.onOwner(snapshot.getString(FIELD_USER_ID)))
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error reading owner of " + reportId, e);
+                    callback.onOwner(null);
+                });
+    }
+
     /**
      * Authenticate and retry status update
      */
@@ -811,6 +892,7 @@ public class FirebaseSOSRepository implements SOSRepository {
         reportsCollection.document(reportId)
                 .get()
                 .addOnSuccessListener(documentSnapshot -> {
+                    FirestoreCachePolicy.recordRead(documentSnapshot);
                     if (documentSnapshot.exists()) {
                         try {
                             SOSReport report = documentSnapshot.toObject(SOSReport.class);
@@ -818,6 +900,7 @@ public class FirebaseSOSRepository implements SOSRepository {
                             // Make sure reportId is explicitly set since @DocumentId annotation is removed
                             if (report != null) {
                                 report.setReportId(documentSnapshot.getId());
+                                rememberOwner(report);
 
                                 // Return to main thread
                                 if (listener != null) {
@@ -896,12 +979,14 @@ public class FirebaseSOSRepository implements SOSRepository {
 
                 query.get()
                         .addOnSuccessListener(queryDocumentSnapshots -> {
+                            FirestoreCachePolicy.recordRead(queryDocumentSnapshots);
                             List<SOSReport> reports = new ArrayList<>();
                             for (DocumentSnapshot doc : queryDocumentSnapshots) {
                                 SOSReport report = doc.toObject(SOSReport.class);
                                 if (report != null) {
                                     // Make sure reportId is explicitly set since @DocumentId annotation is removed
                                     report.setReportId(doc.getId());
+                                    rememberOwner(report);
                                     reports.add(report);
                                 }
                             }
@@ -976,12 +1061,14 @@ public class FirebaseSOSRepository implements SOSRepository {
 
                 query.get()
                         .addOnSuccessListener(queryDocumentSnapshots -> {
+                            FirestoreCachePolicy.recordRead(queryDocumentSnapshots);
                             List<SOSReport> reports = new ArrayList<>();
                             for (DocumentSnapshot doc : queryDocumentSnapshots) {
                                 SOSReport report = doc.toObject(SOSReport.class);
                                 if (report != null) {
                                     // Make sure reportId is explicitly set since @DocumentId annotation is removed
                                     report.setReportId(doc.getId());
+                                    rememberOwner(report);
                                     reports.add(report);
                                 }
                             }
@@ -1014,6 +1101,44 @@ public class FirebaseSOSRepository implements SOSRepository {
         });
     }
 
+    @Override
+    public void getActiveSOSReportsNearby(double latitude, double longitude, double radiusMeters, int limit,
+                                          OnReportListFetchedListener listener) {
+        if (radiusMeters <= 0) {
+            if (listener != null) {
+                mainHandler.post(() -> listener.onError(new IllegalArgumentException("Invalid radius")));
+            }
+            return;
+        }
+
+        // The in filter on status goes with the geohash range, backed by a composite index
+        Query activeReports = reportsCollection.whereIn(FIELD_STATUS, SOSWritePipeline.ACTIVE_STATUSES);
+        GeoQuery.nearby(activeReports, FIELD_LOCATION, latitude, longitude, radiusMeters, backgroundExecutor)
+                .addOnSuccessListener(backgroundExecutor, hits -> {
+                    List<SOSReport> reports = new ArrayList<>();
+                    for (GeoQuery.Hit hit : hits) {
+                        SOSReport report = hit.document.toObject(SOSReport.class);
+                        if (report != null) {
+                            report.setReportId(hit.document.getId());
+                            rememberOwner(report);
+                            reports.add(report);
+                            if (limit > 0 && reports.size() >= limit) {
+                                break;
+                            }
+                        }
+                    }
+                    if (listener != null) {
+                        mainHandler.post(() -> listener.onSuccess(reports));
+                    }
+                })
+                .addOnFailureListener(backgroundExecutor, e -> {
+                    Log.e(TAG, "Error fetching nearby SOS reports", e);
+                    if (listener != null) {
+                        mainHandler.post(() -> listener.onError(e));
+                    }
+                });
+    }
+
     /**
      * Authenticate and retry getting region reports
      */
@@ -1278,4 +1403,28 @@ public class FirebaseSOSRepository implements SOSRepository {
                     }
                 });
     }
-}
\ No newline at end of file
+
+    /**
+     * Running totals for one status update path
+     */
+    private static class StatusUpdateStats {
+        private long count;
+        private long totalBytes;
+        private long totalRoundTripMillis;
+
+        synchronized void record(long bytes, long roundTripMillis) {
+            count++;
+            totalBytes += bytes;
+            totalRoundTripMillis += roundTripMillis;
+        }
+
+        @Override
+        public synchronized String toString() {
+            if (count == 0) {
+                return "no updates";
+            }
+            return count + " updates, avg " + (totalBytes / count) + " bytes, avg " +
+                    (totalRoundTripMillis / count) + "ms";
+        }
+    }
+}
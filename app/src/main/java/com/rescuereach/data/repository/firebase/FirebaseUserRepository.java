@@ -8,12 +8,15 @@ import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.SetOptions;
 import com.rescuereach.data.model.User;
+import com.rescuereach.data.model.UserStatus;
 import com.rescuereach.data.repository.OnCompleteListener;
 import com.rescuereach.data.repository.UserRepository;
+import com.rescuereach.util.AppExecutors;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -23,15 +26,19 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
 
 public class FirebaseUserRepository implements UserRepository {
     private static final String TAG = "FirebaseUserRepository";
     private static final String COLLECTION_USERS = "users";
+    private static final String COLLECTION_USER_STATUS = "user_status";
     private static final String FIELD_PHONE_NUMBER = "phoneNumber";
     private static final String FIELD_USER_ID = "userId";
     private static final String FIELD_CREATED_AT = "createdAt";
     private static final String FIELD_CREATED_AT_FORMATTED = "createdAtFormatted";
     private static final String DATE_FORMAT_PATTERN = "yyyy-MM-dd HH:mm:ss";
+    // A volunteer not seen for longer than this is not offered as nearby
+    private static final long VOLUNTEER_STALE_MS = TimeUnit.MINUTES.toMillis(30);
 
     private final FirebaseFirestore firestore;
     private final CollectionReference usersCollection;
@@ -369,6 +376,45 @@ public class FirebaseUserRepository implements UserRepository {
                 });
     }
 
+    @Override
+    public void getNearbyVolunteers(double latitude, double longitude, double radiusMeters, int limit,
+                                    OnUserStatusListFetchedListener listener) {
+        if (radiusMeters <= 0) {
+            listener.onError(new IllegalArgumentException("Radius must be positive"));
+            return;
+        }
+
+        // Only volunteers are read, backed by a composite index on isVolunteer and geohash
+        Query volunteerStatus = firestore.collection(COLLECTION_USER_STATUS).whereEqualTo("isVolunteer", true);
+        GeoQuery.nearby(volunteerStatus, "lastLocation",
+                        latitude, longitude, radiusMeters, AppExecutors.getInstance().io())
+                .addOnSuccessListener(hits -> {
+                    long cutoff = System.currentTimeMillis() - VOLUNTEER_STALE_MS;
+                    List<UserStatus> volunteers = new ArrayList<>();
+                    for (GeoQuery.Hit hit : hits) {
+                        DocumentSnapshot document = hit.document;
+                        Long lastSeen = document.getLong("lastSeen");
+                        if (!Boolean.TRUE.equals(document.getBoolean("isOnline")) ||
+                                lastSeen == null || lastSeen < cutoff) {
+                            continue;
+                        }
+                        UserStatus status = new UserStatus(document.getString(FIELD_USER_ID),
+                                document.getGeoPoint("lastLocation"), document.getString(GeoQuery.FIELD_GEOHASH),
+                                lastSeen, true, true);
+                        status.setDistanceMeters(hit.distanceMeters);
+                        volunteers.add(status);
+                        if (limit > 0 && volunteers.size() >= limit) {
+                            break;
+                        }
+                    }
+                    listener.onSuccess(volunteers);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error getting nearby volunteers", e);
+                    listener.onError(e);
+                });
+    }
+
     private void saveUserToRealtimeDatabase(User user, OnCompleteListener listener) {
         // Get current authenticated user
         FirebaseUser currentUser = firebaseAuth.getCurrentUser();
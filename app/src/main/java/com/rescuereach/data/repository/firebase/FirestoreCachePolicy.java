@@ -0,0 +1,307 @@
+package com.rescuereach.data.repository.firebase;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreSettings;
+import com.google.firebase.firestore.PersistentCacheIndexManager;
+import com.google.firebase.firestore.PersistentCacheSettings;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SnapshotMetadata;
+import com.google.firebase.firestore.Source;
+import com.rescuereach.data.local.AppDatabase;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size and lifetime policy for Firestore's on-disk cache.
+ * <ul>
+ * <li>The cache has a byte budget, Firestore evicts least recently used documents that no
+ * listener holds once it's over it.</li>
+ * <li>Eviction frees space inside the SQLite file but never shrinks it, so when the file has
+ * grown well past the budget the cleanup worker asks for the cache to be cleared on the next
+ * cold start, before Firestore opens it. Clearing also drops writes that haven't reached the
+ * server, so it's only asked for once they have all been acknowledged and the SOS outbox is
+ * empty, and any SOS write after that withdraws the request.</li>
+ * <li>After startup the signed-in user's own reports and history are fetched from the server, so
+ * the screens that show them open from a fresh cache.</li>
+ * </ul>
+ * Repositories report their reads here, which gives the share served from the cache. The
+ * counts are kept in the policy's preferences, since the cleanup worker that reports them
+ * usually runs in a process of its own.
+ */
+public final class FirestoreCachePolicy {
+    private static final String TAG = "FirestoreCachePolicy";
+
+    private static final String PREFS_NAME = "firestore_cache";
+    private static final String KEY_BUDGET_BYTES = "budget_bytes";
+    private static final String KEY_CLEAR_ON_START = "clear_on_start";
+    private static final String KEY_FROM_CACHE = "documents_from_cache";
+    private static final String KEY_FROM_SERVER = "documents_from_server";
+    private static final String KEY_WARMED = "documents_warmed";
+
+    public static final long DEFAULT_BUDGET_BYTES = 40L * 1024 * 1024;
+    // Firestore rejects anything smaller
+    public static final long MIN_BUDGET_BYTES = 1024L * 1024;
+    // How far past the budget the file may grow before it's rebuilt
+    private static final double COMPACT_FACTOR = 2.0;
+    // How long the cleanup worker waits for unacknowledged writes before giving up for the day
+    private static final long PENDING_WRITES_TIMEOUT_SECONDS = 30;
+    // Read counts are added to the stored totals in steps of this many documents
+    private static final long FLUSH_EVERY_DOCUMENTS = 50;
+
+    // Warm-up
+    private static final String COLLECTION_SOS_REPORTS = "sos_reports";
+    private static final String COLLECTION_SOS_HISTORY = "sos_history";
+    private static final String FIELD_USER_ID = "userId";
+    private static final String FIELD_TIMESTAMP = "timestamp";
+    private static final int WARM_UP_REPORTS = 20;
+
+    // Metrics not yet added to the stored totals
+    private static final AtomicLong documentsFromCache = new AtomicLong();
+    private static final AtomicLong documentsFromServer = new AtomicLong();
+    private static final AtomicLong documentsWarmed = new AtomicLong();
+
+    // Set by configure, for the calls that have no context of their own
+    private static volatile Context appContext;
+
+    private FirestoreCachePolicy() {
+        // Utility class
+    }
+
+    /**
+     * Apply the cache settings. Must run before anything else touches Firestore.
+     * @param context Any context
+     * @param firestore The default instance, not yet used
+     */
+    public static void configure(Context context, FirebaseFirestore firestore) {
+        appContext = context.getApplicationContext();
+        SharedPreferences prefs = prefs(context);
+        long budget = getBudgetBytes(context);
+
+        firestore.setFirestoreSettings(new FirebaseFirestoreSettings.Builder()
+                .setLocalCacheSettings(PersistentCacheSettings.newBuilder()
+                        .setSizeBytes(budget)
+                        .build())
+                .build());
+
+        if (prefs.getBoolean(KEY_CLEAR_ON_START, false)) {
+            prefs.edit().putBoolean(KEY_CLEAR_ON_START, false).apply();
+            // Allowed only before the instance starts, warm-up refills what we need
+            firestore.clearPersistence()
+                    .addOnSuccessListener(aVoid -> Log.d(TAG, "Cache cleared to reclaim disk space"))
+                    .addOnFailureListener(e -> Log.e(TAG, "Error clearing cache", e));
+        }
+        Log.d(TAG, "Cache budget " + budget / 1024 + " KB");
+    }
+
+    /**
+     * Bring the user's own documents into the cache from the server. Returns straight away, the
+     * reads finish in the background. When offline they fail and the cache keeps what it has.
+     * @param firestore The default instance
+     * @param userId Owner of the reports, the saved phone number
+     */
+    public static void warmUp(FirebaseFirestore firestore, String userId) {
+        // Local queries on fields without a composite index scan the whole collection
+        PersistentCacheIndexManager indexManager = firestore.getPersistentCacheIndexManager();
+        if (indexManager != null) {
+            indexManager.enableIndexAutoCreation();
+        }
+
+        if (userId == null || userId.isEmpty()) {
+            return;
+        }
+
+        Task<QuerySnapshot> reports = firestore.collection(COLLECTION_SOS_REPORTS)
+                .whereEqualTo(FIELD_USER_ID, userId)
+                .orderBy(FIELD_TIMESTAMP, Query.Direction.DESCENDING)
+                .limit(WARM_UP_REPORTS)
+                .get(Source.SERVER);
+        Task<DocumentSnapshot> history = firestore.collection(COLLECTION_SOS_HISTORY)
+                .document(userId)
+                .get(Source.SERVER);
+
+        Tasks.whenAllComplete(reports, history).addOnCompleteListener(task -> {
+            long warmed = 0;
+            if (reports.isSuccessful()) {
+                warmed += reports.getResult().size();
+            }
+            if (history.isSuccessful() && history.getResult().exists()) {
+                warmed++;
+            }
+            documentsWarmed.addAndGet(warmed);
+            flushCounters(appContext);
+            Log.d(TAG, "Warmed " + warmed + " documents");
+        });
+    }
+
+    /**
+     * Count a query result towards the cache hit rate
+     */
+    public static void recordRead(QuerySnapshot snapshot) {
+        record(snapshot.getMetadata(), snapshot.size());
+    }
+
+    /**
+     * Count a document read towards the cache hit rate
+     */
+    public static void recordRead(DocumentSnapshot snapshot) {
+        record(snapshot.getMetadata(), 1);
+    }
+
+    /**
+     * Clear the cache the next time {@link #configure} runs, for recovering from a corrupt cache.
+     * Unacknowledged writes go with it.
+     */
+    public static void clearOnNextStart(Context context) {
+        prefs(context).edit().putBoolean(KEY_CLEAR_ON_START, true).apply();
+    }
+
+    /**
+     * Withdraw a requested clear because a write that must reach the server may be pending again.
+     * Called by the SOS write paths, cheap when nothing was requested.
+     */
+    public static void keepPendingWrites() {
+        Context context = appContext;
+        if (context == null) {
+            return;
+        }
+        SharedPreferences prefs = prefs(context);
+        if (prefs.getBoolean(KEY_CLEAR_ON_START, false)) {
+            prefs.edit().putBoolean(KEY_CLEAR_ON_START, false).apply();
+            Log.d(TAG, "SOS write pending, cache clear withdrawn");
+        }
+    }
+
+    /**
+     * Change the cache budget, applied from the next cold start
+     * @param bytes New budget, raised to {@link #MIN_BUDGET_BYTES} if smaller
+     */
+    public static void setBudgetBytes(Context context, long bytes) {
+        prefs(context).edit().putLong(KEY_BUDGET_BYTES, Math.max(bytes, MIN_BUDGET_BYTES)).apply();
+    }
+
+    public static long getBudgetBytes(Context context) {
+        return Math.max(prefs(context).getLong(KEY_BUDGET_BYTES, DEFAULT_BUDGET_BYTES), MIN_BUDGET_BYTES);
+    }
+
+    /**
+     * Size of Firestore's SQLite files, including the write-ahead log
+     */
+    public static long getCacheSizeBytes(Context context) {
+        // Firestore keeps its database next to the app's own, named firestore.<key>.<project>...
+        File[] files = context.getDatabasePath("firestore").getParentFile().listFiles();
+        if (files == null) {
+            return 0;
+        }
+        long total = 0;
+        for (File file : files) {
+            if (file.getName().startsWith("firestore.")) {
+                total += file.length();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Check the cache file against the budget and ask for it to be rebuilt on the next cold start
+     * if eviction can't bring it back down. Nothing is requested while writes are waiting for the
+     * server or SOS reports are waiting in the outbox. Blocks, call from a worker thread.
+     * @param firestore The default instance
+     * @return true if a rebuild was requested
+     */
+    public static boolean compactIfNeeded(Context context, FirebaseFirestore firestore) {
+        long size = getCacheSizeBytes(context);
+        long limit = (long) (getBudgetBytes(context) * COMPACT_FACTOR);
+        if (size <= limit) {
+            return false;
+        }
+
+        try {
+            Tasks.await(firestore.waitForPendingWrites(), PENDING_WRITES_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            Log.d(TAG, "Writes still pending, cache kept: " + e.getMessage());
+            return false;
+        }
+        int queued = AppDatabase.getInstance(context).pendingSOSReportDao().count();
+        if (queued > 0) {
+            Log.d(TAG, queued + " SOS reports in the outbox, cache kept");
+            return false;
+        }
+
+        clearOnNextStart(context);
+        Log.i(TAG, "Cache is " + size / 1024 + " KB, over " + limit / 1024 + " KB, clearing on next start");
+        return true;
+    }
+
+    /**
+     * Cache size and hit rate for diagnostics, counted since the last {@link #reportAndReset}
+     */
+    public static String getStats(Context context) {
+        flushCounters(context);
+        SharedPreferences prefs = prefs(context);
+        long fromCache = prefs.getLong(KEY_FROM_CACHE, 0);
+        long fromServer = prefs.getLong(KEY_FROM_SERVER, 0);
+        long total = fromCache + fromServer;
+        long hitRatePercent = total > 0 ? fromCache * 100 / total : 0;
+        return "sizeKb=" + getCacheSizeBytes(context) / 1024 +
+                " budgetKb=" + getBudgetBytes(context) / 1024 +
+                " documentsFromCache=" + fromCache +
+                " documentsFromServer=" + fromServer +
+                " hitRate=" + hitRatePercent + "%" +
+                " documentsWarmed=" + prefs.getLong(KEY_WARMED, 0);
+    }
+
+    /**
+     * Stats for the period that just ended, then start counting a new one
+     */
+    public static synchronized String reportAndReset(Context context) {
+        String stats = getStats(context);
+        prefs(context).edit()
+                .remove(KEY_FROM_CACHE)
+                .remove(KEY_FROM_SERVER)
+                .remove(KEY_WARMED)
+                .apply();
+        return stats;
+    }
+
+    private static void record(SnapshotMetadata metadata, int documents) {
+        AtomicLong counter = metadata.isFromCache() ? documentsFromCache : documentsFromServer;
+        if (counter.addAndGet(documents) >= FLUSH_EVERY_DOCUMENTS) {
+            flushCounters(appContext);
+        }
+    }
+
+    /**
+     * Add the counts of this process to the stored totals
+     */
+    private static synchronized void flushCounters(Context context) {
+        if (context == null) {
+            return;
+        }
+        long fromCache = documentsFromCache.getAndSet(0);
+        long fromServer = documentsFromServer.getAndSet(0);
+        long warmed = documentsWarmed.getAndSet(0);
+        if (fromCache == 0 && fromServer == 0 && warmed == 0) {
+            return;
+        }
+        SharedPreferences prefs = prefs(context);
+        prefs.edit()
+                .putLong(KEY_FROM_CACHE, prefs.getLong(KEY_FROM_CACHE, 0) + fromCache)
+                .putLong(KEY_FROM_SERVER, prefs.getLong(KEY_FROM_SERVER, 0) + fromServer)
+                .putLong(KEY_WARMED, prefs.getLong(KEY_WARMED, 0) + warmed)
+                .apply();
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
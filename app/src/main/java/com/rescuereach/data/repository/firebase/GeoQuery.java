@@ -0,0 +1,102 @@
+package com.rescuereach.data.repository.firebase;
+
+import android.location.Location;
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.GeoPoint;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.rescuereach.util.GeoHash;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Radius queries over documents that store a {@link GeoHash#QUERY_PRECISION} geohash next to
+ * their GeoPoint. The circle is covered by at most 9 geohash prefixes, each read with one
+ * range scan on the geohash field, and the hits are then filtered by exact distance. Reads
+ * are proportional to the documents near the centre, not to the size of the collection.
+ * A query with no other filters only needs the single-field index on geohash. Equality and
+ * in filters on other fields are applied by Firestore too, but each combination needs a
+ * composite index with the geohash last, see firestore.indexes.json.
+ */
+final class GeoQuery {
+    private static final String TAG = "GeoQuery";
+
+    static final String FIELD_GEOHASH = "geohash";
+
+    /**
+     * A document within the radius and its distance from the centre
+     */
+    static final class Hit {
+        final DocumentSnapshot document;
+        final double distanceMeters;
+
+        Hit(DocumentSnapshot document, double distanceMeters) {
+            this.document = document;
+            this.distanceMeters = distanceMeters;
+        }
+    }
+
+    private GeoQuery() {
+        // Utility class
+    }
+
+    /**
+     * Find documents within a radius
+     * @param query Collection to scan, optionally with equality or in filters already applied
+     * @param locationField Name of the GeoPoint field the geohash was derived from
+     * @param latitude Centre latitude
+     * @param longitude Centre longitude
+     * @param radiusMeters Radius
+     * @param executor Executor to filter the results on
+     * @return Task with the hits, nearest first
+     */
+    static Task<List<Hit>> nearby(Query query, String locationField,
+                                  double latitude, double longitude, double radiusMeters,
+                                  Executor executor) {
+        List<String> prefixes = GeoHash.coveringPrefixes(latitude, longitude, radiusMeters);
+        List<Task<QuerySnapshot>> scans = new ArrayList<>(prefixes.size());
+        for (String prefix : prefixes) {
+            scans.add(query
+                    .whereGreaterThanOrEqualTo(FIELD_GEOHASH, prefix)
+                    .whereLessThan(FIELD_GEOHASH, prefix + GeoHash.PREFIX_RANGE_END)
+                    .get());
+        }
+
+        return Tasks.whenAllSuccess(scans).continueWith(executor, task -> {
+            List<Hit> hits = new ArrayList<>();
+            Set<String> seen = new HashSet<>();
+            float[] distance = new float[1];
+            int read = 0;
+
+            for (Object result : task.getResult()) {
+                FirestoreCachePolicy.recordRead((QuerySnapshot) result);
+                for (DocumentSnapshot document : ((QuerySnapshot) result).getDocuments()) {
+                    read++;
+                    GeoPoint point = document.getGeoPoint(locationField);
+                    if (point == null || !seen.add(document.getReference().getPath())) {
+                        continue;
+                    }
+                    // Cells overhang the circle, drop what's outside it
+                    Location.distanceBetween(latitude, longitude, point.getLatitude(), point.getLongitude(), distance);
+                    if (distance[0] <= radiusMeters) {
+                        hits.add(new Hit(document, distance[0]));
+                    }
+                }
+            }
+
+            Collections.sort(hits, (a, b) -> Double.compare(a.distanceMeters, b.distanceMeters));
+            Log.d(TAG, locationField + ": " + prefixes.size() + " scans, " + read +
+                    " read, " + hits.size() + " within " + Math.round(radiusMeters) + " m");
+            return hits;
+        });
+    }
+}
@@ -0,0 +1,80 @@
+package com.rescuereach.data.repository.firebase;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Report ID to owner user ID, for mirroring status changes into the owner's sos_history
+ * document. Owners are learned from reports this process wrote or read. When a report was never
+ * seen, e.g. a responder updating someone else's SOS or a fresh process, the owner is looked up
+ * from the report once and then remembered. Only the most recently used owners are kept, a
+ * responder's process can see thousands of reports over a long shift.
+ */
+final class ReportOwnerCache {
+
+    static final int DEFAULT_MAX_OWNERS = 256;
+
+    /**
+     * Receives the owner, or null if the report has none or couldn't be read
+     */
+    interface OnOwner {
+        void onOwner(String ownerId);
+    }
+
+    /**
+     * Reads the owner from the report itself, the userId field in the app
+     */
+    interface Lookup {
+        void lookup(String reportId, OnOwner callback);
+    }
+
+    // Report ID -> owner, least recently used first. Guarded by itself.
+    private final Map<String, String> owners;
+    private final Lookup lookup;
+
+    ReportOwnerCache(Lookup lookup) {
+        this(lookup, DEFAULT_MAX_OWNERS);
+    }
+
+    ReportOwnerCache(Lookup lookup, int maxOwners) {
+        this.lookup = lookup;
+        this.owners = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxOwners;
+            }
+        };
+    }
+
+    void remember(String reportId, String ownerId) {
+        if (reportId != null && ownerId != null && !ownerId.isEmpty()) {
+            synchronized (owners) {
+                owners.put(reportId, ownerId);
+            }
+        }
+    }
+
+    /**
+     * @return The owner if already known, null otherwise
+     */
+    String getCached(String reportId) {
+        synchronized (owners) {
+            return owners.get(reportId);
+        }
+    }
+
+    /**
+     * Get the owner, from the cache or else by looking it up
+     */
+    void resolve(String reportId, OnOwner callback) {
+        String cached = getCached(reportId);
+        if (cached != null) {
+            callback.onOwner(cached);
+            return;
+        }
+        lookup.lookup(reportId, ownerId -> {
+            remember(reportId, ownerId);
+            callback.onOwner(ownerId != null && !ownerId.isEmpty() ? ownerId : null);
+        });
+    }
+}
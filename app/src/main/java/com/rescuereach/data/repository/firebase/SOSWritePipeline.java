@@ -0,0 +1,390 @@
+package com.rescuereach.data.repository.firebase;
+
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.GeoPoint;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+import com.rescuereach.data.model.SOSReport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write stage for new SOS reports.
+ * The reports of a submission go to Firestore as one atomic commit. Each report carries a
+ * client-generated idempotency key, so a retried submission never writes a report twice.
+ * The user's history entry is merged separately once the report is committed, and each RTDB
+ * path is its own write: the security rules can reject those on their own, and that must never
+ * hold back the report itself.
+ */
+class SOSWritePipeline {
+    private static final String TAG = "SOSWritePipeline";
+
+    static final String FIELD_IDEMPOTENCY_KEY = "idempotencyKey";
+    static final String FIELD_OWNER_UID = "ownerUid";
+
+    private static final int MAX_TRACKED_LATENCIES = 50;
+
+    private final FirebaseFirestore firestore;
+    private final FirebaseDatabase realtimeDb;
+    private final String reportsCollection;
+    private final String historyCollection;
+    private final String rtdbSosPath;
+    private final String rtdbActivePath;
+
+    // Idempotency key -> time of the first write attempt in this process.
+    // Entries are kept so a late retry still knows the key has been tried before.
+    private final Map<String, Long> firstAttemptTimes = new ConcurrentHashMap<>();
+
+    // Idempotency key -> Firestore write that has not completed yet
+    private final Map<String, Task<Void>> inFlightWrites = new ConcurrentHashMap<>();
+
+    // Report ID -> end-to-end write latency, most recent last
+    private final Map<String, Long> latencies = new LinkedHashMap<String, Long>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_TRACKED_LATENCIES;
+        }
+    };
+
+    SOSWritePipeline(FirebaseFirestore firestore, FirebaseDatabase realtimeDb,
+                     String reportsCollection, String historyCollection,
+                     String rtdbSosPath, String rtdbActivePath) {
+        this.firestore = firestore;
+        this.realtimeDb = realtimeDb;
+        this.reportsCollection = reportsCollection;
+        this.historyCollection = historyCollection;
+        this.rtdbSosPath = rtdbSosPath;
+        this.rtdbActivePath = rtdbActivePath;
+    }
+
+    /**
+     * Write new reports to both stores.
+     * The first attempt is a blind WriteBatch. A report whose earlier write is still queued
+     * joins that write instead of issuing another one. If a report may already have been
+     * written (a retry, or an outbox flush after a timeout) a transaction checks the stored
+     * idempotency key first and skips reports that are already in place.
+     * @param reports Reports with ID, user ID, timestamp and status already set
+     * @param mayBeRetry true if the caller cannot rule out an earlier successful attempt
+     * @return Task that completes when the Firestore commit is acknowledged
+     */
+    Task<Void> write(List<SOSReport> reports, boolean mayBeRetry) {
+        if (reports == null || reports.isEmpty()) {
+            return Tasks.forResult(null);
+        }
+        FirestoreCachePolicy.keepPendingWrites();
+
+        long now = System.currentTimeMillis();
+        boolean retry = mayBeRetry;
+        List<Task<Void>> joined = new ArrayList<>();
+        List<SOSReport> toWrite = new ArrayList<>();
+
+        for (SOSReport report : reports) {
+            if (report.getIdempotencyKey() == null || report.getIdempotencyKey().isEmpty()) {
+                report.setIdempotencyKey(UUID.randomUUID().toString());
+            }
+
+            // Firestore keeps retrying a queued write by itself, don't race it with a second one
+            Task<Void> pending = inFlightWrites.get(report.getIdempotencyKey());
+            if (pending != null && !pending.isComplete()) {
+                Log.d(TAG, "Joining in-flight write for SOS " + report.getReportId());
+                joined.add(pending);
+                continue;
+            }
+
+            if (firstAttemptTimes.putIfAbsent(report.getIdempotencyKey(), now) != null) {
+                retry = true;
+            }
+            toWrite.add(report);
+        }
+
+        if (toWrite.isEmpty()) {
+            return joined.size() == 1 ? joined.get(0) : Tasks.whenAll(joined);
+        }
+
+        Task<Void> rtdbTask = writeRealtime(toWrite, retry);
+
+        Task<List<SOSReport>> committed = retry ? writeTransactional(toWrite) : writeBatch(toWrite);
+        // Best effort, only for reports this attempt actually wrote so the counter counts each once
+        committed.addOnSuccessListener(this::writeHistory);
+        Task<Void> firestoreTask = committed.onSuccessTask(written -> Tasks.forResult(null));
+        for (SOSReport report : toWrite) {
+            inFlightWrites.put(report.getIdempotencyKey(), firestoreTask);
+        }
+
+        firestoreTask.addOnCompleteListener(task -> {
+            for (SOSReport report : toWrite) {
+                inFlightWrites.remove(report.getIdempotencyKey(), firestoreTask);
+            }
+        });
+
+        // Latency is only final once both stores have acknowledged
+        Tasks.whenAll(firestoreTask, rtdbTask).addOnCompleteListener(task -> {
+            if (firestoreTask.isSuccessful()) {
+                recordLatency(toWrite, rtdbTask.isSuccessful());
+            }
+        });
+
+        if (joined.isEmpty()) {
+            return firestoreTask;
+        }
+        joined.add(firestoreTask);
+        return Tasks.whenAll(joined);
+    }
+
+    /**
+     * End-to-end latency of the last successful write of a report
+     * @param reportId Report ID
+     * @return Latency in milliseconds, or -1 if unknown
+     */
+    long getLatencyMillis(String reportId) {
+        synchronized (latencies) {
+            Long latency = latencies.get(reportId);
+            return latency != null ? latency : -1;
+        }
+    }
+
+    /**
+     * @return Task with the reports written
+     */
+    private Task<List<SOSReport>> writeBatch(List<SOSReport> reports) {
+        WriteBatch batch = firestore.batch();
+        for (SOSReport report : reports) {
+            batch.set(reportRef(report), report.toMap());
+        }
+        return batch.commit().onSuccessTask(aVoid -> Tasks.forResult(reports));
+    }
+
+    /**
+     * @return Task with the reports written, those already in place are left out
+     */
+    private Task<List<SOSReport>> writeTransactional(List<SOSReport> reports) {
+        return firestore.runTransaction(transaction -> {
+            // All reads must happen before the first write
+            List<SOSReport> pending = new ArrayList<>();
+            for (SOSReport report : reports) {
+                DocumentSnapshot existing = transaction.get(reportRef(report));
+                if (existing.exists() &&
+                        report.getIdempotencyKey().equals(existing.getString(FIELD_IDEMPOTENCY_KEY))) {
+                    Log.d(TAG, "SOS report already written, skipping: " + report.getReportId());
+                } else {
+                    pending.add(report);
+                }
+            }
+
+            for (SOSReport report : pending) {
+                transaction.set(reportRef(report), report.toMap());
+            }
+            return pending;
+        });
+    }
+
+    /**
+     * Record committed reports in their users' history documents. A failure is logged and
+     * doesn't affect the reports.
+     */
+    private void writeHistory(List<SOSReport> written) {
+        for (SOSReport report : written) {
+            historyRef(report).set(buildHistoryUpdate(report), SetOptions.merge())
+                    .addOnFailureListener(e ->
+                            Log.w(TAG, "Error recording SOS " + report.getReportId() + " in history", e));
+        }
+    }
+
+    /**
+     * Write each report's RTDB entries, one write per path
+     * @return Task that completes when the general SOS entries are acknowledged
+     */
+    private Task<Void> writeRealtime(List<SOSReport> reports, boolean retry) {
+        List<Task<Void>> sosWrites = new ArrayList<>();
+        for (SOSReport report : reports) {
+            String reportId = report.getReportId();
+            sosWrites.add(realtimeDb.getReference(rtdbSosPath).child(reportId)
+                    .setValue(buildRealtimeReport(report))
+                    .addOnFailureListener(e -> {
+                        if (retry) {
+                            // The rules only let the entry be created once, it's likely in place
+                            Log.d(TAG, "SOS " + reportId + " not rewritten to Realtime Database: " + e.getMessage());
+                        } else {
+                            Log.e(TAG, "Error saving SOS to Realtime Database", e);
+                        }
+                    }));
+
+            // Removed once the SOS is no longer active
+            Task<Void> activeWrite = isActiveStatus(report.getStatus())
+                    ? realtimeDb.getReference(rtdbActivePath).child(reportId).setValue(buildActiveEmergency(report))
+                    : realtimeDb.getReference(rtdbActivePath).child(reportId).removeValue();
+            activeWrite.addOnFailureListener(e ->
+                    Log.e(TAG, "Error saving SOS to active emergencies", e));
+        }
+        return Tasks.whenAll(sosWrites);
+    }
+
+    private void recordLatency(List<SOSReport> reports, boolean realtimeAcked) {
+        long now = System.currentTimeMillis();
+        for (SOSReport report : reports) {
+            Long start = firstAttemptTimes.get(report.getIdempotencyKey());
+            if (start == null) {
+                continue;
+            }
+
+            long latency = now - start;
+            synchronized (latencies) {
+                // Only the first acknowledged attempt counts
+                if (latencies.containsKey(report.getReportId())) {
+                    continue;
+                }
+                latencies.put(report.getReportId(), latency);
+            }
+
+            long sinceRaised = report.getTimestamp() != null ? now - report.getTimestamp().getTime() : -1;
+            Log.d(TAG, "SOS " + report.getReportId() + " persisted in " + latency + "ms (" +
+                    sinceRaised + "ms since raised, realtime " + (realtimeAcked ? "acked" : "failed") + ")");
+        }
+    }
+
+    private DocumentReference reportRef(SOSReport report) {
+        return firestore.collection(reportsCollection).document(report.getReportId());
+    }
+
+    private DocumentReference historyRef(SOSReport report) {
+        return firestore.collection(historyCollection).document(report.getUserId());
+    }
+
+    /**
+     * Statuses that belong under active emergencies, for in filters
+     */
+    static final List<String> ACTIVE_STATUSES = Collections.unmodifiableList(Arrays.asList(
+            SOSReport.STATUS_PENDING, SOSReport.STATUS_RECEIVED, SOSReport.STATUS_RESPONDING));
+
+    /**
+     * Whether a report with this status belongs under active emergencies
+     */
+    static boolean isActiveStatus(String status) {
+        return !SOSReport.STATUS_RESOLVED.equals(status) &&
+                !SOSReport.STATUS_CANCELED.equals(status);
+    }
+
+    /**
+     * Build the RTDB representation of a report for the general SOS path
+     */
+    static Map<String, Object> buildRealtimeReport(SOSReport report) {
+        // Create a version of the report suitable for RTDB
+        // with custom mapping for GeoPoint which doesn't work in RTDB
+        Map<String, Object> rtdbReport = new HashMap<>();
+
+        // Copy basic fields
+        rtdbReport.put("reportId", report.getReportId());
+        rtdbReport.put("userId", report.getUserId());
+        rtdbReport.put("status", report.getStatus());
+        rtdbReport.put("emergencyType", report.getEmergencyType());
+        rtdbReport.put("isOnline", report.isOnline());
+        rtdbReport.put("address", report.getAddress());
+        rtdbReport.put("city", report.getCity());
+        rtdbReport.put("state", report.getState());
+
+        if (report.getTimestamp() != null) {
+            rtdbReport.put("timestamp", report.getTimestamp().getTime());
+        }
+
+        // IMPORTANT FIX: Convert GeoPoint to simple Map for RTDB
+        if (report.getLocation() != null) {
+            rtdbReport.put("location", toRealtimeLocation(report.getLocation()));
+        }
+
+        return rtdbReport;
+    }
+
+    /**
+     * Build the simplified RTDB entry stored under active emergencies
+     */
+    static Map<String, Object> buildActiveEmergency(SOSReport report) {
+        Map<String, Object> activeEmergency = new HashMap<>();
+        activeEmergency.put("reportId", report.getReportId());
+        activeEmergency.put("userId", report.getUserId());
+        activeEmergency.put("emergencyType", report.getEmergencyType());
+        activeEmergency.put("status", report.getStatus());
+        activeEmergency.put("timestamp", report.getTimestamp() != null ?
+                report.getTimestamp().getTime() : System.currentTimeMillis());
+
+        // userId is the phone number, the rules check the signed-in account instead
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        if (user != null) {
+            activeEmergency.put(FIELD_OWNER_UID, user.getUid());
+        }
+
+        // Add location if available (using same format as above)
+        if (report.getLocation() != null) {
+            activeEmergency.put("location", toRealtimeLocation(report.getLocation()));
+        }
+
+        // Add address if available
+        if (report.getAddress() != null) {
+            activeEmergency.put("address", report.getAddress());
+        }
+
+        // Add state/region for filtering
+        if (report.getState() != null) {
+            activeEmergency.put("state", report.getState());
+        }
+
+        return activeEmergency;
+    }
+
+    /**
+     * Build the merge update that records a report in the user's history document
+     */
+    static Map<String, Object> buildHistoryUpdate(SOSReport report) {
+        Date reportTime = report.getTimestamp() != null ? report.getTimestamp() : new Date();
+
+        Map<String, Object> reportInfo = new HashMap<>();
+        reportInfo.put("timestamp", reportTime);
+        reportInfo.put("emergencyType", report.getEmergencyType());
+        reportInfo.put("status", report.getStatus());
+
+        if (report.getAddress() != null) {
+            reportInfo.put("address", report.getAddress());
+        }
+        if (report.getState() != null) {
+            reportInfo.put("state", report.getState());
+        }
+
+        // Nested map so the merge lands on reports.<id>, which is where status updates write
+        Map<String, Object> reports = new HashMap<>();
+        reports.put(report.getReportId(), reportInfo);
+
+        Map<String, Object> historyUpdate = new HashMap<>();
+        historyUpdate.put("reports", reports);
+        historyUpdate.put("lastReportTime", reportTime);
+        historyUpdate.put("reportCount", FieldValue.increment(1));
+        return historyUpdate;
+    }
+
+    /**
+     * RTDB has no GeoPoint type, store coordinates as a plain map
+     */
+    static Map<String, Double> toRealtimeLocation(GeoPoint geoPoint) {
+        Map<String, Double> location = new HashMap<>();
+        location.put("latitude", geoPoint.getLatitude());
+        location.put("longitude", geoPoint.getLongitude());
+        return location;
+    }
+}
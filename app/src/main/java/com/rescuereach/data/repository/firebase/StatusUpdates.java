@@ -0,0 +1,62 @@
+package com.rescuereach.data.repository.firebase;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The fields a status change writes: a delta on the report itself and a merge into the owner's
+ * sos_history document. Nothing else of the report is read or sent.
+ */
+final class StatusUpdates {
+
+    static final String FIELD_STATUS = "status";
+    static final String FIELD_STATUS_UPDATED_AT = "statusUpdatedAt";
+    static final String FIELD_LAST_UPDATED_BY = "lastUpdatedBy";
+    static final String FIELD_RESPONDER_INFO = "responderInfo";
+    static final String FIELD_REPORTS = "reports";
+
+    private StatusUpdates() {
+        // Utility class
+    }
+
+    /**
+     * Build the field delta for a status change
+     * @param responderInfo Map, or anything else which is stored as its string, may be null
+     * @param updatedBy Auth UID of the caller, may be null
+     */
+    static Map<String, Object> delta(String newStatus, Object responderInfo, String updatedBy) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(FIELD_STATUS, newStatus);
+        updates.put(FIELD_STATUS_UPDATED_AT, new Date());
+
+        if (updatedBy != null) {
+            updates.put(FIELD_LAST_UPDATED_BY, updatedBy);
+        }
+
+        if (responderInfo != null) {
+            if (responderInfo instanceof Map) {
+                updates.put(FIELD_RESPONDER_INFO, responderInfo);
+            } else {
+                updates.put(FIELD_RESPONDER_INFO, responderInfo.toString());
+            }
+        }
+        return updates;
+    }
+
+    /**
+     * Build the merge update that mirrors a status change into the owner's history document
+     */
+    static Map<String, Object> historyEntry(String reportId, String newStatus) {
+        Map<String, Object> reportInfo = new HashMap<>();
+        reportInfo.put(FIELD_STATUS, newStatus);
+        reportInfo.put(FIELD_STATUS_UPDATED_AT, new Date());
+
+        Map<String, Object> reports = new HashMap<>();
+        reports.put(reportId, reportInfo);
+
+        Map<String, Object> historyUpdate = new HashMap<>();
+        historyUpdate.put(FIELD_REPORTS, reports);
+        return historyUpdate;
+    }
+}
@@ -17,6 +17,7 @@ import com.google.firebase.auth.PhoneAuthOptions;
 import com.google.firebase.auth.PhoneAuthProvider;
 import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.rescuereach.util.AppExecutors;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -79,7 +80,7 @@ public class FirebaseAuthService implements AuthService {
             }
 
             // Use a background thread for cleanup operations
-            new Thread(() -> {
+            AppExecutors.getInstance().io().execute(() -> {
                 try {
                     // Clear cached data without terminating connections
                     try {
@@ -127,7 +128,7 @@ public class FirebaseAuthService implements AuthService {
                         }
                     });
                 }
-            }).start();
+            });
         } catch (Exception e) {
             Log.e("FirebaseAuthService", "Error initiating sign out", e);
             callback.onError(e);
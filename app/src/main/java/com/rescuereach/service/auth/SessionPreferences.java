@@ -0,0 +1,137 @@
+package com.rescuereach.service.auth;
+
+import com.rescuereach.util.PreferenceKey;
+import com.rescuereach.util.PreferenceStore;
+
+import java.util.Map;
+
+/**
+ * How a {@link SessionSnapshot} is kept in the session {@link PreferenceStore}: profile fields
+ * under fixed keys, each preference switch under its category's prefix. Plain Java, so the
+ * mapping can be tested without a device.
+ */
+public final class SessionPreferences {
+
+    public static final PreferenceKey<String> PHONE_NUMBER = PreferenceKey.stringKey("phone_number");
+    public static final PreferenceKey<String> USER_ID = PreferenceKey.stringKey("user_id");
+    public static final PreferenceKey<String> FULL_NAME = PreferenceKey.stringKey("full_name");
+    public static final PreferenceKey<String> FIRST_NAME = PreferenceKey.stringKey("first_name");
+    public static final PreferenceKey<String> LAST_NAME = PreferenceKey.stringKey("last_name");
+    public static final PreferenceKey<String> GENDER = PreferenceKey.stringKey("gender");
+    public static final PreferenceKey<String> DATE_OF_BIRTH = PreferenceKey.stringKey("date_of_birth");
+    public static final PreferenceKey<String> STATE = PreferenceKey.stringKey("state");
+    public static final PreferenceKey<String> EMERGENCY_CONTACT = PreferenceKey.stringKey("emergency_contact");
+    public static final PreferenceKey<Boolean> IS_VOLUNTEER = PreferenceKey.booleanKey("is_volunteer");
+    public static final PreferenceKey<Boolean> PROFILE_COMPLETED = PreferenceKey.booleanKey("profile_completed");
+    public static final PreferenceKey<Long> LAST_LOGIN = PreferenceKey.longKey("last_login");
+    // Set once the old per-category preference files were folded in
+    public static final PreferenceKey<Boolean> PREFERENCES_MIGRATED =
+            PreferenceKey.booleanKey("preferences_migrated");
+
+    // Preference categories, kept under these key prefixes
+    static final String PRIVACY_PREFIX = "privacy.";
+    static final String EMERGENCY_PREFIX = "emergency.";
+    static final String NOTIFICATION_PREFIX = "notification.";
+
+    private SessionPreferences() {
+        // Utility class
+    }
+
+    public static PreferenceKey<Boolean> privacyKey(String name) {
+        return PreferenceKey.booleanKey(PRIVACY_PREFIX + name);
+    }
+
+    public static PreferenceKey<Boolean> emergencyKey(String name) {
+        return PreferenceKey.booleanKey(EMERGENCY_PREFIX + name);
+    }
+
+    public static PreferenceKey<Boolean> notificationKey(String name) {
+        return PreferenceKey.booleanKey(NOTIFICATION_PREFIX + name);
+    }
+
+    /**
+     * Build a session from stored values. Values of the wrong type are ignored.
+     * @param stored Everything in the store, by key name
+     */
+    static SessionSnapshot.Builder read(Map<String, ?> stored) {
+        SessionSnapshot.Builder builder = new SessionSnapshot.Builder();
+        builder.phoneNumber = get(stored, PHONE_NUMBER, null);
+        builder.userId = get(stored, USER_ID, null);
+        builder.fullName = get(stored, FULL_NAME, null);
+        builder.firstName = get(stored, FIRST_NAME, null);
+        builder.lastName = get(stored, LAST_NAME, null);
+        builder.gender = get(stored, GENDER, null);
+        builder.dateOfBirth = get(stored, DATE_OF_BIRTH, null);
+        builder.state = get(stored, STATE, null);
+        builder.emergencyContact = get(stored, EMERGENCY_CONTACT, null);
+        builder.volunteer = get(stored, IS_VOLUNTEER, false);
+        builder.profileCompleted = get(stored, PROFILE_COMPLETED, false);
+        builder.lastLogin = get(stored, LAST_LOGIN, 0L);
+
+        for (Map.Entry<String, ?> entry : stored.entrySet()) {
+            if (!(entry.getValue() instanceof Boolean)) {
+                continue;
+            }
+            String key = entry.getKey();
+            Boolean value = (Boolean) entry.getValue();
+            if (key.startsWith(PRIVACY_PREFIX)) {
+                builder.privacyPreferences.put(key.substring(PRIVACY_PREFIX.length()), value);
+            } else if (key.startsWith(EMERGENCY_PREFIX)) {
+                builder.emergencyPreferences.put(key.substring(EMERGENCY_PREFIX.length()), value);
+            } else if (key.startsWith(NOTIFICATION_PREFIX)) {
+                builder.notificationPreferences.put(key.substring(NOTIFICATION_PREFIX.length()), value);
+            }
+        }
+        return builder;
+    }
+
+    /**
+     * Whether the old per-category preference files were already folded into these values
+     */
+    static boolean isMigrated(Map<String, ?> stored) {
+        return get(stored, PREFERENCES_MIGRATED, false);
+    }
+
+    /**
+     * Replace everything stored with a session. The store only counts and writes what differs,
+     * so rewriting the unchanged keys costs nothing.
+     */
+    static void write(SessionSnapshot session, PreferenceStore.Editor editor) {
+        editor.clear();
+        putIfSet(editor, PHONE_NUMBER, session.getPhoneNumber());
+        putIfSet(editor, USER_ID, session.getUserId());
+        putIfSet(editor, FULL_NAME, session.getFullName());
+        putIfSet(editor, FIRST_NAME, session.getFirstName());
+        putIfSet(editor, LAST_NAME, session.getLastName());
+        putIfSet(editor, GENDER, session.getGender());
+        putIfSet(editor, DATE_OF_BIRTH, session.getDateOfBirth());
+        putIfSet(editor, STATE, session.getState());
+        putIfSet(editor, EMERGENCY_CONTACT, session.getEmergencyContact());
+        editor.put(IS_VOLUNTEER, session.isVolunteer());
+        editor.put(PROFILE_COMPLETED, session.isProfileCompleted());
+        if (session.getLastLogin() != 0) {
+            editor.put(LAST_LOGIN, session.getLastLogin());
+        }
+        for (Map.Entry<String, Boolean> entry : session.getPrivacyPreferences().entrySet()) {
+            editor.put(privacyKey(entry.getKey()), entry.getValue());
+        }
+        for (Map.Entry<String, Boolean> entry : session.getEmergencyPreferences().entrySet()) {
+            editor.put(emergencyKey(entry.getKey()), entry.getValue());
+        }
+        for (Map.Entry<String, Boolean> entry : session.getNotificationPreferences().entrySet()) {
+            editor.put(notificationKey(entry.getKey()), entry.getValue());
+        }
+        editor.put(PREFERENCES_MIGRATED, true);
+    }
+
+    private static void putIfSet(PreferenceStore.Editor editor, PreferenceKey<String> key, String value) {
+        if (value != null && !value.isEmpty()) {
+            editor.put(key, value);
+        }
+    }
+
+    private static <T> T get(Map<String, ?> stored, PreferenceKey<T> key, T defaultValue) {
+        Object value = stored.get(key.getName());
+        return key.getType().isInstance(value) ? key.getType().cast(value) : defaultValue;
+    }
+}
@@ -0,0 +1,246 @@
+package com.rescuereach.service.auth;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable view of the signed-in user's session: profile fields and the privacy, emergency
+ * and notification switches. {@link UserSessionManager} publishes a new instance for every
+ * change, so a caller that reads several fields from one snapshot always sees them together.
+ * Strings are never null except phone number, user ID and date of birth, which are null when
+ * not set.
+ */
+public final class SessionSnapshot {
+
+    static final SessionSnapshot EMPTY = new Builder().build();
+
+    private final String phoneNumber;
+    private final String userId;
+    private final String fullName;
+    private final String firstName;
+    private final String lastName;
+    private final String gender;
+    private final String dateOfBirth; // yyyy-MM-dd, as stored
+    private final String state;
+    private final String emergencyContact;
+    private final boolean volunteer;
+    private final boolean profileCompleted;
+    private final long lastLogin;
+    private final Map<String, Boolean> privacyPreferences;
+    private final Map<String, Boolean> emergencyPreferences;
+    private final Map<String, Boolean> notificationPreferences;
+
+    private SessionSnapshot(Builder builder) {
+        this.phoneNumber = builder.phoneNumber;
+        this.userId = builder.userId;
+        this.fullName = nonNull(builder.fullName);
+        this.firstName = nonNull(builder.firstName);
+        this.lastName = nonNull(builder.lastName);
+        this.gender = nonNull(builder.gender);
+        this.dateOfBirth = builder.dateOfBirth;
+        this.state = nonNull(builder.state);
+        this.emergencyContact = nonNull(builder.emergencyContact);
+        this.volunteer = builder.volunteer;
+        this.profileCompleted = builder.profileCompleted;
+        this.lastLogin = builder.lastLogin;
+        this.privacyPreferences = Collections.unmodifiableMap(new HashMap<>(builder.privacyPreferences));
+        this.emergencyPreferences = Collections.unmodifiableMap(new HashMap<>(builder.emergencyPreferences));
+        this.notificationPreferences = Collections.unmodifiableMap(new HashMap<>(builder.notificationPreferences));
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public String getGender() {
+        return gender;
+    }
+
+    /**
+     * @return Date of birth as yyyy-MM-dd, or null if not set
+     */
+    public String getDateOfBirth() {
+        return dateOfBirth;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public String getEmergencyContact() {
+        return emergencyContact;
+    }
+
+    public boolean isVolunteer() {
+        return volunteer;
+    }
+
+    public boolean isProfileCompleted() {
+        return profileCompleted;
+    }
+
+    public long getLastLogin() {
+        return lastLogin;
+    }
+
+    public boolean getPrivacyPreference(String key, boolean defaultValue) {
+        return lookup(privacyPreferences, key, defaultValue);
+    }
+
+    public boolean getEmergencyPreference(String key, boolean defaultValue) {
+        return lookup(emergencyPreferences, key, defaultValue);
+    }
+
+    public boolean getNotificationPreference(String key, boolean defaultValue) {
+        return lookup(notificationPreferences, key, defaultValue);
+    }
+
+    Map<String, Boolean> getPrivacyPreferences() {
+        return privacyPreferences;
+    }
+
+    Map<String, Boolean> getEmergencyPreferences() {
+        return emergencyPreferences;
+    }
+
+    Map<String, Boolean> getNotificationPreferences() {
+        return notificationPreferences;
+    }
+
+    /**
+     * @return A builder holding this snapshot's values, for deriving the next one
+     */
+    Builder toBuilder() {
+        Builder builder = new Builder();
+        builder.phoneNumber = phoneNumber;
+        builder.userId = userId;
+        builder.fullName = fullName;
+        builder.firstName = firstName;
+        builder.lastName = lastName;
+        builder.gender = gender;
+        builder.dateOfBirth = dateOfBirth;
+        builder.state = state;
+        builder.emergencyContact = emergencyContact;
+        builder.volunteer = volunteer;
+        builder.profileCompleted = profileCompleted;
+        builder.lastLogin = lastLogin;
+        builder.privacyPreferences.putAll(privacyPreferences);
+        builder.emergencyPreferences.putAll(emergencyPreferences);
+        builder.notificationPreferences.putAll(notificationPreferences);
+        return builder;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SessionSnapshot)) return false;
+        SessionSnapshot that = (SessionSnapshot) o;
+        return volunteer == that.volunteer &&
+                profileCompleted == that.profileCompleted &&
+                lastLogin == that.lastLogin &&
+                Objects.equals(phoneNumber, that.phoneNumber) &&
+                Objects.equals(userId, that.userId) &&
+                fullName.equals(that.fullName) &&
+                firstName.equals(that.firstName) &&
+                lastName.equals(that.lastName) &&
+                gender.equals(that.gender) &&
+                Objects.equals(dateOfBirth, that.dateOfBirth) &&
+                state.equals(that.state) &&
+                emergencyContact.equals(that.emergencyContact) &&
+                privacyPreferences.equals(that.privacyPreferences) &&
+                emergencyPreferences.equals(that.emergencyPreferences) &&
+                notificationPreferences.equals(that.notificationPreferences);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(phoneNumber, userId, fullName, state, volunteer, lastLogin);
+    }
+
+    private static boolean lookup(Map<String, Boolean> preferences, String key, boolean defaultValue) {
+        Boolean value = preferences.get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    private static String nonNull(String value) {
+        return value != null ? value : "";
+    }
+
+    /**
+     * Mutable counterpart used to derive a new snapshot
+     */
+    static final class Builder {
+        String phoneNumber;
+        String userId;
+        String fullName;
+        String firstName;
+        String lastName;
+        String gender;
+        String dateOfBirth;
+        String state;
+        String emergencyContact;
+        boolean volunteer;
+        boolean profileCompleted;
+        long lastLogin;
+        final Map<String, Boolean> privacyPreferences = new HashMap<>();
+        final Map<String, Boolean> emergencyPreferences = new HashMap<>();
+        final Map<String, Boolean> notificationPreferences = new HashMap<>();
+
+        /**
+         * Set the full name and split it into first and last name at the first space
+         */
+        Builder fullName(String name) {
+            fullName = name;
+            int spaceIndex = name.indexOf(' ');
+            if (spaceIndex > 0) {
+                firstName = name.substring(0, spaceIndex);
+                lastName = name.substring(spaceIndex + 1);
+            } else {
+                firstName = name;
+                lastName = "";
+            }
+            return this;
+        }
+
+        /**
+         * Drop everything tied to the signed-in user, the preference switches stay
+         */
+        Builder clearProfile() {
+            phoneNumber = null;
+            userId = null;
+            fullName = null;
+            firstName = null;
+            lastName = null;
+            gender = null;
+            dateOfBirth = null;
+            state = null;
+            emergencyContact = null;
+            volunteer = false;
+            profileCompleted = false;
+            lastLogin = 0;
+            return this;
+        }
+
+        SessionSnapshot build() {
+            return new SessionSnapshot(this);
+        }
+    }
+}
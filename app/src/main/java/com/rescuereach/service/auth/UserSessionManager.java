@@ -1,7 +1,8 @@
 package com.rescuereach.service.auth;
 
 import android.content.Context;
-import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
 import android.text.TextUtils;
 import android.util.Log;
 
@@ -14,18 +15,27 @@ import com.rescuereach.data.model.User;
 import com.rescuereach.data.repository.OnCompleteListener;
 import com.rescuereach.data.repository.RepositoryProvider;
 import com.rescuereach.data.repository.UserRepository;
+import com.rescuereach.util.AppPreferences;
+import com.rescuereach.util.PreferenceStore;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
- * Manages user session data using SharedPreferences and synchronizes with Firebase.
+ * Manages user session data in the session {@link PreferenceStore} and synchronizes with Firebase.
  * Handles login state, user profile information, and preferences.
+ * <p>
+ * The session is held as an immutable {@link SessionSnapshot}. Getters read the current
+ * snapshot, a volatile read. Every change builds a new snapshot from the current one,
+ * publishes it, persists it and tells the session listeners.
  */
 public class UserSessionManager {
     private static final String TAG = "UserSessionManager";
@@ -34,33 +44,27 @@ public class UserSessionManager {
     private long lastVolunteerCheckTime = 0;
     private static final long VOLUNTEER_CHECK_INTERVAL = 60000;
 
-    // SharedPreferences keys
-    private static final String PREF_NAME = "RescueReachSession";
-    private static final String KEY_PHONE_NUMBER = "phone_number";
-    private static final String KEY_USER_ID = "user_id";
-    private static final String KEY_FULL_NAME = "full_name";
-    private static final String KEY_FIRST_NAME = "first_name";
-    private static final String KEY_LAST_NAME = "last_name";
-    private static final String KEY_GENDER = "gender";
-    private static final String KEY_DATE_OF_BIRTH = "date_of_birth";
-    private static final String KEY_STATE = "state";
-    private static final String KEY_IS_VOLUNTEER = "is_volunteer";
-    private static final String KEY_EMERGENCY_CONTACT = "emergency_contact";
-    private static final String KEY_LAST_LOGIN = "last_login";
-    private static final String KEY_PROFILE_COMPLETED = "profile_completed";
-
-    // Preference categories
+    // Files the preference categories used to live in, read once for migration
     private static final String PRIVACY_PREFS = "privacy_settings";
     private static final String EMERGENCY_PREFS = "emergency_settings";
     private static final String NOTIFICATION_PREFS = "notification_settings";
 
+    /**
+     * Told about every published change, on the main thread
+     */
+    public interface OnSessionChangedListener {
+        void onSessionChanged(SessionSnapshot previous, SessionSnapshot current);
+    }
+
     private static UserSessionManager instance;
-    private final SharedPreferences sharedPreferences;
-    private final SharedPreferences privacyPreferences;
-    private final SharedPreferences emergencyPreferences;
-    private final SharedPreferences notificationPreferences;
+    private final PreferenceStore sessionStore;
     private final Context context;
 
+    // Replaced, never modified, writers hold the manager's lock
+    private volatile SessionSnapshot snapshot;
+    private final List<OnSessionChangedListener> sessionListeners = new CopyOnWriteArrayList<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
     // Date formatters for storing and retrieving dates
     private final SimpleDateFormat storageFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
     private final SimpleDateFormat displayFormat = new SimpleDateFormat("dd-MM-yyyy", Locale.getDefault());
@@ -75,11 +79,9 @@ public class UserSessionManager {
     private UserSessionManager(Context context) {
         this.context = context.getApplicationContext();
 
-        // Initialize SharedPreferences
-        sharedPreferences = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
-        privacyPreferences = context.getSharedPreferences(PRIVACY_PREFS, Context.MODE_PRIVATE);
-        emergencyPreferences = context.getSharedPreferences(EMERGENCY_PREFS, Context.MODE_PRIVATE);
-        notificationPreferences = context.getSharedPreferences(NOTIFICATION_PREFS, Context.MODE_PRIVATE);
+        // The session store and the snapshot from it
+        sessionStore = AppPreferences.getSession(this.context);
+        snapshot = loadSnapshot();
 
         // Initialize date formatters
         isoFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US);
@@ -94,8 +96,21 @@ public class UserSessionManager {
         userRepository = RepositoryProvider.getUserRepository(context);
     }
 
-    public SharedPreferences getSharedPreferences() {
-        return sharedPreferences;
+    /**
+     * Get the current session. Read every field you need from the one snapshot, so they
+     * belong together.
+     * @return The current snapshot, never null
+     */
+    public SessionSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public void addSessionListener(OnSessionChangedListener listener) {
+        sessionListeners.add(listener);
+    }
+
+    public void removeSessionListener(OnSessionChangedListener listener) {
+        sessionListeners.remove(listener);
     }
 
     /**
@@ -123,17 +138,15 @@ public class UserSessionManager {
         // Format the phone number
         String formattedPhone = formatPhoneNumber(phoneNumber);
 
-        SharedPreferences.Editor editor = sharedPreferences.edit();
-        editor.putString(KEY_PHONE_NUMBER, formattedPhone);
-        editor.putLong(KEY_LAST_LOGIN, System.currentTimeMillis());
-
         // Set user ID from Firebase Auth
         FirebaseUser user = firebaseAuth.getCurrentUser();
-        if (user != null) {
-            editor.putString(KEY_USER_ID, user.getUid());
-        }
-
-        editor.apply();
+        update(session -> {
+            session.phoneNumber = formattedPhone;
+            session.lastLogin = System.currentTimeMillis();
+            if (user != null) {
+                session.userId = user.getUid();
+            }
+        });
 
         // Update user's online status in Realtime Database
         updateOnlineStatus();
@@ -158,43 +171,38 @@ public class UserSessionManager {
                 public void onSuccess(User user) {
                     if (user != null) {
                         Log.d(TAG, "User found in Firebase, updating local data");
-                        // Update SharedPreferences with user data from Firebase
-                        SharedPreferences.Editor editor = sharedPreferences.edit();
-
-                        if (user.getFullName() != null) {
-                            editor.putString(KEY_FULL_NAME, user.getFullName());
-                            editor.putString(KEY_FIRST_NAME, user.getFirstName());
-                            editor.putString(KEY_LAST_NAME, user.getLastName());
-                        }
-
-                        if (user.getGender() != null) {
-                            editor.putString(KEY_GENDER, user.getGender());
-                        }
-
-                        if (user.getState() != null) {
-                            editor.putString(KEY_STATE, user.getState());
-                        }
-
-                        if (user.getEmergencyContact() != null) {
-                            editor.putString(KEY_EMERGENCY_CONTACT, user.getEmergencyContact());
-                        }
-
-                        // CRITICAL: This is the key fix - always update volunteer status from Firebase
-                        editor.putBoolean(KEY_IS_VOLUNTEER, user.isVolunteer());
-                        Log.d(TAG, "Setting volunteer status from Firebase: " + user.isVolunteer());
-
-                        if (user.getDateOfBirth() != null) {
-                            editor.putString(KEY_DATE_OF_BIRTH, storageFormat.format(user.getDateOfBirth()));
-                        }
-
                         // CRITICAL FIX: Always set profile completion status based on required fields
                         boolean isComplete = !TextUtils.isEmpty(user.getFullName()) &&
                                 !TextUtils.isEmpty(user.getEmergencyContact());
-                        editor.putBoolean(KEY_PROFILE_COMPLETED, isComplete);
+                        String dateOfBirth = user.getDateOfBirth() != null
+                                ? formatStorageDate(user.getDateOfBirth()) : null;
+
+                        // Update the session with user data from Firebase
+                        update(session -> {
+                            if (user.getFullName() != null) {
+                                session.fullName = user.getFullName();
+                                session.firstName = user.getFirstName();
+                                session.lastName = user.getLastName();
+                            }
+                            if (user.getGender() != null) {
+                                session.gender = user.getGender();
+                            }
+                            if (user.getState() != null) {
+                                session.state = user.getState();
+                            }
+                            if (user.getEmergencyContact() != null) {
+                                session.emergencyContact = user.getEmergencyContact();
+                            }
+                            // CRITICAL: This is the key fix - always update volunteer status from Firebase
+                            session.volunteer = user.isVolunteer();
+                            if (dateOfBirth != null) {
+                                session.dateOfBirth = dateOfBirth;
+                            }
+                            session.profileCompleted = isComplete;
+                        });
+                        Log.d(TAG, "Setting volunteer status from Firebase: " + user.isVolunteer());
                         Log.d(TAG, "Setting profile completion status: " + isComplete);
 
-                        editor.apply();
-
                         // Now we can update online status
                         updateOnlineStatus();
                     } else {
@@ -276,7 +284,7 @@ public class UserSessionManager {
 
         // Check if we already have a recent check
         long now = System.currentTimeMillis();
-        boolean cachedStatus = sharedPreferences.getBoolean(KEY_IS_VOLUNTEER, false);
+        boolean cachedStatus = snapshot.isVolunteer();
 
         if (now - lastVolunteerCheckTime < VOLUNTEER_CHECK_INTERVAL) {
             // Use cached value if recent enough
@@ -310,10 +318,8 @@ public class UserSessionManager {
                     isVolunteer = user.isVolunteer();
                     Log.d(TAG, "Firebase volunteer status check: " + isVolunteer);
 
-                    // Update SharedPreferences
-                    SharedPreferences.Editor editor = sharedPreferences.edit();
-                    editor.putBoolean(KEY_IS_VOLUNTEER, isVolunteer);
-                    editor.apply();
+                    // Update the session
+                    setVolunteer(isVolunteer);
                 }
 
                 if (callback != null) {
@@ -327,7 +333,7 @@ public class UserSessionManager {
                 Log.e(TAG, "Error checking volunteer status", e);
 
                 // Fall back to cached value on error
-                boolean cachedValue = sharedPreferences.getBoolean(KEY_IS_VOLUNTEER, false);
+                boolean cachedValue = snapshot.isVolunteer();
                 if (callback != null) {
                     callback.onResult(cachedValue);
                 }
@@ -340,7 +346,7 @@ public class UserSessionManager {
     }
 
     /**
-     * Update user profile with all fields and save to both SharedPreferences and Firebase
+     * Update user profile with all fields and save to both the session store and Firebase
      */
     public void updateUserProfile(String fullName, String emergencyContact, Date dateOfBirth,
                                   String gender, String state, boolean isVolunteer,
@@ -348,47 +354,34 @@ public class UserSessionManager {
         try {
             // Format the phone number and emergency contact
             String phoneNumber = formatPhoneNumber(getSavedPhoneNumber());
-            emergencyContact = formatPhoneNumber(emergencyContact);
-
-            // Save to SharedPreferences
-            SharedPreferences.Editor editor = sharedPreferences.edit();
-
-            // Parse full name
-            String firstName = fullName;
-            String lastName = "";
-            int spaceIndex = fullName.indexOf(' ');
-            if (spaceIndex > 0) {
-                firstName = fullName.substring(0, spaceIndex);
-                lastName = fullName.substring(spaceIndex + 1);
-            }
-
-            // Save all fields
-            editor.putString(KEY_FULL_NAME, fullName);
-            editor.putString(KEY_FIRST_NAME, firstName);
-            editor.putString(KEY_LAST_NAME, lastName);
-            editor.putString(KEY_GENDER, gender);
-            editor.putString(KEY_STATE, state);
-            editor.putString(KEY_EMERGENCY_CONTACT, emergencyContact);
-            editor.putBoolean(KEY_IS_VOLUNTEER, isVolunteer);
-            editor.putBoolean(KEY_PROFILE_COMPLETED, true);
-
-            // Save date of birth if provided
-            if (dateOfBirth != null) {
-                editor.putString(KEY_DATE_OF_BIRTH, storageFormat.format(dateOfBirth));
-            }
-
-            editor.apply();
+            String formattedContact = formatPhoneNumber(emergencyContact);
+            String storedDateOfBirth = dateOfBirth != null ? formatStorageDate(dateOfBirth) : null;
+
+            // Save all fields, the full name is split into first and last name
+            SessionSnapshot updated = update(session -> {
+                session.fullName(fullName);
+                session.gender = gender;
+                session.state = state;
+                session.emergencyContact = formattedContact;
+                session.volunteer = isVolunteer;
+                session.profileCompleted = true;
+
+                // Save date of birth if provided
+                if (storedDateOfBirth != null) {
+                    session.dateOfBirth = storedDateOfBirth;
+                }
+            });
 
             // Create User object for Firebase update
             User user = new User();
             user.setUserId(getUserId());
             user.setPhoneNumber(phoneNumber);
             user.setFullName(fullName);
-            user.setFirstName(firstName);
-            user.setLastName(lastName);
+            user.setFirstName(updated.getFirstName());
+            user.setLastName(updated.getLastName());
             user.setGender(gender);
             user.setState(state);
-            user.setEmergencyContact(emergencyContact);
+            user.setEmergencyContact(formattedContact);
             user.setVolunteer(isVolunteer);
             user.setDateOfBirth(dateOfBirth);
 
@@ -472,7 +465,7 @@ public class UserSessionManager {
      * @return The user's phone number or null if not set
      */
     public String getSavedPhoneNumber() {
-        return sharedPreferences.getString(KEY_PHONE_NUMBER, null);
+        return snapshot.getPhoneNumber();
     }
 
     /**
@@ -480,17 +473,18 @@ public class UserSessionManager {
      * @return The user ID or null if not set
      */
     public String getUserId() {
-        // First try to get from SharedPreferences
-        String userId = sharedPreferences.getString(KEY_USER_ID, null);
+        // First try to get from the session
+        String userId = snapshot.getUserId();
 
         // If not available, try to get from Firebase Auth
         if (userId == null) {
             FirebaseUser user = firebaseAuth.getCurrentUser();
             if (user != null) {
-                userId = user.getUid();
+                String uid = user.getUid();
+                userId = uid;
 
                 // Save it for future use
-                sharedPreferences.edit().putString(KEY_USER_ID, userId).apply();
+                update(session -> session.userId = uid);
             }
         }
 
@@ -515,16 +509,17 @@ public class UserSessionManager {
      */
     public boolean isProfileComplete() {
         // First check if we have explicitly marked the profile as complete
-        if (sharedPreferences.getBoolean(KEY_PROFILE_COMPLETED, false)) {
+        SessionSnapshot session = snapshot;
+        if (session.isProfileCompleted()) {
             return true;
         }
 
         // Otherwise check if we have all the essential fields
-        return !TextUtils.isEmpty(getFullName()) &&
-                !TextUtils.isEmpty(getEmergencyContactPhone()) &&
-                !TextUtils.isEmpty(getState()) &&
-                !TextUtils.isEmpty(getDateOfBirthString()) &&
-                !TextUtils.isEmpty(getGender());
+        return !TextUtils.isEmpty(session.getFullName()) &&
+                !TextUtils.isEmpty(session.getEmergencyContact()) &&
+                !TextUtils.isEmpty(session.getState()) &&
+                parseStorageDate(session.getDateOfBirth()) != null &&
+                !TextUtils.isEmpty(session.getGender());
     }
 
     /**
@@ -532,7 +527,7 @@ public class UserSessionManager {
      * @return Full name or empty string if not set
      */
     public String getFullName() {
-        return sharedPreferences.getString(KEY_FULL_NAME, "");
+        return snapshot.getFullName();
     }
 
     /**
@@ -540,7 +535,7 @@ public class UserSessionManager {
      * @return First name or empty string if not set
      */
     public String getFirstName() {
-        return sharedPreferences.getString(KEY_FIRST_NAME, "");
+        return snapshot.getFirstName();
     }
 
     /**
@@ -548,7 +543,7 @@ public class UserSessionManager {
      * @return Last name or empty string if not set
      */
     public String getLastName() {
-        return sharedPreferences.getString(KEY_LAST_NAME, "");
+        return snapshot.getLastName();
     }
 
     /**
@@ -556,15 +551,7 @@ public class UserSessionManager {
      * @return Date of birth or null if not set or invalid
      */
     public Date getDateOfBirth() {
-        String dobString = sharedPreferences.getString(KEY_DATE_OF_BIRTH, null);
-        if (dobString == null) return null;
-
-        try {
-            return storageFormat.parse(dobString);
-        } catch (ParseException e) {
-            Log.e(TAG, "Error parsing date of birth", e);
-            return null;
-        }
+        return parseStorageDate(snapshot.getDateOfBirth());
     }
 
     /**
@@ -574,7 +561,9 @@ public class UserSessionManager {
     public String getDateOfBirthString() {
         Date dob = getDateOfBirth();
         if (dob == null) return "";
-        return displayFormat.format(dob);
+        synchronized (displayFormat) {
+            return displayFormat.format(dob);
+        }
     }
 
     /**
@@ -586,12 +575,14 @@ public class UserSessionManager {
 
         try {
             // Parse the display format (DD-MM-YYYY)
-            Date date = displayFormat.parse(dateString);
+            Date date;
+            synchronized (displayFormat) {
+                date = displayFormat.parse(dateString);
+            }
             if (date != null) {
                 // Store in YYYY-MM-DD format
-                SharedPreferences.Editor editor = sharedPreferences.edit();
-                editor.putString(KEY_DATE_OF_BIRTH, storageFormat.format(date));
-                editor.apply();
+                String stored = formatStorageDate(date);
+                update(session -> session.dateOfBirth = stored);
             }
         } catch (ParseException e) {
             Log.e(TAG, "Error parsing date string: " + dateString, e);
@@ -603,7 +594,7 @@ public class UserSessionManager {
      * @return Gender or empty string if not set
      */
     public String getGender() {
-        return sharedPreferences.getString(KEY_GENDER, "");
+        return snapshot.getGender();
     }
 
     /**
@@ -611,9 +602,7 @@ public class UserSessionManager {
      * @param gender The gender to set
      */
     public void setGender(String gender) {
-        SharedPreferences.Editor editor = sharedPreferences.edit();
-        editor.putString(KEY_GENDER, gender);
-        editor.apply();
+        update(session -> session.gender = gender);
     }
 
     /**
@@ -621,7 +610,7 @@ public class UserSessionManager {
      * @return State or empty string if not set
      */
     public String getState() {
-        return sharedPreferences.getString(KEY_STATE, "");
+        return snapshot.getState();
     }
 
     /**
@@ -629,9 +618,7 @@ public class UserSessionManager {
      * @param state The state to set
      */
     public void setState(String state) {
-        SharedPreferences.Editor editor = sharedPreferences.edit();
-        editor.putString(KEY_STATE, state);
-        editor.apply();
+        update(session -> session.state = state);
     }
 
     /**
@@ -639,7 +626,7 @@ public class UserSessionManager {
      * @return true if volunteer, false otherwise
      */
     public boolean isVolunteer() {
-        return sharedPreferences.getBoolean(KEY_IS_VOLUNTEER, false);
+        return snapshot.isVolunteer();
     }
 
     /**
@@ -647,9 +634,7 @@ public class UserSessionManager {
      * @param isVolunteer The volunteer status to set
      */
     public void setVolunteer(boolean isVolunteer) {
-        SharedPreferences.Editor editor = sharedPreferences.edit();
-        editor.putBoolean(KEY_IS_VOLUNTEER, isVolunteer);
-        editor.apply();
+        update(session -> session.volunteer = isVolunteer);
     }
 
     /**
@@ -657,7 +642,7 @@ public class UserSessionManager {
      * @return Emergency contact or empty string if not set
      */
     public String getEmergencyContactPhone() {
-        return sharedPreferences.getString(KEY_EMERGENCY_CONTACT, "");
+        return snapshot.getEmergencyContact();
     }
 
     /**
@@ -665,9 +650,8 @@ public class UserSessionManager {
      * @param phone The emergency contact phone to set
      */
     public void setEmergencyContactPhone(String phone) {
-        SharedPreferences.Editor editor = sharedPreferences.edit();
-        editor.putString(KEY_EMERGENCY_CONTACT, formatPhoneNumber(phone));
-        editor.apply();
+        String formatted = formatPhoneNumber(phone);
+        update(session -> session.emergencyContact = formatted);
     }
 
     /**
@@ -677,21 +661,8 @@ public class UserSessionManager {
     public void setFullName(String fullName) {
         if (TextUtils.isEmpty(fullName)) return;
 
-        // Parse full name into first and last name
-        String firstName = fullName;
-        String lastName = "";
-
-        int spaceIndex = fullName.indexOf(" ");
-        if (spaceIndex > 0) {
-            firstName = fullName.substring(0, spaceIndex);
-            lastName = fullName.substring(spaceIndex + 1);
-        }
-
-        SharedPreferences.Editor editor = sharedPreferences.edit();
-        editor.putString(KEY_FULL_NAME, fullName);
-        editor.putString(KEY_FIRST_NAME, firstName);
-        editor.putString(KEY_LAST_NAME, lastName);
-        editor.apply();
+        // Also splits it into first and last name
+        update(session -> session.fullName(fullName));
     }
 
     /**
@@ -701,7 +672,7 @@ public class UserSessionManager {
      * @return Preference value or default if not set
      */
     public boolean getPrivacyPreference(String key, boolean defaultValue) {
-        return privacyPreferences.getBoolean(key, defaultValue);
+        return snapshot.getPrivacyPreference(key, defaultValue);
     }
 
     /**
@@ -710,7 +681,7 @@ public class UserSessionManager {
      * @param value Preference value
      */
     public void setPrivacyPreference(String key, boolean value) {
-        privacyPreferences.edit().putBoolean(key, value).apply();
+        update(session -> session.privacyPreferences.put(key, value));
     }
 
     /**
@@ -720,7 +691,7 @@ public class UserSessionManager {
      * @return Preference value or default if not set
      */
     public boolean getEmergencyPreference(String key, boolean defaultValue) {
-        return emergencyPreferences.getBoolean(key, defaultValue);
+        return snapshot.getEmergencyPreference(key, defaultValue);
     }
 
     /**
@@ -729,7 +700,7 @@ public class UserSessionManager {
      * @param value Preference value
      */
     public void setEmergencyPreference(String key, boolean value) {
-        emergencyPreferences.edit().putBoolean(key, value).apply();
+        update(session -> session.emergencyPreferences.put(key, value));
     }
 
     /**
@@ -739,7 +710,7 @@ public class UserSessionManager {
      * @return Preference value or default if not set
      */
     public boolean getNotificationPreference(String key, boolean defaultValue) {
-        return notificationPreferences.getBoolean(key, defaultValue);
+        return snapshot.getNotificationPreference(key, defaultValue);
     }
 
     /**
@@ -748,7 +719,7 @@ public class UserSessionManager {
      * @param value Preference value
      */
     public void setNotificationPreference(String key, boolean value) {
-        notificationPreferences.edit().putBoolean(key, value).apply();
+        update(session -> session.notificationPreferences.put(key, value));
     }
 
     /**
@@ -762,11 +733,9 @@ public class UserSessionManager {
             // Sign out from Firebase
             firebaseAuth.signOut();
 
-            // Clear all shared preferences
-            sharedPreferences.edit().clear().apply();
-
-            // Don't clear preferences as they should persist between logins
-            // but may be custom cleared on user request in a settings page
+            // Clear the profile. Don't clear preferences as they should persist between
+            // logins but may be custom cleared on user request in a settings page
+            update(SessionSnapshot.Builder::clearProfile);
 
             Log.d(TAG, "Session cleared successfully");
         } catch (Exception e) {
@@ -774,6 +743,91 @@ public class UserSessionManager {
         }
     }
 
+    /**
+     * Publish a new snapshot derived from the current one and persist it
+     * @param edit Changes to make, runs under the manager's lock
+     * @return The snapshot now current
+     */
+    private SessionSnapshot update(Consumer<SessionSnapshot.Builder> edit) {
+        SessionSnapshot previous;
+        SessionSnapshot next;
+        synchronized (this) {
+            previous = snapshot;
+            SessionSnapshot.Builder builder = previous.toBuilder();
+            edit.accept(builder);
+            next = builder.build();
+            if (next.equals(previous)) {
+                return previous;
+            }
+            snapshot = next;
+            // Under the lock, so the file is written in the order snapshots were published
+            persist(next);
+        }
+
+        for (OnSessionChangedListener listener : sessionListeners) {
+            mainHandler.post(() -> listener.onSessionChanged(previous, next));
+        }
+        return next;
+    }
+
+    /**
+     * Read the session file into a snapshot, pulling in the preference files it replaced
+     */
+    private SessionSnapshot loadSnapshot() {
+        Map<String, Object> stored = sessionStore.getAll();
+        SessionSnapshot.Builder builder = SessionPreferences.read(stored);
+        if (SessionPreferences.isMigrated(stored)) {
+            return builder.build();
+        }
+
+        // First run with the single file. The old files are left alone, if this write is lost
+        // the migration simply runs again.
+        migrateLegacyPreferences(PRIVACY_PREFS, builder.privacyPreferences);
+        migrateLegacyPreferences(EMERGENCY_PREFS, builder.emergencyPreferences);
+        migrateLegacyPreferences(NOTIFICATION_PREFS, builder.notificationPreferences);
+        SessionSnapshot loaded = builder.build();
+        persist(loaded);
+        Log.d(TAG, "Migrated preference files into the session");
+        return loaded;
+    }
+
+    private void migrateLegacyPreferences(String fileName, Map<String, Boolean> into) {
+        for (Map.Entry<String, ?> entry : context.getSharedPreferences(fileName, Context.MODE_PRIVATE)
+                .getAll().entrySet()) {
+            if (entry.getValue() instanceof Boolean) {
+                into.put(entry.getKey(), (Boolean) entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Write a snapshot as the whole content of the session store. Only the keys that changed
+     * count as an edit, and bursts of changes share one file write per coalescing window.
+     */
+    private void persist(SessionSnapshot session) {
+        PreferenceStore.Editor editor = sessionStore.edit();
+        SessionPreferences.write(session, editor);
+        editor.apply();
+    }
+
+    private String formatStorageDate(Date date) {
+        synchronized (storageFormat) {
+            return storageFormat.format(date);
+        }
+    }
+
+    private Date parseStorageDate(String value) {
+        if (value == null) return null;
+        try {
+            synchronized (storageFormat) {
+                return storageFormat.parse(value);
+            }
+        } catch (ParseException e) {
+            Log.e(TAG, "Error parsing date of birth", e);
+            return null;
+        }
+    }
+
     /**
      * Format phone number to ensure +91 prefix for India
      */
@@ -803,21 +857,23 @@ public class UserSessionManager {
                 fullName += " " + lastName;
             }
 
-            // Save to SharedPreferences
-            SharedPreferences.Editor editor = sharedPreferences.edit();
-            editor.putString(KEY_FULL_NAME, fullName);
-            editor.putString(KEY_FIRST_NAME, firstName);
-            editor.putString(KEY_LAST_NAME, lastName != null ? lastName : "");
-
-            if (dateOfBirth != null) {
-                editor.putString(KEY_DATE_OF_BIRTH, storageFormat.format(dateOfBirth));
-            }
-
-            editor.putString(KEY_STATE, state);
-            editor.putString(KEY_EMERGENCY_CONTACT, formatPhoneNumber(emergencyContact));
-            editor.putBoolean(KEY_IS_VOLUNTEER, isVolunteer);
-            editor.putBoolean(KEY_PROFILE_COMPLETED, true);
-            editor.apply();
+            String name = fullName;
+            String storedDateOfBirth = dateOfBirth != null ? formatStorageDate(dateOfBirth) : null;
+            String formattedContact = formatPhoneNumber(emergencyContact);
+
+            // Save to the session
+            update(session -> {
+                session.fullName = name;
+                session.firstName = firstName;
+                session.lastName = lastName != null ? lastName : "";
+                if (storedDateOfBirth != null) {
+                    session.dateOfBirth = storedDateOfBirth;
+                }
+                session.state = state;
+                session.emergencyContact = formattedContact;
+                session.volunteer = isVolunteer;
+                session.profileCompleted = true;
+            });
 
             // Create or update User object in Firebase
             String phoneNumber = getSavedPhoneNumber();
@@ -0,0 +1,316 @@
+package com.rescuereach.service.location;
+
+import android.content.Context;
+import android.location.Location;
+import android.location.LocationManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.google.android.gms.location.LocationServices;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gets an SOS a usable position as fast as possible, then keeps improving it.
+ * <p>
+ * Every fix on hand (cached, the fused provider's last location, the platform GPS, network and
+ * passive providers' last fixes, and fresh fixes as they arrive) is scored by its error radius:
+ * reported accuracy plus how far the user could have moved since, at the fix's own speed or a
+ * walking pace. The best fix on hand is emitted at once, however old, flagged as low confidence
+ * when its error radius is too large to rely on, and a fix is emitted again each time one is
+ * clearly better, until one is accurate enough or the session times out. An SOS is never held
+ * back waiting for a better fix.
+ * <p>
+ * Time to first usable fix and to target accuracy are recorded, see {@link #getStats()}.
+ * Main thread only, calls from other threads are posted.
+ */
+public class FixSelector {
+    private static final String TAG = "FixSelector";
+
+    // Larger error radii are emitted flagged as low confidence
+    static final double USABLE_ERROR_METERS = 1000;
+    private static final double TARGET_ERROR_METERS = 25;
+    // A new fix must cut the error radius by this factor to be worth emitting
+    private static final double IMPROVEMENT_RATIO = 0.8;
+    private static final long SESSION_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(60);
+
+    private static final float DEFAULT_SPEED_MPS = 1.5f; // Walking pace when the fix has no speed
+    private static final float MAX_SPEED_MPS = 40f;
+    private static final float UNKNOWN_ACCURACY_METERS = 2000f;
+
+    public enum Source { STREAM, CACHED, FUSED_LAST, PLATFORM_LAST, CURRENT }
+
+    /**
+     * Told about each emitted fix
+     */
+    public interface Listener {
+        /**
+         * @param location The best fix so far
+         * @param source Where it came from
+         * @param errorMeters Its error radius, lower is better
+         * @param lowConfidence The error radius is over {@link #USABLE_ERROR_METERS}, e.g. a fix
+         *                      from long ago, better fixes may follow
+         */
+        void onFix(Location location, Source source, double errorMeters, boolean lowConfidence);
+
+        /**
+         * No fix at all before the session ended, not even an old one
+         */
+        void onNoFix(String message);
+    }
+
+    // Metrics, shared by all sessions
+    private static final AtomicLong sessions = new AtomicLong();
+    private static final AtomicLong firstFixes = new AtomicLong();
+    private static final AtomicLong noFixSessions = new AtomicLong();
+    private static final AtomicLong lowConfidenceFirst = new AtomicLong();
+    private static final AtomicLong lowConfidenceOnly = new AtomicLong();
+    private static final AtomicLong firstFixTotalMs = new AtomicLong();
+    private static final AtomicLong firstFixMaxMs = new AtomicLong();
+    private static final AtomicLong targetReached = new AtomicLong();
+    private static final AtomicLong targetTotalMs = new AtomicLong();
+    private static final AtomicLong[] firstFixBySource = new AtomicLong[Source.values().length];
+    static {
+        for (int i = 0; i < firstFixBySource.length; i++) {
+            firstFixBySource[i] = new AtomicLong();
+        }
+    }
+
+    private final Context context;
+    private final Listener listener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private long startedAt;
+    private Location best;
+    private double bestError = Double.MAX_VALUE;
+    private boolean usable;
+    private boolean finished;
+
+    private final Runnable timeout = this::finish;
+
+    public FixSelector(Context context, Listener listener) {
+        this.context = context.getApplicationContext();
+        this.listener = listener;
+    }
+
+    /**
+     * Error radius of a fix in meters: its accuracy plus the distance the user could have
+     * moved since it was taken
+     * @param accuracy Reported accuracy, 0 or less if unknown
+     * @param ageMs Age of the fix
+     * @param speed Speed in m/s at the fix, negative if unknown
+     */
+    public static double errorRadiusMeters(float accuracy, long ageMs, float speed) {
+        float assumedSpeed = speed < 0 ? DEFAULT_SPEED_MPS : Math.min(Math.max(speed, DEFAULT_SPEED_MPS), MAX_SPEED_MPS);
+        float base = accuracy > 0 ? accuracy : UNKNOWN_ACCURACY_METERS;
+        return base + assumedSpeed * Math.max(0, ageMs) / 1000.0;
+    }
+
+    /**
+     * Error radius of a fix now
+     */
+    public static double errorRadiusMeters(Location location) {
+        return errorRadiusMeters(location.hasAccuracy() ? location.getAccuracy() : 0,
+                ageMillis(location), location.hasSpeed() ? location.getSpeed() : -1);
+    }
+
+    /**
+     * Age of a fix, from the monotonic clock so wall clock changes don't matter
+     */
+    public static long ageMillis(Location location) {
+        return TimeUnit.NANOSECONDS.toMillis(
+                SystemClock.elapsedRealtimeNanos() - location.getElapsedRealtimeNanos());
+    }
+
+    /**
+     * Start a session. The best of the fixes on hand is emitted before this returns.
+     * @param known Fixes the caller already has, may contain nulls
+     */
+    public void start(Location... known) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            mainHandler.post(() -> start(known));
+            return;
+        }
+        sessions.incrementAndGet();
+        startedAt = SystemClock.elapsedRealtime();
+        mainHandler.postDelayed(timeout, SESSION_TIMEOUT_MS);
+
+        // Score everything available synchronously and lead with the best
+        List<Location> candidates = new ArrayList<>();
+        List<Source> sources = new ArrayList<>();
+        for (Location location : known) {
+            if (location != null) {
+                candidates.add(location);
+                sources.add(Source.CACHED);
+            }
+        }
+        addPlatformLastKnown(candidates, sources);
+        offerBest(candidates, sources);
+
+        try {
+            LocationServices.getFusedLocationProviderClient(context).getLastLocation()
+                    .addOnSuccessListener(location -> {
+                        if (location != null) {
+                            offer(location, Source.FUSED_LAST);
+                        }
+                    });
+        } catch (SecurityException e) {
+            Log.e(TAG, "Location permission exception", e);
+        }
+    }
+
+    /**
+     * Offer a fix, emitted if it's the first or clearly better than the best so far
+     */
+    public void offer(Location location, Source source) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            mainHandler.post(() -> offer(location, source));
+            return;
+        }
+        if (finished || location == null) {
+            return;
+        }
+
+        double error = errorRadiusMeters(location);
+        if (best != null && error > bestError * IMPROVEMENT_RATIO) {
+            return;
+        }
+
+        long elapsed = SystemClock.elapsedRealtime() - startedAt;
+        boolean lowConfidence = error > USABLE_ERROR_METERS;
+        if (best == null && lowConfidence) {
+            lowConfidenceFirst.incrementAndGet();
+            Log.d(TAG, String.format(Locale.US, "Low confidence fix after %d ms from %s, error %.0f m",
+                    elapsed, source, error));
+        }
+        if (!usable && !lowConfidence) {
+            usable = true;
+            firstFixes.incrementAndGet();
+            firstFixTotalMs.addAndGet(elapsed);
+            firstFixMaxMs.accumulateAndGet(elapsed, Math::max);
+            firstFixBySource[source.ordinal()].incrementAndGet();
+            Log.d(TAG, String.format(Locale.US, "First usable fix after %d ms from %s, error %.0f m",
+                    elapsed, source, error));
+        }
+        best = location;
+        bestError = error;
+        listener.onFix(location, source, error, lowConfidence);
+
+        if (error <= TARGET_ERROR_METERS) {
+            targetReached.incrementAndGet();
+            targetTotalMs.addAndGet(elapsed);
+            finish();
+        }
+    }
+
+    /**
+     * End the session. With nothing emitted yet the platform's last fixes are checked once more,
+     * other apps may have got one meanwhile, and failure is reported only if there are none.
+     */
+    public void finish() {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            mainHandler.post(this::finish);
+            return;
+        }
+        if (finished) {
+            return;
+        }
+        mainHandler.removeCallbacks(timeout);
+        if (best == null) {
+            List<Location> candidates = new ArrayList<>();
+            List<Source> sources = new ArrayList<>();
+            addPlatformLastKnown(candidates, sources);
+            offerBest(candidates, sources);
+        }
+        finished = true;
+        if (best == null) {
+            noFixSessions.incrementAndGet();
+            listener.onNoFix("Could not obtain current location");
+        } else if (!usable) {
+            lowConfidenceOnly.incrementAndGet();
+        }
+    }
+
+    /**
+     * End the session without reporting anything
+     */
+    public void cancel() {
+        finished = true;
+        mainHandler.removeCallbacks(timeout);
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Time to first usable fix and to target accuracy, across all sessions
+     */
+    public static String getStats() {
+        long first = firstFixes.get();
+        long target = targetReached.get();
+        StringBuilder bySource = new StringBuilder();
+        for (Source source : Source.values()) {
+            long count = firstFixBySource[source.ordinal()].get();
+            if (count > 0) {
+                bySource.append(' ').append(source).append('=').append(count);
+            }
+        }
+        return "sessions=" + sessions.get() +
+                " firstFixes=" + first +
+                " noFix=" + noFixSessions.get() +
+                " lowConfidenceFirst=" + lowConfidenceFirst.get() +
+                " lowConfidenceOnly=" + lowConfidenceOnly.get() +
+                " avgFirstFixMs=" + (first == 0 ? 0 : firstFixTotalMs.get() / first) +
+                " maxFirstFixMs=" + firstFixMaxMs.get() +
+                " targetReached=" + target +
+                " avgTargetMs=" + (target == 0 ? 0 : targetTotalMs.get() / target) +
+                " firstFixSource:" + bySource;
+    }
+
+    /**
+     * Offer the candidate with the smallest error radius
+     */
+    private void offerBest(List<Location> candidates, List<Source> sources) {
+        int bestIndex = -1;
+        double bestCandidateError = Double.MAX_VALUE;
+        for (int i = 0; i < candidates.size(); i++) {
+            double error = errorRadiusMeters(candidates.get(i));
+            if (error < bestCandidateError) {
+                bestCandidateError = error;
+                bestIndex = i;
+            }
+        }
+        if (bestIndex >= 0) {
+            offer(candidates.get(bestIndex), sources.get(bestIndex));
+        }
+    }
+
+    private void addPlatformLastKnown(List<Location> candidates, List<Source> sources) {
+        LocationManager platform = (LocationManager) context.getSystemService(Context.LOCATION_SERVICE);
+        if (platform == null) {
+            return;
+        }
+        // GPS, then cell/Wi-Fi, then whatever other apps last got
+        String[] providers = {LocationManager.GPS_PROVIDER, LocationManager.NETWORK_PROVIDER,
+                LocationManager.PASSIVE_PROVIDER};
+        for (String provider : providers) {
+            try {
+                Location location = platform.getLastKnownLocation(provider);
+                if (location != null) {
+                    candidates.add(location);
+                    sources.add(Source.PLATFORM_LAST);
+                }
+            } catch (SecurityException | IllegalArgumentException e) {
+                // No permission or no such provider on this device
+                Log.d(TAG, "No last fix from " + provider + ": " + e.getMessage());
+            }
+        }
+    }
+}
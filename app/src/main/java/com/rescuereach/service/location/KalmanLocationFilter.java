@@ -0,0 +1,196 @@
+package com.rescuereach.service.location;
+
+/**
+ * Constant-velocity Kalman filter for location fixes, with accuracy-gated outlier rejection.
+ * <ul>
+ * <li>Positions are projected to meters on a local plane around the first fix. Each axis has
+ * a position and velocity state; acceleration is the process noise.</li>
+ * <li>A fix's reported accuracy is its measurement noise, so a 50 m indoor fix moves the
+ * estimate far less than a 5 m GPS fix.</li>
+ * <li>A fix whose innovation is improbably large for the combined uncertainty of estimate and
+ * fix is rejected. After {@link #MAX_CONSECUTIVE_REJECTS} rejections in a row, or a long gap,
+ * the filter restarts from the next fix, so real jumps (leaving a tunnel, a stale estimate)
+ * can't lock it out.</li>
+ * </ul>
+ * Not thread safe.
+ */
+public final class KalmanLocationFilter implements LocationFilter {
+    private static final double EARTH_RADIUS_METERS = 6371008.8;
+
+    // Expected acceleration in m/s^2: urban driving or unknown, on foot, phone lying still
+    public static final double DEFAULT_ACCELERATION_NOISE = 1.5;
+    public static final double WALKING_ACCELERATION_NOISE = 0.5;
+    public static final double STILL_ACCELERATION_NOISE = 0.05;
+    // Squared innovation distance above which a fix is rejected (chi-square, 2 dof, ~99.97%)
+    private static final double OUTLIER_GATE = 16.0;
+    private static final int MAX_CONSECUTIVE_REJECTS = 3;
+    private static final long MAX_GAP_MS = 60000;
+    private static final float UNKNOWN_ACCURACY_METERS = 500f;
+    private static final float MIN_ACCURACY_METERS = 1f;
+
+    private double accelerationVariance;
+
+    private boolean initialized;
+    private double originLatitude;
+    private double originLongitude;
+    private double metersPerDegreeLongitude;
+    private long lastTime;
+    private int consecutiveRejects;
+
+    // Per axis: position, velocity and the symmetric 2x2 covariance
+    private double x;
+    private double vx;
+    private double pxx;
+    private double pxv;
+    private double pvv;
+    private double y;
+    private double vy;
+    private double pyy;
+    private double pyv;
+    private double pvvY;
+
+    public KalmanLocationFilter() {
+        this(DEFAULT_ACCELERATION_NOISE);
+    }
+
+    /**
+     * @param accelerationNoise Expected acceleration in m/s^2, higher follows turns faster but smooths less
+     */
+    public KalmanLocationFilter(double accelerationNoise) {
+        setAccelerationNoise(accelerationNoise);
+    }
+
+    /**
+     * Change the expected acceleration, e.g. when activity recognition says the user got into a
+     * vehicle. Takes effect from the next fix and keeps the current estimate.
+     */
+    public void setAccelerationNoise(double accelerationNoise) {
+        this.accelerationVariance = accelerationNoise * accelerationNoise;
+    }
+
+    @Override
+    public boolean update(double latitude, double longitude, float accuracyMeters, long timeMillis) {
+        float accuracy = accuracyMeters > 0 ? Math.max(accuracyMeters, MIN_ACCURACY_METERS) : UNKNOWN_ACCURACY_METERS;
+        double variance = (double) accuracy * accuracy;
+
+        if (!initialized || timeMillis - lastTime > MAX_GAP_MS || consecutiveRejects >= MAX_CONSECUTIVE_REJECTS) {
+            start(latitude, longitude, variance, timeMillis);
+            return true;
+        }
+        if (timeMillis < lastTime) {
+            // Out of order, the estimate has already moved past it
+            return false;
+        }
+
+        double dt = (timeMillis - lastTime) / 1000.0;
+        double zx = toX(longitude);
+        double zy = toY(latitude);
+
+        // Predict, discrete white noise acceleration model
+        double dt2 = dt * dt;
+        double qPos = accelerationVariance * dt2 * dt2 / 4;
+        double qCross = accelerationVariance * dt2 * dt / 2;
+        double qVel = accelerationVariance * dt2;
+
+        double predX = x + vx * dt;
+        double predPxx = pxx + dt * (2 * pxv + dt * pvv) + qPos;
+        double predPxv = pxv + dt * pvv + qCross;
+        double predPvv = pvv + qVel;
+
+        double predY = y + vy * dt;
+        double predPyy = pyy + dt * (2 * pyv + dt * pvvY) + qPos;
+        double predPyv = pyv + dt * pvvY + qCross;
+        double predPvvY = pvvY + qVel;
+
+        // Gate on the innovation
+        double innovationX = zx - predX;
+        double innovationY = zy - predY;
+        double sx = predPxx + variance;
+        double sy = predPyy + variance;
+        double distanceSquared = innovationX * innovationX / sx + innovationY * innovationY / sy;
+        if (distanceSquared > OUTLIER_GATE) {
+            consecutiveRejects++;
+            return false;
+        }
+        consecutiveRejects = 0;
+
+        // Update
+        double kx = predPxx / sx;
+        double kvx = predPxv / sx;
+        x = predX + kx * innovationX;
+        vx = vx + kvx * innovationX;
+        pxx = (1 - kx) * predPxx;
+        pxv = (1 - kx) * predPxv;
+        pvv = predPvv - kvx * predPxv;
+
+        double ky = predPyy / sy;
+        double kvy = predPyv / sy;
+        y = predY + ky * innovationY;
+        vy = vy + kvy * innovationY;
+        pyy = (1 - ky) * predPyy;
+        pyv = (1 - ky) * predPyv;
+        pvvY = predPvvY - kvy * predPyv;
+
+        lastTime = timeMillis;
+        return true;
+    }
+
+    @Override
+    public double getLatitude() {
+        return originLatitude + Math.toDegrees(y / EARTH_RADIUS_METERS);
+    }
+
+    @Override
+    public double getLongitude() {
+        return originLongitude + x / metersPerDegreeLongitude;
+    }
+
+    @Override
+    public float getAccuracy() {
+        return (float) Math.sqrt(Math.max(pxx, pyy));
+    }
+
+    /**
+     * Estimated speed in m/s
+     */
+    public float getSpeed() {
+        return (float) Math.hypot(vx, vy);
+    }
+
+    @Override
+    public void reset() {
+        initialized = false;
+        consecutiveRejects = 0;
+    }
+
+    private void start(double latitude, double longitude, double variance, long timeMillis) {
+        // Re-anchor the local plane on every start so it never drifts far from the origin
+        originLatitude = latitude;
+        originLongitude = longitude;
+        metersPerDegreeLongitude = Math.toRadians(1) * EARTH_RADIUS_METERS * Math.cos(Math.toRadians(latitude));
+
+        x = 0;
+        y = 0;
+        vx = 0;
+        vy = 0;
+        pxx = variance;
+        pyy = variance;
+        pxv = 0;
+        pyv = 0;
+        // Unknown velocity, allow up to fast driving
+        pvv = 900;
+        pvvY = 900;
+
+        lastTime = timeMillis;
+        consecutiveRejects = 0;
+        initialized = true;
+    }
+
+    private double toX(double longitude) {
+        return (longitude - originLongitude) * metersPerDegreeLongitude;
+    }
+
+    private double toY(double latitude) {
+        return Math.toRadians(latitude - originLatitude) * EARTH_RADIUS_METERS;
+    }
+}
@@ -0,0 +1,188 @@
+package com.rescuereach.service.location;
+
+import java.util.Locale;
+
+/**
+ * Compact encoding for the live SOS track in the Realtime Database.
+ * <p>
+ * Each point is one short string. Latitude and longitude are quantised to 1e-5 degrees (about
+ * 1 m) and sent as the delta from the previous point, accuracy as a bucket index and time as
+ * whole seconds since the track started:
+ * <pre>
+ *   "12,-5,1,37"            delta point: dLat, dLng, accuracy bucket, seconds since start
+ *   "k2861390,7720900,1,0"  keyframe: absolute lat and lng instead of deltas
+ * </pre>
+ * A keyframe starts every track and follows every {@link #KEYFRAME_INTERVAL} points, or any
+ * point the reader may have missed, so a reader that joins late or misses a write recovers
+ * at the next keyframe. Points carry consecutive sequence numbers, the reader drops deltas
+ * after a gap in them until that keyframe. A walking-pace point is around 10 bytes.
+ */
+public final class LiveTrackCodec {
+
+    static final double PRECISION = 1e5;
+    static final int KEYFRAME_INTERVAL = 30;
+    private static final String KEYFRAME_PREFIX = "k";
+
+    // Upper bounds of the accuracy buckets in meters, anything worse is the last bucket
+    private static final float[] ACCURACY_BUCKETS = {5f, 10f, 20f, 50f, 100f, 500f};
+    private static final float WORST_BUCKET_METERS = 1000f;
+
+    private LiveTrackCodec() {
+        // Utility class
+    }
+
+    /**
+     * A decoded track point
+     */
+    public static final class Point {
+        public final double latitude;
+        public final double longitude;
+        public final float accuracyMeters;
+        public final long timeMillis;
+
+        Point(double latitude, double longitude, float accuracyMeters, long timeMillis) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.accuracyMeters = accuracyMeters;
+            this.timeMillis = timeMillis;
+        }
+    }
+
+    /**
+     * Encodes the points of one track in order. {@link #encode} only prepares a point, call
+     * {@link #commit()} once it's actually sent so a held-back point doesn't shift the deltas.
+     */
+    public static final class Encoder {
+        private final long startTime;
+        private long lastLat;
+        private long lastLng;
+        private int sinceKeyframe;
+        private boolean keyframeNeeded = true;
+
+        private long preparedLat;
+        private long preparedLng;
+        private boolean preparedKeyframe;
+
+        /**
+         * @param startTime Track start in epoch millis, times are sent as offsets from it
+         */
+        public Encoder(long startTime) {
+            this.startTime = startTime;
+        }
+
+        public String encode(double latitude, double longitude, float accuracyMeters, long timeMillis) {
+            preparedLat = Math.round(latitude * PRECISION);
+            preparedLng = Math.round(longitude * PRECISION);
+            preparedKeyframe = keyframeNeeded || sinceKeyframe >= KEYFRAME_INTERVAL;
+            long offsetSeconds = Math.max(0, (timeMillis - startTime) / 1000);
+
+            if (preparedKeyframe) {
+                return String.format(Locale.US, "%s%d,%d,%d,%d", KEYFRAME_PREFIX,
+                        preparedLat, preparedLng, accuracyBucket(accuracyMeters), offsetSeconds);
+            }
+            return String.format(Locale.US, "%d,%d,%d,%d", preparedLat - lastLat,
+                    preparedLng - lastLng, accuracyBucket(accuracyMeters), offsetSeconds);
+        }
+
+        /**
+         * The last encoded point was sent
+         */
+        public void commit() {
+            lastLat = preparedLat;
+            lastLng = preparedLng;
+            sinceKeyframe = preparedKeyframe ? 1 : sinceKeyframe + 1;
+            keyframeNeeded = false;
+        }
+
+        /**
+         * Make the next point a keyframe, e.g. after a failed write
+         */
+        public void forceKeyframe() {
+            keyframeNeeded = true;
+        }
+    }
+
+    /**
+     * Decodes the points of one track in order
+     */
+    public static final class Decoder {
+        private long startTime;
+        private long lat;
+        private long lng;
+        private boolean synced;
+        private long nextSeq;
+
+        public Decoder(long startTime) {
+            reset(startTime);
+        }
+
+        /**
+         * Start over for a restarted track
+         */
+        public void reset(long startTime) {
+            this.startTime = startTime;
+            synced = false;
+        }
+
+        /**
+         * A point that can't be used also makes the deltas after it unusable, they're dropped
+         * until the next keyframe
+         * @param seq Sequence number of the point, consecutive within a track
+         * @return The point, or null if it's malformed, or a delta before the first keyframe or
+         * after a missing point
+         */
+        public Point decode(long seq, String value) {
+            long expectedSeq = nextSeq;
+            nextSeq = seq + 1;
+            if (value == null || value.isEmpty()) {
+                synced = false;
+                return null;
+            }
+            boolean keyframe = value.startsWith(KEYFRAME_PREFIX);
+            String[] parts = (keyframe ? value.substring(KEYFRAME_PREFIX.length()) : value).split(",");
+            if (parts.length != 4 || (!keyframe && (!synced || seq != expectedSeq))) {
+                synced = false;
+                return null;
+            }
+            try {
+                long first = Long.parseLong(parts[0]);
+                long second = Long.parseLong(parts[1]);
+                int bucket = Integer.parseInt(parts[2]);
+                long offsetSeconds = Long.parseLong(parts[3]);
+
+                lat = keyframe ? first : lat + first;
+                lng = keyframe ? second : lng + second;
+                synced = true;
+                return new Point(lat / PRECISION, lng / PRECISION, bucketAccuracy(bucket),
+                        startTime + offsetSeconds * 1000);
+            } catch (NumberFormatException e) {
+                synced = false;
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Bucket index for an accuracy, unknown accuracy goes in the worst bucket
+     */
+    public static int accuracyBucket(float accuracyMeters) {
+        if (accuracyMeters > 0) {
+            for (int i = 0; i < ACCURACY_BUCKETS.length; i++) {
+                if (accuracyMeters <= ACCURACY_BUCKETS[i]) {
+                    return i;
+                }
+            }
+        }
+        return ACCURACY_BUCKETS.length;
+    }
+
+    /**
+     * Accuracy a bucket stands for, its upper bound
+     */
+    public static float bucketAccuracy(int bucket) {
+        if (bucket >= 0 && bucket < ACCURACY_BUCKETS.length) {
+            return ACCURACY_BUCKETS[bucket];
+        }
+        return WORST_BUCKET_METERS;
+    }
+}
@@ -0,0 +1,125 @@
+package com.rescuereach.service.location;
+
+import android.location.Location;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+
+/**
+ * Follows the live track of an SOS written by {@link LiveTrackStreamer}, for the responder side.
+ * Points already in the track are delivered first, in order, then new ones as they arrive.
+ * Callbacks come on the main thread.
+ */
+public class LiveTrackReader {
+    private static final String TAG = "LiveTrackReader";
+
+    private static final String LOCATION_PROVIDER = "live_track";
+
+    /**
+     * Receives decoded track points
+     */
+    public interface Listener {
+        void onTrackPoint(Location location);
+    }
+
+    private final DatabaseReference trackRef;
+    private final Listener listener;
+    private LiveTrackCodec.Decoder decoder;
+    private boolean pointsAttached;
+
+    private final ValueEventListener startListener = new ValueEventListener() {
+        @Override
+        public void onDataChange(@NonNull DataSnapshot snapshot) {
+            Long start = snapshot.getValue(Long.class);
+            if (start == null) {
+                // No track yet, or the emergency is over
+                return;
+            }
+            if (decoder == null) {
+                decoder = new LiveTrackCodec.Decoder(start);
+            } else {
+                // The track restarted, its points were replaced too
+                decoder.reset(start);
+            }
+            if (!pointsAttached) {
+                trackRef.child("points").orderByKey().addChildEventListener(pointsListener);
+                pointsAttached = true;
+            }
+        }
+
+        @Override
+        public void onCancelled(@NonNull DatabaseError error) {
+            Log.e(TAG, "Error reading live track: " + error.getMessage());
+        }
+    };
+
+    private final ChildEventListener pointsListener = new ChildEventListener() {
+        @Override
+        public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+            long seq;
+            try {
+                seq = Long.parseLong(snapshot.getKey());
+            } catch (NumberFormatException e) {
+                Log.w(TAG, "Ignoring live track point " + snapshot.getKey());
+                return;
+            }
+            // Deltas after a missing point are dropped until the next keyframe
+            LiveTrackCodec.Point point = decoder.decode(seq, snapshot.getValue(String.class));
+            if (point == null) {
+                return;
+            }
+            Location location = new Location(LOCATION_PROVIDER);
+            location.setLatitude(point.latitude);
+            location.setLongitude(point.longitude);
+            location.setAccuracy(point.accuracyMeters);
+            location.setTime(point.timeMillis);
+            listener.onTrackPoint(location);
+        }
+
+        @Override
+        public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+            // Points are written once
+        }
+
+        @Override
+        public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+            // Only happens when the track is replaced or removed
+        }
+
+        @Override
+        public void onChildMoved(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+            // Keys never change
+        }
+
+        @Override
+        public void onCancelled(@NonNull DatabaseError error) {
+            Log.e(TAG, "Error reading live track points: " + error.getMessage());
+        }
+    };
+
+    public LiveTrackReader(String reportId, Listener listener) {
+        this.trackRef = FirebaseDatabase.getInstance().getReference("active_emergencies")
+                .child(reportId).child("track");
+        this.listener = listener;
+    }
+
+    public void start() {
+        trackRef.child("start").addValueEventListener(startListener);
+    }
+
+    public void stop() {
+        trackRef.child("start").removeEventListener(startListener);
+        if (pointsAttached) {
+            trackRef.child("points").orderByKey().removeEventListener(pointsListener);
+            pointsAttached = false;
+        }
+    }
+}
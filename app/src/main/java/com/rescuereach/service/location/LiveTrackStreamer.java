@@ -0,0 +1,380 @@
+package com.rescuereach.service.location;
+
+import android.content.Context;
+import android.location.Location;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+import com.rescuereach.data.model.SOSReport;
+import com.rescuereach.util.NetworkUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams the live position of an active SOS to active_emergencies/{reportId}/track so
+ * responders can follow it, at a fraction of the cost of a Firestore document per fix.
+ * <ul>
+ * <li>Points are encoded by {@link LiveTrackCodec}, a few bytes each, under track/points/{seq}.
+ * track/start holds the start time the point times are offsets from.</li>
+ * <li>Sends are paced by a byte budget: a token bucket refilled at a per-minute rate that is
+ * higher on fast or unmetered networks. When the bucket is empty the newest fix waits for it,
+ * older held fixes are replaced, so the rate drops instead of a backlog building up.</li>
+ * <li>A fix that hasn't moved beyond its own accuracy is only sent as a periodic heartbeat.</li>
+ * <li>While the database is disconnected only the newest fix is held, instead of letting the
+ * client queue every write for later.</li>
+ * <li>Streaming stops by itself once the emergency is closed, by anyone: its status turns final
+ * or its active_emergencies entry is removed.</li>
+ * </ul>
+ * One track at a time. Main thread only, calls from other threads are posted.
+ */
+public class LiveTrackStreamer {
+    private static final String TAG = "LiveTrackStreamer";
+
+    private static final String RTDB_ACTIVE_SOS_PATH = "active_emergencies";
+    private static final String TRACK_CHILD = "track";
+    private static final String POINTS_CHILD = "points";
+    private static final String START_CHILD = "start";
+    private static final String VERSION_CHILD = "v";
+    private static final String STATUS_CHILD = "status";
+    private static final int FORMAT_VERSION = 1;
+
+    // Byte budgets, the bucket holds BURST_MS worth so the first fixes go out at once
+    private static final int FAST_BUDGET_BYTES_PER_MINUTE = 12 * 1024;
+    private static final int SLOW_BUDGET_BYTES_PER_MINUTE = 3 * 1024;
+    private static final long BURST_MS = TimeUnit.SECONDS.toMillis(30);
+    private static final long BUDGET_RECHECK_MS = TimeUnit.SECONDS.toMillis(60);
+    // Rough per-write framing on the wire, on top of path and value
+    private static final int WRITE_OVERHEAD_BYTES = 60;
+
+    private static final long MIN_INTERVAL_MS = TimeUnit.SECONDS.toMillis(1);
+    private static final long HEARTBEAT_MS = TimeUnit.SECONDS.toMillis(30);
+    private static final float MIN_MOVE_METERS = 3f;
+
+    private static volatile LiveTrackStreamer instance;
+
+    private final Context context;
+    private final LocationHub locationHub;
+    private final FirebaseDatabase realtimeDb;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private String reportId;
+    private DatabaseReference statusRef;
+    private boolean statusSeen;
+    private DatabaseReference pointsRef;
+    private LiveTrackCodec.Encoder encoder;
+    private long seq;
+    private boolean connected;
+
+    private Location pending;
+    private Location lastSent;
+    private long lastSentAt;
+    private boolean sendScheduled;
+
+    private int budgetBytesPerMinute = SLOW_BUDGET_BYTES_PER_MINUTE;
+    private long budgetCheckedAt;
+    private double tokens;
+    private long refilledAt;
+
+    // Metrics
+    private final AtomicLong tracksStarted = new AtomicLong();
+    private final AtomicLong fixesReceived = new AtomicLong();
+    private final AtomicLong pointsSent = new AtomicLong();
+    private final AtomicLong pointsSkipped = new AtomicLong();
+    private final AtomicLong pointsReplaced = new AtomicLong();
+    private final AtomicLong budgetWaits = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong writeFailures = new AtomicLong();
+
+    private final Runnable sendRunnable = () -> {
+        sendScheduled = false;
+        trySend();
+    };
+
+    private final LocationHub.Subscriber subscriber = new LocationHub.Subscriber() {
+        @Override
+        public void onLocation(Location location) {
+            fixesReceived.incrementAndGet();
+            if (pending != null) {
+                pointsReplaced.incrementAndGet();
+            }
+            pending = location;
+            trySend();
+        }
+
+        @Override
+        public void onLocationError(String message) {
+            // Responders keep the last point, nothing else to do
+        }
+    };
+
+    private final ValueEventListener connectionListener = new ValueEventListener() {
+        @Override
+        public void onDataChange(@NonNull DataSnapshot snapshot) {
+            boolean nowConnected = Boolean.TRUE.equals(snapshot.getValue(Boolean.class));
+            if (nowConnected == connected) {
+                return;
+            }
+            connected = nowConnected;
+            if (connected) {
+                trySend();
+            } else if (encoder != null) {
+                // Writes in flight may be lost, start again from absolute coordinates
+                encoder.forceKeyframe();
+            }
+        }
+
+        @Override
+        public void onCancelled(@NonNull DatabaseError error) {
+            Log.e(TAG, "Connection state unavailable: " + error.getMessage());
+        }
+    };
+
+    // The emergency's status, to stop when it's closed elsewhere, e.g. by a responder
+    private final ValueEventListener statusListener = new ValueEventListener() {
+        @Override
+        public void onDataChange(@NonNull DataSnapshot snapshot) {
+            String streaming = reportId;
+            if (streaming == null) {
+                return;
+            }
+            String status = snapshot.getValue(String.class);
+            if (status == null) {
+                // Not there until the SOS write lands, gone once the emergency is removed
+                if (statusSeen) {
+                    Log.d(TAG, "Emergency " + streaming + " removed, stopping live track");
+                    stop(streaming);
+                }
+                return;
+            }
+            statusSeen = true;
+            if (SOSReport.STATUS_RESOLVED.equals(status) || SOSReport.STATUS_CANCELED.equals(status)) {
+                Log.d(TAG, "Emergency " + streaming + " is " + status + ", stopping live track");
+                stop(streaming);
+            }
+        }
+
+        @Override
+        public void onCancelled(@NonNull DatabaseError error) {
+            Log.e(TAG, "Emergency status unavailable: " + error.getMessage());
+        }
+    };
+
+    private LiveTrackStreamer(Context context) {
+        this.context = context.getApplicationContext();
+        this.locationHub = LocationHub.getInstance(this.context);
+        this.realtimeDb = FirebaseDatabase.getInstance();
+    }
+
+    /**
+     * Get the shared streamer
+     * @param context Any context, the application context is used
+     * @return LiveTrackStreamer instance
+     */
+    public static LiveTrackStreamer getInstance(Context context) {
+        if (instance == null) {
+            synchronized (LiveTrackStreamer.class) {
+                if (instance == null) {
+                    instance = new LiveTrackStreamer(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Start streaming for an SOS, replacing any track it had before. Does nothing if that
+     * SOS is already streaming, stops any other one.
+     * @param reportId The SOS report, must already be in active_emergencies
+     */
+    public void start(String reportId) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            mainHandler.post(() -> start(reportId));
+            return;
+        }
+        if (reportId == null || reportId.isEmpty() || reportId.equals(this.reportId)) {
+            return;
+        }
+        if (this.reportId != null) {
+            stop(this.reportId);
+        }
+
+        this.reportId = reportId;
+        long startTime = System.currentTimeMillis();
+        DatabaseReference emergencyRef = realtimeDb.getReference(RTDB_ACTIVE_SOS_PATH).child(reportId);
+        DatabaseReference trackRef = emergencyRef.child(TRACK_CHILD);
+        pointsRef = trackRef.child(POINTS_CHILD);
+        encoder = new LiveTrackCodec.Encoder(startTime);
+        seq = 0;
+        lastSent = null;
+        pending = null;
+        budgetCheckedAt = 0;
+        refilledAt = SystemClock.elapsedRealtime();
+        updateBudget(refilledAt);
+        tokens = capacity();
+        tracksStarted.incrementAndGet();
+
+        // Setting the whole track drops points left over from an earlier run
+        Map<String, Object> header = new HashMap<>();
+        header.put(VERSION_CHILD, FORMAT_VERSION);
+        header.put(START_CHILD, startTime);
+        trackRef.setValue(header)
+                .addOnFailureListener(e -> Log.e(TAG, "Error starting live track", e));
+
+        statusSeen = false;
+        statusRef = emergencyRef.child(STATUS_CHILD);
+        statusRef.addValueEventListener(statusListener);
+        realtimeDb.getReference(".info/connected").addValueEventListener(connectionListener);
+        locationHub.subscribe(subscriber, true, false);
+        Log.d(TAG, "Live track started for " + reportId);
+    }
+
+    /**
+     * Stop streaming for an SOS. The track itself is left for whoever removes the emergency.
+     * @param reportId The SOS report, nothing happens if it isn't the one streaming
+     */
+    public void stop(String reportId) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            mainHandler.post(() -> stop(reportId));
+            return;
+        }
+        if (this.reportId == null || !this.reportId.equals(reportId)) {
+            return;
+        }
+        locationHub.unsubscribe(subscriber);
+        realtimeDb.getReference(".info/connected").removeEventListener(connectionListener);
+        if (statusRef != null) {
+            statusRef.removeEventListener(statusListener);
+            statusRef = null;
+        }
+        mainHandler.removeCallbacks(sendRunnable);
+        sendScheduled = false;
+        connected = false;
+        pending = null;
+        pointsRef = null;
+        encoder = null;
+        this.reportId = null;
+        Log.d(TAG, "Live track stopped for " + reportId + " (" + getStats() + ")");
+    }
+
+    public boolean isStreaming() {
+        return reportId != null;
+    }
+
+    /**
+     * Send, budget and skip counters for diagnostics
+     */
+    public String getStats() {
+        long sent = pointsSent.get();
+        return "tracks=" + tracksStarted.get() +
+                " fixes=" + fixesReceived.get() +
+                " sent=" + sent +
+                " skipped=" + pointsSkipped.get() +
+                " replaced=" + pointsReplaced.get() +
+                " budgetWaits=" + budgetWaits.get() +
+                " bytes=" + bytesSent.get() +
+                " avgBytes=" + (sent == 0 ? 0 : bytesSent.get() / sent) +
+                " budgetPerMin=" + budgetBytesPerMinute +
+                " failures=" + writeFailures.get();
+    }
+
+    private void trySend() {
+        if (pending == null || pointsRef == null || !connected) {
+            // Held until connected, later fixes replace it
+            return;
+        }
+        long now = SystemClock.elapsedRealtime();
+
+        if (lastSent != null) {
+            long sinceLast = now - lastSentAt;
+            float minMove = Math.max(MIN_MOVE_METERS, pending.hasAccuracy() ? pending.getAccuracy() / 2 : 0);
+            if (pending.distanceTo(lastSent) < minMove && sinceLast < HEARTBEAT_MS) {
+                pointsSkipped.incrementAndGet();
+                pending = null;
+                return;
+            }
+            if (sinceLast < MIN_INTERVAL_MS) {
+                scheduleSend(MIN_INTERVAL_MS - sinceLast);
+                return;
+            }
+        }
+
+        refill(now);
+        String key = String.valueOf(seq);
+        String value = encoder.encode(pending.getLatitude(), pending.getLongitude(),
+                pending.hasAccuracy() ? pending.getAccuracy() : 0, pending.getTime());
+        int cost = WRITE_OVERHEAD_BYTES + RTDB_ACTIVE_SOS_PATH.length() + reportId.length() +
+                TRACK_CHILD.length() + POINTS_CHILD.length() + key.length() + value.length();
+        if (tokens < cost) {
+            budgetWaits.incrementAndGet();
+            scheduleSend((long) Math.ceil((cost - tokens) / tokensPerMilli()));
+            return;
+        }
+
+        tokens -= cost;
+        encoder.commit();
+        seq++;
+        lastSent = pending;
+        lastSentAt = now;
+        pending = null;
+        pointsSent.incrementAndGet();
+        bytesSent.addAndGet(cost);
+
+        LiveTrackCodec.Encoder sentWith = encoder;
+        pointsRef.child(key).setValue(value)
+                .addOnFailureListener(e -> {
+                    writeFailures.incrementAndGet();
+                    Log.e(TAG, "Error writing live track point", e);
+                    // Readers won't see this point, don't make them apply the next delta to it
+                    sentWith.forceKeyframe();
+                });
+    }
+
+    private void scheduleSend(long delayMs) {
+        if (!sendScheduled) {
+            sendScheduled = true;
+            mainHandler.postDelayed(sendRunnable, delayMs);
+        }
+    }
+
+    private void refill(long now) {
+        updateBudget(now);
+        tokens = Math.min(capacity(), tokens + (now - refilledAt) * tokensPerMilli());
+        refilledAt = now;
+    }
+
+    /**
+     * Pick the budget for the current network, rechecked once a minute
+     */
+    private void updateBudget(long now) {
+        if (budgetCheckedAt != 0 && now - budgetCheckedAt < BUDGET_RECHECK_MS) {
+            return;
+        }
+        budgetCheckedAt = now;
+        int budget = NetworkUtils.isHighBandwidthConnection(context)
+                ? FAST_BUDGET_BYTES_PER_MINUTE : SLOW_BUDGET_BYTES_PER_MINUTE;
+        if (budget != budgetBytesPerMinute) {
+            Log.d(TAG, "Live track budget now " + budget + " bytes/min");
+            budgetBytesPerMinute = budget;
+        }
+    }
+
+    private double tokensPerMilli() {
+        return budgetBytesPerMinute / (double) TimeUnit.MINUTES.toMillis(1);
+    }
+
+    private double capacity() {
+        return tokensPerMilli() * BURST_MS;
+    }
+}
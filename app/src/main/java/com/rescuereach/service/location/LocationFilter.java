@@ -0,0 +1,38 @@
+package com.rescuereach.service.location;
+
+/**
+ * A filtering stage for raw location fixes. Implementations keep their state in primitives so
+ * {@link #update} allocates nothing; plain Java, so they can be replayed against traces in JVM tests.
+ */
+public interface LocationFilter {
+
+    /**
+     * Feed a raw fix
+     * @param latitude Raw latitude
+     * @param longitude Raw longitude
+     * @param accuracyMeters Reported accuracy, 0 or less if unknown
+     * @param timeMillis Fix time
+     * @return true if the fix was accepted and the estimate updated, false if it was rejected
+     */
+    boolean update(double latitude, double longitude, float accuracyMeters, long timeMillis);
+
+    /**
+     * Estimated latitude, valid once a fix has been accepted
+     */
+    double getLatitude();
+
+    /**
+     * Estimated longitude, valid once a fix has been accepted
+     */
+    double getLongitude();
+
+    /**
+     * Uncertainty of the estimate in meters, on the same scale as a fix's reported accuracy
+     */
+    float getAccuracy();
+
+    /**
+     * Forget all state, the next fix is taken as-is
+     */
+    void reset();
+}
@@ -0,0 +1,338 @@
+package com.rescuereach.service.location;
+
+import android.content.Context;
+import android.location.Location;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.android.gms.location.FusedLocationProviderClient;
+import com.google.android.gms.location.LocationCallback;
+import com.google.android.gms.location.LocationRequest;
+import com.google.android.gms.location.LocationResult;
+import com.google.android.gms.location.LocationServices;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * App-wide location stream. Holds one fused location subscription however many screens and
+ * services want fixes, and multicasts each fix to every subscriber.
+ * <ul>
+ * <li>The subscription runs at the most demanding mode any subscriber asked for: emergency if
+ * any subscriber is in an SOS, background only if every subscriber is.
+ * {@link LocationScheduler} adapts the request within that mode.</li>
+ * <li>A new subscriber gets the last fix straight away instead of waiting for the next one.</li>
+ * <li>Emergency subscribers are told about a fix before the others.</li>
+ * <li>Fixes are smoothed by a {@link LocationFilter}, a {@link KalmanLocationFilter} tuned to
+ * the current profile by default. Fixes it rejects as outliers aren't delivered at all.</li>
+ * </ul>
+ * Main thread only, calls from other threads are posted.
+ */
+public class LocationHub {
+    private static final String TAG = "LocationHub";
+
+    /**
+     * Receives fixes from the shared stream
+     */
+    public interface Subscriber {
+        void onLocation(Location location);
+        void onLocationError(String message);
+    }
+
+    private static final class Mode {
+        final boolean emergency;
+        final boolean background;
+
+        Mode(boolean emergency, boolean background) {
+            this.emergency = emergency;
+            this.background = background;
+        }
+    }
+
+    private static volatile LocationHub instance;
+
+    private final FusedLocationProviderClient fusedLocationClient;
+    private final LocationScheduler scheduler;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final Map<Subscriber, Mode> subscribers = new LinkedHashMap<>();
+    private LocationFilter filter = new KalmanLocationFilter();
+    private Location lastFix;
+    private boolean sessionActive;
+    private boolean sessionEmergency;
+    private boolean sessionBackground;
+
+    // Metrics
+    private final AtomicLong sessionsStarted = new AtomicLong();
+    private final AtomicLong requestChanges = new AtomicLong();
+    private final AtomicLong fixesReceived = new AtomicLong();
+    private final AtomicLong fixesRejected = new AtomicLong();
+    private final AtomicLong deliveries = new AtomicLong();
+    private final AtomicLong replays = new AtomicLong();
+
+    private final LocationCallback locationCallback = new LocationCallback() {
+        @Override
+        public void onLocationResult(@NonNull LocationResult locationResult) {
+            for (Location location : locationResult.getLocations()) {
+                if (location != null) {
+                    dispatch(location);
+                }
+            }
+        }
+    };
+
+    private LocationHub(Context context) {
+        Context appContext = context.getApplicationContext();
+        this.fusedLocationClient = LocationServices.getFusedLocationProviderClient(appContext);
+        this.scheduler = new LocationScheduler(appContext, this::onRequestChanged);
+    }
+
+    /**
+     * Get the shared hub
+     * @param context Any context, the application context is used
+     * @return LocationHub instance
+     */
+    public static LocationHub getInstance(Context context) {
+        if (instance == null) {
+            synchronized (LocationHub.class) {
+                if (instance == null) {
+                    instance = new LocationHub(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Start delivering fixes to a subscriber, or change its mode if already subscribed.
+     * The last fix, if any, is delivered right away.
+     * @param subscriber Receiver of fixes
+     * @param emergency Whether the subscriber needs emergency accuracy
+     * @param background Whether the subscriber is fine with background power saving
+     */
+    public void subscribe(Subscriber subscriber, boolean emergency, boolean background) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            mainHandler.post(() -> subscribe(subscriber, emergency, background));
+            return;
+        }
+        boolean isNew = subscribers.put(subscriber, new Mode(emergency, background)) == null;
+        updateSession();
+
+        if (isNew && lastFix != null) {
+            replays.incrementAndGet();
+            Location replay = lastFix;
+            // Posted, so the subscriber is never called back from inside subscribe()
+            mainHandler.post(() -> {
+                if (subscribers.containsKey(subscriber)) {
+                    subscriber.onLocation(replay);
+                }
+            });
+        }
+    }
+
+    /**
+     * Stop delivering fixes to a subscriber. The subscription ends with the last subscriber.
+     */
+    public void unsubscribe(Subscriber subscriber) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            mainHandler.post(() -> unsubscribe(subscriber));
+            return;
+        }
+        if (subscribers.remove(subscriber) != null) {
+            updateSession();
+        }
+    }
+
+    /**
+     * Most recent fix from the shared stream, null before the first one
+     */
+    public Location getLastFix() {
+        return lastFix;
+    }
+
+    /**
+     * Replace the filter fixes pass through before delivery
+     * @param filter The new filter, null to deliver raw fixes
+     */
+    public void setFilter(LocationFilter filter) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            mainHandler.post(() -> setFilter(filter));
+            return;
+        }
+        this.filter = filter != null ? filter : new PassThroughLocationFilter();
+        tuneFilter(scheduler.getCurrentProfile());
+    }
+
+    /**
+     * The scheduler that tunes the shared request, for profile and battery state
+     */
+    public LocationScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Subscription and delivery counters for diagnostics
+     */
+    public String getStats() {
+        return "subscribers=" + subscribers.size() +
+                " sessionsStarted=" + sessionsStarted.get() +
+                " requestChanges=" + requestChanges.get() +
+                " fixesReceived=" + fixesReceived.get() +
+                " fixesRejected=" + fixesRejected.get() +
+                " deliveries=" + deliveries.get() +
+                " replays=" + replays.get();
+    }
+
+    private void updateSession() {
+        if (subscribers.isEmpty()) {
+            if (sessionActive) {
+                fusedLocationClient.removeLocationUpdates(locationCallback);
+                scheduler.stop();
+                // The next session may start somewhere else entirely
+                filter.reset();
+                sessionActive = false;
+                Log.d(TAG, "Location session stopped (" + getStats() + ")");
+            }
+            return;
+        }
+
+        boolean emergency = false;
+        boolean background = true;
+        for (Mode mode : subscribers.values()) {
+            emergency |= mode.emergency;
+            background &= mode.background;
+        }
+        if (sessionActive && emergency == sessionEmergency && background == sessionBackground) {
+            return;
+        }
+
+        boolean starting = !sessionActive;
+        sessionEmergency = emergency;
+        sessionBackground = background;
+        LocationRequest request = scheduler.start(emergency, background);
+        if (!requestUpdates(request)) {
+            scheduler.stop();
+            return;
+        }
+        sessionActive = true;
+        tuneFilter(scheduler.getCurrentProfile());
+
+        if (starting) {
+            sessionsStarted.incrementAndGet();
+            Log.d(TAG, "Location session started, emergency=" + emergency + " background=" + background);
+            fetchLastLocation();
+        } else {
+            requestChanges.incrementAndGet();
+        }
+    }
+
+    private void onRequestChanged(LocationProfile profile, LocationRequest request) {
+        tuneFilter(profile);
+        if (sessionActive && requestUpdates(request)) {
+            requestChanges.incrementAndGet();
+        }
+    }
+
+    /**
+     * Smooth hard when the phone is still, follow turns quickly when it's in a vehicle
+     */
+    private void tuneFilter(LocationProfile profile) {
+        if (!(filter instanceof KalmanLocationFilter) || profile == null) {
+            return;
+        }
+        double accelerationNoise;
+        switch (profile) {
+            case STATIONARY:
+                accelerationNoise = KalmanLocationFilter.STILL_ACCELERATION_NOISE;
+                break;
+            case ON_FOOT:
+                accelerationNoise = KalmanLocationFilter.WALKING_ACCELERATION_NOISE;
+                break;
+            default:
+                // Vehicles, SOS and anything where the activity isn't known
+                accelerationNoise = KalmanLocationFilter.DEFAULT_ACCELERATION_NOISE;
+                break;
+        }
+        ((KalmanLocationFilter) filter).setAccelerationNoise(accelerationNoise);
+    }
+
+    /**
+     * Start or replace the fused subscription, the same callback means it's always a single one
+     */
+    private boolean requestUpdates(LocationRequest request) {
+        try {
+            fusedLocationClient.requestLocationUpdates(request, locationCallback, Looper.getMainLooper());
+            return true;
+        } catch (SecurityException e) {
+            Log.e(TAG, "Location permission exception", e);
+            notifyError("Location permission error: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void fetchLastLocation() {
+        try {
+            fusedLocationClient.getLastLocation()
+                    .addOnSuccessListener(location -> {
+                        // Only useful if the stream hasn't produced anything newer yet
+                        if (location != null && (lastFix == null || location.getTime() > lastFix.getTime())) {
+                            dispatch(location);
+                        }
+                    })
+                    .addOnFailureListener(e -> {
+                        Log.e(TAG, "Error getting last location", e);
+                        notifyError("Error getting last location: " + e.getMessage());
+                    });
+        } catch (SecurityException e) {
+            Log.e(TAG, "Location permission exception", e);
+        }
+    }
+
+    private void dispatch(Location raw) {
+        fixesReceived.incrementAndGet();
+        // Monotonic time, wall clock changes must not look like out of order fixes
+        long fixTime = TimeUnit.NANOSECONDS.toMillis(raw.getElapsedRealtimeNanos());
+        if (!filter.update(raw.getLatitude(), raw.getLongitude(),
+                raw.hasAccuracy() ? raw.getAccuracy() : 0, fixTime)) {
+            fixesRejected.incrementAndGet();
+            return;
+        }
+
+        Location location = new Location(raw);
+        location.setLatitude(filter.getLatitude());
+        location.setLongitude(filter.getLongitude());
+        if (filter.getAccuracy() > 0) {
+            location.setAccuracy(filter.getAccuracy());
+        }
+        lastFix = location;
+        scheduler.onFix(location);
+
+        // Copy, a subscriber may unsubscribe from its callback
+        List<Subscriber> emergencyFirst = new ArrayList<>(subscribers.size());
+        List<Subscriber> others = new ArrayList<>(subscribers.size());
+        for (Map.Entry<Subscriber, Mode> entry : subscribers.entrySet()) {
+            (entry.getValue().emergency ? emergencyFirst : others).add(entry.getKey());
+        }
+        emergencyFirst.addAll(others);
+
+        for (Subscriber subscriber : emergencyFirst) {
+            if (subscribers.containsKey(subscriber)) {
+                deliveries.incrementAndGet();
+                subscriber.onLocation(location);
+            }
+        }
+    }
+
+    private void notifyError(String message) {
+        for (Subscriber subscriber : new ArrayList<>(subscribers.keySet())) {
+            subscriber.onLocationError(message);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.rescuereach.service.location;
+
+import com.google.android.gms.location.Priority;
+
+/**
+ * Location request profiles picked by {@link LocationScheduler}, ordered from the most to the
+ * least power hungry.
+ */
+public enum LocationProfile {
+    // Active SOS, battery is secondary
+    EMERGENCY(5000, Priority.PRIORITY_HIGH_ACCURACY, 0),
+    // Driving, keep up with the vehicle but skip fixes that barely moved
+    IN_VEHICLE(15000, Priority.PRIORITY_BALANCED_POWER_ACCURACY, 50),
+    // Walking, running or cycling
+    ON_FOOT(30000, Priority.PRIORITY_BALANCED_POWER_ACCURACY, 10),
+    // Foreground, motion unknown
+    NORMAL(60000, Priority.PRIORITY_BALANCED_POWER_ACCURACY, 0),
+    LOW_BATTERY(120000, Priority.PRIORITY_BALANCED_POWER_ACCURACY, 25),
+    // Foreground, device not moving
+    STATIONARY(300000, Priority.PRIORITY_LOW_POWER, 25),
+    BACKGROUND(300000, Priority.PRIORITY_LOW_POWER, 50),
+    CRITICAL_BATTERY(600000, Priority.PRIORITY_LOW_POWER, 100);
+
+    private final long intervalMillis;
+    private final int priority;
+    private final float minDisplacementMeters;
+
+    LocationProfile(long intervalMillis, int priority, float minDisplacementMeters) {
+        this.intervalMillis = intervalMillis;
+        this.priority = priority;
+        this.minDisplacementMeters = minDisplacementMeters;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public float getMinDisplacementMeters() {
+        return minDisplacementMeters;
+    }
+
+    /**
+     * Whether switching to this profile saves power compared to another one
+     */
+    public boolean usesLessPowerThan(LocationProfile other) {
+        return ordinal() > other.ordinal();
+    }
+
+    /**
+     * Rough location cost in mAh per hour at an observed fix rate.
+     * Per-fix cost is about a warm fix from the provider the priority uses (GNSS, Wi-Fi/cell
+     * scan, cell only), capped at keeping that provider on continuously. Compare against the
+     * measured figures from {@link LocationScheduler#getStats()} before trusting absolutes.
+     */
+    public double estimateMahPerHour(double fixesPerHour) {
+        double perFixMah;
+        double continuousMah;
+        if (priority == Priority.PRIORITY_HIGH_ACCURACY) {
+            perFixMah = 0.10;   // ~15 s of GNSS at 25 mA
+            continuousMah = 25;
+        } else if (priority == Priority.PRIORITY_BALANCED_POWER_ACCURACY) {
+            perFixMah = 0.02;   // Wi-Fi scan plus cell lookup
+            continuousMah = 8;
+        } else {
+            perFixMah = 0.005;  // Cell only, mostly piggybacked on other requests
+            continuousMah = 2;
+        }
+        return Math.min(continuousMah, fixesPerHour * perFixMah);
+    }
+}
@@ -0,0 +1,568 @@
+package com.rescuereach.service.location;
+
+import android.Manifest;
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.PackageManager;
+import android.location.Location;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.os.BatteryManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
+
+import com.google.android.gms.location.ActivityRecognition;
+import com.google.android.gms.location.ActivityTransition;
+import com.google.android.gms.location.ActivityTransitionEvent;
+import com.google.android.gms.location.ActivityTransitionRequest;
+import com.google.android.gms.location.ActivityTransitionResult;
+import com.google.android.gms.location.DetectedActivity;
+import com.google.android.gms.location.LocationRequest;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Picks the location request profile from SOS state, battery, motion and network, and tells
+ * the owner when the request should change.
+ * <ul>
+ * <li>Motion comes from activity transitions when the permission is granted, otherwise from the
+ * speed of recent fixes.</li>
+ * <li>Battery and charging state come from the battery broadcast instead of polling.</li>
+ * <li>Hysteresis: battery modes have separate enter and exit levels, switching to a cheaper
+ * profile needs the new choice to hold for {@link #DOWNGRADE_DWELL_MS}, and profile changes
+ * are at most one per {@link #MIN_SWITCH_INTERVAL_MS}. SOS start and stop apply at once.</li>
+ * <li>While offline, outside an SOS, fixes are batched since they only go to the pending queue.</li>
+ * </ul>
+ * Time, fixes and battery drain are recorded per profile, see {@link #getStats()}.
+ * <p>
+ * Main thread only.
+ */
+public class LocationScheduler {
+    private static final String TAG = "LocationScheduler";
+
+    private static final String ACTION_ACTIVITY_TRANSITION = "com.rescuereach.action.ACTIVITY_TRANSITION";
+    private static final AtomicInteger NEXT_REQUEST_CODE = new AtomicInteger(7100);
+
+    // Battery hysteresis, in percent
+    private static final int LOW_BATTERY_ENTER = 15;
+    private static final int LOW_BATTERY_EXIT = 20;
+    private static final int CRITICAL_BATTERY_ENTER = 5;
+    private static final int CRITICAL_BATTERY_EXIT = 8;
+
+    private static final long DOWNGRADE_DWELL_MS = TimeUnit.MINUTES.toMillis(2);
+    private static final long MIN_SWITCH_INTERVAL_MS = TimeUnit.SECONDS.toMillis(10);
+    private static final int OFFLINE_BATCH_FACTOR = 4;
+
+    // Speed-based motion fallback
+    private static final float ON_FOOT_SPEED_MPS = 0.7f;
+    private static final float VEHICLE_SPEED_MPS = 7f;
+    // Activity transitions older than this no longer override the fix speed
+    private static final long ACTIVITY_STALE_MS = TimeUnit.MINUTES.toMillis(30);
+
+    public enum Motion { UNKNOWN, STILL, ON_FOOT, IN_VEHICLE }
+
+    /**
+     * Told when the location request should be replaced
+     */
+    public interface Listener {
+        void onRequestChanged(LocationProfile profile, LocationRequest request);
+    }
+
+    private final Context context;
+    private final Listener listener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final int requestCode = NEXT_REQUEST_CODE.getAndIncrement();
+
+    // Inputs
+    private boolean sosActive;
+    private boolean background;
+    private int batteryLevel = -1;
+    private boolean charging;
+    private boolean lowBattery;
+    private boolean criticalBattery;
+    private boolean online = true;
+    private Motion activityMotion = Motion.UNKNOWN;
+    private long activityMotionAt;
+    private Motion speedMotion = Motion.UNKNOWN;
+    private Location previousFix;
+
+    // Decision state
+    private boolean running;
+    private LocationProfile currentProfile = LocationProfile.NORMAL;
+    private boolean currentBatched;
+    private long lastSwitchAt;
+    private LocationProfile pendingProfile;
+    private long pendingSince;
+    private final Runnable reevaluate = this::evaluate;
+
+    private PendingIntent activityIntent;
+    private boolean receiversRegistered;
+    private boolean networkCallbackRegistered;
+
+    // Metrics
+    private final Map<LocationProfile, ProfileStats> stats = new EnumMap<>(LocationProfile.class);
+    private long accountedAt;
+    private long accountedChargeMicroAh = Long.MIN_VALUE;
+    private int switches;
+
+    private static final class ProfileStats {
+        long timeMs;
+        long fixes;
+        long dischargeMicroAh;
+        long dischargeTimeMs;
+    }
+
+    private final BroadcastReceiver batteryReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (updateBattery(intent)) {
+                evaluate();
+            }
+        }
+    };
+
+    private final BroadcastReceiver activityReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (!ActivityTransitionResult.hasResult(intent)) {
+                return;
+            }
+            ActivityTransitionResult result = ActivityTransitionResult.extractResult(intent);
+            if (result == null || result.getTransitionEvents().isEmpty()) {
+                return;
+            }
+            List<ActivityTransitionEvent> events = result.getTransitionEvents();
+            ActivityTransitionEvent latest = events.get(events.size() - 1);
+            activityMotion = toMotion(latest.getActivityType());
+            activityMotionAt = SystemClock.elapsedRealtime();
+            Log.d(TAG, "Activity transition: " + activityMotion);
+            evaluate();
+        }
+    };
+
+    private final ConnectivityManager.NetworkCallback networkCallback = new ConnectivityManager.NetworkCallback() {
+        @Override
+        public void onCapabilitiesChanged(@NonNull Network network, @NonNull NetworkCapabilities capabilities) {
+            mainHandler.post(() -> setOnline(capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)));
+        }
+
+        @Override
+        public void onLost(@NonNull Network network) {
+            mainHandler.post(() -> setOnline(false));
+        }
+    };
+
+    public LocationScheduler(Context context, Listener listener) {
+        this.context = context.getApplicationContext();
+        this.listener = listener;
+    }
+
+    /**
+     * Start watching the inputs and pick the initial profile
+     * @param sosActive Whether an SOS is active
+     * @param background Whether the app is in the background
+     * @return The request to start location updates with
+     */
+    public LocationRequest start(boolean sosActive, boolean background) {
+        this.sosActive = sosActive;
+        this.background = background;
+
+        if (!receiversRegistered) {
+            updateBattery(ContextCompat.registerReceiver(context, batteryReceiver,
+                    new IntentFilter(Intent.ACTION_BATTERY_CHANGED), ContextCompat.RECEIVER_NOT_EXPORTED));
+            ContextCompat.registerReceiver(context, activityReceiver,
+                    new IntentFilter(ACTION_ACTIVITY_TRANSITION), ContextCompat.RECEIVER_NOT_EXPORTED);
+            receiversRegistered = true;
+        }
+        registerNetworkCallback();
+        requestActivityTransitions();
+
+        // The first profile applies at once, no dwell
+        long now = SystemClock.elapsedRealtime();
+        accrue(now);
+        running = true;
+        pendingProfile = null;
+        currentProfile = selectProfile();
+        currentBatched = isBatched(currentProfile);
+        lastSwitchAt = now;
+        Log.d(TAG, "Starting with profile " + currentProfile);
+        return buildRequest(currentProfile, currentBatched);
+    }
+
+    /**
+     * Stop watching the inputs. Metrics are kept.
+     */
+    public void stop() {
+        if (!running && !receiversRegistered) {
+            return;
+        }
+        accrue(SystemClock.elapsedRealtime());
+        running = false;
+        mainHandler.removeCallbacks(reevaluate);
+
+        if (receiversRegistered) {
+            try {
+                context.unregisterReceiver(batteryReceiver);
+                context.unregisterReceiver(activityReceiver);
+            } catch (IllegalArgumentException e) {
+                Log.e(TAG, "Receivers already unregistered", e);
+            }
+            receiversRegistered = false;
+        }
+        if (networkCallbackRegistered) {
+            ConnectivityManager connectivityManager =
+                    (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+            if (connectivityManager != null) {
+                connectivityManager.unregisterNetworkCallback(networkCallback);
+            }
+            networkCallbackRegistered = false;
+        }
+        if (activityIntent != null) {
+            ActivityRecognition.getClient(context).removeActivityTransitionUpdates(activityIntent);
+            activityIntent = null;
+        }
+        Log.i(TAG, "Location profile stats: " + getStats());
+    }
+
+    /**
+     * Feed each delivered fix, for metrics and the speed-based motion fallback
+     */
+    public void onFix(Location location) {
+        if (running) {
+            statsFor(currentProfile).fixes++;
+        }
+
+        float speed = -1;
+        if (location.hasSpeed()) {
+            speed = location.getSpeed();
+        } else if (previousFix != null) {
+            long elapsed = location.getTime() - previousFix.getTime();
+            // Movement inside the error circles is noise, not speed
+            float distance = location.distanceTo(previousFix) - location.getAccuracy() - previousFix.getAccuracy();
+            if (elapsed > 0) {
+                speed = Math.max(0, distance) / (elapsed / 1000f);
+            }
+        }
+        previousFix = location;
+
+        if (speed >= 0) {
+            Motion motion = speed >= VEHICLE_SPEED_MPS ? Motion.IN_VEHICLE
+                    : speed >= ON_FOOT_SPEED_MPS ? Motion.ON_FOOT : Motion.STILL;
+            if (motion != speedMotion) {
+                speedMotion = motion;
+                evaluate();
+            }
+        }
+    }
+
+    /**
+     * Profile in use, or the one that would be picked now if not running
+     */
+    public LocationProfile getCurrentProfile() {
+        if (running) {
+            return currentProfile;
+        }
+        updateBattery(ContextCompat.registerReceiver(context, null,
+                new IntentFilter(Intent.ACTION_BATTERY_CHANGED), ContextCompat.RECEIVER_NOT_EXPORTED));
+        return selectProfile();
+    }
+
+    /**
+     * Battery level in percent, from the last battery broadcast
+     */
+    public int getBatteryLevel() {
+        if (batteryLevel < 0 || !receiversRegistered) {
+            updateBattery(ContextCompat.registerReceiver(context, null,
+                    new IntentFilter(Intent.ACTION_BATTERY_CHANGED), ContextCompat.RECEIVER_NOT_EXPORTED));
+        }
+        return batteryLevel < 0 ? 100 : batteryLevel;
+    }
+
+    public boolean isCharging() {
+        return charging;
+    }
+
+    /**
+     * Per-profile time, fixes per hour, modelled location cost and measured device drain.
+     * Measured drain is the whole device while discharging in that profile, compare profiles
+     * against each other rather than reading it as location cost alone.
+     */
+    public String getStats() {
+        accrue(SystemClock.elapsedRealtime());
+        StringBuilder builder = new StringBuilder("switches=").append(switches);
+        for (Map.Entry<LocationProfile, ProfileStats> entry : stats.entrySet()) {
+            ProfileStats profileStats = entry.getValue();
+            if (profileStats.timeMs == 0) {
+                continue;
+            }
+            double hours = profileStats.timeMs / 3600000.0;
+            double fixesPerHour = profileStats.fixes / hours;
+            builder.append(String.format(Locale.US, "\n%s: %.2fh fixesPerHour=%.1f estMahPerHour=%.2f",
+                    entry.getKey(), hours, fixesPerHour, entry.getKey().estimateMahPerHour(fixesPerHour)));
+            if (profileStats.dischargeTimeMs > 0) {
+                builder.append(String.format(Locale.US, " measuredDeviceMahPerHour=%.1f",
+                        profileStats.dischargeMicroAh / 1000.0 / (profileStats.dischargeTimeMs / 3600000.0)));
+            }
+        }
+        return builder.toString();
+    }
+
+    private void evaluate() {
+        if (!running) {
+            return;
+        }
+        mainHandler.removeCallbacks(reevaluate);
+
+        long now = SystemClock.elapsedRealtime();
+        LocationProfile candidate = selectProfile();
+        boolean batched = isBatched(candidate);
+
+        if (candidate == currentProfile) {
+            pendingProfile = null;
+            if (batched != currentBatched) {
+                // Same profile, only the delivery batching changed
+                currentBatched = batched;
+                listener.onRequestChanged(currentProfile, buildRequest(currentProfile, batched));
+            }
+            return;
+        }
+
+        boolean sosChange = candidate == LocationProfile.EMERGENCY || currentProfile == LocationProfile.EMERGENCY;
+        long dueAt = now;
+        if (!sosChange) {
+            if (candidate != pendingProfile) {
+                pendingProfile = candidate;
+                pendingSince = now;
+            }
+            if (candidate.usesLessPowerThan(currentProfile)) {
+                dueAt = pendingSince + DOWNGRADE_DWELL_MS;
+            }
+            dueAt = Math.max(dueAt, lastSwitchAt + MIN_SWITCH_INTERVAL_MS);
+        }
+
+        if (dueAt > now) {
+            mainHandler.postDelayed(reevaluate, dueAt - now);
+            return;
+        }
+
+        accrue(now);
+        Log.d(TAG, "Location profile " + currentProfile + " -> " + candidate);
+        currentProfile = candidate;
+        currentBatched = batched;
+        pendingProfile = null;
+        lastSwitchAt = now;
+        switches++;
+        listener.onRequestChanged(candidate, buildRequest(candidate, batched));
+    }
+
+    private LocationProfile selectProfile() {
+        if (sosActive) {
+            return LocationProfile.EMERGENCY;
+        }
+        if (criticalBattery) {
+            return LocationProfile.CRITICAL_BATTERY;
+        }
+        if (lowBattery) {
+            return LocationProfile.LOW_BATTERY;
+        }
+        if (background) {
+            return LocationProfile.BACKGROUND;
+        }
+        switch (currentMotion()) {
+            case IN_VEHICLE:
+                return LocationProfile.IN_VEHICLE;
+            case ON_FOOT:
+                return LocationProfile.ON_FOOT;
+            case STILL:
+                return LocationProfile.STATIONARY;
+            default:
+                return LocationProfile.NORMAL;
+        }
+    }
+
+    private Motion currentMotion() {
+        boolean activityFresh = activityMotion != Motion.UNKNOWN &&
+                SystemClock.elapsedRealtime() - activityMotionAt < ACTIVITY_STALE_MS;
+        return activityFresh ? activityMotion : speedMotion;
+    }
+
+    private boolean isBatched(LocationProfile profile) {
+        return !online && profile != LocationProfile.EMERGENCY;
+    }
+
+    private static LocationRequest buildRequest(LocationProfile profile, boolean batched) {
+        long interval = profile.getIntervalMillis();
+        LocationRequest.Builder builder = new LocationRequest.Builder(interval)
+                .setPriority(profile.getPriority())
+                .setMinUpdateIntervalMillis(interval / 2)
+                .setMinUpdateDistanceMeters(profile.getMinDisplacementMeters())
+                .setWaitForAccurateLocation(profile == LocationProfile.EMERGENCY);
+        if (profile == LocationProfile.EMERGENCY) {
+            builder.setMaxUpdateDelayMillis(interval);
+        } else if (batched) {
+            // Nothing can be uploaded anyway, let the provider deliver in batches
+            builder.setMaxUpdateDelayMillis(interval * OFFLINE_BATCH_FACTOR);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return true if the battery state changed the low or critical battery mode
+     */
+    private boolean updateBattery(Intent intent) {
+        if (intent == null) {
+            return false;
+        }
+        int level = intent.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+        int scale = intent.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+        if (level >= 0 && scale > 0) {
+            batteryLevel = level * 100 / scale;
+        }
+        int status = intent.getIntExtra(BatteryManager.EXTRA_STATUS, -1);
+        charging = status == BatteryManager.BATTERY_STATUS_CHARGING || status == BatteryManager.BATTERY_STATUS_FULL;
+
+        boolean wasLow = lowBattery;
+        boolean wasCritical = criticalBattery;
+        if (charging || batteryLevel < 0) {
+            lowBattery = false;
+            criticalBattery = false;
+        } else {
+            lowBattery = lowBattery ? batteryLevel < LOW_BATTERY_EXIT : batteryLevel <= LOW_BATTERY_ENTER;
+            criticalBattery = criticalBattery ? batteryLevel < CRITICAL_BATTERY_EXIT : batteryLevel <= CRITICAL_BATTERY_ENTER;
+        }
+        return wasLow != lowBattery || wasCritical != criticalBattery;
+    }
+
+    private void setOnline(boolean online) {
+        if (this.online != online) {
+            this.online = online;
+            evaluate();
+        }
+    }
+
+    private void registerNetworkCallback() {
+        if (networkCallbackRegistered) {
+            return;
+        }
+        ConnectivityManager connectivityManager =
+                (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (connectivityManager == null) {
+            return;
+        }
+        NetworkCapabilities capabilities = connectivityManager.getNetworkCapabilities(connectivityManager.getActiveNetwork());
+        online = capabilities != null && capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET);
+        try {
+            connectivityManager.registerDefaultNetworkCallback(networkCallback);
+            networkCallbackRegistered = true;
+        } catch (RuntimeException e) {
+            // Too many callbacks registered app-wide, keep the last known state
+            Log.e(TAG, "Could not watch network changes", e);
+        }
+    }
+
+    private void requestActivityTransitions() {
+        if (activityIntent != null || !hasActivityPermission()) {
+            return;
+        }
+
+        List<ActivityTransition> transitions = new ArrayList<>();
+        int[] activities = {DetectedActivity.STILL, DetectedActivity.WALKING, DetectedActivity.RUNNING,
+                DetectedActivity.ON_BICYCLE, DetectedActivity.IN_VEHICLE};
+        for (int activity : activities) {
+            transitions.add(new ActivityTransition.Builder()
+                    .setActivityType(activity)
+                    .setActivityTransition(ActivityTransition.ACTIVITY_TRANSITION_ENTER)
+                    .build());
+        }
+
+        Intent intent = new Intent(ACTION_ACTIVITY_TRANSITION).setPackage(context.getPackageName());
+        // Mutable, Play services fills in the transition result
+        activityIntent = PendingIntent.getBroadcast(context, requestCode, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_MUTABLE);
+        try {
+            ActivityRecognition.getClient(context)
+                    .requestActivityTransitionUpdates(new ActivityTransitionRequest(transitions), activityIntent)
+                    .addOnFailureListener(e -> Log.e(TAG, "Activity transitions unavailable, using fix speed", e));
+        } catch (SecurityException e) {
+            Log.e(TAG, "Activity recognition permission missing", e);
+            activityIntent = null;
+        }
+    }
+
+    private boolean hasActivityPermission() {
+        String permission = Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q ?
+                Manifest.permission.ACTIVITY_RECOGNITION :
+                "com.google.android.gms.permission.ACTIVITY_RECOGNITION";
+        return ContextCompat.checkSelfPermission(context, permission) == PackageManager.PERMISSION_GRANTED;
+    }
+
+    private static Motion toMotion(int activityType) {
+        switch (activityType) {
+            case DetectedActivity.STILL:
+                return Motion.STILL;
+            case DetectedActivity.WALKING:
+            case DetectedActivity.RUNNING:
+            case DetectedActivity.ON_FOOT:
+            case DetectedActivity.ON_BICYCLE:
+                return Motion.ON_FOOT;
+            case DetectedActivity.IN_VEHICLE:
+                return Motion.IN_VEHICLE;
+            default:
+                return Motion.UNKNOWN;
+        }
+    }
+
+    private ProfileStats statsFor(LocationProfile profile) {
+        ProfileStats profileStats = stats.get(profile);
+        if (profileStats == null) {
+            profileStats = new ProfileStats();
+            stats.put(profile, profileStats);
+        }
+        return profileStats;
+    }
+
+    /**
+     * Charge time and battery drain since the last call to the current profile
+     */
+    private void accrue(long now) {
+        long charge = readChargeCounter();
+        if (running && accountedAt > 0) {
+            ProfileStats profileStats = statsFor(currentProfile);
+            long elapsed = now - accountedAt;
+            profileStats.timeMs += elapsed;
+            if (!charging && charge != Long.MIN_VALUE && accountedChargeMicroAh != Long.MIN_VALUE
+                    && charge <= accountedChargeMicroAh) {
+                profileStats.dischargeMicroAh += accountedChargeMicroAh - charge;
+                profileStats.dischargeTimeMs += elapsed;
+            }
+        }
+        accountedAt = now;
+        accountedChargeMicroAh = charge;
+    }
+
+    private long readChargeCounter() {
+        BatteryManager batteryManager = (BatteryManager) context.getSystemService(Context.BATTERY_SERVICE);
+        if (batteryManager == null) {
+            return Long.MIN_VALUE;
+        }
+        int counter = batteryManager.getIntProperty(BatteryManager.BATTERY_PROPERTY_CHARGE_COUNTER);
+        // Unsupported devices report MIN_VALUE or 0
+        return counter == Integer.MIN_VALUE || counter <= 0 ? Long.MIN_VALUE : counter;
+    }
+}
@@ -0,0 +1,186 @@
+package com.rescuereach.service.location;
+
+import android.location.Location;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Uploads the emergency location trail in batches instead of one write per fix.
+ * <ul>
+ * <li>Fixes that moved less than the displacement threshold (or their own accuracy) since the
+ * last kept fix are dropped, except for a periodic heartbeat point.</li>
+ * <li>Kept fixes are buffered and flushed every 30 s while moving, 60 s while stationary, or
+ * at once on the first fix, a large jump or a full buffer.</li>
+ * <li>Each flush is one WriteBatch: last_known with the newest fix, plus one trail chunk
+ * document with the Douglas-Peucker simplified points as an encoded polyline.</li>
+ * <li>A batch is done with once Firestore has queued it. Its persisted write queue survives the
+ * process and sends batches in order once online, so nothing is held in memory waiting for
+ * the server.</li>
+ * </ul>
+ * Trail chunks go to sos_data/{userId}/emergency_trail/{firstPointMillis} with fields
+ * polyline, timeOffsetsSec (seconds since the previous point, the first is 0), accuracyMeters,
+ * startTime, endTime, pointCount and rawPointCount.
+ * <p>
+ * The rules live in {@link TrailPipeline}, this class runs it on the main thread against Firestore.
+ * Shared by all LocationManager instances. State is only touched on the main thread.
+ */
+public class LocationTrailUploader {
+    private static final String TAG = "LocationTrailUploader";
+
+    private static volatile LocationTrailUploader instance;
+
+    private final FirebaseFirestore db;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final TrailPipeline pipeline;
+
+    // Metrics, batches Firestore queued and the server then rejected
+    private final AtomicLong batchesRejected = new AtomicLong();
+
+    private final TrailPipeline.Scheduler mainThreadScheduler = new TrailPipeline.Scheduler() {
+        @Override
+        public long now() {
+            // The clock postAtTime expects, elapsedRealtime runs ahead of it once the device has slept
+            return SystemClock.uptimeMillis();
+        }
+
+        @Override
+        public void postAt(Runnable task, long atMillis) {
+            mainHandler.postAtTime(task, atMillis);
+        }
+
+        @Override
+        public void cancel(Runnable task) {
+            mainHandler.removeCallbacks(task);
+        }
+    };
+
+    private LocationTrailUploader() {
+        this.db = FirebaseFirestore.getInstance();
+        this.pipeline = new TrailPipeline(mainThreadScheduler, this::commitBatch);
+    }
+
+    /**
+     * Get the shared uploader
+     * @return LocationTrailUploader instance
+     */
+    public static LocationTrailUploader getInstance() {
+        if (instance == null) {
+            synchronized (LocationTrailUploader.class) {
+                if (instance == null) {
+                    instance = new LocationTrailUploader();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Add an emergency fix
+     * @param userId Owner of the trail, the same ID the security rules check
+     * @param location The fix
+     * @param status Fields for the last_known document, written as-is on the next flush
+     */
+    public void addFix(String userId, Location location, Map<String, Object> status) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            mainHandler.post(() -> addFix(userId, location, status));
+            return;
+        }
+        pipeline.addFix(userId, new TrailPoint(location.getLatitude(), location.getLongitude(),
+                location.getTime(), location.hasAccuracy() ? location.getAccuracy() : 0), status);
+    }
+
+    /**
+     * Upload everything buffered now, e.g. when the emergency ends
+     */
+    public void flush() {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            mainHandler.post(this::flush);
+            return;
+        }
+        pipeline.flush();
+    }
+
+    /**
+     * Write and decimation counters for diagnostics
+     */
+    public String getStats() {
+        return pipeline.getStats() + " batchesRejected=" + batchesRejected.get();
+    }
+
+    /**
+     * One WriteBatch per flush: last_known plus the trail chunk. Handed off as soon as commit()
+     * has queued it, Firestore retries transient failures itself, so a failure reported later
+     * is one a retry won't fix.
+     */
+    private void commitBatch(String owner, Map<String, Object> lastKnown, List<TrailPoint> chunk, int rawCount,
+                             TrailPipeline.Store.Callback callback) {
+        WriteBatch batch = db.batch();
+        batch.set(db.collection("system_status")
+                .document(owner)
+                .collection("locations")
+                .document("last_known"), lastKnown);
+
+        if (!chunk.isEmpty()) {
+            batch.set(db.collection("sos_data")
+                    .document(owner)
+                    .collection("emergency_trail")
+                    .document(String.valueOf(chunk.get(0).getTime())), buildChunk(owner, chunk, rawCount));
+        }
+
+        try {
+            batch.commit()
+                    .addOnSuccessListener(aVoid ->
+                            Log.d(TAG, "Trail flushed: " + chunk.size() + "/" + rawCount + " points"))
+                    .addOnFailureListener(e -> {
+                        batchesRejected.incrementAndGet();
+                        Log.e(TAG, "Error uploading location trail", e);
+                    });
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Couldn't queue location trail", e);
+            callback.onComplete(false);
+            return;
+        }
+        callback.onComplete(true);
+    }
+
+    /**
+     * Trail chunk document for points in time order, also used for fixes synced from the offline queue
+     */
+    static Map<String, Object> buildChunk(String owner, List<TrailPoint> chunk, int rawCount) {
+        List<Long> timeOffsets = new ArrayList<>(chunk.size());
+        List<Long> accuracies = new ArrayList<>(chunk.size());
+        // Deltas of whole seconds, so rounding errors don't add up along the chunk
+        long previousSecond = Math.round(chunk.get(0).getTime() / 1000.0);
+        for (TrailPoint point : chunk) {
+            long second = Math.round(point.getTime() / 1000.0);
+            timeOffsets.add(second - previousSecond);
+            accuracies.add((long) Math.ceil(point.getAccuracy()));
+            previousSecond = second;
+        }
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("userId", owner); // Checked by the security rules
+        data.put("polyline", PolylineCodec.encode(chunk));
+        data.put("timeOffsetsSec", timeOffsets);
+        data.put("accuracyMeters", accuracies);
+        data.put("startTime", chunk.get(0).getTime());
+        data.put("endTime", chunk.get(chunk.size() - 1).getTime());
+        data.put("pointCount", chunk.size());
+        data.put("rawPointCount", rawCount);
+        data.put("isEmergency", true);
+        data.put("uploadedAt", FieldValue.serverTimestamp());
+        return data;
+    }
+}
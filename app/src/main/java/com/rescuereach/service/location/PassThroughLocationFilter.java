@@ -0,0 +1,40 @@
+package com.rescuereach.service.location;
+
+/**
+ * Filter that accepts every fix unchanged, for turning filtering off and as a test baseline
+ */
+public final class PassThroughLocationFilter implements LocationFilter {
+    private double latitude;
+    private double longitude;
+    private float accuracy;
+
+    @Override
+    public boolean update(double latitude, double longitude, float accuracyMeters, long timeMillis) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.accuracy = accuracyMeters;
+        return true;
+    }
+
+    @Override
+    public double getLatitude() {
+        return latitude;
+    }
+
+    @Override
+    public double getLongitude() {
+        return longitude;
+    }
+
+    @Override
+    public float getAccuracy() {
+        return accuracy;
+    }
+
+    @Override
+    public void reset() {
+        latitude = 0;
+        longitude = 0;
+        accuracy = 0;
+    }
+}
@@ -0,0 +1,152 @@
+package com.rescuereach.service.location;
+
+import android.content.Context;
+import android.location.Location;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+
+import com.rescuereach.data.local.AppDatabase;
+import com.rescuereach.data.local.PendingLocationFix;
+import com.rescuereach.data.local.PendingLocationFixDao;
+import com.rescuereach.util.AppExecutors;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable queue for location fixes that could not be uploaded, e.g. while offline.
+ * <ul>
+ * <li>Fixes are appended to Room from one serial executor, so callers on any thread never block
+ * or lock and the queue order is the order fixes were handed in.</li>
+ * <li>Storage is capped at {@link #MAX_QUEUED_FIXES}; routine fixes are dropped before
+ * emergency ones, oldest first.</li>
+ * <li>{@link PendingLocationSyncWorker} uploads the queue in ID order once a network is
+ * available and only ever deletes from the head, dropping batches it can never upload.</li>
+ * </ul>
+ */
+public class PendingLocationQueue {
+    private static final String TAG = "PendingLocationQueue";
+
+    static final String SYNC_WORK_NAME = "pending_location_sync";
+    private static final long SYNC_BACKOFF_SECONDS = 15;
+    // Fixes arrive every few seconds while offline, don't touch WorkManager for each one
+    private static final long SCHEDULE_THROTTLE_MS = TimeUnit.SECONDS.toMillis(30);
+
+    static final int MAX_QUEUED_FIXES = 2000;
+    // The trim is a full table statement, run it every so often rather than per insert
+    private static final int TRIM_EVERY_INSERTS = 50;
+
+    private static volatile PendingLocationQueue instance;
+
+    private final Context context;
+    private final PendingLocationFixDao dao;
+    private final Executor writer;
+
+    // Only touched on the writer executor
+    private int insertsSinceTrim = TRIM_EVERY_INSERTS;
+    private long lastScheduledAt;
+
+    // Metrics
+    private final AtomicLong fixesQueued = new AtomicLong();
+    private final AtomicLong fixesTrimmed = new AtomicLong();
+    private final AtomicLong queueErrors = new AtomicLong();
+
+    private PendingLocationQueue(Context context) {
+        this.context = context.getApplicationContext();
+        this.dao = AppDatabase.getInstance(this.context).pendingLocationFixDao();
+        this.writer = AppExecutors.getInstance().newSerialExecutor(AppExecutors.Lane.IO);
+    }
+
+    /**
+     * Get the shared queue
+     * @param context Any context, the application context is used
+     * @return PendingLocationQueue instance
+     */
+    public static PendingLocationQueue getInstance(Context context) {
+        if (instance == null) {
+            synchronized (PendingLocationQueue.class) {
+                if (instance == null) {
+                    instance = new PendingLocationQueue(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Append a fix and schedule a sync. Safe to call from any thread, returns immediately.
+     * @param userId Owner of the fix, or null to use whoever is signed in at sync time
+     * @param location The fix
+     * @param isEmergency Whether the fix was taken in emergency mode
+     * @param batteryLevel Battery percentage when the fix was taken
+     * @param networkType Network type when the fix was taken
+     */
+    public void enqueue(String userId, Location location, boolean isEmergency,
+                        int batteryLevel, String networkType) {
+        PendingLocationFix fix = new PendingLocationFix(userId, location.getLatitude(),
+                location.getLongitude(), location.hasAccuracy() ? location.getAccuracy() : 0,
+                location.getTime(), isEmergency, System.currentTimeMillis());
+        fix.setBatteryLevel(batteryLevel);
+        fix.setNetworkType(networkType);
+
+        writer.execute(() -> {
+            try {
+                dao.insert(fix);
+                fixesQueued.incrementAndGet();
+
+                if (++insertsSinceTrim >= TRIM_EVERY_INSERTS) {
+                    insertsSinceTrim = 0;
+                    int trimmed = dao.trimToSize(MAX_QUEUED_FIXES);
+                    if (trimmed > 0) {
+                        fixesTrimmed.addAndGet(trimmed);
+                        Log.w(TAG, "Pending location queue full, dropped " + trimmed + " fix(es)");
+                    }
+                }
+
+                long now = SystemClock.elapsedRealtime();
+                if (lastScheduledAt == 0 || now - lastScheduledAt >= SCHEDULE_THROTTLE_MS) {
+                    lastScheduledAt = now;
+                    scheduleSync(context);
+                }
+            } catch (Exception e) {
+                queueErrors.incrementAndGet();
+                Log.e(TAG, "Error queuing location fix", e);
+            }
+        });
+    }
+
+    /**
+     * Schedule the queue drain to run as soon as connectivity is available.
+     * Does nothing if a drain is already pending or running, it picks up new fixes as it goes.
+     */
+    public static void scheduleSync(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(PendingLocationSyncWorker.class)
+                .setConstraints(constraints)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, SYNC_BACKOFF_SECONDS, TimeUnit.SECONDS)
+                .build();
+
+        WorkManager.getInstance(context.getApplicationContext())
+                .enqueueUniqueWork(SYNC_WORK_NAME, ExistingWorkPolicy.KEEP, request);
+    }
+
+    /**
+     * Queue counters for diagnostics
+     */
+    public String getStats() {
+        return "fixesQueued=" + fixesQueued.get() +
+                " fixesTrimmed=" + fixesTrimmed.get() +
+                " queueErrors=" + queueErrors.get();
+    }
+}
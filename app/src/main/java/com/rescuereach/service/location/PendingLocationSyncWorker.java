@@ -0,0 +1,201 @@
+package com.rescuereach.service.location;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.GeoPoint;
+import com.google.firebase.firestore.WriteBatch;
+import com.rescuereach.data.local.AppDatabase;
+import com.rescuereach.data.local.PendingLocationFix;
+import com.rescuereach.data.local.PendingLocationFixDao;
+import com.rescuereach.service.auth.UserSessionManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains the pending location queue in ID order, one Firestore WriteBatch per batch of fixes.
+ * For each user in a batch it writes last_known with the newest fix (unless the server already
+ * has a newer one) and the emergency fixes as one trail chunk, the same format
+ * {@link LocationTrailUploader} uses. Routine fixes only ever fed last_known, so older ones
+ * are not uploaded individually. A batch the server rejects outright, or that keeps failing,
+ * is dropped so it can't hold up the rest of the queue, as are fixes that were taken and
+ * synced while nobody was signed in.
+ */
+public class PendingLocationSyncWorker extends Worker {
+    private static final String TAG = "PendingLocationSync";
+
+    private static final int BATCH_SIZE = 200;
+    private static final long BATCH_TIMEOUT_SECONDS = 30;
+    // Transient failures of the same batch before it's dropped
+    private static final int MAX_ATTEMPTS = 8;
+
+    public PendingLocationSyncWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        PendingLocationFixDao dao = AppDatabase.getInstance(getApplicationContext()).pendingLocationFixDao();
+        FirebaseFirestore db = FirebaseFirestore.getInstance();
+
+        int synced = 0;
+        int dropped = 0;
+        List<PendingLocationFix> pending;
+        while (!isStopped() && !(pending = dao.getOldest(BATCH_SIZE)).isEmpty()) {
+            String currentUser = resolveCurrentUser();
+
+            // Group by owner, keeping each user's fixes in queue order
+            Map<String, List<PendingLocationFix>> byUser = new LinkedHashMap<>();
+            int unowned = 0;
+            for (PendingLocationFix fix : pending) {
+                String owner = fix.getUserId() != null ? fix.getUserId() : currentUser;
+                if (owner == null) {
+                    // Nobody to attribute it to, holding it would block the queue until someone signs in
+                    unowned++;
+                    continue;
+                }
+                List<PendingLocationFix> fixes = byUser.get(owner);
+                if (fixes == null) {
+                    fixes = new ArrayList<>();
+                    byUser.put(owner, fixes);
+                }
+                fixes.add(fix);
+            }
+            if (unowned > 0) {
+                Log.w(TAG, "Dropping " + unowned + " queued fix(es) with no signed in user");
+                dropped += unowned;
+            }
+
+            long maxId = pending.get(pending.size() - 1).getId();
+            try {
+                if (!byUser.isEmpty()) {
+                    WriteBatch batch = db.batch();
+                    for (Map.Entry<String, List<PendingLocationFix>> entry : byUser.entrySet()) {
+                        addUserWrites(db, batch, entry.getKey(), entry.getValue());
+                    }
+                    Tasks.await(batch.commit(), BATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                }
+                dao.deleteUpTo(maxId);
+                synced += pending.size() - unowned;
+            } catch (Exception e) {
+                int attempts = pending.get(0).getAttemptCount() + 1;
+                if (isPermanent(e) || attempts >= MAX_ATTEMPTS) {
+                    // Rejected outright or failing every time, don't let it block the fixes behind it
+                    Log.e(TAG, "Dropping " + pending.size() + " queued location fix(es) after " +
+                            attempts + " attempt(s)", e);
+                    dao.deleteUpTo(maxId);
+                    dropped += pending.size() - unowned;
+                    continue;
+                }
+                Log.e(TAG, "Error syncing " + pending.size() + " queued location fix(es), attempt " +
+                        attempts, e);
+                dao.markFailed(maxId);
+                return Result.retry();
+            }
+        }
+
+        if (isStopped()) {
+            // Let WorkManager reschedule whatever is left
+            return Result.retry();
+        }
+
+        Log.d(TAG, "Pending location sync finished, synced " + synced + " fix(es), dropped " + dropped);
+        return Result.success();
+    }
+
+    /**
+     * Whether an upload failure will fail the same way however often it's retried
+     */
+    private static boolean isPermanent(Exception e) {
+        Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+        if (!(cause instanceof FirebaseFirestoreException)) {
+            // Timeouts and interruptions
+            return false;
+        }
+        FirebaseFirestoreException.Code code = ((FirebaseFirestoreException) cause).getCode();
+        return code == FirebaseFirestoreException.Code.PERMISSION_DENIED ||
+                code == FirebaseFirestoreException.Code.INVALID_ARGUMENT;
+    }
+
+    private void addUserWrites(FirebaseFirestore db, WriteBatch batch, String userId,
+                               List<PendingLocationFix> fixes) {
+        PendingLocationFix newest = fixes.get(fixes.size() - 1);
+        DocumentReference lastKnown = db.collection("system_status")
+                .document(userId)
+                .collection("locations")
+                .document("last_known");
+
+        if (isNewerThanServer(lastKnown, newest.getFixTime())) {
+            Map<String, Object> locationData = new HashMap<>();
+            locationData.put("location", new GeoPoint(newest.getLatitude(), newest.getLongitude()));
+            locationData.put("accuracy", newest.getAccuracy());
+            locationData.put("timestamp", newest.getFixTime());
+            locationData.put("isEmergency", newest.isEmergency());
+            locationData.put("batteryLevel", newest.getBatteryLevel());
+            locationData.put("networkType", newest.getNetworkType());
+            locationData.put("userId", userId); // Checked by the security rules
+            batch.set(lastKnown, locationData);
+        }
+
+        List<TrailPoint> trail = new ArrayList<>();
+        for (PendingLocationFix fix : fixes) {
+            if (fix.isEmergency()) {
+                trail.add(new TrailPoint(fix.getLatitude(), fix.getLongitude(),
+                        fix.getFixTime(), fix.getAccuracy()));
+            }
+        }
+        if (!trail.isEmpty()) {
+            List<TrailPoint> chunk = TrailSimplifier.simplify(trail,
+                    TrailPipeline.SIMPLIFY_TOLERANCE_METERS);
+            batch.set(db.collection("sos_data")
+                    .document(userId)
+                    .collection("emergency_trail")
+                    .document(String.valueOf(chunk.get(0).getTime())),
+                    LocationTrailUploader.buildChunk(userId, chunk, trail.size()));
+        }
+    }
+
+    /**
+     * Whether a queued fix should replace last_known. Fixes uploaded live since connectivity
+     * returned are newer than anything in the queue and must not be overwritten.
+     */
+    private boolean isNewerThanServer(DocumentReference lastKnown, long fixTime) {
+        try {
+            DocumentSnapshot snapshot = Tasks.await(lastKnown.get(), BATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            Long serverTime = snapshot.exists() ? snapshot.getLong("timestamp") : null;
+            return serverTime == null || serverTime < fixTime;
+        } catch (Exception e) {
+            // Can't tell, the queued fix is still better than nothing
+            Log.w(TAG, "Could not read last_known, writing queued fix", e);
+            return true;
+        }
+    }
+
+    private String resolveCurrentUser() {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        if (user != null) {
+            return user.getUid();
+        }
+        UserSessionManager sessionManager = UserSessionManager.getInstance(getApplicationContext());
+        String phoneNumber = sessionManager != null ? sessionManager.getSavedPhoneNumber() : null;
+        return phoneNumber == null || phoneNumber.isEmpty() ? null : phoneNumber;
+    }
+}
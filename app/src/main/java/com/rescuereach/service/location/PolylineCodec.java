@@ -0,0 +1,77 @@
+package com.rescuereach.service.location;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encoded polyline format (the one used by the Google Maps APIs): coordinates at 1e-5 degree
+ * precision, each stored as a zig-zag varint delta from the previous point in printable ASCII.
+ * A slow-moving trail costs a few bytes per point.
+ */
+public final class PolylineCodec {
+
+    private static final double PRECISION = 1e5;
+
+    private PolylineCodec() {
+        // Utility class
+    }
+
+    /**
+     * Encode the positions of a trail
+     */
+    public static String encode(List<TrailPoint> points) {
+        StringBuilder encoded = new StringBuilder(points.size() * 6);
+        long previousLat = 0;
+        long previousLng = 0;
+        for (TrailPoint point : points) {
+            long lat = Math.round(point.getLatitude() * PRECISION);
+            long lng = Math.round(point.getLongitude() * PRECISION);
+            encodeValue(lat - previousLat, encoded);
+            encodeValue(lng - previousLng, encoded);
+            previousLat = lat;
+            previousLng = lng;
+        }
+        return encoded.toString();
+    }
+
+    /**
+     * Decode positions
+     * @return {latitude, longitude} pairs
+     */
+    public static List<double[]> decode(String encoded) {
+        List<double[]> points = new ArrayList<>();
+        int[] index = {0};
+        long lat = 0;
+        long lng = 0;
+        while (index[0] < encoded.length()) {
+            lat += decodeValue(encoded, index);
+            lng += decodeValue(encoded, index);
+            points.add(new double[]{lat / PRECISION, lng / PRECISION});
+        }
+        return points;
+    }
+
+    private static void encodeValue(long value, StringBuilder out) {
+        long zigzag = value < 0 ? ~(value << 1) : value << 1;
+        while (zigzag >= 0x20) {
+            out.append((char) ((0x20 | (zigzag & 0x1f)) + 63));
+            zigzag >>= 5;
+        }
+        out.append((char) (zigzag + 63));
+    }
+
+    private static long decodeValue(String encoded, int[] index) {
+        long result = 0;
+        int shift = 0;
+        int chunk;
+        do {
+            if (index[0] >= encoded.length()) {
+                throw new IllegalArgumentException("Truncated polyline");
+            }
+            chunk = encoded.charAt(index[0]++) - 63;
+            result |= (long) (chunk & 0x1f) << shift;
+            shift += 5;
+        } while (chunk >= 0x20);
+        return (result & 1) != 0 ? ~(result >> 1) : result >> 1;
+    }
+}
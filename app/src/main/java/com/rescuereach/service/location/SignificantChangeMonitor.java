@@ -0,0 +1,318 @@
+package com.rescuereach.service.location;
+
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.location.Location;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import com.google.android.gms.location.Geofence;
+import com.google.android.gms.location.GeofencingClient;
+import com.google.android.gms.location.GeofencingEvent;
+import com.google.android.gms.location.GeofencingRequest;
+import com.google.android.gms.location.LocationServices;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tells callers when the user has left a region, e.g. the area around the last nearby-services
+ * search, so they can refresh instead of checking the distance on every fix.
+ * <p>
+ * Each region is a geofence the system watches, so nothing runs in the app while the user stays
+ * inside. Callers re-centre a region by watching it again with the new centre. If geofencing is
+ * unavailable (no fine location permission, no background location permission on Android 10
+ * and later, location turned off) the region falls back to a distance check on fixes from the
+ * shared {@link LocationHub} stream, subscribed at background accuracy so it never raises the
+ * request on its own. The app doesn't ask for background location, so callers unwatch their
+ * regions in onStop, otherwise the fallback keeps location running behind a stopped screen.
+ * <p>
+ * Geofence events come to a receiver registered at runtime, which dies with the process. So
+ * geofences expire after {@link #GEOFENCE_EXPIRATION_MS} and are renewed while still watched,
+ * and ones left over from an earlier process are removed when the monitor is created.
+ * <p>
+ * Main thread only, calls from other threads are posted.
+ */
+public class SignificantChangeMonitor {
+    private static final String TAG = "SignificantChangeMonitor";
+
+    private static final String ACTION_GEOFENCE_EVENT = "com.rescuereach.action.GEOFENCE_EVENT";
+    private static final int GEOFENCE_REQUEST_CODE = 7200;
+    // Geofences smaller than this are unreliable on most devices
+    private static final float MIN_RADIUS_METERS = 100f;
+    private static final int RESPONSIVENESS_MS = (int) TimeUnit.SECONDS.toMillis(30);
+    private static final long GEOFENCE_EXPIRATION_MS = TimeUnit.HOURS.toMillis(1);
+    // Well before expiry, so a watched region never goes unwatched
+    private static final long GEOFENCE_RENEW_MS = TimeUnit.MINUTES.toMillis(45);
+
+    /**
+     * Told when the user leaves a watched region. The region is no longer watched after this,
+     * watch it again around the new position.
+     */
+    public interface Listener {
+        /**
+         * @param location Position that triggered the exit, may be null
+         */
+        void onRegionExited(Location location);
+    }
+
+    private static final class Region {
+        final Location centre;
+        final float radiusMeters;
+        final Listener listener;
+        boolean fallback;
+
+        Region(Location centre, float radiusMeters, Listener listener) {
+            this.centre = centre;
+            this.radiusMeters = radiusMeters;
+            this.listener = listener;
+        }
+    }
+
+    private static volatile SignificantChangeMonitor instance;
+
+    private final Context context;
+    private final GeofencingClient geofencingClient;
+    private final LocationHub locationHub;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final Map<String, Region> regions = new HashMap<>();
+    private PendingIntent geofenceIntent;
+    private boolean receiverRegistered;
+    private boolean fallbackSubscribed;
+
+    // Metrics
+    private final AtomicLong geofencesRegistered = new AtomicLong();
+    private final AtomicLong geofenceFailures = new AtomicLong();
+    private final AtomicLong exits = new AtomicLong();
+    private final AtomicLong fallbackChecks = new AtomicLong();
+    private final AtomicLong renewals = new AtomicLong();
+
+    private final Runnable renewRunnable = () -> {
+        for (Map.Entry<String, Region> entry : new HashMap<>(regions).entrySet()) {
+            Region region = entry.getValue();
+            renewals.incrementAndGet();
+            watch(entry.getKey(), region.centre, region.radiusMeters, region.listener);
+        }
+    };
+
+    private final BroadcastReceiver geofenceReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            GeofencingEvent event = GeofencingEvent.fromIntent(intent);
+            if (event == null) {
+                return;
+            }
+            if (event.hasError()) {
+                Log.e(TAG, "Geofencing error " + event.getErrorCode());
+                return;
+            }
+            if (event.getGeofenceTransition() != Geofence.GEOFENCE_TRANSITION_EXIT
+                    || event.getTriggeringGeofences() == null) {
+                return;
+            }
+            for (Geofence geofence : event.getTriggeringGeofences()) {
+                exit(geofence.getRequestId(), event.getTriggeringLocation());
+            }
+        }
+    };
+
+    // Only subscribed while some region has fallen back to distance checks
+    private final LocationHub.Subscriber fallbackSubscriber = new LocationHub.Subscriber() {
+        @Override
+        public void onLocation(Location location) {
+            for (Map.Entry<String, Region> entry : new HashMap<>(regions).entrySet()) {
+                Region region = entry.getValue();
+                if (region.fallback) {
+                    fallbackChecks.incrementAndGet();
+                    if (location.distanceTo(region.centre) > region.radiusMeters) {
+                        exit(entry.getKey(), location);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void onLocationError(String message) {
+            // The regions just won't fire, nothing to tell anyone
+        }
+    };
+
+    private SignificantChangeMonitor(Context context) {
+        this.context = context.getApplicationContext();
+        this.geofencingClient = LocationServices.getGeofencingClient(this.context);
+        this.locationHub = LocationHub.getInstance(this.context);
+
+        // Geofences from an earlier process would fire at a receiver that's gone
+        geofencingClient.removeGeofences(getGeofenceIntent())
+                .addOnFailureListener(e -> Log.w(TAG, "Couldn't remove stale geofences", e));
+    }
+
+    /**
+     * Get the shared monitor
+     * @param context Any context, the application context is used
+     * @return SignificantChangeMonitor instance
+     */
+    public static SignificantChangeMonitor getInstance(Context context) {
+        if (instance == null) {
+            synchronized (SignificantChangeMonitor.class) {
+                if (instance == null) {
+                    instance = new SignificantChangeMonitor(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Watch a region, replacing any region with the same key
+     * @param key Identifies the region, one per caller purpose
+     * @param centre Centre of the region
+     * @param radiusMeters Leaving this radius triggers the listener
+     * @param listener Told on exit
+     */
+    public void watch(String key, Location centre, float radiusMeters, Listener listener) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            Location centreCopy = new Location(centre);
+            mainHandler.post(() -> watch(key, centreCopy, radiusMeters, listener));
+            return;
+        }
+        Region region = new Region(new Location(centre), Math.max(radiusMeters, MIN_RADIUS_METERS), listener);
+        regions.put(key, region);
+        ensureReceiver();
+        scheduleRenewal();
+
+        Geofence geofence = new Geofence.Builder()
+                .setRequestId(key)
+                .setCircularRegion(centre.getLatitude(), centre.getLongitude(), region.radiusMeters)
+                .setExpirationDuration(GEOFENCE_EXPIRATION_MS)
+                .setTransitionTypes(Geofence.GEOFENCE_TRANSITION_EXIT)
+                .setNotificationResponsiveness(RESPONSIVENESS_MS)
+                .build();
+        GeofencingRequest request = new GeofencingRequest.Builder()
+                // The centre is where the user is, so no exit fires at registration
+                .setInitialTrigger(0)
+                .addGeofence(geofence)
+                .build();
+
+        try {
+            // Adding with an existing request ID replaces that geofence
+            geofencingClient.addGeofences(request, getGeofenceIntent())
+                    .addOnSuccessListener(aVoid -> {
+                        geofencesRegistered.incrementAndGet();
+                        if (regions.get(key) == region) {
+                            region.fallback = false;
+                            updateFallbackSubscription();
+                        }
+                    })
+                    .addOnFailureListener(e -> {
+                        Log.e(TAG, "Geofence unavailable for " + key + ", checking distance instead", e);
+                        useFallback(key, region);
+                    });
+        } catch (SecurityException e) {
+            Log.e(TAG, "No location permission for geofences, checking distance instead", e);
+            useFallback(key, region);
+        }
+    }
+
+    /**
+     * Stop watching a region
+     */
+    public void unwatch(String key) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            mainHandler.post(() -> unwatch(key));
+            return;
+        }
+        if (regions.remove(key) != null) {
+            geofencingClient.removeGeofences(Collections.singletonList(key));
+            updateFallbackSubscription();
+            scheduleRenewal();
+        }
+    }
+
+    /**
+     * Registration and trigger counters for diagnostics
+     */
+    public String getStats() {
+        return "regions=" + regions.size() +
+                " geofencesRegistered=" + geofencesRegistered.get() +
+                " geofenceFailures=" + geofenceFailures.get() +
+                " exits=" + exits.get() +
+                " fallbackChecks=" + fallbackChecks.get() +
+                " renewals=" + renewals.get();
+    }
+
+    private void exit(String key, Location location) {
+        Region region = regions.remove(key);
+        if (region == null) {
+            return;
+        }
+        exits.incrementAndGet();
+        if (!region.fallback) {
+            geofencingClient.removeGeofences(Collections.singletonList(key));
+        }
+        updateFallbackSubscription();
+        scheduleRenewal();
+        region.listener.onRegionExited(location);
+    }
+
+    /**
+     * Renew in {@link #GEOFENCE_RENEW_MS} while anything is watched, registering a region
+     * pushes its expiry back too
+     */
+    private void scheduleRenewal() {
+        mainHandler.removeCallbacks(renewRunnable);
+        if (!regions.isEmpty()) {
+            mainHandler.postDelayed(renewRunnable, GEOFENCE_RENEW_MS);
+        }
+    }
+
+    private void useFallback(String key, Region region) {
+        geofenceFailures.incrementAndGet();
+        if (regions.get(key) == region) {
+            region.fallback = true;
+            updateFallbackSubscription();
+        }
+    }
+
+    private void updateFallbackSubscription() {
+        boolean needed = false;
+        for (Region region : regions.values()) {
+            needed |= region.fallback;
+        }
+        if (needed && !fallbackSubscribed) {
+            locationHub.subscribe(fallbackSubscriber, false, true);
+            fallbackSubscribed = true;
+        } else if (!needed && fallbackSubscribed) {
+            locationHub.unsubscribe(fallbackSubscriber);
+            fallbackSubscribed = false;
+        }
+    }
+
+    private void ensureReceiver() {
+        if (!receiverRegistered) {
+            ContextCompat.registerReceiver(context, geofenceReceiver,
+                    new IntentFilter(ACTION_GEOFENCE_EVENT), ContextCompat.RECEIVER_NOT_EXPORTED);
+            receiverRegistered = true;
+        }
+    }
+
+    private PendingIntent getGeofenceIntent() {
+        if (geofenceIntent == null) {
+            Intent intent = new Intent(ACTION_GEOFENCE_EVENT).setPackage(context.getPackageName());
+            // Mutable, Play services fills in the geofencing event
+            geofenceIntent = PendingIntent.getBroadcast(context, GEOFENCE_REQUEST_CODE, intent,
+                    PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_MUTABLE);
+        }
+        return geofenceIntent;
+    }
+}
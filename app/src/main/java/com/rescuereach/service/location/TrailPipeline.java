@@ -0,0 +1,227 @@
+package com.rescuereach.service.location;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decimation, batching and flush scheduling for the emergency location trail, see
+ * {@link LocationTrailUploader} for the rules. The clock, timer and store are passed in, so the
+ * same code runs on the main thread against Firestore in the app and against a simulated clock
+ * and an in-memory store in the pipeline benchmark.
+ * <p>
+ * Not thread safe, the scheduler must run tasks and store callbacks on the calling thread.
+ */
+final class TrailPipeline {
+
+    // Decimation
+    private static final float MIN_DISPLACEMENT_METERS = 10f;
+    private static final float MAX_ACCURACY_THRESHOLD_METERS = 50f;
+    static final long HEARTBEAT_MS = TimeUnit.SECONDS.toMillis(60);
+    static final double SIMPLIFY_TOLERANCE_METERS = 8.0;
+
+    // Flush cadence, also the staleness bound responders see
+    static final long MOVING_FLUSH_MS = TimeUnit.SECONDS.toMillis(30);
+    static final long STATIONARY_FLUSH_MS = TimeUnit.SECONDS.toMillis(60);
+    private static final double IMMEDIATE_FLUSH_DISTANCE_METERS = 150.0;
+    private static final int MAX_POINTS_PER_CHUNK = 60;
+    // Points kept across flushes the store couldn't take, oldest dropped first
+    private static final int MAX_BUFFERED_POINTS = 500;
+
+    /**
+     * Monotonic clock and timer, the main thread Handler in the app
+     */
+    interface Scheduler {
+        long now();
+        void postAt(Runnable task, long atMillis);
+        void cancel(Runnable task);
+    }
+
+    /**
+     * Where flushed batches go. A batch is handed off once the store has queued it durably, in
+     * the app Firestore's persisted write queue, which delivers it in order once online. So the
+     * next chunk never waits for the server, and points don't pile up in memory while offline.
+     */
+    interface Store {
+        interface Callback {
+            /**
+             * @param queued false if the store couldn't take the batch, its points are buffered
+             *               again for the next flush
+             */
+            void onComplete(boolean queued);
+        }
+
+        /**
+         * Write last_known and, if the chunk isn't empty, one trail chunk, atomically
+         * @param owner User the trail belongs to
+         * @param lastKnown Fields for the last_known document
+         * @param chunk Simplified points in time order, may be empty
+         * @param rawCount Points buffered before simplification
+         * @param callback Told once whether the batch was queued, not when it reaches the server
+         */
+        void commit(String owner, Map<String, Object> lastKnown, List<TrailPoint> chunk, int rawCount,
+                    Callback callback);
+    }
+
+    private final Scheduler scheduler;
+    private final Store store;
+
+    private final List<TrailPoint> buffer = new ArrayList<>();
+    private TrailPoint lastKept;
+    private TrailPoint lastUploaded;
+    private Map<String, Object> latestStatus;
+    private String userId;
+    private boolean movedSinceFlush;
+    private boolean flushInFlight;
+    private boolean flushRequested;
+    private long lastFlushAt;
+    private long scheduledFlushAt;
+
+    private final Runnable scheduledFlush = () -> {
+        scheduledFlushAt = 0;
+        flush();
+    };
+
+    // Metrics
+    private final AtomicLong fixesReceived = new AtomicLong();
+    private final AtomicLong fixesDropped = new AtomicLong();
+    private final AtomicLong pointsUploaded = new AtomicLong();
+    private final AtomicLong batchesCommitted = new AtomicLong();
+    private final AtomicLong batchFailures = new AtomicLong();
+
+    TrailPipeline(Scheduler scheduler, Store store) {
+        this.scheduler = scheduler;
+        this.store = store;
+    }
+
+    /**
+     * Add an emergency fix
+     * @param userId Owner of the trail
+     * @param point The fix
+     * @param status Fields for the last_known document, written as-is on the next flush
+     */
+    void addFix(String userId, TrailPoint point, Map<String, Object> status) {
+        fixesReceived.incrementAndGet();
+
+        // A different user's fixes must not end up in this trail
+        if (this.userId != null && !this.userId.equals(userId)) {
+            flush();
+            buffer.clear();
+            lastKept = null;
+            lastUploaded = null;
+        }
+        this.userId = userId;
+        latestStatus = status;
+
+        boolean moved = lastKept == null || point.distanceTo(lastKept) >= displacementThreshold(point);
+        boolean heartbeat = lastKept != null && point.getTime() - lastKept.getTime() >= HEARTBEAT_MS;
+        if (!moved && !heartbeat) {
+            // last_known still gets the newest fix on the next flush
+            fixesDropped.incrementAndGet();
+            scheduleFlush();
+            return;
+        }
+
+        buffer.add(point);
+        lastKept = point;
+        movedSinceFlush |= moved;
+
+        boolean bigJump = lastUploaded == null ||
+                point.distanceTo(lastUploaded) >= IMMEDIATE_FLUSH_DISTANCE_METERS;
+        if (bigJump || buffer.size() >= MAX_POINTS_PER_CHUNK) {
+            flush();
+        } else {
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * Upload everything buffered now
+     */
+    void flush() {
+        cancelScheduledFlush();
+
+        if (userId == null || latestStatus == null) {
+            return;
+        }
+        if (flushInFlight) {
+            // One hand-off at a time, keeps chunks in order
+            flushRequested = true;
+            return;
+        }
+
+        int rawCount = buffer.size();
+        List<TrailPoint> chunk = TrailSimplifier.simplify(buffer, SIMPLIFY_TOLERANCE_METERS);
+        buffer.clear();
+
+        if (!chunk.isEmpty()) {
+            // Jumps are measured from what responders will see once this lands
+            lastUploaded = chunk.get(chunk.size() - 1);
+        }
+        flushInFlight = true;
+        movedSinceFlush = false;
+        lastFlushAt = scheduler.now();
+
+        String owner = userId;
+        store.commit(owner, new HashMap<>(latestStatus), chunk, rawCount, queued -> {
+            if (queued) {
+                batchesCommitted.incrementAndGet();
+                pointsUploaded.addAndGet(chunk.size());
+            } else {
+                batchFailures.incrementAndGet();
+                // Put the points back in front of anything buffered since
+                if (owner.equals(userId)) {
+                    buffer.addAll(0, chunk);
+                    if (buffer.size() > MAX_BUFFERED_POINTS) {
+                        buffer.subList(0, buffer.size() - MAX_BUFFERED_POINTS).clear();
+                    }
+                }
+            }
+
+            flushInFlight = false;
+            if (flushRequested) {
+                flushRequested = false;
+                flush();
+            } else if (!buffer.isEmpty()) {
+                scheduleFlush();
+            }
+        });
+    }
+
+    /**
+     * Write and decimation counters for diagnostics
+     */
+    String getStats() {
+        return "fixesReceived=" + fixesReceived.get() +
+                " fixesDropped=" + fixesDropped.get() +
+                " pointsUploaded=" + pointsUploaded.get() +
+                " batchesCommitted=" + batchesCommitted.get() +
+                " batchFailures=" + batchFailures.get();
+    }
+
+    static float displacementThreshold(TrailPoint point) {
+        // Movement inside the fix's own error circle is mostly noise
+        return Math.max(MIN_DISPLACEMENT_METERS, Math.min(point.getAccuracy(), MAX_ACCURACY_THRESHOLD_METERS));
+    }
+
+    private void scheduleFlush() {
+        long interval = movedSinceFlush ? MOVING_FLUSH_MS : STATIONARY_FLUSH_MS;
+        long dueAt = Math.max(lastFlushAt + interval, scheduler.now());
+
+        // Only ever move a scheduled flush earlier
+        if (scheduledFlushAt != 0 && scheduledFlushAt <= dueAt) {
+            return;
+        }
+        scheduler.cancel(scheduledFlush);
+        scheduledFlushAt = dueAt;
+        scheduler.postAt(scheduledFlush, dueAt);
+    }
+
+    private void cancelScheduledFlush() {
+        scheduler.cancel(scheduledFlush);
+        scheduledFlushAt = 0;
+    }
+}
@@ -0,0 +1,52 @@
+package com.rescuereach.service.location;
+
+/**
+ * One position in a location trail. Plain Java, so trail processing can run in JVM tests.
+ */
+public final class TrailPoint {
+    private static final double EARTH_RADIUS_METERS = 6371008.8;
+
+    private final double latitude;
+    private final double longitude;
+    private final long time;
+    private final float accuracy;
+
+    public TrailPoint(double latitude, double longitude, long time, float accuracy) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.time = time;
+        this.accuracy = accuracy;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    /**
+     * Fix time in epoch milliseconds
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Horizontal accuracy in meters, 0 if unknown
+     */
+    public float getAccuracy() {
+        return accuracy;
+    }
+
+    /**
+     * Distance in meters, equirectangular approximation (good to well under 1% at trail scales)
+     */
+    public double distanceTo(TrailPoint other) {
+        double meanLat = Math.toRadians((latitude + other.latitude) / 2);
+        double dx = Math.toRadians(other.longitude - longitude) * Math.cos(meanLat);
+        double dy = Math.toRadians(other.latitude - latitude);
+        return Math.sqrt(dx * dx + dy * dy) * EARTH_RADIUS_METERS;
+    }
+}
@@ -0,0 +1,90 @@
+package com.rescuereach.service.location;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Douglas-Peucker simplification for location trails. Keeps the first and last point and every
+ * point that deviates from the simplified line by more than the tolerance.
+ */
+public final class TrailSimplifier {
+    private static final double EARTH_RADIUS_METERS = 6371008.8;
+
+    private TrailSimplifier() {
+        // Utility class
+    }
+
+    /**
+     * Simplify a trail
+     * @param points Points in time order
+     * @param toleranceMeters Maximum distance of a dropped point from the simplified line
+     * @return Kept points, in time order
+     */
+    public static List<TrailPoint> simplify(List<TrailPoint> points, double toleranceMeters) {
+        int n = points.size();
+        if (n <= 2) {
+            return new ArrayList<>(points);
+        }
+
+        // Project to a local plane around the first point, in meters
+        double originLat = points.get(0).getLatitude();
+        double originLng = points.get(0).getLongitude();
+        double cosLat = Math.cos(Math.toRadians(originLat));
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = Math.toRadians(points.get(i).getLongitude() - originLng) * cosLat * EARTH_RADIUS_METERS;
+            y[i] = Math.toRadians(points.get(i).getLatitude() - originLat) * EARTH_RADIUS_METERS;
+        }
+
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n - 1] = true;
+
+        // Iterative, so long trails can't overflow the stack
+        ArrayDeque<int[]> ranges = new ArrayDeque<>();
+        ranges.push(new int[]{0, n - 1});
+        while (!ranges.isEmpty()) {
+            int[] range = ranges.pop();
+            int start = range[0];
+            int end = range[1];
+
+            double maxDistance = 0;
+            int farthest = -1;
+            for (int i = start + 1; i < end; i++) {
+                double distance = distanceToSegment(x[i], y[i], x[start], y[start], x[end], y[end]);
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    farthest = i;
+                }
+            }
+
+            if (farthest >= 0 && maxDistance > toleranceMeters) {
+                keep[farthest] = true;
+                ranges.push(new int[]{start, farthest});
+                ranges.push(new int[]{farthest, end});
+            }
+        }
+
+        List<TrailPoint> result = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (keep[i]) {
+                result.add(points.get(i));
+            }
+        }
+        return result;
+    }
+
+    private static double distanceToSegment(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        if (lengthSquared == 0) {
+            return Math.hypot(px - ax, py - ay);
+        }
+        double t = ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        return Math.hypot(px - (ax + t * dx), py - (ay + t * dy));
+    }
+}
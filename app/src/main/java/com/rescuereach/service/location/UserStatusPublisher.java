@@ -0,0 +1,128 @@
+package com.rescuereach.service.location;
+
+import com.google.firebase.firestore.GeoPoint;
+import com.rescuereach.util.GeoHash;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps each user's user_status document current from the regular location uploads, so
+ * radius queries for nearby volunteers see everyone who is sharing their location, not only
+ * users in an SOS. A fix is written when the user moved, when the document would otherwise
+ * go stale, or when something other than the position changed. Fixes in between are skipped,
+ * the stream delivers far more of them than a status needs.
+ * <p>
+ * Not thread safe, the app calls it from the main thread only.
+ */
+public final class UserStatusPublisher {
+
+    public static final String FIELD_LOCATION = "lastLocation";
+    public static final String FIELD_GEOHASH = "geohash";
+    public static final String FIELD_LAST_SEEN = "lastSeen";
+
+    // Well inside the 30 minute window nearby volunteer queries accept
+    static final long REFRESH_MS = TimeUnit.MINUTES.toMillis(5);
+    static final double MIN_MOVE_METERS = 50.0;
+
+    /**
+     * Where status documents go, user_status/{userId} in the app
+     */
+    public interface Store {
+        void write(String userId, Map<String, Object> status);
+    }
+
+    private final Store store;
+
+    private String lastUserId;
+    private TrailPoint lastWritten;
+    private boolean lastVolunteer;
+
+    // Metrics
+    private final AtomicLong fixes = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+
+    public UserStatusPublisher(Store store) {
+        this.store = store;
+    }
+
+    /**
+     * Offer a fix that was just uploaded
+     * @param userId Owner, the same ID the security rules check
+     * @param force Write even if the last status is recent and close, e.g. at the start of an SOS
+     * @return true if the status was written
+     */
+    public boolean onFix(String userId, double latitude, double longitude, boolean volunteer,
+                         long nowMillis, boolean force) {
+        fixes.incrementAndGet();
+        if (userId == null || userId.isEmpty()) {
+            return false;
+        }
+
+        TrailPoint point = new TrailPoint(latitude, longitude, nowMillis, 0);
+        boolean due = force || !userId.equals(lastUserId) || lastWritten == null ||
+                volunteer != lastVolunteer ||
+                nowMillis - lastWritten.getTime() >= REFRESH_MS ||
+                point.distanceTo(lastWritten) >= MIN_MOVE_METERS;
+        if (!due) {
+            return false;
+        }
+
+        lastUserId = userId;
+        lastWritten = point;
+        lastVolunteer = volunteer;
+        writes.incrementAndGet();
+        store.write(userId, buildStatus(userId, latitude, longitude, volunteer, nowMillis));
+        return true;
+    }
+
+    /**
+     * The signed-in user's volunteer flag changed. Rewrites their last status with it, so
+     * nearby volunteer queries see the change before the next fix. Keeps the last fix's time.
+     * @return true if the status was written
+     */
+    public boolean onVolunteerChanged(boolean volunteer) {
+        if (lastUserId == null || lastWritten == null || volunteer == lastVolunteer) {
+            return false;
+        }
+
+        lastVolunteer = volunteer;
+        writes.incrementAndGet();
+        store.write(lastUserId, buildStatus(lastUserId, lastWritten.getLatitude(),
+                lastWritten.getLongitude(), volunteer, lastWritten.getTime()));
+        return true;
+    }
+
+    /**
+     * The user signed out, nothing is rewritten for them until the next fix
+     */
+    public void onSignedOut() {
+        lastUserId = null;
+        lastWritten = null;
+    }
+
+    /**
+     * Write counters for diagnostics
+     */
+    public String getStats() {
+        return "fixes=" + fixes.get() + " writes=" + writes.get();
+    }
+
+    /**
+     * The user_status document for a position
+     */
+    static Map<String, Object> buildStatus(String userId, double latitude, double longitude,
+                                           boolean volunteer, long nowMillis) {
+        Map<String, Object> status = new HashMap<>();
+        status.put(FIELD_LAST_SEEN, nowMillis);
+        status.put("isOnline", true);
+        status.put(FIELD_LOCATION, new GeoPoint(latitude, longitude));
+        // Lets responders find nearby users with a few prefix range scans
+        status.put(FIELD_GEOHASH, GeoHash.encode(latitude, longitude, GeoHash.QUERY_PRECISION));
+        status.put("isVolunteer", volunteer);
+        status.put("userId", userId); // CRITICAL: Include userId for security rules
+        return status;
+    }
+}
@@ -24,6 +24,9 @@ import com.onesignal.OneSignal.OSNotificationWillShowInForegroundHandler;
 import com.onesignal.OSInAppMessageAction;
 import com.onesignal.OneSignal.OSInAppMessageClickHandler;
 import com.rescuereach.R;
+import com.rescuereach.service.auth.SessionSnapshot;
+import com.rescuereach.service.auth.UserSessionManager;
+import com.rescuereach.util.AppExecutors;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -33,7 +36,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -70,7 +72,8 @@ public class NotificationService {
     private NotificationService(Context context) {
         this.context = context.getApplicationContext();
         this.mainHandler = new Handler(Looper.getMainLooper());
-        this.backgroundExecutor = Executors.newSingleThreadExecutor();
+        // Serial so tag updates reach OneSignal in the order they were made
+        this.backgroundExecutor = AppExecutors.getInstance().newSerialExecutor(AppExecutors.Lane.IO);
     }
 
     /**
@@ -126,6 +129,9 @@ public class NotificationService {
                 }
             });
 
+            // Keep the targeting tags in step with the session, and drop them on sign-out
+            UserSessionManager.getInstance(context).addSessionListener(this::onSessionChanged);
+
             // Create notification channels for testing
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
                 createTestNotificationChannel();
@@ -228,6 +234,28 @@ public class NotificationService {
         }
     }
 
+    /**
+     * Push what changed in the session to OneSignal, on the main thread
+     */
+    private void onSessionChanged(SessionSnapshot previous, SessionSnapshot current) {
+        if (current.getPhoneNumber() == null) {
+            if (previous.getPhoneNumber() != null) {
+                clearNotificationData();
+            }
+            return;
+        }
+
+        if (!current.getPhoneNumber().equals(previous.getPhoneNumber())) {
+            setUserIdentifier(current.getPhoneNumber());
+        }
+        if (current.isVolunteer() != previous.isVolunteer()) {
+            setUserAsVolunteer(current.isVolunteer());
+        }
+        if (!current.getState().equals(previous.getState())) {
+            setUserRegion(current.getState());
+        }
+    }
+
     /**
      * Set user identifier to link device with user account
      * @param phoneNumber User's phone number
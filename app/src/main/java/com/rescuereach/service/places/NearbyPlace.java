@@ -0,0 +1,79 @@
+package com.rescuereach.service.places;
+
+import android.location.Location;
+
+import com.google.android.gms.maps.model.LatLng;
+
+/**
+ * An emergency service place returned by {@link PlacesQueryEngine}. Immutable, so cached
+ * instances can be handed to several callers.
+ */
+public final class NearbyPlace {
+    private final String placeId;
+    private final String name;
+    private final String placeType;
+    private final double latitude;
+    private final double longitude;
+    private final String address;
+    private final String phoneNumber;
+
+    NearbyPlace(String placeId, String name, String placeType, double latitude, double longitude,
+                String address, String phoneNumber) {
+        this.placeId = placeId;
+        this.name = name;
+        this.placeType = placeType;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.address = address;
+        this.phoneNumber = phoneNumber;
+    }
+
+    public String getPlaceId() {
+        return placeId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Places type this place was found for ("hospital", "police" or "fire_station")
+     */
+    public String getPlaceType() {
+        return placeType;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public LatLng getLatLng() {
+        return new LatLng(latitude, longitude);
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    /**
+     * Distance in meters from a point
+     */
+    public float distanceTo(double fromLatitude, double fromLongitude) {
+        float[] results = new float[1];
+        Location.distanceBetween(fromLatitude, fromLongitude, latitude, longitude, results);
+        return results[0];
+    }
+
+    NearbyPlace withType(String type) {
+        return type.equals(placeType) ? this :
+                new NearbyPlace(placeId, name, type, latitude, longitude, address, phoneNumber);
+    }
+}
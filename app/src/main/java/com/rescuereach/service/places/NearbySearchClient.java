@@ -0,0 +1,249 @@
+package com.rescuereach.service.places;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Blocking client for the Places Nearby Search web service. Responses are parsed as a
+ * stream, so a full page of results is never held as a JSON tree.
+ * Plain Java, so it can be tested against a local server.
+ */
+class NearbySearchClient {
+
+    static final HttpUrl DEFAULT_ENDPOINT =
+            HttpUrl.get("https://maps.googleapis.com/maps/api/place/nearbysearch/json");
+
+    static final String STATUS_OK = "OK";
+    static final String STATUS_ZERO_RESULTS = "ZERO_RESULTS";
+    static final String STATUS_INVALID_REQUEST = "INVALID_REQUEST";
+
+    private static final String BUSINESS_CLOSED_PERMANENTLY = "CLOSED_PERMANENTLY";
+
+    private final OkHttpClient httpClient;
+    private final HttpUrl endpoint;
+    private final String apiKey;
+
+    NearbySearchClient(OkHttpClient httpClient, HttpUrl endpoint, String apiKey) {
+        this.httpClient = httpClient;
+        this.endpoint = endpoint;
+        this.apiKey = apiKey;
+    }
+
+    /**
+     * Fetch the first page of places around a point
+     * @param placeType Places type the results are tagged with
+     * @param keyword Search keyword, or null to filter on the type only
+     */
+    Page fetchFirstPage(double latitude, double longitude, int radiusMeters,
+                        String placeType, String keyword) throws IOException {
+        HttpUrl.Builder url = endpoint.newBuilder()
+                .addQueryParameter("location", latitude + "," + longitude)
+                .addQueryParameter("radius", String.valueOf(radiusMeters))
+                .addQueryParameter("key", apiKey);
+        if (keyword != null) {
+            url.addQueryParameter("keyword", keyword);
+        } else {
+            url.addQueryParameter("type", placeType);
+        }
+        return fetch(url.build(), placeType);
+    }
+
+    /**
+     * Fetch a following page. The service rejects a new token with INVALID_REQUEST
+     * for a short while after it is issued.
+     */
+    Page fetchNextPage(String pageToken, String placeType) throws IOException {
+        HttpUrl url = endpoint.newBuilder()
+                .addQueryParameter("pagetoken", pageToken)
+                .addQueryParameter("key", apiKey)
+                .build();
+        return fetch(url, placeType);
+    }
+
+    private Page fetch(HttpUrl url, String placeType) throws IOException {
+        Request request = new Request.Builder().url(url).get().build();
+        try (Response response = httpClient.newCall(request).execute()) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                throw new IOException("Nearby search HTTP " + response.code());
+            }
+            try (JsonReader reader = new JsonReader(body.charStream())) {
+                return readPage(reader, placeType);
+            } catch (IllegalStateException e) {
+                // JsonReader reports unexpected structure this way
+                throw new IOException("Malformed nearby search response", e);
+            }
+        }
+    }
+
+    private Page readPage(JsonReader reader, String placeType) throws IOException {
+        String status = null;
+        String errorMessage = null;
+        String nextPageToken = null;
+        List<NearbyPlace> places = new ArrayList<>();
+        int skipped = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "status":
+                    status = reader.nextString();
+                    break;
+                case "error_message":
+                    errorMessage = reader.nextString();
+                    break;
+                case "next_page_token":
+                    nextPageToken = reader.nextString();
+                    break;
+                case "results":
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        NearbyPlace place = readPlace(reader, placeType);
+                        if (place != null) {
+                            places.add(place);
+                        } else {
+                            skipped++;
+                        }
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (STATUS_ZERO_RESULTS.equals(status)) {
+            return new Page(Collections.emptyList(), null, 0);
+        }
+        if (!STATUS_OK.equals(status)) {
+            throw new NearbySearchException(status, errorMessage);
+        }
+        return new Page(places, nextPageToken, skipped);
+    }
+
+    /**
+     * Read one result, or null if it has no ID or location or is permanently closed
+     */
+    private NearbyPlace readPlace(JsonReader reader, String placeType) throws IOException {
+        String placeId = null;
+        String name = null;
+        String address = null;
+        String businessStatus = null;
+        double[] location = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "place_id":
+                    placeId = reader.nextString();
+                    break;
+                case "name":
+                    name = reader.nextString();
+                    break;
+                case "vicinity":
+                    address = reader.nextString();
+                    break;
+                case "formatted_address":
+                    if (address == null) {
+                        address = reader.nextString();
+                    } else {
+                        reader.skipValue();
+                    }
+                    break;
+                case "business_status":
+                    businessStatus = reader.nextString();
+                    break;
+                case "geometry":
+                    location = readGeometryLocation(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (placeId == null || location == null || BUSINESS_CLOSED_PERMANENTLY.equals(businessStatus)) {
+            return null;
+        }
+        // Nearby Search has no phone numbers, that needs a details request per place
+        return new NearbyPlace(placeId, name, placeType, location[0], location[1], address, null);
+    }
+
+    private double[] readGeometryLocation(JsonReader reader) throws IOException {
+        double[] location = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!"location".equals(reader.nextName())) {
+                reader.skipValue();
+                continue;
+            }
+            Double lat = null;
+            Double lng = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String field = reader.nextName();
+                if ("lat".equals(field) && reader.peek() == JsonToken.NUMBER) {
+                    lat = reader.nextDouble();
+                } else if ("lng".equals(field) && reader.peek() == JsonToken.NUMBER) {
+                    lng = reader.nextDouble();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            if (lat != null && lng != null) {
+                location = new double[]{lat, lng};
+            }
+        }
+        reader.endObject();
+        return location;
+    }
+
+    /**
+     * One page of results
+     */
+    static final class Page {
+        final List<NearbyPlace> places;
+        // null on the last page
+        final String nextPageToken;
+        // Results dropped for missing data or permanent closure
+        final int skipped;
+
+        Page(List<NearbyPlace> places, String nextPageToken, int skipped) {
+            this.places = places;
+            this.nextPageToken = nextPageToken;
+            this.skipped = skipped;
+        }
+    }
+
+    /**
+     * The service answered with an error status such as OVER_QUERY_LIMIT or REQUEST_DENIED
+     */
+    static class NearbySearchException extends IOException {
+        private final String status;
+
+        NearbySearchException(String status, String errorMessage) {
+            super("Nearby search status " + status +
+                    (errorMessage != null ? ": " + errorMessage : ""));
+            this.status = status;
+        }
+
+        String getStatus() {
+            return status;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.rescuereach.service.places;
+
+import com.google.android.gms.tasks.Task;
+
+import java.util.List;
+
+/**
+ * Source of nearby places for {@link PlacesQueryEngine}. The engine owns caching, coalescing
+ * and the request budget; a backend only turns one query into places.
+ * Backends are called on the main thread and every network request must go through the
+ * {@link RequestGate} so it is throttled and counted.
+ */
+interface PlacesBackend {
+
+    /**
+     * Short name used in cache keys and stats
+     */
+    String getName();
+
+    /**
+     * Find places for a query
+     * @param query Search around a cell center
+     * @param gate Runs each network request within the engine's budget
+     * @return Places found, in any order
+     */
+    Task<Result> search(Query query, RequestGate gate);
+
+    /**
+     * Backend specific counters for diagnostics
+     */
+    String getStats();
+
+    /**
+     * One network request, started when the budget allows
+     */
+    interface Request<T> {
+        Task<T> start();
+    }
+
+    interface RequestGate {
+        <T> Task<T> run(Request<T> request);
+    }
+
+    final class Query {
+        final String placeType;
+        final double centerLatitude;
+        final double centerLongitude;
+        // Radius the caller asked for
+        final int radiusMeters;
+        // Radius that covers the caller's whole cell
+        final double searchRadius;
+        final int maxResults;
+        final boolean urgent;
+
+        Query(String placeType, double centerLatitude, double centerLongitude, int radiusMeters,
+              double searchRadius, int maxResults, boolean urgent) {
+            this.placeType = placeType;
+            this.centerLatitude = centerLatitude;
+            this.centerLongitude = centerLongitude;
+            this.radiusMeters = radiusMeters;
+            this.searchRadius = searchRadius;
+            this.maxResults = maxResults;
+            this.urgent = urgent;
+        }
+    }
+
+    final class Result {
+        final List<NearbyPlace> places;
+        // false if some requests failed, so the result should not be cached
+        final boolean complete;
+
+        Result(List<NearbyPlace> places, boolean complete) {
+            this.places = places;
+            this.complete = complete;
+        }
+    }
+}
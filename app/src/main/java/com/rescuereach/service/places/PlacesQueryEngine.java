@@ -0,0 +1,358 @@
+package com.rescuereach.service.places;
+
+import android.content.Context;
+import android.location.Location;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.LruCache;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.android.libraries.places.api.Places;
+import com.rescuereach.R;
+import com.rescuereach.util.GeoHash;
+import com.rescuereach.util.SharedHttpClient;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single entry point for "emergency services near me" lookups.
+ * <ul>
+ * <li>Results are cached per (type, geohash cell, radius) for an hour, so map refreshes
+ * near the same spot cost nothing.</li>
+ * <li>Identical queries that are already running are joined instead of repeated.</li>
+ * <li>Queries are answered by a {@link PlacesBackend}: the Places SDK (default) or the
+ * Nearby Search web service. Requests per search and latency are tracked per backend so
+ * the two can be compared.</li>
+ * <li>Every Places request goes through one app-wide QPS budget. Urgent (SOS) queries jump
+ * the queue.</li>
+ * </ul>
+ * Results cover the whole cell, callers filter by exact distance from their own position.
+ */
+public final class PlacesQueryEngine {
+    private static final String TAG = "PlacesQueryEngine";
+
+    public static final String TYPE_HOSPITAL = "hospital";
+    public static final String TYPE_POLICE = "police";
+    public static final String TYPE_FIRE_STATION = "fire_station";
+
+    public static final String BACKEND_SDK = SdkPlacesBackend.NAME;
+    public static final String BACKEND_WEB_SERVICE = WebServicePlacesBackend.NAME;
+
+    // Query results per cell, enough for every caller's result limit
+    private static final int RESULTS_PER_QUERY = 10;
+
+    private static final long RESULT_TTL = TimeUnit.HOURS.toMillis(1);
+    private static final int RESULT_CACHE_SIZE = 32;
+
+    // Global Places budget: sustained calls per second and burst size
+    private static final double MAX_CALLS_PER_SECOND = 5;
+    private static final int MAX_BURST = 8;
+
+    private static volatile PlacesQueryEngine instance;
+
+    private final Map<String, PlacesBackend> backends = new LinkedHashMap<>();
+    private final Map<String, BackendStats> backendStats = new HashMap<>();
+    private volatile PlacesBackend activeBackend;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // The maps below are only touched on the main thread
+    private final LruCache<String, CachedResult> resultCache = new LruCache<>(RESULT_CACHE_SIZE);
+    private final Map<String, Task<List<NearbyPlace>>> inFlight = new HashMap<>();
+
+    // Token bucket for the QPS budget
+    private final ArrayDeque<Runnable> pendingCalls = new ArrayDeque<>();
+    private double tokens = MAX_BURST;
+    private long lastRefill = SystemClock.elapsedRealtime();
+    private boolean drainScheduled;
+
+    // Metrics
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong throttledCalls = new AtomicLong();
+
+    private PlacesQueryEngine(Context context) {
+        String apiKey = context.getString(R.string.google_maps_key);
+        if (!Places.isInitialized()) {
+            Places.initialize(context, apiKey);
+        }
+        addBackend(new SdkPlacesBackend(Places.createClient(context)));
+        addBackend(new WebServicePlacesBackend(new NearbySearchClient(
+                SharedHttpClient.get(context), NearbySearchClient.DEFAULT_ENDPOINT, apiKey)));
+        this.activeBackend = backends.get(BACKEND_SDK);
+    }
+
+    /**
+     * Get the shared engine
+     * @param context Any context, the application context is used
+     * @return PlacesQueryEngine instance
+     */
+    public static PlacesQueryEngine getInstance(Context context) {
+        if (instance == null) {
+            synchronized (PlacesQueryEngine.class) {
+                if (instance == null) {
+                    instance = new PlacesQueryEngine(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Find emergency service places of one type around a point.
+     * May be called from any thread, the task completes on the main thread.
+     * @param placeType TYPE_HOSPITAL, TYPE_POLICE or TYPE_FIRE_STATION
+     * @param latitude Caller's latitude
+     * @param longitude Caller's longitude
+     * @param radiusMeters Search radius
+     * @param urgent true for SOS lookups, which go ahead of other queued Places calls
+     * @return Places around the caller's cell, nearest to the cell center first. Filter by
+     *         {@link NearbyPlace#distanceTo} for the exact radius.
+     */
+    public Task<List<NearbyPlace>> searchNearby(String placeType, double latitude, double longitude,
+                                               int radiusMeters, boolean urgent) {
+        TaskCompletionSource<List<NearbyPlace>> result = new TaskCompletionSource<>();
+        runOnMainThread(() -> startOrJoin(placeType, latitude, longitude, radiusMeters, urgent)
+                .addOnCompleteListener(task -> {
+                    if (task.isSuccessful()) {
+                        result.setResult(task.getResult());
+                    } else {
+                        result.setException(task.getException() != null ? task.getException() :
+                                new IllegalStateException("Places query failed"));
+                    }
+                }));
+        return result.getTask();
+    }
+
+    /**
+     * Choose the backend for new queries. Cached results are kept per backend.
+     * @param name BACKEND_SDK or BACKEND_WEB_SERVICE
+     */
+    public void setBackend(String name) {
+        PlacesBackend backend = backends.get(name);
+        if (backend == null) {
+            throw new IllegalArgumentException("Unknown Places backend: " + name);
+        }
+        activeBackend = backend;
+        Log.d(TAG, "Places backend set to " + name);
+    }
+
+    public String getBackend() {
+        return activeBackend.getName();
+    }
+
+    /**
+     * Query and cache counters, plus requests per search and latency for each backend
+     */
+    public String getStats() {
+        StringBuilder stats = new StringBuilder()
+                .append("queries=").append(queries.get())
+                .append(" cacheHits=").append(cacheHits.get())
+                .append(" coalesced=").append(coalesced.get())
+                .append(" throttledCalls=").append(throttledCalls.get());
+        for (PlacesBackend backend : backends.values()) {
+            stats.append(' ').append(backend.getName()).append('[')
+                    .append(backendStats.get(backend.getName()))
+                    .append(' ').append(backend.getStats()).append(']');
+        }
+        return stats.toString();
+    }
+
+    private void addBackend(PlacesBackend backend) {
+        backends.put(backend.getName(), backend);
+        backendStats.put(backend.getName(), new BackendStats());
+    }
+
+    private Task<List<NearbyPlace>> startOrJoin(String placeType, double latitude, double longitude,
+                                                int radiusMeters, boolean urgent) {
+        queries.incrementAndGet();
+        PlacesBackend backend = activeBackend;
+
+        // Coarser cells for wider searches, so the cell stays small relative to the radius
+        String cell = GeoHash.encode(latitude, longitude, radiusMeters <= 2000 ? 7 : 6);
+        String key = backend.getName() + ":" + placeType + ":" + cell + ":" + radiusMeters;
+
+        CachedResult cached = resultCache.get(key);
+        if (cached != null && SystemClock.elapsedRealtime() - cached.storedAt < RESULT_TTL) {
+            cacheHits.incrementAndGet();
+            return Tasks.forResult(cached.places);
+        }
+
+        Task<List<NearbyPlace>> running = inFlight.get(key);
+        if (running != null) {
+            coalesced.incrementAndGet();
+            return running;
+        }
+
+        Task<List<NearbyPlace>> task = executeQuery(key, backend, placeType, cell, radiusMeters, urgent);
+        inFlight.put(key, task);
+        task.addOnCompleteListener(done -> inFlight.remove(key));
+        return task;
+    }
+
+    private Task<List<NearbyPlace>> executeQuery(String key, PlacesBackend backend, String placeType,
+                                                 String cell, int radiusMeters, boolean urgent) {
+        // Search around the cell center, widened so the result is valid anywhere in the cell
+        double[] bounds = GeoHash.decodeBounds(cell);
+        double centerLat = (bounds[0] + bounds[2]) / 2;
+        double centerLng = (bounds[1] + bounds[3]) / 2;
+        float[] halfDiagonal = new float[1];
+        Location.distanceBetween(centerLat, centerLng, bounds[2], bounds[3], halfDiagonal);
+        double searchRadius = radiusMeters + halfDiagonal[0];
+
+        PlacesBackend.Query query = new PlacesBackend.Query(placeType, centerLat, centerLng,
+                radiusMeters, searchRadius, RESULTS_PER_QUERY, urgent);
+        BackendStats stats = backendStats.get(backend.getName());
+        int[] requests = new int[1];
+        long startedAt = SystemClock.elapsedRealtime();
+
+        PlacesBackend.RequestGate gate = new PlacesBackend.RequestGate() {
+            @Override
+            public <T> Task<T> run(PlacesBackend.Request<T> request) {
+                requests[0]++;
+                return throttled(urgent, request);
+            }
+        };
+
+        return backend.search(query, gate).continueWith(task -> {
+            long latencyMs = SystemClock.elapsedRealtime() - startedAt;
+            stats.record(requests[0], latencyMs, task.isSuccessful());
+
+            if (!task.isSuccessful()) {
+                Log.e(TAG, "Places query " + key + " failed", task.getException());
+                throw task.getException() != null ? task.getException() :
+                        new IllegalStateException("Places search failed");
+            }
+
+            PlacesBackend.Result found = task.getResult();
+            List<NearbyPlace> places = new ArrayList<>();
+            for (NearbyPlace place : found.places) {
+                if (place.distanceTo(centerLat, centerLng) <= searchRadius) {
+                    places.add(place);
+                }
+            }
+            Collections.sort(places, (a, b) -> Float.compare(
+                    a.distanceTo(centerLat, centerLng), b.distanceTo(centerLat, centerLng)));
+            if (places.size() > RESULTS_PER_QUERY) {
+                places = new ArrayList<>(places.subList(0, RESULTS_PER_QUERY));
+            }
+            places = Collections.unmodifiableList(places);
+
+            // Partial results would hide places for a whole TTL, don't cache them
+            if (found.complete) {
+                resultCache.put(key, new CachedResult(places));
+            }
+            Log.d(TAG, "Places query " + key + ": " + places.size() + " places, " + requests[0] +
+                    " requests, " + latencyMs + " ms (" + getStats() + ")");
+            return places;
+        });
+    }
+
+    /**
+     * Run a Places call within the QPS budget, queueing it if the budget is used up
+     */
+    private <T> Task<T> throttled(boolean urgent, PlacesBackend.Request<T> request) {
+        TaskCompletionSource<T> result = new TaskCompletionSource<>();
+        Runnable start = () -> request.start().addOnCompleteListener(task -> {
+            if (task.isSuccessful()) {
+                result.setResult(task.getResult());
+            } else {
+                result.setException(task.getException() != null ? task.getException() :
+                        new IllegalStateException("Places call failed"));
+            }
+        });
+
+        if (urgent) {
+            pendingCalls.addFirst(start);
+        } else {
+            pendingCalls.addLast(start);
+        }
+        drainPendingCalls();
+        if (pendingCalls.contains(start)) {
+            throttledCalls.incrementAndGet();
+        }
+        return result.getTask();
+    }
+
+    private void drainPendingCalls() {
+        long now = SystemClock.elapsedRealtime();
+        tokens = Math.min(MAX_BURST, tokens + (now - lastRefill) * MAX_CALLS_PER_SECOND / 1000.0);
+        lastRefill = now;
+
+        while (tokens >= 1 && !pendingCalls.isEmpty()) {
+            tokens -= 1;
+            pendingCalls.pollFirst().run();
+        }
+
+        if (!pendingCalls.isEmpty() && !drainScheduled) {
+            long waitMs = (long) Math.ceil((1 - tokens) * 1000.0 / MAX_CALLS_PER_SECOND);
+            drainScheduled = true;
+            mainHandler.postDelayed(() -> {
+                drainScheduled = false;
+                drainPendingCalls();
+            }, Math.max(waitMs, 1));
+        }
+    }
+
+    private void runOnMainThread(Runnable runnable) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            runnable.run();
+        } else {
+            mainHandler.post(runnable);
+        }
+    }
+
+    private static class CachedResult {
+        final List<NearbyPlace> places;
+        final long storedAt = SystemClock.elapsedRealtime();
+
+        CachedResult(List<NearbyPlace> places) {
+            this.places = places;
+        }
+    }
+
+    /**
+     * Per backend counters. Failed searches count towards requests and latency too.
+     */
+    private static class BackendStats {
+        final AtomicLong searches = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong requests = new AtomicLong();
+        final AtomicLong totalLatencyMs = new AtomicLong();
+        final AtomicLong maxLatencyMs = new AtomicLong();
+
+        void record(int requestCount, long latencyMs, boolean success) {
+            searches.incrementAndGet();
+            if (!success) {
+                failures.incrementAndGet();
+            }
+            requests.addAndGet(requestCount);
+            totalLatencyMs.addAndGet(latencyMs);
+            maxLatencyMs.accumulateAndGet(latencyMs, Math::max);
+        }
+
+        @Override
+        public String toString() {
+            long count = searches.get();
+            return "searches=" + count +
+                    " failures=" + failures.get() +
+                    " requestsPerSearch=" + (count > 0 ? String.format(Locale.US, "%.1f",
+                    requests.get() / (double) count) : "0") +
+                    " avgLatencyMs=" + (count > 0 ? totalLatencyMs.get() / count : 0) +
+                    " maxLatencyMs=" + maxLatencyMs.get();
+        }
+    }
+}
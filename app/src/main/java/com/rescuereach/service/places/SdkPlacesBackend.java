@@ -0,0 +1,226 @@
+package com.rescuereach.service.places;
+
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.LruCache;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.android.libraries.places.api.model.AutocompletePrediction;
+import com.google.android.libraries.places.api.model.Place;
+import com.google.android.libraries.places.api.model.RectangularBounds;
+import com.google.android.libraries.places.api.net.FetchPlaceRequest;
+import com.google.android.libraries.places.api.net.FetchPlaceResponse;
+import com.google.android.libraries.places.api.net.FindAutocompletePredictionsRequest;
+import com.google.android.libraries.places.api.net.FindAutocompletePredictionsResponse;
+import com.google.android.libraries.places.api.net.PlacesClient;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Places SDK backend: one autocomplete search per keyword, then a details fetch for each
+ * distinct place. Details are cached per place ID across queries.
+ */
+class SdkPlacesBackend implements PlacesBackend {
+    private static final String TAG = "SdkPlacesBackend";
+
+    static final String NAME = "sdk";
+
+    private static final int EXPANDED_KEYWORDS_RADIUS = 5000;
+
+    private static final long DETAILS_TTL = TimeUnit.HOURS.toMillis(24);
+    private static final int DETAILS_CACHE_SIZE = 200;
+
+    private static final List<Place.Field> PLACE_FIELDS = Arrays.asList(
+            Place.Field.ID, Place.Field.NAME, Place.Field.LAT_LNG,
+            Place.Field.ADDRESS, Place.Field.PHONE_NUMBER);
+
+    private static final Map<String, List<String>> KEYWORDS = new HashMap<>();
+    private static final Map<String, List<String>> EXPANDED_KEYWORDS = new HashMap<>();
+
+    static {
+        KEYWORDS.put(PlacesQueryEngine.TYPE_HOSPITAL, Arrays.asList(
+                "hospital", "emergency room", "medical center", "trauma center"));
+        KEYWORDS.put(PlacesQueryEngine.TYPE_POLICE, Arrays.asList(
+                "police station", "police department", "law enforcement"));
+        KEYWORDS.put(PlacesQueryEngine.TYPE_FIRE_STATION, Arrays.asList(
+                "fire station", "fire department", "fire and rescue"));
+
+        // Wider searches need broader terms to find enough places
+        EXPANDED_KEYWORDS.put(PlacesQueryEngine.TYPE_HOSPITAL,
+                Arrays.asList("clinic", "emergency", "urgent care"));
+        EXPANDED_KEYWORDS.put(PlacesQueryEngine.TYPE_POLICE,
+                Arrays.asList("sheriff", "security"));
+        EXPANDED_KEYWORDS.put(PlacesQueryEngine.TYPE_FIRE_STATION,
+                Arrays.asList("emergency services", "rescue"));
+    }
+
+    private final PlacesClient placesClient;
+
+    // Only touched on the main thread
+    private final LruCache<String, CachedDetails> detailsCache = new LruCache<>(DETAILS_CACHE_SIZE);
+
+    // Metrics
+    private final AtomicLong autocompleteCalls = new AtomicLong();
+    private final AtomicLong detailCalls = new AtomicLong();
+    private final AtomicLong detailCacheHits = new AtomicLong();
+    private final AtomicLong detailFailures = new AtomicLong();
+
+    SdkPlacesBackend(PlacesClient placesClient) {
+        this.placesClient = placesClient;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Task<Result> search(Query query, RequestGate gate) {
+        LatLng center = new LatLng(query.centerLatitude, query.centerLongitude);
+        double latDelta = query.searchRadius / 111000.0;
+        double lngDelta = latDelta / Math.cos(Math.toRadians(query.centerLatitude));
+        RectangularBounds searchBounds = RectangularBounds.newInstance(
+                new LatLng(query.centerLatitude - latDelta, query.centerLongitude - lngDelta),
+                new LatLng(query.centerLatitude + latDelta, query.centerLongitude + lngDelta));
+
+        List<String> keywords = new ArrayList<>();
+        if (KEYWORDS.containsKey(query.placeType)) {
+            keywords.addAll(KEYWORDS.get(query.placeType));
+        } else {
+            keywords.add(query.placeType.replace('_', ' '));
+        }
+        if (query.radiusMeters >= EXPANDED_KEYWORDS_RADIUS && EXPANDED_KEYWORDS.containsKey(query.placeType)) {
+            keywords.addAll(EXPANDED_KEYWORDS.get(query.placeType));
+        }
+
+        List<Task<FindAutocompletePredictionsResponse>> searches = new ArrayList<>();
+        for (String keyword : keywords) {
+            FindAutocompletePredictionsRequest request = FindAutocompletePredictionsRequest.builder()
+                    .setLocationBias(searchBounds)
+                    .setOrigin(center)
+                    .setQuery(keyword)
+                    .build();
+            searches.add(gate.run(() -> {
+                autocompleteCalls.incrementAndGet();
+                return placesClient.findAutocompletePredictions(request);
+            }));
+        }
+
+        return Tasks.whenAllComplete(searches).continueWithTask(all -> {
+            // Merge keywords, keeping the shortest reported distance per place
+            Map<String, Integer> candidates = new LinkedHashMap<>();
+            int failures = 0;
+            Exception lastError = null;
+            for (Task<FindAutocompletePredictionsResponse> search : searches) {
+                if (!search.isSuccessful()) {
+                    failures++;
+                    lastError = search.getException();
+                    continue;
+                }
+                for (AutocompletePrediction prediction : search.getResult().getAutocompletePredictions()) {
+                    Integer distance = prediction.getDistanceMeters();
+                    if (distance != null && distance > query.searchRadius) {
+                        continue;
+                    }
+                    Integer known = candidates.get(prediction.getPlaceId());
+                    int effective = distance != null ? distance : Integer.MAX_VALUE;
+                    if (known == null || effective < known) {
+                        candidates.put(prediction.getPlaceId(), effective);
+                    }
+                }
+            }
+
+            if (failures == searches.size()) {
+                return Tasks.forException(lastError != null ? lastError :
+                        new IllegalStateException("Places search failed"));
+            }
+            boolean searchesComplete = failures == 0;
+
+            // Only fetch details for the closest distinct places
+            List<Map.Entry<String, Integer>> ranked = new ArrayList<>(candidates.entrySet());
+            Collections.sort(ranked, (a, b) -> Integer.compare(a.getValue(), b.getValue()));
+            if (ranked.size() > query.maxResults) {
+                ranked = ranked.subList(0, query.maxResults);
+            }
+
+            List<Task<NearbyPlace>> details = new ArrayList<>();
+            for (Map.Entry<String, Integer> candidate : ranked) {
+                details.add(fetchDetails(candidate.getKey(), query.placeType, gate));
+            }
+
+            return Tasks.whenAllComplete(details).continueWith(done -> {
+                List<NearbyPlace> places = new ArrayList<>();
+                int failedDetails = 0;
+                for (Task<NearbyPlace> detail : details) {
+                    if (!detail.isSuccessful()) {
+                        failedDetails++;
+                    } else if (detail.getResult() != null) {
+                        places.add(detail.getResult());
+                    }
+                }
+                // A place missing because its details failed makes the result partial too
+                return new Result(places, searchesComplete && failedDetails == 0);
+            });
+        });
+    }
+
+    @Override
+    public String getStats() {
+        return "autocompleteCalls=" + autocompleteCalls.get() +
+                " detailCalls=" + detailCalls.get() +
+                " detailCacheHits=" + detailCacheHits.get() +
+                " detailFailures=" + detailFailures.get();
+    }
+
+    private Task<NearbyPlace> fetchDetails(String placeId, String placeType, RequestGate gate) {
+        CachedDetails cached = detailsCache.get(placeId);
+        if (cached != null && SystemClock.elapsedRealtime() - cached.storedAt < DETAILS_TTL) {
+            detailCacheHits.incrementAndGet();
+            return Tasks.forResult(cached.place.withType(placeType));
+        }
+
+        FetchPlaceRequest request = FetchPlaceRequest.builder(placeId, PLACE_FIELDS).build();
+        Task<FetchPlaceResponse> fetch = gate.run(() -> {
+            detailCalls.incrementAndGet();
+            return placesClient.fetchPlace(request);
+        });
+
+        return fetch.continueWith(task -> {
+            if (!task.isSuccessful()) {
+                Log.e(TAG, "Place fetch failed for " + placeId, task.getException());
+                detailFailures.incrementAndGet();
+                throw task.getException() != null ? task.getException() :
+                        new IllegalStateException("Place fetch canceled");
+            }
+            // No location is an answer, not a failure
+            Place place = task.getResult().getPlace();
+            if (place.getLatLng() == null) {
+                return null;
+            }
+            NearbyPlace nearbyPlace = new NearbyPlace(place.getId(), place.getName(), placeType,
+                    place.getLatLng().latitude, place.getLatLng().longitude,
+                    place.getAddress(), place.getPhoneNumber());
+            detailsCache.put(placeId, new CachedDetails(nearbyPlace));
+            return nearbyPlace;
+        });
+    }
+
+    private static class CachedDetails {
+        final NearbyPlace place;
+        final long storedAt = SystemClock.elapsedRealtime();
+
+        CachedDetails(NearbyPlace place) {
+            this.place = place;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.rescuereach.service.places;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.rescuereach.util.AppExecutors;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Nearby Search web service backend: one request per page of up to 20 places, with
+ * name, address and location included, so no per-place details requests.
+ * Results are ranked by prominence, so extra pages are fetched to find the closest places.
+ */
+class WebServicePlacesBackend implements PlacesBackend {
+    private static final String TAG = "WebServicePlacesBackend";
+
+    static final String NAME = "web";
+
+    // Three pages is the service maximum
+    private static final int MAX_PAGES = 3;
+    // A new page token takes a moment to become valid
+    private static final long PAGE_TOKEN_DELAY_MS = 2000;
+    private static final int MAX_RADIUS_METERS = 50000;
+
+    private final NearbySearchClient client;
+    private final Executor executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Metrics
+    private final AtomicLong pageRequests = new AtomicLong();
+    private final AtomicLong tokenRetries = new AtomicLong();
+    private final AtomicLong skippedResults = new AtomicLong();
+
+    WebServicePlacesBackend(NearbySearchClient client) {
+        this.client = client;
+        // Blocking HTTP calls share the lane with other Places lookups
+        this.executor = AppExecutors.getInstance().geocoding();
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Task<Result> search(Query query, RequestGate gate) {
+        TaskCompletionSource<Result> result = new TaskCompletionSource<>();
+        int radius = (int) Math.min(Math.ceil(query.searchRadius), MAX_RADIUS_METERS);
+        boolean knownType = PlacesQueryEngine.TYPE_HOSPITAL.equals(query.placeType) ||
+                PlacesQueryEngine.TYPE_POLICE.equals(query.placeType) ||
+                PlacesQueryEngine.TYPE_FIRE_STATION.equals(query.placeType);
+        String keyword = knownType ? null : query.placeType.replace('_', ' ');
+
+        Request<NearbySearchClient.Page> firstPage = () -> {
+            pageRequests.incrementAndGet();
+            return Tasks.call(executor, () -> client.fetchFirstPage(
+                    query.centerLatitude, query.centerLongitude, radius, query.placeType, keyword));
+        };
+
+        // Urgent searches can't wait for page tokens to activate, take the first page only
+        int maxPages = query.urgent ? 1 : MAX_PAGES;
+        collectPages(gate.run(firstPage), null, query, gate, 1, maxPages, false,
+                new LinkedHashMap<>(), result);
+        return result.getTask();
+    }
+
+    @Override
+    public String getStats() {
+        return "pageRequests=" + pageRequests.get() +
+                " tokenRetries=" + tokenRetries.get() +
+                " skippedResults=" + skippedResults.get();
+    }
+
+    private void collectPages(Task<NearbySearchClient.Page> pageTask, String pageToken, Query query,
+                              RequestGate gate, int page, int maxPages, boolean retried,
+                              Map<String, NearbyPlace> places, TaskCompletionSource<Result> result) {
+        pageTask.addOnCompleteListener(task -> {
+            if (!task.isSuccessful()) {
+                Exception error = task.getException();
+                if (pageToken != null && !retried && isTokenNotReady(error)) {
+                    tokenRetries.incrementAndGet();
+                    // Retry the same token once it has had more time
+                    requestNextPage(pageToken, query, gate, page, maxPages, true, places, result);
+                    return;
+                }
+                Log.e(TAG, "Nearby search page " + page + " failed", error);
+                if (places.isEmpty()) {
+                    result.setException(error != null ? error :
+                            new IllegalStateException("Nearby search failed"));
+                } else {
+                    result.setResult(new Result(new ArrayList<>(places.values()), false));
+                }
+                return;
+            }
+
+            NearbySearchClient.Page current = task.getResult();
+            skippedResults.addAndGet(current.skipped);
+            for (NearbyPlace place : current.places) {
+                places.putIfAbsent(place.getPlaceId(), place);
+            }
+
+            if (current.nextPageToken == null || page >= maxPages) {
+                result.setResult(new Result(new ArrayList<>(places.values()), true));
+                return;
+            }
+            requestNextPage(current.nextPageToken, query, gate, page + 1, maxPages, false, places, result);
+        });
+    }
+
+    private void requestNextPage(String token, Query query, RequestGate gate, int page, int maxPages,
+                                 boolean retried, Map<String, NearbyPlace> places,
+                                 TaskCompletionSource<Result> result) {
+        mainHandler.postDelayed(() -> {
+            Request<NearbySearchClient.Page> nextPage = () -> {
+                pageRequests.incrementAndGet();
+                return Tasks.call(executor, () -> client.fetchNextPage(token, query.placeType));
+            };
+            collectPages(gate.run(nextPage), token, query, gate, page, maxPages, retried, places, result);
+        }, PAGE_TOKEN_DELAY_MS);
+    }
+
+    private static boolean isTokenNotReady(Exception error) {
+        return error instanceof NearbySearchClient.NearbySearchException &&
+                NearbySearchClient.STATUS_INVALID_REQUEST.equals(
+                        ((NearbySearchClient.NearbySearchException) error).getStatus());
+    }
+}
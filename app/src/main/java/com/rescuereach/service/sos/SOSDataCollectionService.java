@@ -2,45 +2,47 @@ package com.rescuereach.service.sos;
 
 import android.content.Context;
 import android.location.Address;
-import android.location.Geocoder;
 import android.location.Location;
 import android.net.ConnectivityManager;
 import android.net.NetworkCapabilities;
 import android.os.BatteryManager;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 
-import com.google.android.gms.maps.model.LatLng;
-import com.google.android.gms.tasks.Task;
-import com.google.android.gms.tasks.Tasks;
-import com.google.android.libraries.places.api.Places;
-import com.google.android.libraries.places.api.model.AutocompletePrediction;
-import com.google.android.libraries.places.api.model.Place;
-import com.google.android.libraries.places.api.model.RectangularBounds;
-import com.google.android.libraries.places.api.model.TypeFilter;
-import com.google.android.libraries.places.api.net.FetchPlaceRequest;
-import com.google.android.libraries.places.api.net.FindAutocompletePredictionsRequest;
-import com.google.android.libraries.places.api.net.PlacesClient;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.GeoPoint;
+import com.rescuereach.data.local.CachedEmergencyService;
+import com.rescuereach.data.local.EmergencyServiceCache;
 import com.rescuereach.data.model.EmergencyService;
 import com.rescuereach.data.model.SOSReport;
+import com.rescuereach.data.repository.OnCompleteListener;
+import com.rescuereach.data.repository.RepositoryProvider;
+import com.rescuereach.service.auth.SessionSnapshot;
 import com.rescuereach.service.auth.UserSessionManager;
+import com.rescuereach.service.location.FixSelector;
+import com.rescuereach.service.places.NearbyPlace;
+import com.rescuereach.service.places.PlacesQueryEngine;
+import com.rescuereach.util.AppExecutors;
 import com.rescuereach.util.DeviceUtils;
+import com.rescuereach.util.GeocodeCache;
 import com.rescuereach.util.LocationManager;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
 
 /**
  * Service for collecting all data needed for an SOS emergency report
@@ -52,13 +54,27 @@ public class SOSDataCollectionService {
     private static final int NEARBY_SERVICES_RADIUS = 5000; // 5km radius
     private static final int MAX_EMERGENCY_SERVICES = 3; // Max number of nearby services to include
 
+    // Collection stages and how long each one may take
+    private static final String STAGE_CONTACTS = "contacts";
+    private static final String STAGE_ADDRESS = "address";
+    private static final String STAGE_SERVICES = "services";
+    private static final long CONTACTS_DEADLINE_MS = 2500;
+    private static final long ADDRESS_DEADLINE_MS = 10000;
+    private static final long SERVICES_DEADLINE_MS = 15000;
+
+    // Error radius of the report's fix when collected, in whole meters
+    private static final String DEVICE_INFO_LOCATION_ERROR = "locationErrorMeters";
+
     // Services and managers
     private final Context context;
     private final LocationManager locationManager;
     private final UserSessionManager sessionManager;
-    private final PlacesClient placesClient;
+    private final PlacesQueryEngine placesQueryEngine;
     private final FirebaseFirestore db;
-    private final ExecutorService executorService;
+    private final Executor geocodingExecutor;
+    private final GeocodeCache geocodeCache;
+    private final EmergencyServiceCache emergencyServiceCache;
+    private final Handler mainHandler;
 
     // Emergency service types mapping
     private final Map<String, String> emergencyTypeToPlaceType;
@@ -73,15 +89,11 @@ public class SOSDataCollectionService {
         this.locationManager = new LocationManager(context);
         this.sessionManager = UserSessionManager.getInstance(context);
         this.db = FirebaseFirestore.getInstance();
-        this.executorService = Executors.newCachedThreadPool();
-
-        // Initialize Places API if needed
-        if (!Places.isInitialized()) {
-            // Note: This requires your API key to be correctly set in strings.xml
-            Places.initialize(context, context.getString(com.rescuereach.R.string.google_maps_key));
-        }
-
-        this.placesClient = Places.createClient(context);
+        this.geocodingExecutor = AppExecutors.getInstance().geocoding();
+        this.geocodeCache = GeocodeCache.getInstance(context);
+        this.emergencyServiceCache = EmergencyServiceCache.getInstance(context);
+        this.mainHandler = new Handler(Looper.getMainLooper());
+        this.placesQueryEngine = PlacesQueryEngine.getInstance(context);
 
         // Set up emergency type mappings
         emergencyTypeToPlaceType = new HashMap<>();
@@ -97,37 +109,55 @@ public class SOSDataCollectionService {
     }
 
     /**
-     * Collect all data for an SOS report
+     * Collect all data for an SOS report.
+     * The report is handed to the listener as soon as the minimum viable data
+     * (location, type, user/device info and contacts) is ready. Address and nearby
+     * services that arrive later are appended through {@link SOSDataCollectionListener#onReportEnriched}.
      * @param emergencyType The type of emergency (POLICE, FIRE, MEDICAL)
      * @param dataCollectionListener Callback for when data collection is complete
      */
     public void collectSOSData(String emergencyType, SOSDataCollectionListener dataCollectionListener) {
         Log.d(TAG, "Starting SOS data collection for: " + emergencyType);
 
-        // Create progress tracker
-        final boolean[] networkAvailable = {isNetworkAvailable()};
-        final SOSReport[] report = {new SOSReport()};
-        report[0].setEmergencyType(emergencyType);
-        report[0].setOnline(networkAvailable[0]);
-        report[0].setUserId(sessionManager.getSavedPhoneNumber());
+        boolean networkAvailable = isNetworkAvailable();
+        SOSReport report = new SOSReport();
+        report.setEmergencyType(emergencyType);
+        report.setOnline(networkAvailable);
+        report.setUserId(sessionManager.getSavedPhoneNumber());
+
+        // Assign identity up front so enrichments can address the report before it is written
+        report.setReportId("sos_" + System.currentTimeMillis());
+        report.setIdempotencyKey(UUID.randomUUID().toString());
+
+        final CollectionRun[] run = {null};
 
         // Get precise location for emergency
         locationManager.shareLocationDuringEmergency(new LocationManager.LocationUpdateListener() {
             @Override
             public void onLocationUpdated(Location location) {
-                // Process with this location
-                processLocationData(location, emergencyType, report[0], networkAvailable[0], dataCollectionListener);
+                // The cached fix arrives first, a fresh one may follow for the same SOS
+                if (run[0] != null) {
+                    run[0].onLocationRefined(location);
+                    return;
+                }
+                run[0] = new CollectionRun(report, dataCollectionListener);
+                processLocationData(location, emergencyType, networkAvailable, run[0]);
             }
 
             @Override
             public void onLocationError(String message) {
                 Log.e(TAG, "Location error: " + message);
+                if (run[0] != null) {
+                    // Already collecting with an earlier fix
+                    return;
+                }
 
                 // Try to use last known location
                 Location lastKnown = locationManager.getLastKnownLocation();
                 if (lastKnown != null) {
                     Log.d(TAG, "Using last known location");
-                    processLocationData(lastKnown, emergencyType, report[0], networkAvailable[0], dataCollectionListener);
+                    run[0] = new CollectionRun(report, dataCollectionListener);
+                    processLocationData(lastKnown, emergencyType, networkAvailable, run[0]);
                 } else {
                     // We couldn't get a location, report error
                     dataCollectionListener.onDataCollectionFailed(
@@ -138,53 +168,91 @@ public class SOSDataCollectionService {
     }
 
     /**
-     * Process location data and collect other required information
+     * Process location data and start the remaining stages in parallel.
+     * User and device info are local reads and are filled in right away; contacts,
+     * address and nearby services each run against their own deadline.
      */
-    private void processLocationData(Location location, String emergencyType, SOSReport report,
-                                     boolean isOnline, SOSDataCollectionListener listener) {
-        // Create GeoPoint from location
-        GeoPoint geoPoint = new GeoPoint(location.getLatitude(), location.getLongitude());
-        report.setLocation(geoPoint);
-
-        // Get address information
-        getAddressFromLocation(location, report, () -> {
-            // Add user information
-            addUserInformation(report);
-
-            // Add device information
-            addDeviceInformation(report);
-
-            // Get emergency contacts (just phone numbers)
-            getEmergencyContactNumbers(report, () -> {
-                // If online, get nearby services
-                if (isOnline) {
-                    getNearbyEmergencyServices(location, emergencyType, report, () -> {
-                        // All data collected, return the report
-                        listener.onDataCollectionComplete(report);
-                    });
-                } else {
-                    // When offline, use cached emergency services if available
-                    getCachedEmergencyServices(location, emergencyType, report);
+    private void processLocationData(Location location, String emergencyType,
+                                     boolean isOnline, CollectionRun run) {
+        SOSReport report = run.report;
 
-                    // All data collected (as much as possible offline), return the report
-                    listener.onDataCollectionComplete(report);
+        // Create GeoPoint from location
+        report.setLocation(new GeoPoint(location.getLatitude(), location.getLongitude()));
+        run.bestFix = location;
+
+        // Local data, no need to wait for anything
+        addUserInformation(report);
+        addDeviceInformation(report);
+        // The first fix may be an old one, this tells responders how far to trust it
+        report.addDeviceInfo(DEVICE_INFO_LOCATION_ERROR, (int) FixSelector.errorRadiusMeters(location));
+
+        run.startStage(STAGE_CONTACTS, CONTACTS_DEADLINE_MS);
+        run.startStage(STAGE_ADDRESS, ADDRESS_DEADLINE_MS);
+        run.startStage(STAGE_SERVICES, SERVICES_DEADLINE_MS);
+
+        // Emergency contacts gate the minimum viable report
+        getEmergencyContactNumbers(contacts -> run.completeStage(STAGE_CONTACTS, () -> {
+            if (contacts.isEmpty()) {
+                return null;
+            }
+            // Replace rather than mutate, the report may already be on its way to the backend
+            List<String> merged = new ArrayList<>();
+            if (report.getEmergencyContactNumbers() != null) {
+                merged.addAll(report.getEmergencyContactNumbers());
+            }
+            for (String contact : contacts) {
+                if (!merged.contains(contact)) {
+                    merged.add(contact);
                 }
-            });
-        });
+            }
+            report.setEmergencyContactNumbers(merged);
+            return Collections.singletonMap("emergencyContactNumbers", merged);
+        }));
+
+        getAddressFromLocation(location, (address, city, state) ->
+                run.completeStage(STAGE_ADDRESS, () -> {
+                    report.setAddress(address);
+                    report.setCity(city);
+                    report.setState(state);
+
+                    Map<String, Object> details = new HashMap<>();
+                    details.put("address", address);
+                    details.put("city", city);
+                    details.put("state", state);
+                    return details;
+                }));
+
+        if (isOnline) {
+            getNearbyEmergencyServices(location, emergencyType, services ->
+                    run.completeStage(STAGE_SERVICES, () -> {
+                        if (services.isEmpty()) {
+                            return null;
+                        }
+                        report.setNearbyServices(services);
+                        return Collections.singletonMap("nearbyServices", services);
+                    }));
+        } else {
+            // When offline, use cached emergency services if available
+            getCachedEmergencyServices(location, emergencyType, services ->
+                    run.completeStage(STAGE_SERVICES, () -> {
+                        report.setNearbyServices(services);
+                        return null;
+                    }));
+        }
     }
 
     /**
-     * Use Geocoder to get address information from location
+     * Get address information from location via the shared geocode cache,
+     * which also answers offline from previously resolved addresses.
+     * Falls back to the coordinates when no address can be resolved.
      */
-    private void getAddressFromLocation(Location location, SOSReport report, Runnable onComplete) {
-        executorService.execute(() -> {
-            Geocoder geocoder = new Geocoder(context, Locale.getDefault());
+    private void getAddressFromLocation(Location location, AddressCallback callback) {
+        geocodingExecutor.execute(() -> {
             try {
-                List<Address> addresses = geocoder.getFromLocation(
-                        location.getLatitude(), location.getLongitude(), 1);
+                Address address = geocodeCache.getFromLocation(
+                        location.getLatitude(), location.getLongitude());
 
-                if (addresses != null && !addresses.isEmpty()) {
-                    Address address = addresses.get(0);
+                if (address != null) {
 
                     // Extract address components
                     StringBuilder fullAddress = new StringBuilder();
@@ -196,66 +264,56 @@ public class SOSDataCollectionService {
                     String city = address.getLocality();
                     String state = address.getAdminArea();
 
-                    // Update report on main thread
-                    runOnMainThread(() -> {
-                        report.setAddress(fullAddress.toString());
-                        report.setCity(city != null ? city : "Unknown");
-                        report.setState(state != null ? state : "Unknown");
-                        onComplete.run();
-                    });
+                    runOnMainThread(() -> callback.onAddressResolved(fullAddress.toString(),
+                            city != null ? city : "Unknown",
+                            state != null ? state : "Unknown"));
                 } else {
                     // No address found, use coordinates
-                    String coordsStr = String.format(Locale.US, "%.6f, %.6f",
-                            location.getLatitude(), location.getLongitude());
-
-                    runOnMainThread(() -> {
-                        report.setAddress(coordsStr);
-                        report.setCity("Unknown");
-                        report.setState("Unknown");
-                        onComplete.run();
-                    });
+                    String coordsStr = formatCoordinates(location);
+                    runOnMainThread(() -> callback.onAddressResolved(coordsStr, "Unknown", "Unknown"));
                 }
             } catch (IOException e) {
                 Log.e(TAG, "Error getting address", e);
 
                 // Handle error - use coordinates as fallback
-                String coordsStr = String.format(Locale.US, "%.6f, %.6f",
-                        location.getLatitude(), location.getLongitude());
-
-                runOnMainThread(() -> {
-                    report.setAddress(coordsStr);
-                    report.setCity("Unknown");
-                    report.setState("Unknown");
-                    onComplete.run();
-                });
+                String coordsStr = formatCoordinates(location);
+                runOnMainThread(() -> callback.onAddressResolved(coordsStr, "Unknown", "Unknown"));
             }
         });
     }
 
+    private static String formatCoordinates(Location location) {
+        return String.format(Locale.US, "%.6f, %.6f",
+                location.getLatitude(), location.getLongitude());
+    }
+
     /**
      * Add user information from session manager
      */
     private void addUserInformation(SOSReport report) {
+        // One snapshot, so the fields all come from the same version of the profile
+        SessionSnapshot session = sessionManager.getSnapshot();
+
         // Add basic user info
-        report.addUserInfo("phoneNumber", sessionManager.getSavedPhoneNumber());
-        report.addUserInfo("name", sessionManager.getFullName());
-        report.addUserInfo("isVolunteer", sessionManager.isVolunteer());
+        report.addUserInfo("phoneNumber", session.getPhoneNumber());
+        report.addUserInfo("name", session.getFullName());
+        report.addUserInfo("isVolunteer", session.isVolunteer());
 
         // Add user's state if available
-        String state = sessionManager.getState();
-        if (state != null && !state.isEmpty()) {
+        String state = session.getState();
+        if (!state.isEmpty()) {
             report.addUserInfo("state", state);
         }
 
         // Add gender if available
-        String gender = sessionManager.getGender();
-        if (gender != null && !gender.isEmpty()) {
+        String gender = session.getGender();
+        if (!gender.isEmpty()) {
             report.addUserInfo("gender", gender);
         }
 
         // Add any other available profile fields
-        report.addUserInfo("firstName", sessionManager.getFirstName());
-        report.addUserInfo("lastName", sessionManager.getLastName());
+        report.addUserInfo("firstName", session.getFirstName());
+        report.addUserInfo("lastName", session.getLastName());
     }
 
     /**
@@ -305,19 +363,18 @@ public class SOSDataCollectionService {
     /**
      * Get emergency contact numbers from Firestore or local storage
      */
-    private void getEmergencyContactNumbers(SOSReport report, Runnable onComplete) {
+    private void getEmergencyContactNumbers(ContactsCallback callback) {
         String userId = sessionManager.getSavedPhoneNumber();
         if (userId == null || userId.isEmpty()) {
             Log.e(TAG, "No user ID available for getting emergency contacts");
-            onComplete.run();
+            callback.onContactsResolved(Collections.emptyList());
             return;
         }
 
         // First check if we have emergency contact directly from session manager
         String emergencyContact = sessionManager.getEmergencyContactPhone();
         if (emergencyContact != null && !emergencyContact.isEmpty()) {
-            report.addEmergencyContactNumber(emergencyContact);
-            onComplete.run();
+            callback.onContactsResolved(Collections.singletonList(emergencyContact));
             return;
         }
 
@@ -326,11 +383,12 @@ public class SOSDataCollectionService {
             db.collection("users").document(userId)
                     .get()
                     .addOnCompleteListener(task -> {
+                        List<String> contacts = new ArrayList<>();
                         if (task.isSuccessful() && task.getResult() != null) {
                             // Get emergency contact number(s)
                             String contactFromFirestore = task.getResult().getString("emergencyContact");
                             if (contactFromFirestore != null && !contactFromFirestore.isEmpty()) {
-                                report.addEmergencyContactNumber(contactFromFirestore);
+                                contacts.add(contactFromFirestore);
                             }
 
                             // Look for a list of numbers too (for backward compatibility)
@@ -338,166 +396,134 @@ public class SOSDataCollectionService {
                                     (List<String>) task.getResult().get("emergencyContacts");
 
                             if (emergencyContacts != null && !emergencyContacts.isEmpty()) {
-                                for (String contactNumber : emergencyContacts) {
-                                    report.addEmergencyContactNumber(contactNumber);
-                                }
+                                contacts.addAll(emergencyContacts);
                             }
                         } else {
                             Log.e(TAG, "Error getting emergency contacts",
                                     task.getException());
                         }
-                        onComplete.run();
+                        callback.onContactsResolved(contacts);
                     });
         } else {
             // TODO: Get from local storage in a future implementation
-            onComplete.run();
+            callback.onContactsResolved(Collections.emptyList());
         }
     }
 
     /**
-     * Get nearby emergency services using Places API
+     * Get nearby emergency services through the shared Places query engine
      */
     private void getNearbyEmergencyServices(Location location, String emergencyType,
-                                            SOSReport report, Runnable onComplete) {
+                                            ServicesCallback callback) {
         // Get the place type based on emergency type
         String placeType = emergencyTypeToPlaceType.get(emergencyType);
         if (placeType == null) {
             Log.e(TAG, "Unknown emergency type: " + emergencyType);
-            onComplete.run();
+            callback.onServicesResolved(Collections.emptyList());
             return;
         }
 
-        // Create bounds for the search (approximately within NEARBY_SERVICES_RADIUS)
-        double latRadiusDegrees = NEARBY_SERVICES_RADIUS / 111000.0; // approximate degrees per meter
-        double lngRadiusDegrees = latRadiusDegrees /
-                Math.cos(Math.toRadians(location.getLatitude()));
-
-        LatLng center = new LatLng(location.getLatitude(), location.getLongitude());
-
-        RectangularBounds bounds = RectangularBounds.newInstance(
-                new LatLng(center.latitude - latRadiusDegrees, center.longitude - lngRadiusDegrees),
-                new LatLng(center.latitude + latRadiusDegrees, center.longitude + lngRadiusDegrees));
-
-        // Create the query
-        FindAutocompletePredictionsRequest request = FindAutocompletePredictionsRequest.builder()
-                .setLocationBias(bounds)
-                .setOrigin(center)
-                .setTypeFilter(TypeFilter.ESTABLISHMENT)
-                .setQuery(placeType)
-                .build();
-
-        // Execute the search
-        placesClient.findAutocompletePredictions(request)
-                .addOnSuccessListener(response -> {
-                    // Process predictions
-                    int servicesFound = 0;
-                    List<Task<?>> tasks = new ArrayList<>();
-
-                    for (AutocompletePrediction prediction : response.getAutocompletePredictions()) {
-                        if (servicesFound >= MAX_EMERGENCY_SERVICES) break;
-
-                        // Create a fetch place request
-                        List<Place.Field> placeFields = Arrays.asList(
-                                Place.Field.ID, Place.Field.NAME, Place.Field.LAT_LNG,
-                                Place.Field.ADDRESS, Place.Field.PHONE_NUMBER);
-
-                        FetchPlaceRequest fetchRequest = FetchPlaceRequest.builder(
-                                prediction.getPlaceId(), placeFields).build();
-
-                        // Queue the request
-                        Task<Void> task = placesClient.fetchPlace(fetchRequest)
-                                .addOnSuccessListener(fetchResponse -> {
-                                    Place place = fetchResponse.getPlace();
-                                    if (place.getLatLng() != null) {
-                                        // Calculate distance
-                                        float[] results = new float[1];
-                                        Location.distanceBetween(
-                                                location.getLatitude(), location.getLongitude(),
-                                                place.getLatLng().latitude, place.getLatLng().longitude,
-                                                results);
-
-                                        float distanceKm = results[0] / 1000; // Convert meters to km
-
-                                        // Create emergency service object
-                                        EmergencyService service = new EmergencyService(
-                                                place.getId(),
-                                                place.getName(),
-                                                emergencyType,
-                                                new GeoPoint(
-                                                        place.getLatLng().latitude,
-                                                        place.getLatLng().longitude),
-                                                place.getAddress(),
-                                                place.getPhoneNumber(),
-                                                distanceKm,
-                                                emergencyTypeToTollFree.get(emergencyType)
-                                        );
-
-                                        // Add to report
-                                        report.addNearbyService(service);
-
-                                        // Cache this service for offline use
-                                        cacheEmergencyService(service);
-                                    }
-                                })
-                                .addOnFailureListener(e ->
-                                        Log.e(TAG, "Error fetching place details", e))
-                                .continueWith(task2 -> null);
-
-                        tasks.add(task);
-                        servicesFound++;
+        placesQueryEngine.searchNearby(placeType, location.getLatitude(), location.getLongitude(),
+                        NEARBY_SERVICES_RADIUS, true)
+                .addOnSuccessListener(places -> {
+                    List<EmergencyService> services = new ArrayList<>();
+                    for (NearbyPlace place : places) {
+                        float distanceMeters = place.distanceTo(location.getLatitude(), location.getLongitude());
+                        if (distanceMeters > NEARBY_SERVICES_RADIUS) {
+                            continue;
+                        }
+
+                        // Create emergency service object
+                        services.add(new EmergencyService(
+                                place.getPlaceId(),
+                                place.getName(),
+                                emergencyType,
+                                new GeoPoint(place.getLatitude(), place.getLongitude()),
+                                place.getAddress(),
+                                place.getPhoneNumber(),
+                                distanceMeters / 1000, // Convert meters to km
+                                emergencyTypeToTollFree.get(emergencyType)
+                        ));
                     }
 
-                    // Wait for all tasks to complete
-                    try {
-                        Tasks.whenAll(tasks).addOnCompleteListener(task -> {
-                            // Sort services by distance
-                            Collections.sort(report.getNearbyServices(),
-                                    (s1, s2) -> Double.compare(s1.getDistance(), s2.getDistance()));
-
-                            // Limit to max services
-                            if (report.getNearbyServices().size() > MAX_EMERGENCY_SERVICES) {
-                                report.setNearbyServices(report.getNearbyServices()
-                                        .subList(0, MAX_EMERGENCY_SERVICES));
-                            }
+                    // Sort services by distance
+                    Collections.sort(services,
+                            (s1, s2) -> Double.compare(s1.getDistance(), s2.getDistance()));
 
-                            // Complete the operation
-                            onComplete.run();
-                        });
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error waiting for place details", e);
-                        onComplete.run();
-                    }
+                    // Cache these services for offline use
+                    cacheEmergencyServices(services, placeType);
+
+                    // Limit to max services
+                    callback.onServicesResolved(services.size() > MAX_EMERGENCY_SERVICES ?
+                            new ArrayList<>(services.subList(0, MAX_EMERGENCY_SERVICES)) : services);
                 })
                 .addOnFailureListener(e -> {
                     Log.e(TAG, "Error finding nearby emergency services", e);
-                    onComplete.run();
+                    callback.onServicesResolved(Collections.emptyList());
                 });
     }
 
     /**
      * Cache emergency services for offline use
      */
-    private void cacheEmergencyService(EmergencyService service) {
-        // TODO: Implement local caching of emergency services in a future phase
-        // This would use Room Database to store services for offline retrieval
+    private void cacheEmergencyServices(List<EmergencyService> services, String placeType) {
+        List<CachedEmergencyService> entries = new ArrayList<>();
+        for (EmergencyService service : services) {
+            if (service.getPlaceId() == null || service.getLocation() == null) {
+                continue;
+            }
+            CachedEmergencyService entry = new CachedEmergencyService(service.getPlaceId(),
+                    service.getName(), placeType,
+                    service.getLocation().getLatitude(), service.getLocation().getLongitude());
+            entry.setAddress(service.getAddress());
+            entry.setPhoneNumber(service.getPhoneNumber());
+            entries.add(entry);
+        }
+        if (!entries.isEmpty()) {
+            AppExecutors.getInstance().io().execute(() -> emergencyServiceCache.save(entries));
+        }
     }
 
     /**
-     * Get cached emergency services for offline use
+     * Get cached emergency services for offline use.
+     * Any age is accepted here, an old hospital address beats none during an emergency.
      */
-    private void getCachedEmergencyServices(Location location, String emergencyType, SOSReport report) {
-        // TODO: Implement retrieval of cached emergency services in a future phase
-        // This would use Room Database to retrieve previously cached nearby services
-
-        // For now, just add the toll-free number
+    private void getCachedEmergencyServices(Location location, String emergencyType,
+                                            ServicesCallback callback) {
+        String placeType = emergencyTypeToPlaceType.get(emergencyType);
         String tollFree = emergencyTypeToTollFree.get(emergencyType);
-        if (tollFree != null) {
-            EmergencyService emergencyService = new EmergencyService();
-            emergencyService.setName("Emergency " + emergencyType + " Service");
-            emergencyService.setType(emergencyType);
-            emergencyService.setTollFreeNumber(tollFree);
-            report.addNearbyService(emergencyService);
-        }
+
+        AppExecutors.getInstance().io().execute(() -> {
+            List<EmergencyService> services = new ArrayList<>();
+
+            if (placeType != null) {
+                for (CachedEmergencyService cached : emergencyServiceCache.findNearest(
+                        location.getLatitude(), location.getLongitude(),
+                        NEARBY_SERVICES_RADIUS, placeType, MAX_EMERGENCY_SERVICES, 0)) {
+                    services.add(new EmergencyService(
+                            cached.getPlaceId(),
+                            cached.getName(),
+                            emergencyType,
+                            new GeoPoint(cached.getLatitude(), cached.getLongitude()),
+                            cached.getAddress(),
+                            cached.getPhoneNumber(),
+                            cached.getDistanceMeters() / 1000,
+                            tollFree));
+                }
+            }
+
+            // Nothing cached nearby, at least give the toll-free number
+            if (services.isEmpty() && tollFree != null) {
+                EmergencyService emergencyService = new EmergencyService();
+                emergencyService.setName("Emergency " + emergencyType + " Service");
+                emergencyService.setType(emergencyType);
+                emergencyService.setTollFreeNumber(tollFree);
+                services.add(emergencyService);
+            }
+
+            Log.d(TAG, "Using " + services.size() + " cached emergency services while offline");
+            runOnMainThread(() -> callback.onServicesResolved(services));
+        });
     }
 
     /**
@@ -520,8 +546,139 @@ public class SOSDataCollectionService {
      * Run task on main thread
      */
     private void runOnMainThread(Runnable runnable) {
-        android.os.Handler handler = new android.os.Handler(context.getMainLooper());
-        handler.post(runnable);
+        mainHandler.post(runnable);
+    }
+
+    /**
+     * State of one SOS data collection.
+     * All methods run on the main thread, so stage bookkeeping needs no locking.
+     */
+    private class CollectionRun {
+        final SOSReport report;
+        final SOSDataCollectionListener listener;
+        final long startedAt = SystemClock.elapsedRealtime();
+
+        final Set<String> pendingStages = new HashSet<>();
+        Location bestFix;
+        boolean delivered;
+
+        CollectionRun(SOSReport report, SOSDataCollectionListener listener) {
+            this.report = report;
+            this.listener = listener;
+        }
+
+        void startStage(String stage, long deadlineMs) {
+            pendingStages.add(stage);
+            mainHandler.postDelayed(() -> expireStage(stage), deadlineMs);
+        }
+
+        /**
+         * Apply the result of a stage if it is still within its deadline.
+         * @param stage Stage name
+         * @param apply Writes the result into the report and returns the changed fields,
+         *              or null if nothing needs to be sent
+         */
+        void completeStage(String stage, StageResult apply) {
+            if (!pendingStages.remove(stage)) {
+                Log.w(TAG, "Dropping late result of stage " + stage);
+                return;
+            }
+            Log.d(TAG, "Stage " + stage + " finished after " + elapsed() + "ms");
+
+            Map<String, Object> details = apply.applyTo();
+            if (delivered && details != null && !details.isEmpty()) {
+                appendDetails(details);
+            }
+            maybeDeliver();
+        }
+
+        void expireStage(String stage) {
+            if (pendingStages.remove(stage)) {
+                Log.w(TAG, "Stage " + stage + " missed its deadline after " + elapsed() + "ms");
+                maybeDeliver();
+            }
+        }
+
+        /**
+         * A later fix for the same SOS, kept only if its error radius is smaller now. An older
+         * fix's radius grows with its age, so an equally accurate fresh fix wins.
+         */
+        void onLocationRefined(Location location) {
+            if (bestFix != null &&
+                    FixSelector.errorRadiusMeters(location) >= FixSelector.errorRadiusMeters(bestFix)) {
+                return;
+            }
+            bestFix = location;
+            GeoPoint geoPoint = new GeoPoint(location.getLatitude(), location.getLongitude());
+            report.setLocation(geoPoint);
+            if (delivered) {
+                // Together, so radius queries find the report where the refined fix puts it
+                Map<String, Object> details = new HashMap<>();
+                details.put("location", geoPoint);
+                details.put("geohash", report.getGeohash());
+                appendDetails(details);
+            } else {
+                // Not after delivery, the device info map may be being written by then
+                report.addDeviceInfo(DEVICE_INFO_LOCATION_ERROR, (int) FixSelector.errorRadiusMeters(location));
+            }
+        }
+
+        private void maybeDeliver() {
+            if (delivered || pendingStages.contains(STAGE_CONTACTS)) {
+                return;
+            }
+            delivered = true;
+
+            // Never hand out a report without any address, enrichment will replace it
+            if (report.getAddress() == null && report.getLocation() != null) {
+                report.setAddress(String.format(Locale.US, "%.6f, %.6f",
+                        report.getLocation().getLatitude(), report.getLocation().getLongitude()));
+                report.setCity("Unknown");
+                report.setState("Unknown");
+            }
+
+            Log.d(TAG, "Minimum viable SOS report ready after " + elapsed() + "ms, still pending: " +
+                    pendingStages);
+            listener.onDataCollectionComplete(report);
+        }
+
+        private void appendDetails(Map<String, Object> details) {
+            Log.d(TAG, "Appending " + details.keySet() + " to SOS " + report.getReportId() +
+                    " after " + elapsed() + "ms");
+            RepositoryProvider.getSOSRepository().appendSOSDetails(report.getReportId(), details,
+                    new OnCompleteListener() {
+                        @Override
+                        public void onSuccess() {
+                            Log.d(TAG, "SOS details appended: " + details.keySet());
+                        }
+
+                        @Override
+                        public void onError(Exception e) {
+                            Log.e(TAG, "Error appending SOS details", e);
+                        }
+                    });
+            listener.onReportEnriched(report, details);
+        }
+
+        private long elapsed() {
+            return SystemClock.elapsedRealtime() - startedAt;
+        }
+    }
+
+    private interface StageResult {
+        Map<String, Object> applyTo();
+    }
+
+    private interface AddressCallback {
+        void onAddressResolved(String address, String city, String state);
+    }
+
+    private interface ContactsCallback {
+        void onContactsResolved(List<String> contacts);
+    }
+
+    private interface ServicesCallback {
+        void onServicesResolved(List<EmergencyService> services);
     }
 
     /**
@@ -530,5 +687,13 @@ public class SOSDataCollectionService {
     public interface SOSDataCollectionListener {
         void onDataCollectionComplete(SOSReport report);
         void onDataCollectionFailed(String errorMessage);
+
+        /**
+         * Called when fields that missed the first report have been added to it
+         * @param report The same report passed to onDataCollectionComplete
+         * @param details The fields that changed
+         */
+        default void onReportEnriched(SOSReport report, Map<String, Object> details) {
+        }
     }
-}
\ No newline at end of file
+}
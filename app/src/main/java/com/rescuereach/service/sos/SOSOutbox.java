@@ -0,0 +1,107 @@
+package com.rescuereach.service.sos;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializer;
+import com.rescuereach.data.local.AppDatabase;
+import com.rescuereach.data.local.PendingSOSReport;
+import com.rescuereach.data.local.PendingSOSReportDao;
+import com.rescuereach.data.model.SOSReport;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durable outbox for SOS reports raised while offline.
+ * Reports are written to Room and drained by {@link SOSOutboxSyncWorker} once a network is available.
+ */
+public class SOSOutbox {
+    private static final String TAG = "SOSOutbox";
+
+    static final String SYNC_WORK_NAME = "sos_outbox_sync";
+    private static final long SYNC_BACKOFF_SECONDS = 15;
+
+    // Dates are stored as epoch millis so the round trip is lossless
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(Date.class, (JsonSerializer<Date>) (src, type, ctx) ->
+                    new JsonPrimitive(src.getTime()))
+            .registerTypeAdapter(Date.class, (JsonDeserializer<Date>) (json, type, ctx) ->
+                    new Date(json.getAsLong()))
+            .create();
+
+    private final Context context;
+    private final PendingSOSReportDao dao;
+
+    public SOSOutbox(Context context) {
+        this.context = context.getApplicationContext();
+        this.dao = AppDatabase.getInstance(this.context).pendingSOSReportDao();
+    }
+
+    /**
+     * Persist a report and schedule a sync. Must be called off the main thread.
+     * @param report The report to queue
+     * @return true if the report was stored
+     */
+    public boolean enqueue(SOSReport report) {
+        if (report == null || report.getReportId() == null || report.getReportId().isEmpty()) {
+            Log.e(TAG, "Cannot queue SOS report without an ID");
+            return false;
+        }
+
+        try {
+            // Pin the time the SOS was raised, otherwise the server timestamp would be the sync time
+            if (report.getTimestamp() == null) {
+                report.setTimestamp(new Date());
+            }
+
+            PendingSOSReport entry = new PendingSOSReport(report.getReportId(), report.getUserId(),
+                    toJson(report), report.getTimestamp().getTime());
+            dao.insert(entry);
+
+            Log.d(TAG, "Queued SOS report for later sync: " + report.getReportId());
+            scheduleSync(context);
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Error queuing SOS report", e);
+            return false;
+        }
+    }
+
+    /**
+     * Schedule the outbox drain to run as soon as connectivity is available
+     */
+    public static void scheduleSync(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(SOSOutboxSyncWorker.class)
+                .setConstraints(constraints)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, SYNC_BACKOFF_SECONDS, TimeUnit.SECONDS)
+                .build();
+
+        // Append so a report queued while a drain is finishing still gets its own run
+        WorkManager.getInstance(context.getApplicationContext())
+                .enqueueUniqueWork(SYNC_WORK_NAME, ExistingWorkPolicy.APPEND_OR_REPLACE, request);
+    }
+
+    static String toJson(SOSReport report) {
+        return GSON.toJson(report);
+    }
+
+    static SOSReport fromJson(String json) {
+        return GSON.fromJson(json, SOSReport.class);
+    }
+}
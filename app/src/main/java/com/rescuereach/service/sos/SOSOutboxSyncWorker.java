@@ -0,0 +1,87 @@
+package com.rescuereach.service.sos;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.google.android.gms.tasks.Tasks;
+import com.rescuereach.data.local.AppDatabase;
+import com.rescuereach.data.local.PendingSOSReport;
+import com.rescuereach.data.local.PendingSOSReportDao;
+import com.rescuereach.data.model.SOSReport;
+import com.rescuereach.data.repository.RepositoryProvider;
+import com.rescuereach.data.repository.SOSRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains the offline SOS outbox in batches, one repository commit per batch
+ */
+public class SOSOutboxSyncWorker extends Worker {
+    private static final String TAG = "SOSOutboxSyncWorker";
+
+    // Each report costs two Firestore writes, keep well under the 500 write batch limit
+    private static final int BATCH_SIZE = 100;
+    private static final long BATCH_TIMEOUT_SECONDS = 30;
+
+    public SOSOutboxSyncWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        PendingSOSReportDao dao = AppDatabase.getInstance(getApplicationContext()).pendingSOSReportDao();
+        SOSRepository repository = RepositoryProvider.getSOSRepository();
+
+        int synced = 0;
+        List<PendingSOSReport> pending;
+        while (!isStopped() && !(pending = dao.getOldest(BATCH_SIZE)).isEmpty()) {
+            List<SOSReport> reports = new ArrayList<>(pending.size());
+            List<String> reportIds = new ArrayList<>(pending.size());
+            List<String> unreadable = new ArrayList<>();
+
+            for (PendingSOSReport entry : pending) {
+                try {
+                    SOSReport report = SOSOutbox.fromJson(entry.getPayload());
+                    report.setReportId(entry.getReportId());
+                    reports.add(report);
+                    reportIds.add(entry.getReportId());
+                } catch (Exception e) {
+                    Log.e(TAG, "Dropping unreadable outbox entry " + entry.getReportId(), e);
+                    unreadable.add(entry.getReportId());
+                }
+            }
+
+            if (!unreadable.isEmpty()) {
+                dao.deleteByIds(unreadable);
+            }
+            if (reports.isEmpty()) {
+                continue;
+            }
+
+            try {
+                Tasks.await(repository.submitSOSReports(reports), BATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                dao.deleteByIds(reportIds);
+                synced += reports.size();
+            } catch (Exception e) {
+                Log.e(TAG, "Error syncing SOS outbox batch of " + reports.size(), e);
+                dao.markFailed(reportIds, String.valueOf(e.getMessage()));
+                return Result.retry();
+            }
+        }
+
+        if (isStopped()) {
+            // Let WorkManager reschedule whatever is left
+            return Result.retry();
+        }
+
+        Log.d(TAG, "SOS outbox sync finished, synced " + synced + " report(s)");
+        return Result.success();
+    }
+}
@@ -34,8 +34,10 @@ import com.rescuereach.data.repository.OnCompleteListener;
 import com.rescuereach.data.repository.RepositoryProvider;
 import com.rescuereach.data.repository.SOSRepository;
 import com.rescuereach.service.auth.UserSessionManager;
+import com.rescuereach.service.location.LiveTrackStreamer;
 import com.rescuereach.service.notification.NotificationService;
 import com.rescuereach.service.notification.NotificationTemplates;
+import com.rescuereach.util.AppExecutors;
 import com.rescuereach.util.PermissionManager;
 import com.rescuereach.util.ToastUtil;
 
@@ -47,8 +49,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -70,10 +72,10 @@ public class SOSProcessingService {
 
     private final Context context;
     private final SOSRepository sosRepository;
-    private final NotificationService notificationService;
     private final UserSessionManager sessionManager;
     private final Executor backgroundExecutor;
     private final Handler mainHandler;
+    private final SOSOutbox sosOutbox;
 
     // Constants for SMS messages
     private static final int MAX_SMS_LENGTH = 160;
@@ -88,11 +90,10 @@ public class SOSProcessingService {
     public SOSProcessingService(Context context) {
         this.context = context.getApplicationContext();
         this.sosRepository = RepositoryProvider.getSOSRepository();
-        this.notificationService = ((RescueReachApplication) context.getApplicationContext())
-                .getNotificationService();
         this.sessionManager = UserSessionManager.getInstance(context);
-        this.backgroundExecutor = Executors.newSingleThreadExecutor();
+        this.backgroundExecutor = AppExecutors.getInstance().sosCritical();
         this.mainHandler = new Handler(Looper.getMainLooper());
+        this.sosOutbox = new SOSOutbox(context);
     }
 
     /**
@@ -116,6 +117,11 @@ public class SOSProcessingService {
             report.setReportId("sos_" + System.currentTimeMillis());
         }
 
+        // One idempotency key per SOS, shared by every retry and the offline fallback copy
+        if (report.getIdempotencyKey() == null || report.getIdempotencyKey().isEmpty()) {
+            report.setIdempotencyKey(UUID.randomUUID().toString());
+        }
+
         // Create a local notification immediately to reassure user
         createLocalNotification(report, "Emergency Reported",
                 "Processing your " + report.getEmergencyType() + " emergency report");
@@ -231,6 +237,9 @@ public class SOSProcessingService {
 
                     Log.d(TAG, "SOS report saved with ID: " + savedReport.getReportId());
 
+                    // Responders can follow the user from here on
+                    LiveTrackStreamer.getInstance(context).start(savedReport.getReportId());
+
                     // Send SMS messages in parallel
                     final AtomicBoolean smsSent = new AtomicBoolean(false);
                     backgroundExecutor.execute(() -> {
@@ -272,6 +281,8 @@ public class SOSProcessingService {
                     try {
                         Log.d(TAG, "SOS report saved with ID: " + savedReport.getReportId());
 
+                        LiveTrackStreamer.getInstance(context).start(savedReport.getReportId());
+
                         // Send notifications on background thread
                         backgroundExecutor.execute(() -> {
                             try {
@@ -327,13 +338,16 @@ public class SOSProcessingService {
         SOSReport fallback = new SOSReport();
 
         // Copy all fields needed for offline processing
+        // Keep the same ID and idempotency key so a later sync can't create a duplicate SOS
+        fallback.setReportId(original.getReportId());
+        fallback.setIdempotencyKey(original.getIdempotencyKey());
         fallback.setUserId(original.getUserId());
         fallback.setEmergencyType(original.getEmergencyType());
         fallback.setLocation(original.getLocation());
         fallback.setAddress(original.getAddress());
         fallback.setCity(original.getCity());
         fallback.setState(original.getState());
-        fallback.setTimestamp(new Date());
+        fallback.setTimestamp(original.getTimestamp() != null ? original.getTimestamp() : new Date());
         fallback.setStatus(SOSReport.STATUS_PENDING);
         fallback.setEmergencyContactNumbers(original.getEmergencyContactNumbers());
         fallback.setOnline(false);  // Mark this as offline for processing
@@ -373,6 +387,8 @@ public class SOSProcessingService {
             // Update only specific fields instead of the whole document
             reportRef.update(updates)
                     .addOnSuccessListener(aVoid -> {
+                        LiveTrackStreamer.getInstance(context).stop(reportId);
+
                         // Success - also remove from active emergencies
                         try {
                             FirebaseDatabase.getInstance()
@@ -557,11 +573,19 @@ public class SOSProcessingService {
         });
     }
 
+    /**
+     * Looked up when needed rather than in the constructor, so creating this service doesn't
+     * pull OneSignal initialisation onto the startup path
+     */
+    private NotificationService getNotificationService() {
+        return ((RescueReachApplication) context).getNotificationService();
+    }
+
     /**
      * Send emergency notifications to responders
      */
     private void sendEmergencyNotifications(final SOSReport report) {
-        if (notificationService == null) {
+        if (getNotificationService() == null) {
             Log.e(TAG, "Cannot send notifications: NotificationService is null");
             return;
         }
@@ -873,10 +897,13 @@ public class SOSProcessingService {
      * Cache report for later synchronization when back online
      */
     private void cacheReportForLaterSync(final SOSReport report) {
-        // TODO: Implement caching using Room database for offline persistence
-        // This would allow the app to sync reports when back online
-        // For now, we'll just log that this would happen
-        Log.d(TAG, "Would cache SOS report for later sync: " + report.getReportId());
+        // Room must not be touched on the main thread
+        backgroundExecutor.execute(() -> {
+            report.setOnline(false);
+            if (!sosOutbox.enqueue(report)) {
+                Log.e(TAG, "Failed to cache SOS report for later sync: " + report.getReportId());
+            }
+        });
     }
 
     /**
@@ -924,6 +951,11 @@ public class SOSProcessingService {
                                     // Continue anyway since it succeeded
                                 }
 
+                                if (SOSReport.STATUS_RESOLVED.equals(newStatus) ||
+                                        SOSReport.STATUS_CANCELED.equals(newStatus)) {
+                                    LiveTrackStreamer.getInstance(context).stop(reportId);
+                                }
+
                                 // Get updated report to send status notification
                                 getReportWithTimeout(reportId, new SOSRepository.OnReportFetchedListener() {
                                     @Override
@@ -1036,7 +1068,7 @@ public class SOSProcessingService {
      * Send status update notification to the user who reported the emergency
      */
     private void sendStatusUpdateNotification(final SOSReport report) {
-        if (report == null || notificationService == null) {
+        if (report == null || getNotificationService() == null) {
             Log.e(TAG, "Cannot send status notification: Report or NotificationService is null");
             return;
         }
@@ -0,0 +1,402 @@
+package com.rescuereach.ui.map;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.Log;
+import android.view.Choreographer;
+
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.BitmapDescriptor;
+import com.google.android.gms.maps.model.BitmapDescriptorFactory;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+import com.google.android.gms.maps.model.Marker;
+import com.google.android.gms.maps.model.MarkerOptions;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps a map's markers in sync with a list of items keyed by a stable ID.
+ * Each {@link #setItems} call is diffed against what is on the map: only removed items are
+ * removed, only changed items are updated in place, and only new items are added. The work is
+ * spread over frames so a large change never blocks the main thread for more than a few ms.
+ * <p>
+ * With clustering on, items that fall in the same screen grid cell at the current zoom are
+ * drawn as one count marker. Clusters are recomputed when the zoom level changes.
+ * <p>
+ * Main thread only.
+ */
+public class MarkerDiffRenderer {
+    private static final String TAG = "MarkerDiffRenderer";
+
+    // Marker work allowed per frame, leaves room for the map's own drawing
+    private static final long FRAME_BUDGET_NANOS = 4_000_000L;
+
+    private static final int CLUSTER_CELL_DP = 64;
+    private static final int CLUSTER_ICON_DP = 40;
+    private static final int MIN_CLUSTER_SIZE = 3;
+    private static final float CLUSTER_Z_INDEX = 0.6f;
+
+    private static final String CLUSTER_KEY_PREFIX = "cluster:";
+
+    private final GoogleMap map;
+    private final Choreographer choreographer = Choreographer.getInstance();
+    private final float density;
+
+    // Markers on the map, by item key
+    private final Map<String, Rendered> rendered = new HashMap<>();
+    private final ArrayDeque<Runnable> pendingOps = new ArrayDeque<>();
+    private final Map<String, BitmapDescriptor> clusterIcons = new HashMap<>();
+
+    private List<Item> sourceItems = Collections.emptyList();
+    private boolean clusteringEnabled;
+    private int clusteredZoom = -1;
+    private boolean frameScheduled;
+
+    private final Choreographer.FrameCallback frameCallback = frameTimeNanos -> {
+        frameScheduled = false;
+        drainOps();
+    };
+
+    /**
+     * One marker to show
+     */
+    public static final class Item {
+        final String key;
+        final LatLng position;
+        final String title;
+        final String snippet;
+        final float hue;
+        final float zIndex;
+        final Object tag;
+
+        /**
+         * @param key Stable ID, e.g. the place ID
+         * @param tag Attached to the marker, see {@link Marker#getTag()}
+         */
+        public Item(String key, LatLng position, String title, String snippet,
+                    float hue, float zIndex, Object tag) {
+            this.key = key;
+            this.position = position;
+            this.title = title;
+            this.snippet = snippet;
+            this.hue = hue;
+            this.zIndex = zIndex;
+            this.tag = tag;
+        }
+    }
+
+    public MarkerDiffRenderer(Context context, GoogleMap map) {
+        this.map = map;
+        this.density = context.getResources().getDisplayMetrics().density;
+    }
+
+    /**
+     * Show exactly these items. Markers for unchanged items are left alone.
+     * @param items Items to show, earlier items are added first
+     * @param clustered Group nearby markers into count markers, useful for wide search radii
+     */
+    public void setItems(List<Item> items, boolean clustered) {
+        sourceItems = new ArrayList<>(items);
+        clusteringEnabled = clustered;
+        render();
+    }
+
+    /**
+     * Call from the map's camera idle listener, re-clusters when the zoom level changed
+     */
+    public void onCameraIdle() {
+        if (clusteringEnabled && currentZoom() != clusteredZoom) {
+            render();
+        }
+    }
+
+    /**
+     * @return true if the marker stands for several items
+     */
+    public boolean isCluster(Marker marker) {
+        return marker.getTag() instanceof Cluster;
+    }
+
+    /**
+     * Bounds of the items in a cluster marker, or null if it isn't one
+     */
+    public LatLngBounds getClusterBounds(Marker marker) {
+        if (!(marker.getTag() instanceof Cluster)) {
+            return null;
+        }
+        LatLngBounds.Builder bounds = LatLngBounds.builder();
+        for (Item item : ((Cluster) marker.getTag()).items) {
+            bounds.include(item.position);
+        }
+        return bounds.build();
+    }
+
+    /**
+     * Drop queued marker work, e.g. before the map is destroyed
+     */
+    public void cancelPending() {
+        pendingOps.clear();
+        if (frameScheduled) {
+            choreographer.removeFrameCallback(frameCallback);
+            frameScheduled = false;
+        }
+    }
+
+    /**
+     * Remove every marker this renderer added
+     */
+    public void clear() {
+        sourceItems = Collections.emptyList();
+        cancelPending();
+        for (Rendered entry : rendered.values()) {
+            entry.marker.remove();
+        }
+        rendered.clear();
+    }
+
+    private void render() {
+        List<Item> target = clusteringEnabled ? cluster(sourceItems) : sourceItems;
+
+        // Any queued ops came from an older diff, rebuild the queue against what's on the map now
+        pendingOps.clear();
+
+        Map<String, Item> wanted = new LinkedHashMap<>();
+        for (Item item : target) {
+            wanted.put(item.key, item);
+        }
+
+        int removes = 0, updates = 0, adds = 0;
+        for (Map.Entry<String, Rendered> entry : rendered.entrySet()) {
+            if (!wanted.containsKey(entry.getKey())) {
+                String key = entry.getKey();
+                pendingOps.add(() -> remove(key));
+                removes++;
+            }
+        }
+        for (Item item : wanted.values()) {
+            Rendered existing = rendered.get(item.key);
+            if (existing == null) {
+                pendingOps.add(() -> add(item));
+                adds++;
+            } else if (!sameContent(existing.item, item)) {
+                pendingOps.add(() -> update(item));
+                updates++;
+            } else {
+                // Nothing to redraw, but the caller's data may be a new object
+                existing.item = item;
+                existing.marker.setTag(item.tag);
+            }
+        }
+
+        Log.d(TAG, "Marker diff: " + removes + " removed, " + updates + " updated, " +
+                adds + " added, " + (wanted.size() - updates - adds) + " unchanged");
+        drainOps();
+    }
+
+    private void drainOps() {
+        long deadline = System.nanoTime() + FRAME_BUDGET_NANOS;
+        // Always make progress, even if one op overruns the budget
+        do {
+            Runnable op = pendingOps.pollFirst();
+            if (op == null) {
+                return;
+            }
+            op.run();
+        } while (System.nanoTime() < deadline);
+
+        if (!pendingOps.isEmpty() && !frameScheduled) {
+            frameScheduled = true;
+            choreographer.postFrameCallback(frameCallback);
+        }
+    }
+
+    private void add(Item item) {
+        Marker marker = map.addMarker(new MarkerOptions()
+                .position(item.position)
+                .title(item.title)
+                .snippet(item.snippet)
+                .icon(iconFor(item))
+                .zIndex(item.zIndex));
+        if (marker != null) {
+            marker.setTag(item.tag);
+            rendered.put(item.key, new Rendered(item, marker));
+        }
+    }
+
+    private void update(Item item) {
+        Rendered existing = rendered.get(item.key);
+        if (existing == null) {
+            add(item);
+            return;
+        }
+
+        Item old = existing.item;
+        Marker marker = existing.marker;
+        if (!old.position.equals(item.position)) {
+            marker.setPosition(item.position);
+        }
+        if (!Objects.equals(old.title, item.title)) {
+            marker.setTitle(item.title);
+        }
+        if (!Objects.equals(old.snippet, item.snippet)) {
+            marker.setSnippet(item.snippet);
+        }
+        if (!iconKey(old).equals(iconKey(item))) {
+            marker.setIcon(iconFor(item));
+        }
+        if (old.zIndex != item.zIndex) {
+            marker.setZIndex(item.zIndex);
+        }
+        marker.setTag(item.tag);
+        existing.item = item;
+
+        // An open info window doesn't pick up new text by itself
+        if (marker.isInfoWindowShown()) {
+            marker.showInfoWindow();
+        }
+    }
+
+    private void remove(String key) {
+        Rendered existing = rendered.remove(key);
+        if (existing != null) {
+            existing.marker.remove();
+        }
+    }
+
+    private static boolean sameContent(Item a, Item b) {
+        return a.position.equals(b.position) &&
+                Objects.equals(a.title, b.title) &&
+                Objects.equals(a.snippet, b.snippet) &&
+                a.zIndex == b.zIndex &&
+                iconKey(a).equals(iconKey(b));
+    }
+
+    private static String iconKey(Item item) {
+        if (item.tag instanceof Cluster) {
+            return "cluster:" + clusterLabel(((Cluster) item.tag).items.size()) + "/" + item.hue;
+        }
+        return "hue:" + item.hue;
+    }
+
+    private static String clusterLabel(int count) {
+        return count < 10 ? String.valueOf(count) : count < 50 ? "10+" : "50+";
+    }
+
+    private BitmapDescriptor iconFor(Item item) {
+        if (!(item.tag instanceof Cluster)) {
+            return BitmapDescriptorFactory.defaultMarker(item.hue);
+        }
+
+        String cacheKey = iconKey(item);
+        BitmapDescriptor icon = clusterIcons.get(cacheKey);
+        if (icon == null) {
+            icon = drawClusterIcon(clusterLabel(((Cluster) item.tag).items.size()), item.hue);
+            clusterIcons.put(cacheKey, icon);
+        }
+        return icon;
+    }
+
+    private int currentZoom() {
+        return (int) Math.floor(map.getCameraPosition().zoom);
+    }
+
+    /**
+     * Grid clustering in world pixel coordinates at the current zoom level
+     */
+    private List<Item> cluster(List<Item> items) {
+        int zoom = currentZoom();
+        clusteredZoom = zoom;
+        double worldSize = 256 * Math.pow(2, zoom) * density;
+        double cellSize = CLUSTER_CELL_DP * density;
+
+        Map<String, List<Item>> cells = new LinkedHashMap<>();
+        for (Item item : items) {
+            double x = (item.position.longitude + 180) / 360 * worldSize;
+            double sinLat = Math.sin(Math.toRadians(item.position.latitude));
+            double y = (0.5 - Math.log((1 + sinLat) / (1 - sinLat)) / (4 * Math.PI)) * worldSize;
+            String cell = (long) Math.floor(x / cellSize) + ":" + (long) Math.floor(y / cellSize);
+            List<Item> members = cells.get(cell);
+            if (members == null) {
+                members = new ArrayList<>();
+                cells.put(cell, members);
+            }
+            members.add(item);
+        }
+
+        List<Item> result = new ArrayList<>();
+        for (Map.Entry<String, List<Item>> cell : cells.entrySet()) {
+            List<Item> members = cell.getValue();
+            if (members.size() < MIN_CLUSTER_SIZE) {
+                result.addAll(members);
+                continue;
+            }
+
+            double lat = 0, lng = 0;
+            float hue = members.get(0).hue;
+            boolean sameHue = true;
+            for (Item member : members) {
+                lat += member.position.latitude;
+                lng += member.position.longitude;
+                sameHue &= member.hue == hue;
+            }
+            // Keyed by cell and zoom, so the same cluster survives a data refresh
+            result.add(new Item(CLUSTER_KEY_PREFIX + zoom + ":" + cell.getKey(),
+                    new LatLng(lat / members.size(), lng / members.size()),
+                    null, null, sameHue ? hue : -1, CLUSTER_Z_INDEX, new Cluster(members)));
+        }
+        return result;
+    }
+
+    private BitmapDescriptor drawClusterIcon(String label, float hue) {
+        int size = Math.round(CLUSTER_ICON_DP * density);
+        Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+
+        // Mixed service types get a neutral color
+        Paint fill = new Paint(Paint.ANTI_ALIAS_FLAG);
+        fill.setColor(hue >= 0 ? Color.HSVToColor(new float[]{hue, 0.8f, 0.85f}) : Color.DKGRAY);
+        Paint ring = new Paint(Paint.ANTI_ALIAS_FLAG);
+        ring.setColor(Color.WHITE);
+        canvas.drawCircle(size / 2f, size / 2f, size / 2f, ring);
+        canvas.drawCircle(size / 2f, size / 2f, size / 2f - 2 * density, fill);
+
+        Paint text = new Paint(Paint.ANTI_ALIAS_FLAG);
+        text.setColor(Color.WHITE);
+        text.setTextSize(14 * density);
+        text.setTextAlign(Paint.Align.CENTER);
+        text.setFakeBoldText(true);
+        float baseline = size / 2f - (text.descent() + text.ascent()) / 2;
+        canvas.drawText(label, size / 2f, baseline, text);
+
+        return BitmapDescriptorFactory.fromBitmap(bitmap);
+    }
+
+    private static class Rendered {
+        Item item;
+        final Marker marker;
+
+        Rendered(Item item, Marker marker) {
+            this.item = item;
+            this.marker = marker;
+        }
+    }
+
+    private static class Cluster {
+        final List<Item> items;
+
+        Cluster(List<Item> items) {
+            this.items = items;
+        }
+    }
+}
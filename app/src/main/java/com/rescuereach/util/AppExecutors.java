@@ -0,0 +1,246 @@
+package com.rescuereach.util;
+
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * App-wide background scheduler with separate, bounded lanes.
+ * Each lane has its own threads and queue, so SOS work never waits behind
+ * profile saves, geocoding or map searches.
+ */
+public final class AppExecutors {
+    private static final String TAG = "AppExecutors";
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    /**
+     * Work categories, in priority order. When a lane is full and the main thread submits,
+     * UI_PREP drops its oldest task, the others hand the task to the overflow thread. So UI_PREP
+     * only takes work the next request redoes anyway, never writes, Room or SOS status.
+     */
+    public enum Lane {
+        // SOS submission, status changes, SMS fallback. Mostly waits on the network, so above
+        // the other lanes but below the threads that draw frames.
+        SOS_CRITICAL(2, 64, Process.THREAD_PRIORITY_FOREGROUND, false),
+        // Firestore/RTDB calls, Room, preferences
+        IO(3, 128, Process.THREAD_PRIORITY_BACKGROUND, false),
+        // Blocking Geocoder and Places lookups, SOS addresses among them
+        GEOCODING(2, 32, Process.THREAD_PRIORITY_BACKGROUND, false),
+        // Preparing data for the UI (filtering, sorting, status checks), newer requests supersede it
+        UI_PREP(2, 64, Process.THREAD_PRIORITY_DEFAULT, true);
+
+        final int threads;
+        final int queueCapacity;
+        final int threadPriority;
+        final boolean dropOldestWhenFull;
+
+        Lane(int threads, int queueCapacity, int threadPriority, boolean dropOldestWhenFull) {
+            this.threads = threads;
+            this.queueCapacity = queueCapacity;
+            this.threadPriority = threadPriority;
+            this.dropOldestWhenFull = dropOldestWhenFull;
+        }
+    }
+
+    private static volatile AppExecutors instance;
+
+    private final Map<Lane, LaneExecutor> lanes = new EnumMap<>(Lane.class);
+    // Takes tasks the main thread submits to a full lane, the main thread never runs them
+    private final ThreadPoolExecutor overflow;
+
+    private AppExecutors() {
+        overflow = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> new Thread(runnable, "rr-overflow"));
+        overflow.allowCoreThreadTimeOut(true);
+        for (Lane lane : Lane.values()) {
+            lanes.put(lane, new LaneExecutor(lane, overflow));
+        }
+    }
+
+    /**
+     * Get the shared scheduler
+     * @return AppExecutors instance
+     */
+    public static AppExecutors getInstance() {
+        if (instance == null) {
+            synchronized (AppExecutors.class) {
+                if (instance == null) {
+                    instance = new AppExecutors();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Get the executor for a lane
+     * @param lane The lane to run on
+     * @return Executor for that lane
+     */
+    public Executor lane(Lane lane) {
+        return lanes.get(lane);
+    }
+
+    public Executor sosCritical() {
+        return lane(Lane.SOS_CRITICAL);
+    }
+
+    public Executor io() {
+        return lane(Lane.IO);
+    }
+
+    public Executor geocoding() {
+        return lane(Lane.GEOCODING);
+    }
+
+    public Executor uiPrep() {
+        return lane(Lane.UI_PREP);
+    }
+
+    /**
+     * Create an executor that runs tasks one at a time, in submission order, on a lane.
+     * For callers that relied on a private single-thread executor for ordering.
+     * @param lane The lane to run on
+     * @return A new serial executor
+     */
+    public Executor newSerialExecutor(Lane lane) {
+        return new SerialExecutor(lane(lane));
+    }
+
+    /**
+     * Current number of tasks waiting in a lane
+     */
+    public int getQueueDepth(Lane lane) {
+        return lanes.get(lane).pool.getQueue().size();
+    }
+
+    /**
+     * Snapshot of queue depth and wait time metrics for all lanes
+     * @return Human readable summary, one line per lane
+     */
+    public String getStats() {
+        StringBuilder builder = new StringBuilder();
+        for (LaneExecutor executor : lanes.values()) {
+            builder.append(executor.describe()).append('\n');
+        }
+        builder.append("overflow: queued=").append(overflow.getQueue().size()).append('\n');
+        return builder.toString();
+    }
+
+    /**
+     * Bounded pool for a single lane that records how long tasks wait before they start
+     */
+    private static class LaneExecutor implements Executor {
+        private final Lane lane;
+        private final ThreadPoolExecutor pool;
+
+        private final AtomicLong executed = new AtomicLong();
+        private final AtomicLong totalWaitMillis = new AtomicLong();
+        private final AtomicLong maxWaitMillis = new AtomicLong();
+        private final AtomicInteger maxQueueDepth = new AtomicInteger();
+        private final LaneOverflowPolicy overflowPolicy;
+
+        LaneExecutor(Lane lane, Executor overflow) {
+            this.lane = lane;
+            this.overflowPolicy = new LaneOverflowPolicy(lane.dropOldestWhenFull,
+                    () -> Looper.myLooper() == Looper.getMainLooper(), overflow,
+                    outcome -> Log.w(TAG, lane + " lane is full on " +
+                            Thread.currentThread().getName() + ", " + outcome));
+            this.pool = new ThreadPoolExecutor(lane.threads, lane.threads,
+                    KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(lane.queueCapacity),
+                    new LaneThreadFactory(lane),
+                    overflowPolicy);
+            pool.allowCoreThreadTimeOut(true);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            final long enqueuedAt = System.nanoTime();
+            pool.execute(() -> {
+                long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - enqueuedAt);
+                executed.incrementAndGet();
+                totalWaitMillis.addAndGet(waited);
+                maxWaitMillis.accumulateAndGet(waited, Math::max);
+                command.run();
+            });
+            maxQueueDepth.accumulateAndGet(pool.getQueue().size(), Math::max);
+        }
+
+        String describe() {
+            long count = executed.get();
+            long avgWait = count > 0 ? totalWaitMillis.get() / count : 0;
+            return lane + ": active=" + pool.getActiveCount() +
+                    " queued=" + pool.getQueue().size() +
+                    " maxQueued=" + maxQueueDepth.get() +
+                    " executed=" + count +
+                    " avgWaitMs=" + avgWait +
+                    " maxWaitMs=" + maxWaitMillis.get() +
+                    " " + overflowPolicy.getStats();
+        }
+    }
+
+    /**
+     * Serialises tasks on top of a shared lane without holding a thread while idle
+     */
+    private static class SerialExecutor implements Executor {
+        private final Executor delegate;
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private Runnable active;
+
+        SerialExecutor(Executor delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public synchronized void execute(Runnable command) {
+            tasks.offer(() -> {
+                try {
+                    command.run();
+                } finally {
+                    scheduleNext();
+                }
+            });
+            if (active == null) {
+                scheduleNext();
+            }
+        }
+
+        private synchronized void scheduleNext() {
+            if ((active = tasks.poll()) != null) {
+                delegate.execute(active);
+            }
+        }
+    }
+
+    private static class LaneThreadFactory implements ThreadFactory {
+        private final Lane lane;
+        private final AtomicInteger count = new AtomicInteger();
+
+        LaneThreadFactory(Lane lane) {
+            this.lane = lane;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            String name = "rr-" + lane.name().toLowerCase() + "-" + count.incrementAndGet();
+            return new Thread(() -> {
+                Process.setThreadPriority(lane.threadPriority);
+                runnable.run();
+            }, name);
+        }
+    }
+}
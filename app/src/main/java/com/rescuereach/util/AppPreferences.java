@@ -0,0 +1,163 @@
+package com.rescuereach.util;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.ProcessLifecycleOwner;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * The app's {@link PreferenceStore}s and the keys kept in the main one. Store work runs on one
+ * shared background thread. On first start the values SharedPreferencesManager kept in the
+ * RescueReachPrefs file are moved over, and that file is cleared once they're written. The
+ * session store does the same with RescueReachSession.
+ */
+public final class AppPreferences {
+    private static final String TAG = "AppPreferences";
+
+    private static final String FILE_NAME = "app_preferences.bin";
+    private static final String LEGACY_PREFS_NAME = "RescueReachPrefs";
+    private static final String SESSION_FILE_NAME = "session.bin";
+    private static final String LEGACY_SESSION_PREFS_NAME = "RescueReachSession";
+
+    // SOS state of the home screen
+    public static final PreferenceKey<String> ACTIVE_SOS_REPORT_ID =
+            PreferenceKey.stringKey("active_sos_report_id");
+    public static final PreferenceKey<Boolean> SOS_DIALOG_MINIMIZED =
+            PreferenceKey.booleanKey("sos_dialog_minimized");
+    public static final PreferenceKey<Boolean> HAS_ACTIVE_SOS =
+            PreferenceKey.booleanKey("has_active_sos");
+
+    private static volatile PreferenceStore instance;
+    private static volatile PreferenceStore sessionInstance;
+    // Guarded by AppPreferences.class
+    private static Handler handler;
+
+    private AppPreferences() {
+        // Utility class
+    }
+
+    /**
+     * Get the shared store. The first call starts loading it in the background.
+     * @param context Any context
+     * @return PreferenceStore instance
+     */
+    public static PreferenceStore get(Context context) {
+        if (instance == null) {
+            synchronized (AppPreferences.class) {
+                if (instance == null) {
+                    instance = create(context.getApplicationContext(), FILE_NAME, LEGACY_PREFS_NAME);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Get the store {@link com.rescuereach.service.auth.UserSessionManager} keeps the session in
+     * @param context Any context
+     * @return PreferenceStore instance
+     */
+    public static PreferenceStore getSession(Context context) {
+        if (sessionInstance == null) {
+            synchronized (AppPreferences.class) {
+                if (sessionInstance == null) {
+                    sessionInstance = create(context.getApplicationContext(), SESSION_FILE_NAME,
+                            LEGACY_SESSION_PREFS_NAME);
+                }
+            }
+        }
+        return sessionInstance;
+    }
+
+    /**
+     * Write whatever is still waiting for its window as soon as the app goes to the background,
+     * where the process can be killed without warning. Call on the main thread.
+     */
+    public static void flushWhenBackgrounded() {
+        ProcessLifecycleOwner.get().getLifecycle().addObserver(new DefaultLifecycleObserver() {
+            @Override
+            public void onStop(@NonNull LifecycleOwner owner) {
+                flushSoon(instance);
+                flushSoon(sessionInstance);
+            }
+        });
+    }
+
+    private static void flushSoon(PreferenceStore store) {
+        if (store != null) {
+            store.flushSoon();
+        }
+    }
+
+    /**
+     * Write counts for diagnostics
+     */
+    public static String getStats() {
+        return "app: " + getStats(instance) + ", session: " + getStats(sessionInstance);
+    }
+
+    private static String getStats(PreferenceStore store) {
+        return store != null ? store.getStats() : "not created";
+    }
+
+    // Called holding AppPreferences.class
+    private static PreferenceStore create(Context context, String fileName, String legacyPrefsName) {
+        if (handler == null) {
+            HandlerThread thread = new HandlerThread("PreferenceStore", Process.THREAD_PRIORITY_BACKGROUND);
+            thread.start();
+            handler = new Handler(thread.getLooper());
+        }
+
+        PreferenceStore.Storage file = new PreferenceStore.FileStorage(
+                new File(context.getFilesDir(), fileName));
+        PreferenceStore.Storage storage = new PreferenceStore.Storage() {
+            @Override
+            public Map<String, Object> read() throws IOException {
+                try {
+                    return file.read();
+                } catch (IOException e) {
+                    Log.e(TAG, "Error reading " + fileName + ", starting empty", e);
+                    throw e;
+                }
+            }
+
+            @Override
+            public long write(Map<String, Object> values) throws IOException {
+                try {
+                    return file.write(values);
+                } catch (IOException e) {
+                    Log.e(TAG, "Error writing " + fileName + ", will retry", e);
+                    throw e;
+                }
+            }
+        };
+
+        SharedPreferences legacy = context.getSharedPreferences(legacyPrefsName, Context.MODE_PRIVATE);
+        PreferenceStore.Migration migration = new PreferenceStore.Migration() {
+            @Override
+            public Map<String, ?> read() {
+                return legacy.getAll();
+            }
+
+            @Override
+            public void onMigrated() {
+                legacy.edit().clear().apply();
+                Log.d(TAG, "Moved " + legacyPrefsName + " into " + fileName);
+            }
+        };
+
+        return new PreferenceStore(handler::postDelayed, storage, migration,
+                PreferenceStore.DEFAULT_COALESCE_MILLIS);
+    }
+}
@@ -0,0 +1,64 @@
+package com.rescuereach.util;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.GeoPoint;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estimates the encoded size of Firestore field data, following the documented
+ * storage size rules (string = UTF-8 bytes + 1, number/date = 8, geopoint = 16, ...).
+ * Used to compare the payload of different write strategies.
+ */
+public final class FirestorePayloadSize {
+
+    private FirestorePayloadSize() {
+        // Utility class
+    }
+
+    /**
+     * Estimate the size in bytes of a field value (maps and lists are summed recursively)
+     * @param value Field value, may be null
+     * @return Estimated size in bytes
+     */
+    public static long estimate(Object value) {
+        if (value == null || value instanceof Boolean) {
+            return 1;
+        }
+        if (value instanceof String) {
+            return stringSize((String) value);
+        }
+        if (value instanceof Number || value instanceof Date || value instanceof Timestamp) {
+            return 8;
+        }
+        if (value instanceof GeoPoint) {
+            return 16;
+        }
+        if (value instanceof byte[]) {
+            return ((byte[]) value).length;
+        }
+        if (value instanceof Map) {
+            long size = 0;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                size += stringSize(String.valueOf(entry.getKey())) + estimate(entry.getValue());
+            }
+            return size;
+        }
+        if (value instanceof List) {
+            long size = 0;
+            for (Object item : (List<?>) value) {
+                size += estimate(item);
+            }
+            return size;
+        }
+        // Sentinels like FieldValue.serverTimestamp() resolve to a fixed-size value on the server
+        return 8;
+    }
+
+    private static long stringSize(String value) {
+        return value.getBytes(StandardCharsets.UTF_8).length + 1;
+    }
+}
@@ -0,0 +1,177 @@
+package com.rescuereach.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Geohash encoding for spatial cache keys and prefix queries.
+ * Points in the same cell share a key, and nearby cells share a key prefix.
+ */
+public final class GeoHash {
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+
+    // Sorts after every base32 character, so [prefix, prefix + "~") covers all keys with that prefix
+    public static final String PREFIX_RANGE_END = "~";
+
+    // Stored on documents for proximity queries, roughly 5m x 5m
+    public static final int QUERY_PRECISION = 9;
+
+    private static final double METERS_PER_DEGREE_LATITUDE = 111320.0;
+
+    private GeoHash() {
+        // Utility class
+    }
+
+    /**
+     * Encode a coordinate
+     * @param latitude Latitude in degrees
+     * @param longitude Longitude in degrees
+     * @param precision Number of characters (8 is roughly 38m x 19m, 6 roughly 1.2km x 0.6km)
+     * @return Geohash string
+     */
+    public static String encode(double latitude, double longitude, int precision) {
+        double minLat = -90, maxLat = 90;
+        double minLng = -180, maxLng = 180;
+
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true;
+        int bit = 0;
+        int index = 0;
+
+        while (hash.length() < precision) {
+            if (evenBit) {
+                double mid = (minLng + maxLng) / 2;
+                if (longitude >= mid) {
+                    index = (index << 1) | 1;
+                    minLng = mid;
+                } else {
+                    index = index << 1;
+                    maxLng = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    index = (index << 1) | 1;
+                    minLat = mid;
+                } else {
+                    index = index << 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+
+            if (++bit == 5) {
+                hash.append(BASE32.charAt(index));
+                bit = 0;
+                index = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    /**
+     * Decode a geohash to the bounds of its cell
+     * @param geohash Geohash string
+     * @return {minLat, minLng, maxLat, maxLng}
+     */
+    public static double[] decodeBounds(String geohash) {
+        double minLat = -90, maxLat = 90;
+        double minLng = -180, maxLng = 180;
+        boolean evenBit = true;
+
+        for (int i = 0; i < geohash.length(); i++) {
+            int index = BASE32.indexOf(geohash.charAt(i));
+            if (index < 0) {
+                throw new IllegalArgumentException("Invalid geohash: " + geohash);
+            }
+            for (int bit = 4; bit >= 0; bit--) {
+                int bitValue = (index >> bit) & 1;
+                if (evenBit) {
+                    double mid = (minLng + maxLng) / 2;
+                    if (bitValue == 1) {
+                        minLng = mid;
+                    } else {
+                        maxLng = mid;
+                    }
+                } else {
+                    double mid = (minLat + maxLat) / 2;
+                    if (bitValue == 1) {
+                        minLat = mid;
+                    } else {
+                        maxLat = mid;
+                    }
+                }
+                evenBit = !evenBit;
+            }
+        }
+        return new double[]{minLat, minLng, maxLat, maxLng};
+    }
+
+    /**
+     * Prefixes whose cells together cover a circle, for prefix range scans.
+     * The longest prefix whose cells are at least the radius across is used, so the circle
+     * touches at most 3x3 cells and the result has at most 9 entries, usually fewer.
+     * @param latitude Centre latitude
+     * @param longitude Centre longitude
+     * @param radiusMeters Radius of the circle
+     * @return Distinct prefixes, a single empty prefix if the circle is larger than any cell
+     */
+    public static List<String> coveringPrefixes(double latitude, double longitude, double radiusMeters) {
+        List<String> prefixes = new ArrayList<>(9);
+        int precision = precisionForRadius(latitude, radiusMeters);
+        if (precision == 0) {
+            prefixes.add("");
+            return prefixes;
+        }
+
+        // A cell is at least the radius across, so sampling the centre and the bounding box
+        // corners and edge midpoints hits every cell the circle can touch
+        double latitudeOffset = radiusMeters / METERS_PER_DEGREE_LATITUDE;
+        double longitudeOffset = radiusMeters / metersPerDegreeLongitude(latitude);
+        for (int latStep = -1; latStep <= 1; latStep++) {
+            for (int lngStep = -1; lngStep <= 1; lngStep++) {
+                double sampleLat = Math.max(-90, Math.min(90, latitude + latStep * latitudeOffset));
+                double sampleLng = wrapLongitude(longitude + lngStep * longitudeOffset);
+                String prefix = encode(sampleLat, sampleLng, precision);
+                if (!prefixes.contains(prefix)) {
+                    prefixes.add(prefix);
+                }
+            }
+        }
+        return prefixes;
+    }
+
+    /**
+     * Longest precision, up to {@link #QUERY_PRECISION}, whose cells are at least the radius
+     * across in both directions at this latitude, 0 if even single characters are too small
+     */
+    static int precisionForRadius(double latitude, double radiusMeters) {
+        for (int precision = QUERY_PRECISION; precision >= 1; precision--) {
+            int bits = precision * 5;
+            int longitudeBits = (bits + 1) / 2;
+            int latitudeBits = bits / 2;
+            double heightMeters = 180.0 / (1L << latitudeBits) * METERS_PER_DEGREE_LATITUDE;
+            double widthMeters = 360.0 / (1L << longitudeBits) * metersPerDegreeLongitude(latitude);
+            if (heightMeters >= radiusMeters && widthMeters >= radiusMeters) {
+                return precision;
+            }
+        }
+        return 0;
+    }
+
+    private static double metersPerDegreeLongitude(double latitude) {
+        // Floor near the poles, where the cells get too thin to be worth prefix scans anyway
+        return METERS_PER_DEGREE_LATITUDE * Math.max(Math.cos(Math.toRadians(latitude)), 0.01);
+    }
+
+    private static double wrapLongitude(double longitude) {
+        if (longitude >= 180) {
+            return longitude - 360;
+        }
+        if (longitude < -180) {
+            return longitude + 360;
+        }
+        return longitude;
+    }
+}
@@ -0,0 +1,245 @@
+package com.rescuereach.util;
+
+import android.content.Context;
+import android.location.Address;
+import android.location.Geocoder;
+import android.location.Location;
+import android.util.Log;
+import android.util.LruCache;
+
+import com.rescuereach.data.local.AppDatabase;
+import com.rescuereach.data.local.GeocodeCacheDao;
+import com.rescuereach.data.local.GeocodeCacheEntry;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persistent reverse-geocoding cache shared by every address lookup in the app.
+ * Addresses are stored per geohash cell, so fixes a few metres apart resolve without a
+ * Geocoder round-trip. When the Geocoder is unreachable the closest cached address is
+ * returned, even if it is past its TTL, so an SOS raised offline still gets an address.
+ * All lookups block and must run off the main thread (use the geocoding lane).
+ */
+public final class GeocodeCache {
+    private static final String TAG = "GeocodeCache";
+
+    // ~38m x 19m cells, well below the accuracy of a typical fix
+    private static final int CELL_PRECISION = 8;
+    // Radius searched for an offline fallback
+    private static final float MAX_FALLBACK_DISTANCE_METERS = 1000;
+
+    private static final long FRESH_TTL = TimeUnit.DAYS.toMillis(30);
+    private static final long MAX_AGE = TimeUnit.DAYS.toMillis(180);
+    private static final long TOUCH_INTERVAL = TimeUnit.HOURS.toMillis(1);
+
+    private static final int MAX_ENTRIES = 2000;
+    private static final int MEMORY_ENTRIES = 64;
+    private static final int TRIM_EVERY_INSERTS = 25;
+
+    private static volatile GeocodeCache instance;
+
+    private final Context context;
+    private final GeocodeCacheDao dao;
+    private final LruCache<String, GeocodeCacheEntry> memoryCache = new LruCache<>(MEMORY_ENTRIES);
+    private final AtomicInteger insertsSinceTrim = new AtomicInteger();
+
+    // Lookup metrics
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong geocoderCalls = new AtomicLong();
+    private final AtomicLong offlineFallbacks = new AtomicLong();
+
+    private GeocodeCache(Context context) {
+        this.context = context.getApplicationContext();
+        this.dao = AppDatabase.getInstance(context).geocodeCacheDao();
+    }
+
+    /**
+     * Get the shared cache
+     * @param context Any context, the application context is used
+     * @return GeocodeCache instance
+     */
+    public static GeocodeCache getInstance(Context context) {
+        if (instance == null) {
+            synchronized (GeocodeCache.class) {
+                if (instance == null) {
+                    instance = new GeocodeCache(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Reverse geocode a coordinate, using the cache where possible
+     * @param latitude Latitude in degrees
+     * @param longitude Longitude in degrees
+     * @return The address, or null if none is known for this location
+     * @throws IOException if the Geocoder failed and nothing usable is cached
+     */
+    public Address getFromLocation(double latitude, double longitude) throws IOException {
+        String cell = GeoHash.encode(latitude, longitude, CELL_PRECISION);
+        long now = System.currentTimeMillis();
+
+        GeocodeCacheEntry cached = findInCell(cell, now);
+        if (cached != null && now - cached.getResolvedAt() < FRESH_TTL) {
+            return toAddress(cached);
+        }
+
+        if (!Geocoder.isPresent()) {
+            return fallback(cached, latitude, longitude, null);
+        }
+
+        List<Address> addresses;
+        try {
+            geocoderCalls.incrementAndGet();
+            Geocoder geocoder = new Geocoder(context, Locale.getDefault());
+            addresses = geocoder.getFromLocation(latitude, longitude, 1);
+        } catch (IOException e) {
+            return fallback(cached, latitude, longitude, e);
+        }
+
+        if (addresses == null || addresses.isEmpty()) {
+            return cached != null ? toAddress(cached) : null;
+        }
+
+        Address address = addresses.get(0);
+        store(cell, latitude, longitude, address, now);
+        return address;
+    }
+
+    /**
+     * Look up a cached address without ever calling the Geocoder
+     * @return The closest cached address within the fallback distance, or null
+     */
+    public Address getCached(double latitude, double longitude) {
+        String cell = GeoHash.encode(latitude, longitude, CELL_PRECISION);
+        GeocodeCacheEntry cached = findInCell(cell, System.currentTimeMillis());
+        if (cached != null) {
+            return toAddress(cached);
+        }
+        GeocodeCacheEntry nearest = findNearest(latitude, longitude);
+        return nearest != null ? toAddress(nearest) : null;
+    }
+
+    /**
+     * Hit and miss counters for diagnostics
+     */
+    public String getStats() {
+        return "memoryHits=" + memoryHits.get() +
+                " diskHits=" + diskHits.get() +
+                " geocoderCalls=" + geocoderCalls.get() +
+                " offlineFallbacks=" + offlineFallbacks.get() +
+                " memorySize=" + memoryCache.size();
+    }
+
+    private GeocodeCacheEntry findInCell(String cell, long now) {
+        GeocodeCacheEntry entry = memoryCache.get(cell);
+        if (entry != null) {
+            memoryHits.incrementAndGet();
+        } else {
+            entry = dao.get(cell);
+            if (entry == null) {
+                return null;
+            }
+            diskHits.incrementAndGet();
+            memoryCache.put(cell, entry);
+        }
+
+        // Keep the on-disk LRU order roughly right without a write per lookup
+        if (now - entry.getLastUsedAt() > TOUCH_INTERVAL) {
+            entry.setLastUsedAt(now);
+            dao.touch(cell, now);
+        }
+        return entry;
+    }
+
+    private Address fallback(GeocodeCacheEntry cached, double latitude, double longitude,
+                             IOException error) throws IOException {
+        GeocodeCacheEntry entry = cached != null ? cached : findNearest(latitude, longitude);
+        if (entry != null) {
+            offlineFallbacks.incrementAndGet();
+            Log.d(TAG, "Geocoder unavailable, using cached address from " + entry.getGeohash());
+            return toAddress(entry);
+        }
+        if (error != null) {
+            throw error;
+        }
+        return null;
+    }
+
+    /**
+     * Closest cached entry within the fallback distance, regardless of age. Scans every cell
+     * the circle touches, a location near a cell edge has its nearest entries next door.
+     */
+    private GeocodeCacheEntry findNearest(double latitude, double longitude) {
+        GeocodeCacheEntry nearest = null;
+        float nearestDistance = MAX_FALLBACK_DISTANCE_METERS;
+        float[] results = new float[1];
+        for (String area : GeoHash.coveringPrefixes(latitude, longitude, MAX_FALLBACK_DISTANCE_METERS)) {
+            List<GeocodeCacheEntry> candidates = dao.getInRange(area, area + GeoHash.PREFIX_RANGE_END);
+            for (GeocodeCacheEntry candidate : candidates) {
+                Location.distanceBetween(latitude, longitude,
+                        candidate.getLatitude(), candidate.getLongitude(), results);
+                if (results[0] <= nearestDistance) {
+                    nearest = candidate;
+                    nearestDistance = results[0];
+                }
+            }
+        }
+        return nearest;
+    }
+
+    private void store(String cell, double latitude, double longitude, Address address, long now) {
+        GeocodeCacheEntry entry = new GeocodeCacheEntry(cell, latitude, longitude);
+
+        StringBuilder addressLine = new StringBuilder();
+        for (int i = 0; i <= address.getMaxAddressLineIndex(); i++) {
+            if (i > 0) addressLine.append(", ");
+            addressLine.append(address.getAddressLine(i));
+        }
+        entry.setAddressLine(addressLine.toString());
+        entry.setThoroughfare(address.getThoroughfare());
+        entry.setSubThoroughfare(address.getSubThoroughfare());
+        entry.setLocality(address.getLocality());
+        entry.setAdminArea(address.getAdminArea());
+        entry.setPostalCode(address.getPostalCode());
+        entry.setResolvedAt(now);
+        entry.setLastUsedAt(now);
+
+        try {
+            dao.insert(entry);
+            memoryCache.put(cell, entry);
+
+            if (insertsSinceTrim.incrementAndGet() >= TRIM_EVERY_INSERTS) {
+                insertsSinceTrim.set(0);
+                int expired = dao.deleteResolvedBefore(now - MAX_AGE);
+                int evicted = dao.trimToSize(MAX_ENTRIES);
+                if (expired + evicted > 0) {
+                    Log.d(TAG, "Trimmed geocode cache: " + expired + " expired, " + evicted + " evicted");
+                }
+            }
+        } catch (Exception e) {
+            // The lookup itself succeeded, a failed cache write must not fail it
+            Log.e(TAG, "Error caching address", e);
+        }
+    }
+
+    private static Address toAddress(GeocodeCacheEntry entry) {
+        Address address = new Address(Locale.getDefault());
+        address.setAddressLine(0, entry.getAddressLine());
+        address.setThoroughfare(entry.getThoroughfare());
+        address.setSubThoroughfare(entry.getSubThoroughfare());
+        address.setLocality(entry.getLocality());
+        address.setAdminArea(entry.getAdminArea());
+        address.setPostalCode(entry.getPostalCode());
+        address.setLatitude(entry.getLatitude());
+        address.setLongitude(entry.getLongitude());
+        return address;
+    }
+}
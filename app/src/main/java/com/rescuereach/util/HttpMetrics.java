@@ -0,0 +1,180 @@
+package com.rescuereach.util;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Response;
+
+/**
+ * Timing of every call made through {@link SharedHttpClient}, per phase: DNS lookup, TCP
+ * connect, TLS handshake and time to first byte (call start to response headers). Calls that
+ * reuse a pooled connection skip the first three, so the reuse count shows how well pooling
+ * works. Plain Java, the OkHttp event listener does the measuring.
+ */
+public final class HttpMetrics {
+
+    /**
+     * Count, total and worst case of one phase
+     */
+    private static final class Timing {
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong totalMillis = new AtomicLong();
+        final AtomicLong maxMillis = new AtomicLong();
+
+        void record(long startNanos) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            count.incrementAndGet();
+            totalMillis.addAndGet(millis);
+            maxMillis.accumulateAndGet(millis, Math::max);
+        }
+
+        String describe() {
+            long n = count.get();
+            return n + "x avg=" + (n > 0 ? totalMillis.get() / n : 0) + "ms max=" + maxMillis.get() + "ms";
+        }
+    }
+
+    private final Timing dns = new Timing();
+    private final Timing connect = new Timing();
+    private final Timing tls = new Timing();
+    private final Timing firstByte = new Timing();
+    private final Timing callDuration = new Timing();
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong connectionsReused = new AtomicLong();
+    private final AtomicLong http2Connections = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong conditionalCacheHits = new AtomicLong();
+
+    /**
+     * Factory to pass to OkHttpClient.Builder.eventListenerFactory, one listener per call
+     */
+    public EventListener.Factory factory() {
+        return call -> new CallListener();
+    }
+
+    /**
+     * Phase timings and counters for diagnostics
+     */
+    public String getStats() {
+        return "calls=" + calls.get() +
+                " failures=" + failures.get() +
+                " reusedConnections=" + connectionsReused.get() +
+                " http2Connections=" + http2Connections.get() +
+                " cacheHits=" + cacheHits.get() +
+                " conditionalCacheHits=" + conditionalCacheHits.get() +
+                "\n  dns: " + dns.describe() +
+                "\n  connect: " + connect.describe() +
+                "\n  tls: " + tls.describe() +
+                "\n  ttfb: " + firstByte.describe() +
+                "\n  call: " + callDuration.describe();
+    }
+
+    /**
+     * Tracks one call, events for a call arrive on one thread at a time
+     */
+    private final class CallListener extends EventListener {
+        private long callStart;
+        private long dnsStart;
+        private long connectStart;
+        private long secureConnectStart;
+        private boolean connected;
+        private boolean firstByteSeen;
+
+        @Override
+        public void callStart(Call call) {
+            calls.incrementAndGet();
+            callStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsStart(Call call, String domainName) {
+            dnsStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+            dns.record(dnsStart);
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            connectStart = System.nanoTime();
+        }
+
+        @Override
+        public void secureConnectStart(Call call) {
+            secureConnectStart = System.nanoTime();
+        }
+
+        @Override
+        public void secureConnectEnd(Call call, Handshake handshake) {
+            tls.record(secureConnectStart);
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy,
+                               Protocol protocol) {
+            connected = true;
+            connect.record(connectStart);
+            if (protocol == Protocol.HTTP_2) {
+                http2Connections.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy,
+                                  Protocol protocol, IOException ioe) {
+            // A route failed, the call may still succeed on another one
+            connect.record(connectStart);
+        }
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            if (!connected) {
+                connectionsReused.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void responseHeadersStart(Call call) {
+            // Follow-ups and retries reuse the listener, the first response is the one that counts
+            if (!firstByteSeen) {
+                firstByteSeen = true;
+                firstByte.record(callStart);
+            }
+        }
+
+        @Override
+        public void cacheHit(Call call, Response response) {
+            cacheHits.incrementAndGet();
+        }
+
+        @Override
+        public void cacheConditionalHit(Call call, Response cachedResponse) {
+            conditionalCacheHits.incrementAndGet();
+        }
+
+        @Override
+        public void callEnd(Call call) {
+            callDuration.record(callStart);
+        }
+
+        @Override
+        public void callFailed(Call call, IOException ioe) {
+            failures.incrementAndGet();
+            callDuration.record(callStart);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.rescuereach.util;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * What a full lane does with one more task. A background submitter runs it itself, which
+ * throttles producers instead of dropping work. The main thread never runs lane work, there
+ * the lane either drops its oldest queued task, for work that newer requests supersede, or
+ * hands the task to the shared overflow thread so nothing is lost.
+ */
+final class LaneOverflowPolicy implements RejectedExecutionHandler {
+
+    enum Outcome {
+        RAN_ON_CALLER,
+        DROPPED_OLDEST,
+        // A worker freed a slot in the meantime, nothing was dropped
+        QUEUED,
+        OVERFLOW_THREAD,
+        SHUT_DOWN
+    }
+
+    /**
+     * Told about every task the lane couldn't queue, for logging
+     */
+    interface Listener {
+        void onOverflow(Outcome outcome);
+    }
+
+    private final boolean dropOldest;
+    private final BooleanSupplier onMainThread;
+    private final Executor overflow;
+    private final Listener listener;
+
+    // Metrics
+    private final AtomicLong ranOnCaller = new AtomicLong();
+    private final AtomicLong droppedOldest = new AtomicLong();
+    private final AtomicLong overflowed = new AtomicLong();
+
+    /**
+     * @param dropOldest Drop the oldest queued task for main thread submissions, otherwise use
+     *                   the overflow thread
+     * @param onMainThread Whether the calling thread is the main thread
+     * @param overflow Runs main thread submissions that can't be dropped
+     */
+    LaneOverflowPolicy(boolean dropOldest, BooleanSupplier onMainThread, Executor overflow,
+                       Listener listener) {
+        this.dropOldest = dropOldest;
+        this.onMainThread = onMainThread;
+        this.overflow = overflow;
+        this.listener = listener;
+    }
+
+    @Override
+    public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+        listener.onOverflow(handle(task, executor));
+    }
+
+    private Outcome handle(Runnable task, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            return Outcome.SHUT_DOWN;
+        }
+
+        if (!onMainThread.getAsBoolean()) {
+            ranOnCaller.incrementAndGet();
+            task.run();
+            return Outcome.RAN_ON_CALLER;
+        }
+
+        if (dropOldest) {
+            // The lane's workers are all busy, so they'll pick this up once they're free
+            Runnable dropped = executor.getQueue().poll();
+            if (executor.getQueue().offer(task)) {
+                if (dropped == null) {
+                    return Outcome.QUEUED;
+                }
+                droppedOldest.incrementAndGet();
+                return Outcome.DROPPED_OLDEST;
+            }
+        }
+
+        overflowed.incrementAndGet();
+        overflow.execute(task);
+        return Outcome.OVERFLOW_THREAD;
+    }
+
+    /**
+     * Overflow counters for diagnostics
+     */
+    String getStats() {
+        return "ranOnCaller=" + ranOnCaller.get() +
+                " droppedOldest=" + droppedOldest.get() +
+                " overflowed=" + overflowed.get();
+    }
+}
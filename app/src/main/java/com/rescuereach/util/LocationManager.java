@@ -4,37 +4,38 @@ import android.Manifest;
 import android.content.Context;
 import android.content.pm.PackageManager;
 import android.location.Address;
-import android.location.Geocoder;
 import android.location.Location;
 import android.net.ConnectivityManager;
 import android.net.NetworkCapabilities;
-import android.os.BatteryManager;
 import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
 
-import androidx.annotation.NonNull;
 import androidx.core.app.ActivityCompat;
 
 import com.google.android.gms.location.FusedLocationProviderClient;
-import com.google.android.gms.location.LocationCallback;
-import com.google.android.gms.location.LocationRequest;
-import com.google.android.gms.location.LocationResult;
 import com.google.android.gms.location.LocationServices;
 import com.google.android.gms.location.Priority;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.GeoPoint;
+import com.rescuereach.service.auth.SessionSnapshot;
 import com.rescuereach.service.auth.UserSessionManager;
+import com.rescuereach.service.location.FixSelector;
+import com.rescuereach.service.location.LocationHub;
+import com.rescuereach.service.location.LocationProfile;
+import com.rescuereach.service.location.LocationTrailUploader;
+import com.rescuereach.service.location.PendingLocationQueue;
+import com.rescuereach.service.location.UserStatusPublisher;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Enhanced location manager with specific modes for emergencies and battery optimization
@@ -43,25 +44,21 @@ import java.util.concurrent.TimeUnit;
 public class LocationManager {
     private static final String TAG = "LocationManager";
 
-    // Location update intervals
-    private static final long NORMAL_UPDATE_INTERVAL = 60000; // 1 minute
-    private static final long EMERGENCY_UPDATE_INTERVAL = 5000; // 5 seconds (faster for emergency)
-    private static final long BACKGROUND_UPDATE_INTERVAL = 300000; // 5 minutes
-    private static final long LOW_BATTERY_UPDATE_INTERVAL = 120000; // 2 minutes (when battery low)
+    // Newest fix uploaded by any instance, fixes from the shared stream are uploaded once
+    private static final AtomicLong lastUploadedFixNanos = new AtomicLong();
+    // Shared like the upload claim, fixes reach it from the main thread only
+    private static final UserStatusPublisher statusPublisher =
+            new UserStatusPublisher(LocationManager::writeUserStatus);
+    // Session changes reach the publisher from the first instance on, listeners run on the main thread
+    private static final AtomicBoolean sessionListenerAdded = new AtomicBoolean(false);
 
-    // Accuracy priorities
-    private static final int NORMAL_PRIORITY = Priority.PRIORITY_BALANCED_POWER_ACCURACY;
-    private static final int EMERGENCY_PRIORITY = Priority.PRIORITY_HIGH_ACCURACY;
-    private static final int BACKGROUND_PRIORITY = Priority.PRIORITY_LOW_POWER;
-    private static final int LOW_BATTERY_PRIORITY = Priority.PRIORITY_BALANCED_POWER_ACCURACY;
-
-    // Location cache timeout
+    // Location cache timeout, an upper bound on top of the error radius check
     private static final long LOCATION_CACHE_TIMEOUT = TimeUnit.MINUTES.toMillis(15); // 15 minutes
     private static final long EMERGENCY_CACHE_TIMEOUT = TimeUnit.MINUTES.toMillis(60); // 1 hour for emergency
 
-    // Battery thresholds
-    private static final int LOW_BATTERY_THRESHOLD = 15; // 15%
-    private static final int CRITICAL_BATTERY_THRESHOLD = 5; // 5%
+    // Largest error radius (accuracy plus possible movement since the fix) a cached fix may have
+    private static final double CACHED_FIX_MAX_ERROR_METERS = 100;
+    private static final double EMERGENCY_CACHED_FIX_MAX_ERROR_METERS = 250;
 
     private final Context context;
     private final FusedLocationProviderClient fusedLocationClient;
@@ -69,24 +66,23 @@ public class LocationManager {
     private final UserSessionManager sessionManager;
     private final Handler mainHandler;
 
-    private LocationRequest normalLocationRequest;
-    private LocationRequest emergencyLocationRequest;
-    private LocationRequest backgroundLocationRequest;
-    private LocationRequest lowBatteryLocationRequest;
-
-    private LocationCallback locationCallback;
+    // One fused subscription shared by every LocationManager, see LocationHub
+    private final LocationHub locationHub;
+    private boolean subscribed;
     private Location cachedLocation;
-    private long cachedLocationTimestamp;
+    // Running while an SOS is waiting for its first fix and refinements
+    private FixSelector emergencyFixSelector;
     private boolean isBackgroundMode = false;
     private boolean isEmergencyMode = false;
-    private boolean isLowBatteryMode = false;
-    private List<Location> pendingLocations = new ArrayList<>();
+    private final PendingLocationQueue pendingLocationQueue;
 
+    /**
+     * Reverse geocode a location through the shared geocode cache. Blocking, call off the main thread.
+     */
     public String getAddressFromLocation(Location location) throws IOException {
-        Geocoder geocoder = new Geocoder(context, Locale.getDefault());
-        List<Address> addresses = geocoder.getFromLocation(location.getLatitude(), location.getLongitude(), 1);
-        if (addresses != null && !addresses.isEmpty()) {
-            Address address = addresses.get(0);
+        Address address = GeocodeCache.getInstance(context)
+                .getFromLocation(location.getLatitude(), location.getLongitude());
+        if (address != null) {
             StringBuilder addressString = new StringBuilder();
             addressString.append(address.getAddressLine(0)); // Full address
             if (address.getLocality() != null) {
@@ -117,45 +113,39 @@ public class LocationManager {
         this.fusedLocationClient = LocationServices.getFusedLocationProviderClient(context);
         this.db = FirebaseFirestore.getInstance();
         this.sessionManager = UserSessionManager.getInstance(context);
+        this.pendingLocationQueue = PendingLocationQueue.getInstance(context);
         this.mainHandler = new Handler(Looper.getMainLooper());
-
-        setupLocationRequests();
+        this.locationHub = LocationHub.getInstance(context);
+        if (sessionManager != null && sessionListenerAdded.compareAndSet(false, true)) {
+            sessionManager.addSessionListener(LocationManager::onSessionChanged);
+        }
     }
 
     /**
-     * Create different location request profiles for different scenarios
+     * Keep user_status in step with the session, SOS alerts go to the volunteers it lists
      */
-    private void setupLocationRequests() {
-        // Regular location updates
-        normalLocationRequest = new LocationRequest.Builder(NORMAL_UPDATE_INTERVAL)
-                .setPriority(NORMAL_PRIORITY)
-                .setWaitForAccurateLocation(false)
-                .setMinUpdateIntervalMillis(NORMAL_UPDATE_INTERVAL / 2)
-                .build();
-
-        // Emergency mode - high accuracy, frequent updates
-        emergencyLocationRequest = new LocationRequest.Builder(EMERGENCY_UPDATE_INTERVAL)
-                .setPriority(EMERGENCY_PRIORITY)
-                .setWaitForAccurateLocation(true)
-                .setMinUpdateIntervalMillis(EMERGENCY_UPDATE_INTERVAL / 2)
-                .setMaxUpdateDelayMillis(EMERGENCY_UPDATE_INTERVAL)
-                .build();
-
-        // Background mode - low power, infrequent updates
-        backgroundLocationRequest = new LocationRequest.Builder(BACKGROUND_UPDATE_INTERVAL)
-                .setPriority(BACKGROUND_PRIORITY)
-                .setWaitForAccurateLocation(false)
-                .setMinUpdateIntervalMillis(BACKGROUND_UPDATE_INTERVAL / 2)
-                .build();
-
-        // Low battery mode - conserves power but still frequent enough
-        lowBatteryLocationRequest = new LocationRequest.Builder(LOW_BATTERY_UPDATE_INTERVAL)
-                .setPriority(LOW_BATTERY_PRIORITY)
-                .setWaitForAccurateLocation(false)
-                .setMinUpdateIntervalMillis(LOW_BATTERY_UPDATE_INTERVAL / 2)
-                .build();
+    private static void onSessionChanged(SessionSnapshot previous, SessionSnapshot current) {
+        if (current.getPhoneNumber() == null) {
+            statusPublisher.onSignedOut();
+        } else if (previous.isVolunteer() != current.isVolunteer()) {
+            statusPublisher.onVolunteerChanged(current.isVolunteer());
+        }
     }
 
+    private final LocationHub.Subscriber hubSubscriber = new LocationHub.Subscriber() {
+        @Override
+        public void onLocation(Location location) {
+            processNewLocation(location);
+        }
+
+        @Override
+        public void onLocationError(String message) {
+            if (locationUpdateListener != null) {
+                mainHandler.post(() -> locationUpdateListener.onLocationError(message));
+            }
+        }
+    };
+
     /**
      * Register a listener for location updates
      */
@@ -183,68 +173,17 @@ public class LocationManager {
             return;
         }
 
-        // Set mode flags
-        this.isEmergencyMode = isEmergency;
-        this.isBackgroundMode = isBackground;
-
-        // Check battery level and set low battery mode if necessary
-        // but override it if in emergency mode (battery less important than emergency)
-        this.isLowBatteryMode = (getBatteryLevel() <= LOW_BATTERY_THRESHOLD) && !isEmergency;
-
-        // Select appropriate request based on mode
-        LocationRequest activeRequest;
-        if (isEmergency) {
-            activeRequest = emergencyLocationRequest;
-        } else if (isLowBatteryMode) {
-            activeRequest = lowBatteryLocationRequest;
-        } else if (isBackground) {
-            activeRequest = backgroundLocationRequest;
-        } else {
-            activeRequest = normalLocationRequest;
-        }
-
         // Remove any existing callbacks first
         stopLocationUpdates();
 
-        // Create new callback
-        locationCallback = new LocationCallback() {
-            @Override
-            public void onLocationResult(@NonNull LocationResult locationResult) {
-                for (Location location : locationResult.getLocations()) {
-                    if (location != null) {
-                        processNewLocation(location);
-                    }
-                }
-            }
-        };
+        // Set mode flags
+        this.isEmergencyMode = isEmergency;
+        this.isBackgroundMode = isBackground;
 
-        // Request updates
-        try {
-            fusedLocationClient.requestLocationUpdates(
-                    activeRequest,
-                    locationCallback,
-                    Looper.getMainLooper()
-            );
-
-            // Try to get last location immediately
-            fusedLocationClient.getLastLocation()
-                    .addOnSuccessListener(location -> {
-                        if (location != null) {
-                            processNewLocation(location);
-                        }
-                    })
-                    .addOnFailureListener(e -> {
-                        Log.e(TAG, "Error getting last location", e);
-                        if (locationUpdateListener != null) {
-                            mainHandler.post(() -> locationUpdateListener.onLocationError("Error getting last location: " + e.getMessage()));
-                        }
-                    });
-        } catch (SecurityException e) {
-            Log.e(TAG, "Location permission exception", e);
-            if (locationUpdateListener != null) {
-                mainHandler.post(() -> locationUpdateListener.onLocationError("Location permission error: " + e.getMessage()));
-            }
-        }
+        // The hub runs the shared subscription at the most demanding mode any subscriber asked for
+        // and replays its last fix, so this starts no new GPS session if another screen has one
+        locationHub.subscribe(hubSubscriber, isEmergency, isBackground);
+        subscribed = true;
     }
 
     /**
@@ -253,63 +192,62 @@ public class LocationManager {
     private void processNewLocation(Location location) {
         // Update cache
         cachedLocation = location;
-        cachedLocationTimestamp = System.currentTimeMillis();
+
+        if (emergencyFixSelector != null && !emergencyFixSelector.isFinished()) {
+            emergencyFixSelector.offer(location, FixSelector.Source.STREAM);
+        }
 
         // Notify listener
         if (locationUpdateListener != null) {
             mainHandler.post(() -> locationUpdateListener.onLocationUpdated(location));
         }
 
-        // Save to Firestore if user settings allow and online
-        if (shouldSaveLocationToCloud()) {
+        // Save to Firestore if user settings allow and online. Every subscribed LocationManager
+        // sees the same fix, only the first one (emergency subscribers go first) uploads it.
+        if (shouldSaveLocationToCloud() && claimUpload(location)) {
             if (isOnline()) {
                 saveLocationToFirestore(location);
             } else {
                 // Save to local storage for later sync
-                pendingLocations.add(location);
-                saveLocationLocally(location);
+                saveLocationLocally(location, null);
             }
         }
     }
 
+    /**
+     * Claim a fix from the shared stream for upload
+     * @return false if another LocationManager already uploaded this or a newer fix
+     */
+    private static boolean claimUpload(Location location) {
+        long fixNanos = location.getElapsedRealtimeNanos();
+        long previous;
+        do {
+            previous = lastUploadedFixNanos.get();
+            if (fixNanos <= previous) {
+                return false;
+            }
+        } while (!lastUploadedFixNanos.compareAndSet(previous, fixNanos));
+        return true;
+    }
+
     /**
      * Check if any pending locations need to be synced and sync them
      */
     public void syncPendingLocations() {
-        if (!isOnline() || pendingLocations.isEmpty()) {
-            return;
-        }
-
-        // Copy to avoid concurrent modification
-        List<Location> locationsToSync = new ArrayList<>(pendingLocations);
-        pendingLocations.clear();
-
-        // Save all pending locations
-        for (Location location : locationsToSync) {
-            saveLocationToFirestore(location);
-        }
+        // The sync job waits for connectivity itself and uploads the queue in bulk
+        PendingLocationQueue.scheduleSync(context);
     }
 
     /**
      * Save location to local storage for later sync when online
+     * @param userIdentifier Owner of the fix, or null to use whoever is signed in at sync time
      */
-    private void saveLocationLocally(Location location) {
-        // Implementation using Room DB would go here
-        // This would be synced via WorkManager when online
-        // For now, we just log it
+    private void saveLocationLocally(Location location, String userIdentifier) {
         Log.d(TAG, "Location saved locally for later sync: " +
                 location.getLatitude() + ", " + location.getLongitude());
 
-        // Notify system for offline handling
-        Map<String, Object> locationData = new HashMap<>();
-        locationData.put("latitude", location.getLatitude());
-        locationData.put("longitude", location.getLongitude());
-        locationData.put("accuracy", location.getAccuracy());
-        locationData.put("timestamp", System.currentTimeMillis());
-        locationData.put("isEmergency", isEmergencyMode);
-
-        // This would trigger the WorkManager to queue this for later sync
-        // WorkManagerHelper.queueLocationSync(context, locationData);
+        pendingLocationQueue.enqueue(userIdentifier, location, isEmergencyMode,
+                getBatteryLevel(), getNetworkType());
     }
 
     /**
@@ -352,10 +290,8 @@ public class LocationManager {
             if (userIdentifier == null || userIdentifier.isEmpty()) {
                 Log.e(TAG, "Cannot save location: No user identifier available");
 
-                // Add to pending locations to try again later
-                if (!pendingLocations.contains(location)) {
-                    pendingLocations.add(location);
-                }
+                // Queue it to try again once someone is signed in
+                saveLocationLocally(location, null);
                 return;
             }
 
@@ -379,6 +315,16 @@ public class LocationManager {
         // This is the field the security rules check
         locationData.put("userId", userIdentifier);
 
+        // Keeps the user findable by nearby volunteer queries, on routine and emergency fixes
+        updateUserStatus(userIdentifier, location, false);
+
+        // Emergency fixes arrive every few seconds, the trail uploader decimates and batches
+        // them and keeps last_known fresh
+        if (isEmergencyMode) {
+            LocationTrailUploader.getInstance().addFix(userIdentifier, location, locationData);
+            return;
+        }
+
         // Store in system_status collection which should have less restrictive rules
         db.collection("system_status")
                 .document(userIdentifier)
@@ -390,48 +336,24 @@ public class LocationManager {
                 })
                 .addOnFailureListener(e -> {
                     Log.e(TAG, "Error saving location to Firestore system_status collection", e);
-                    saveLocationLocally(location);
-
-                    if (!pendingLocations.contains(location)) {
-                        pendingLocations.add(location);
-                    }
+                    saveLocationLocally(location, userIdentifier);
                 });
-
-        // Save a separate safety copy for emergencies in the sos_data collection
-        // which should have even more permissive rules
-        if (isEmergencyMode) {
-            Map<String, Object> sosLocationData = new HashMap<>(locationData);
-            sosLocationData.put("emergencyTimestamp", System.currentTimeMillis());
-
-            db.collection("sos_data")
-                    .document(userIdentifier)
-                    .collection("emergency_locations")
-                    .document(String.valueOf(System.currentTimeMillis()))
-                    .set(sosLocationData)
-                    .addOnSuccessListener(aVoid -> {
-                        Log.d(TAG, "Emergency location saved to sos_data collection");
-                    })
-                    .addOnFailureListener(e -> {
-                        Log.e(TAG, "Error saving emergency location to sos_data", e);
-                    });
-        }
     }
 
     /**
-     * Update user's online status document which has more permissive rules
+     * Update user's online status document which has more permissive rules. Throttled, see
+     * UserStatusPublisher.
+     * @param force Write even if the last status is recent and close by
      */
-    private void updateUserStatus(String userIdentifier, Location location) {
-        if (userIdentifier == null || userIdentifier.isEmpty()) return;
-
-        Map<String, Object> statusUpdate = new HashMap<>();
-        statusUpdate.put("lastSeen", System.currentTimeMillis());
-        statusUpdate.put("isOnline", true);
-        statusUpdate.put("lastLocation", new GeoPoint(location.getLatitude(), location.getLongitude()));
-        statusUpdate.put("userId", userIdentifier); // CRITICAL: Include userId for security rules
+    private void updateUserStatus(String userIdentifier, Location location, boolean force) {
+        statusPublisher.onFix(userIdentifier, location.getLatitude(), location.getLongitude(),
+                sessionManager != null && sessionManager.isVolunteer(), System.currentTimeMillis(), force);
+    }
 
-        db.collection("user_status")
+    private static void writeUserStatus(String userIdentifier, Map<String, Object> status) {
+        FirebaseFirestore.getInstance().collection("user_status")
                 .document(userIdentifier)
-                .set(statusUpdate)
+                .set(status)
                 .addOnSuccessListener(aVoid -> {
                     Log.d(TAG, "User status updated with location");
                 })
@@ -462,10 +384,11 @@ public class LocationManager {
      * Get the most recent location either from active updates or cache
      */
     public void getCurrentLocation(LocationUpdateListener oneTimeListener) {
-        // First check if we have a recent cache entry
-        if (hasRecentCachedLocation()) {
+        // First check if we have a cached fix that is still close enough
+        Location usableCached = getUsableCachedLocation();
+        if (usableCached != null) {
             if (oneTimeListener != null) {
-                mainHandler.post(() -> oneTimeListener.onLocationUpdated(cachedLocation));
+                mainHandler.post(() -> oneTimeListener.onLocationUpdated(usableCached));
             }
             return;
         }
@@ -479,17 +402,17 @@ public class LocationManager {
         }
 
         try {
-            // Use proper priority based on mode and battery
+            // Use proper priority based on mode and battery, at least balanced for a one-off fix
             int priority = isEmergencyMode ?
-                    EMERGENCY_PRIORITY :
-                    (isLowBatteryMode ? LOW_BATTERY_PRIORITY : NORMAL_PRIORITY);
+                    Priority.PRIORITY_HIGH_ACCURACY :
+                    Math.min(locationHub.getScheduler().getCurrentProfile().getPriority(),
+                            Priority.PRIORITY_BALANCED_POWER_ACCURACY);
 
             fusedLocationClient.getCurrentLocation(priority, null)
                     .addOnSuccessListener(location -> {
                         if (location != null) {
                             // Cache the result
                             cachedLocation = location;
-                            cachedLocationTimestamp = System.currentTimeMillis();
 
                             // Notify listener
                             if (oneTimeListener != null) {
@@ -539,71 +462,117 @@ public class LocationManager {
             return;
         }
 
-        // If we have a cached location, send it immediately
-        if (cachedLocation != null) {
-            final Location cachedLocationCopy = cachedLocation;
-            mainHandler.post(() -> emergencyListener.onLocationUpdated(cachedLocationCopy));
-        }
-
-        // Start emergency mode updates for continued tracking
-        startLocationUpdates(true, false);
-
-        // Get a fresh location with high accuracy
-        getCurrentLocation(new LocationUpdateListener() {
+        // Score every fix on hand and emit the best one at once so the SOS isn't held up, even
+        // an old one, then emit refinements as better fixes arrive
+        FixSelector selector = new FixSelector(context, new FixSelector.Listener() {
             @Override
-            public void onLocationUpdated(Location location) {
-                mainHandler.post(() -> emergencyListener.onLocationUpdated(location));
-
-                // Also save this emergency location to Firestore
-                if (shouldSaveLocationToCloud()) {
-                    if (isOnline()) {
-                        saveLocationToFirestore(location);
-
-                        // Also update user status for emergency
-                        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
-                        if (user != null) {
-                            updateUserStatus(user.getUid(), location);
-                        } else if (sessionManager != null) {
-                            updateUserStatus(sessionManager.getSavedPhoneNumber(), location);
-                        }
-                    } else {
-                        saveLocationLocally(location);
-                    }
+            public void onFix(Location location, FixSelector.Source source, double errorMeters,
+                              boolean lowConfidence) {
+                if (lowConfidence) {
+                    Log.w(TAG, "Emergency fix from " + source + " is only good to " + (int) errorMeters + " m");
                 }
+                mainHandler.post(() -> emergencyListener.onLocationUpdated(location));
             }
 
             @Override
-            public void onLocationError(String error) {
-                // Only report error if we haven't sent a cached location
-                if (cachedLocation == null) {
-                    mainHandler.post(() -> emergencyListener.onLocationError(error));
-                }
+            public void onNoFix(String message) {
+                mainHandler.post(() -> emergencyListener.onLocationError(message));
             }
         });
+
+        // Start emergency mode updates for continued tracking, the stream also feeds the selector
+        startLocationUpdates(true, false);
+        emergencyFixSelector = selector;
+        selector.start(cachedLocation, locationHub.getLastFix());
+
+        if (!hasLocationPermission()) {
+            // Nothing fresh is coming, settle for what's on hand
+            selector.finish();
+            return;
+        }
+
+        // Get a fresh location with high accuracy alongside the stream
+        try {
+            fusedLocationClient.getCurrentLocation(Priority.PRIORITY_HIGH_ACCURACY, null)
+                    .addOnSuccessListener(location -> {
+                        if (location == null) {
+                            return;
+                        }
+                        cachedLocation = location;
+                        selector.offer(location, FixSelector.Source.CURRENT);
+
+                        // Also save this emergency location to Firestore
+                        if (shouldSaveLocationToCloud()) {
+                            if (isOnline()) {
+                                saveLocationToFirestore(location);
+
+                                // Also update user status for emergency
+                                FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+                                if (user != null) {
+                                    updateUserStatus(user.getUid(), location, true);
+                                } else if (sessionManager != null) {
+                                    updateUserStatus(sessionManager.getSavedPhoneNumber(), location, true);
+                                }
+                            } else {
+                                saveLocationLocally(location, null);
+                            }
+                        }
+                    })
+                    .addOnFailureListener(e -> Log.e(TAG, "Error getting current emergency location", e));
+        } catch (SecurityException e) {
+            Log.e(TAG, "Location permission exception", e);
+        }
+    }
+
+    /**
+     * Time to first usable emergency fix and to target accuracy, for diagnostics
+     */
+    public static String getFirstFixStats() {
+        return FixSelector.getStats();
     }
 
     /**
      * Stop receiving location updates
      */
     public void stopLocationUpdates() {
-        if (locationCallback != null) {
-            fusedLocationClient.removeLocationUpdates(locationCallback);
-            locationCallback = null;
+        if (subscribed) {
+            locationHub.unsubscribe(hubSubscriber);
+            subscribed = false;
+
+            if (emergencyFixSelector != null) {
+                emergencyFixSelector.cancel();
+                emergencyFixSelector = null;
+            }
+
+            // Don't leave the tail of an emergency trail in the buffer
+            if (isEmergencyMode) {
+                LocationTrailUploader.getInstance().flush();
+            }
         }
     }
 
     /**
-     * Check if we have a recent location in cache
+     * Get the best cached fix if its error radius is small enough to skip a fresh request
+     * @return The fix, or null if a fresh one is needed
      */
-    private boolean hasRecentCachedLocation() {
-        if (cachedLocation == null) {
-            return false;
-        }
-
-        long age = System.currentTimeMillis() - cachedLocationTimestamp;
-        // Use a longer timeout for emergency mode
+    private Location getUsableCachedLocation() {
+        // Use a longer timeout and a looser radius for emergency mode
         long timeout = isEmergencyMode ? EMERGENCY_CACHE_TIMEOUT : LOCATION_CACHE_TIMEOUT;
-        return age < timeout;
+        double maxError = isEmergencyMode ? EMERGENCY_CACHED_FIX_MAX_ERROR_METERS : CACHED_FIX_MAX_ERROR_METERS;
+
+        Location best = null;
+        double bestError = maxError;
+        for (Location candidate : new Location[]{cachedLocation, locationHub.getLastFix()}) {
+            if (candidate == null || FixSelector.ageMillis(candidate) >= timeout) {
+                continue;
+            }
+            double error = FixSelector.errorRadiusMeters(candidate);
+            if (error <= bestError) {
+                best = candidate;
+                bestError = error;
+            }
+        }
+        return best;
     }
 
     /**
@@ -620,18 +589,16 @@ public class LocationManager {
      * Get last known location even if it's a bit outdated (for emergencies)
      */
     public Location getLastKnownLocation() {
-        return cachedLocation;
+        // Another screen's subscription may have a fix before this one has started
+        return cachedLocation != null ? cachedLocation : locationHub.getLastFix();
     }
 
     /**
      * Get device battery level
      */
     private int getBatteryLevel() {
-        BatteryManager batteryManager = (BatteryManager) context.getSystemService(Context.BATTERY_SERVICE);
-        if (batteryManager != null) {
-            return batteryManager.getIntProperty(BatteryManager.BATTERY_PROPERTY_CAPACITY);
-        }
-        return 100; // Default to 100% if can't access battery manager
+        // From the battery broadcast the scheduler watches
+        return locationHub.getScheduler().getBatteryLevel();
     }
 
     /**
@@ -695,6 +662,14 @@ public class LocationManager {
      * Check if we're in low battery mode
      */
     public boolean isInLowBatteryMode() {
-        return isLowBatteryMode;
+        LocationProfile profile = locationHub.getScheduler().getCurrentProfile();
+        return profile == LocationProfile.LOW_BATTERY || profile == LocationProfile.CRITICAL_BATTERY;
+    }
+
+    /**
+     * Fixes per hour and battery cost per location profile, for diagnostics
+     */
+    public String getLocationProfileStats() {
+        return locationHub.getScheduler().getStats();
     }
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package com.rescuereach.util;
+
+import java.util.Set;
+
+/**
+ * Name and value type of one entry in a {@link PreferenceStore}. Declare keys once as
+ * constants, so every reader and writer agrees on the type.
+ * @param <T> Type of the stored value
+ */
+public final class PreferenceKey<T> {
+
+    private final String name;
+    private final Class<T> type;
+
+    private PreferenceKey(String name, Class<T> type) {
+        this.name = name;
+        this.type = type;
+    }
+
+    public static PreferenceKey<String> stringKey(String name) {
+        return new PreferenceKey<>(name, String.class);
+    }
+
+    public static PreferenceKey<Boolean> booleanKey(String name) {
+        return new PreferenceKey<>(name, Boolean.class);
+    }
+
+    public static PreferenceKey<Integer> intKey(String name) {
+        return new PreferenceKey<>(name, Integer.class);
+    }
+
+    public static PreferenceKey<Long> longKey(String name) {
+        return new PreferenceKey<>(name, Long.class);
+    }
+
+    public static PreferenceKey<Float> floatKey(String name) {
+        return new PreferenceKey<>(name, Float.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static PreferenceKey<Set<String>> stringSetKey(String name) {
+        return new PreferenceKey<>(name, (Class<Set<String>>) (Class<?>) Set.class);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
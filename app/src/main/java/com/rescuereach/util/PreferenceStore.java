@@ -0,0 +1,541 @@
+package com.rescuereach.util;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Typed key-value store with batched, coalesced writes.
+ * <ul>
+ * <li>Values live in an immutable in-memory map, replaced on every edit, so reads never touch
+ * the disk. The file is loaded in the background when the store is created, a read that comes
+ * before the load has finished waits for it.</li>
+ * <li>An {@link Editor} applies all its changes at once. Edits are visible straight away and the
+ * file is rewritten once per coalescing window, however many edits arrived in it. Edits that
+ * can't wait for the window are written at once with {@link Editor#applyImmediately()}.</li>
+ * <li>The file is replaced atomically, a crash leaves either the old or the new content.</li>
+ * </ul>
+ * Plain Java, {@link AppPreferences} wires it to Android.
+ */
+public final class PreferenceStore {
+
+    /**
+     * Runs store work off the caller's thread, one task at a time
+     */
+    interface Scheduler {
+        void postDelayed(Runnable task, long delayMillis);
+    }
+
+    /**
+     * Where the values are kept between runs
+     */
+    interface Storage {
+        /**
+         * @return The stored values, or null if nothing was ever stored
+         */
+        Map<String, Object> read() throws IOException;
+
+        /**
+         * Replace everything stored, all or nothing
+         * @return Bytes written
+         */
+        long write(Map<String, Object> values) throws IOException;
+    }
+
+    /**
+     * Values to start from when the store has never been written
+     */
+    interface Migration {
+        Map<String, ?> read();
+
+        /**
+         * Called once the migrated values are safely on disk
+         */
+        void onMigrated();
+    }
+
+    static final long DEFAULT_COALESCE_MILLIS = 200;
+    private static final long RETRY_MILLIS = 5000;
+
+    private final Scheduler scheduler;
+    private final Storage storage;
+    private final Migration migration;
+    private final long coalesceMillis;
+
+    private final CountDownLatch loaded = new CountDownLatch(1);
+    // Replaced, never modified, writers hold this store's lock
+    private volatile Map<String, Object> values = Collections.emptyMap();
+    // Guarded by this
+    private long version;
+    private boolean flushScheduled;
+
+    // Guarded by writeLock, so two flushes never write out of order
+    private final Object writeLock = new Object();
+    private long writtenVersion;
+    private boolean migrationPending;
+
+    // Metrics
+    private final AtomicLong edits = new AtomicLong();
+    private final AtomicLong keysChanged = new AtomicLong();
+    private final AtomicLong fileWrites = new AtomicLong();
+    private final AtomicLong keysWritten = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong writeFailures = new AtomicLong();
+    private volatile String lastError;
+
+    private final Runnable flushTask = this::scheduledFlush;
+    private final Runnable immediateFlushTask = this::immediateFlush;
+
+    PreferenceStore(Scheduler scheduler, Storage storage, Migration migration, long coalesceMillis) {
+        this.scheduler = scheduler;
+        this.storage = storage;
+        this.migration = migration;
+        this.coalesceMillis = coalesceMillis;
+        scheduler.postDelayed(this::load, 0);
+    }
+
+    /**
+     * Changes to apply together
+     */
+    public final class Editor {
+        // A null value removes the key
+        private final Map<String, Object> changes = new HashMap<>();
+        private boolean clear;
+
+        private Editor() {
+        }
+
+        /**
+         * @param value New value, null removes the key
+         */
+        public <T> Editor put(PreferenceKey<T> key, T value) {
+            changes.put(key.getName(), value instanceof Set ? copyOf((Set<?>) value) : value);
+            return this;
+        }
+
+        public Editor remove(PreferenceKey<?> key) {
+            changes.put(key.getName(), null);
+            return this;
+        }
+
+        /**
+         * Remove every key, including changes made earlier in this editor
+         */
+        public Editor clear() {
+            clear = true;
+            changes.clear();
+            return this;
+        }
+
+        /**
+         * Apply the changes in memory now and write them with the next coalesced write
+         */
+        public void apply() {
+            PreferenceStore.this.apply(this);
+        }
+
+        /**
+         * Apply the changes in memory now and write them straight away on the store's thread,
+         * without waiting for the window. For state that has to outlive the process being
+         * killed right after the edit.
+         */
+        public void applyImmediately() {
+            PreferenceStore.this.apply(this);
+            flushSoon();
+        }
+    }
+
+    public Editor edit() {
+        return new Editor();
+    }
+
+    /**
+     * Read a value
+     * @param key The key
+     * @param defaultValue Returned if the key is missing or holds a different type
+     * @return The stored value or defaultValue
+     */
+    public <T> T get(PreferenceKey<T> key, T defaultValue) {
+        awaitLoaded();
+        Object value = values.get(key.getName());
+        return key.getType().isInstance(value) ? key.getType().cast(value) : defaultValue;
+    }
+
+    /**
+     * Every stored value by key name, for keys that are only known by a prefix
+     * @return Unmodifiable map, a snapshot that later edits don't change
+     */
+    public Map<String, Object> getAll() {
+        awaitLoaded();
+        return values;
+    }
+
+    public boolean contains(PreferenceKey<?> key) {
+        awaitLoaded();
+        return values.containsKey(key.getName());
+    }
+
+    /**
+     * Shorthand for a single-key edit
+     */
+    public <T> void put(PreferenceKey<T> key, T value) {
+        edit().put(key, value).apply();
+    }
+
+    /**
+     * Shorthand for a single-key removal
+     */
+    public void remove(PreferenceKey<?> key) {
+        edit().remove(key).apply();
+    }
+
+    /**
+     * Write pending changes now, on the calling thread
+     * @return true if everything applied so far is on disk
+     */
+    public boolean flush() {
+        awaitLoaded();
+        return writeCurrent();
+    }
+
+    /**
+     * Write pending changes on the store's thread now, instead of at the end of the window
+     */
+    public void flushSoon() {
+        scheduler.postDelayed(immediateFlushTask, 0);
+    }
+
+    /**
+     * Write counts for diagnostics. Write amplification is keys written per key changed, what
+     * rewriting the whole file costs for each change.
+     */
+    public String getStats() {
+        long changed = keysChanged.get();
+        return "edits=" + edits.get() +
+                " keysChanged=" + changed +
+                " fileWrites=" + fileWrites.get() +
+                " keysWritten=" + keysWritten.get() +
+                " bytesWritten=" + bytesWritten.get() +
+                " writeAmplification=" + (changed > 0 ? keysWritten.get() / changed : 0) +
+                " writeFailures=" + writeFailures.get() +
+                (lastError != null ? " lastError=" + lastError : "");
+    }
+
+    long getFileWrites() {
+        return fileWrites.get();
+    }
+
+    long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    long getKeysChanged() {
+        return keysChanged.get();
+    }
+
+    long getKeysWritten() {
+        return keysWritten.get();
+    }
+
+    private void load() {
+        Map<String, Object> initial = new HashMap<>();
+        boolean migrated = false;
+        try {
+            Map<String, Object> stored = storage.read();
+            if (stored != null) {
+                initial.putAll(stored);
+            } else if (migration != null) {
+                for (Map.Entry<String, ?> entry : migration.read().entrySet()) {
+                    Object value = entry.getValue();
+                    if (value instanceof Set) {
+                        initial.put(entry.getKey(), copyOf((Set<?>) value));
+                    } else if (isSupported(value)) {
+                        initial.put(entry.getKey(), value);
+                    }
+                }
+                migrated = true;
+            }
+        } catch (IOException e) {
+            // Unreadable file, start empty and overwrite it with the next edit
+            lastError = e.toString();
+        }
+
+        synchronized (this) {
+            values = Collections.unmodifiableMap(initial);
+            if (migrated) {
+                version++;
+            }
+        }
+        loaded.countDown();
+
+        if (migrated) {
+            synchronized (writeLock) {
+                migrationPending = true;
+            }
+            scheduleFlush(0);
+        }
+    }
+
+    private void apply(Editor editor) {
+        awaitLoaded();
+        synchronized (this) {
+            Map<String, Object> next = editor.clear ? new HashMap<>() : new HashMap<>(values);
+            for (Map.Entry<String, Object> change : editor.changes.entrySet()) {
+                if (change.getValue() == null) {
+                    next.remove(change.getKey());
+                } else {
+                    next.put(change.getKey(), change.getValue());
+                }
+            }
+
+            int changed = countDifferences(values, next);
+            if (changed == 0) {
+                return;
+            }
+            values = Collections.unmodifiableMap(next);
+            version++;
+            edits.incrementAndGet();
+            keysChanged.addAndGet(changed);
+        }
+        scheduleFlush(coalesceMillis);
+    }
+
+    private void scheduleFlush(long delayMillis) {
+        synchronized (this) {
+            // Edits inside the window ride along with the write already scheduled
+            if (flushScheduled) {
+                return;
+            }
+            flushScheduled = true;
+        }
+        scheduler.postDelayed(flushTask, delayMillis);
+    }
+
+    private void scheduledFlush() {
+        synchronized (this) {
+            // Cleared first, an edit made while we write schedules the next write
+            flushScheduled = false;
+        }
+        if (!writeCurrent()) {
+            scheduleFlush(RETRY_MILLIS);
+        }
+    }
+
+    private void immediateFlush() {
+        // The windowed write, if one is scheduled, finds nothing left to write
+        if (!writeCurrent()) {
+            scheduleFlush(RETRY_MILLIS);
+        }
+    }
+
+    private boolean writeCurrent() {
+        synchronized (writeLock) {
+            Map<String, Object> snapshot;
+            long snapshotVersion;
+            synchronized (this) {
+                snapshot = values;
+                snapshotVersion = version;
+            }
+            if (snapshotVersion <= writtenVersion) {
+                return true;
+            }
+
+            try {
+                bytesWritten.addAndGet(storage.write(snapshot));
+            } catch (IOException e) {
+                writeFailures.incrementAndGet();
+                lastError = e.toString();
+                return false;
+            }
+            fileWrites.incrementAndGet();
+            keysWritten.addAndGet(snapshot.size());
+            writtenVersion = snapshotVersion;
+
+            if (migrationPending) {
+                migrationPending = false;
+                migration.onMigrated();
+            }
+            return true;
+        }
+    }
+
+    private void awaitLoaded() {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                loaded.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static int countDifferences(Map<String, Object> before, Map<String, Object> after) {
+        int changed = 0;
+        for (Map.Entry<String, Object> entry : after.entrySet()) {
+            if (!Objects.equals(entry.getValue(), before.get(entry.getKey()))) {
+                changed++;
+            }
+        }
+        for (String key : before.keySet()) {
+            if (!after.containsKey(key)) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    private static boolean isSupported(Object value) {
+        return value instanceof String || value instanceof Boolean || value instanceof Integer ||
+                value instanceof Long || value instanceof Float;
+    }
+
+    private static Set<String> copyOf(Set<?> values) {
+        Set<String> copy = new HashSet<>();
+        for (Object value : values) {
+            copy.add(String.valueOf(value));
+        }
+        return Collections.unmodifiableSet(copy);
+    }
+
+    /**
+     * Binary file replaced through a temporary file and a rename
+     */
+    static final class FileStorage implements Storage {
+        private static final int MAGIC = 0x52525046;
+        private static final int FORMAT_VERSION = 1;
+
+        private static final byte TYPE_STRING = 1;
+        private static final byte TYPE_BOOLEAN = 2;
+        private static final byte TYPE_INT = 3;
+        private static final byte TYPE_LONG = 4;
+        private static final byte TYPE_FLOAT = 5;
+        private static final byte TYPE_STRING_SET = 6;
+
+        private final File file;
+        private final File tempFile;
+
+        FileStorage(File file) {
+            this.file = file;
+            this.tempFile = new File(file.getPath() + ".tmp");
+        }
+
+        @Override
+        public Map<String, Object> read() throws IOException {
+            if (!file.exists()) {
+                return null;
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                    throw new IOException("Unrecognised preference file " + file);
+                }
+                int count = in.readInt();
+                Map<String, Object> values = new HashMap<>(count * 2);
+                for (int i = 0; i < count; i++) {
+                    String key = in.readUTF();
+                    values.put(key, readValue(in));
+                }
+                return values;
+            }
+        }
+
+        @Override
+        public long write(Map<String, Object> values) throws IOException {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(buffer);
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(values.size());
+            for (Map.Entry<String, Object> entry : values.entrySet()) {
+                out.writeUTF(entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+            out.flush();
+            byte[] bytes = buffer.toByteArray();
+
+            File parent = file.getParentFile();
+            if (parent != null && !parent.exists() && !parent.mkdirs()) {
+                throw new IOException("Can't create " + parent);
+            }
+            try (FileOutputStream stream = new FileOutputStream(tempFile)) {
+                stream.write(bytes);
+                // On disk before the rename makes it the real file
+                stream.getFD().sync();
+            }
+            if (!tempFile.renameTo(file)) {
+                throw new IOException("Can't replace " + file);
+            }
+            return bytes.length;
+        }
+
+        private static Object readValue(DataInputStream in) throws IOException {
+            byte type = in.readByte();
+            switch (type) {
+                case TYPE_STRING:
+                    return in.readUTF();
+                case TYPE_BOOLEAN:
+                    return in.readBoolean();
+                case TYPE_INT:
+                    return in.readInt();
+                case TYPE_LONG:
+                    return in.readLong();
+                case TYPE_FLOAT:
+                    return in.readFloat();
+                case TYPE_STRING_SET:
+                    int size = in.readInt();
+                    Set<String> set = new HashSet<>(size * 2);
+                    for (int i = 0; i < size; i++) {
+                        set.add(in.readUTF());
+                    }
+                    return Collections.unmodifiableSet(set);
+                default:
+                    throw new IOException("Unknown value type " + type);
+            }
+        }
+
+        private static void writeValue(DataOutputStream out, Object value) throws IOException {
+            if (value instanceof String) {
+                out.writeByte(TYPE_STRING);
+                out.writeUTF((String) value);
+            } else if (value instanceof Boolean) {
+                out.writeByte(TYPE_BOOLEAN);
+                out.writeBoolean((Boolean) value);
+            } else if (value instanceof Integer) {
+                out.writeByte(TYPE_INT);
+                out.writeInt((Integer) value);
+            } else if (value instanceof Long) {
+                out.writeByte(TYPE_LONG);
+                out.writeLong((Long) value);
+            } else if (value instanceof Float) {
+                out.writeByte(TYPE_FLOAT);
+                out.writeFloat((Float) value);
+            } else if (value instanceof Set) {
+                Set<?> set = (Set<?>) value;
+                out.writeByte(TYPE_STRING_SET);
+                out.writeInt(set.size());
+                for (Object item : set) {
+                    out.writeUTF((String) item);
+                }
+            } else {
+                throw new IOException("Unsupported value " + value.getClass());
+            }
+        }
+    }
+}
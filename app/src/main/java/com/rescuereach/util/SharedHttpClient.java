@@ -0,0 +1,96 @@
+package com.rescuereach.util;
+
+import android.content.Context;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+/**
+ * One OkHttpClient for the whole app. Every client owns its own connection pool and
+ * dispatcher threads, so callers should derive from this one with newBuilder() instead
+ * of building their own. Derived clients share the pool, dispatcher, cache and metrics.
+ * <p>
+ * Responses the server marks cacheable are kept on disk, HTTP/2 is negotiated where the
+ * server offers it so concurrent lookups to one host share a connection.
+ */
+public final class SharedHttpClient {
+
+    private static final int CONNECT_TIMEOUT_SECONDS = 15;
+    private static final int READ_TIMEOUT_SECONDS = 30;
+    private static final int WRITE_TIMEOUT_SECONDS = 30;
+
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+
+    // Lookups fan out per service type, on a slow link extra parallel calls only add contention
+    private static final int MAX_REQUESTS = 16;
+    private static final int MAX_REQUESTS_PER_HOST = 4;
+
+    // Also cleared by crash recovery in RescueReachApplication
+    public static final String CACHE_DIR = "okhttp";
+    private static final long CACHE_BYTES = 10L * 1024 * 1024;
+
+    private static final HttpMetrics metrics = new HttpMetrics();
+    private static volatile OkHttpClient client;
+
+    private SharedHttpClient() {
+        // Utility class
+    }
+
+    /**
+     * Get the shared client
+     * @param context Any context, used for the cache directory the first time
+     * @return OkHttpClient with pooled connections
+     */
+    public static OkHttpClient get(Context context) {
+        if (client == null) {
+            synchronized (SharedHttpClient.class) {
+                if (client == null) {
+                    Dispatcher dispatcher = new Dispatcher();
+                    dispatcher.setMaxRequests(MAX_REQUESTS);
+                    dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+
+                    client = new OkHttpClient.Builder()
+                            .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS,
+                                    KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                            .dispatcher(dispatcher)
+                            .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                            .cache(new Cache(new File(context.getApplicationContext().getCacheDir(), CACHE_DIR),
+                                    CACHE_BYTES))
+                            .eventListenerFactory(metrics.factory())
+                            .connectTimeout(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                            .readTimeout(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                            .writeTimeout(WRITE_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                            .retryOnConnectionFailure(true)
+                            .build();
+                }
+            }
+        }
+        return client;
+    }
+
+    /**
+     * Call timings, pool and cache counters for diagnostics
+     */
+    public static String getStats() {
+        OkHttpClient current = client;
+        if (current == null) {
+            return "not created";
+        }
+        Cache cache = current.cache();
+        return metrics.getStats() +
+                "\n  pool: connections=" + current.connectionPool().connectionCount() +
+                " idle=" + current.connectionPool().idleConnectionCount() +
+                "\n  dispatcher: running=" + current.dispatcher().runningCallsCount() +
+                " queued=" + current.dispatcher().queuedCallsCount() +
+                (cache != null ? "\n  cache: requests=" + cache.requestCount() +
+                        " network=" + cache.networkCount() + " hits=" + cache.hitCount() : "");
+    }
+}
@@ -0,0 +1,355 @@
+package com.rescuereach.util;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Dependency-ordered app startup. Each initialiser is registered with a phase:
+ * <ul>
+ * <li>CRITICAL runs on the main thread inside Application.onCreate, before the first activity.
+ * Only what the SOS button needs belongs here.</li>
+ * <li>BACKGROUND runs on the IO lane as soon as its dependencies are done.</li>
+ * <li>IDLE runs on the main thread once the first frames are drawn and the looper is idle,
+ * one initialiser per idle pass.</li>
+ * </ul>
+ * Code that needs a deferred initialiser before it has run calls {@link #ensure(String)}, which
+ * runs it on the calling thread or waits for it to finish. Code that can wait registers with
+ * {@link #whenDone(String, Runnable)} instead and leaves the initialiser to its phase.
+ * <p>
+ * Dependencies must be registered before their dependents, so the graph can't have cycles.
+ * Times are measured from process start, {@link #markSosReady()} records when the SOS button
+ * became usable.
+ */
+public final class StartupGraph {
+    private static final String TAG = "StartupGraph";
+
+    public enum Phase {
+        CRITICAL,
+        BACKGROUND,
+        IDLE
+    }
+
+    private static final class Node {
+        final String name;
+        final Phase phase;
+        final Runnable body;
+        final List<Node> dependencies;
+
+        // The node's monitor is held while the body runs, so ensure() callers wait on it
+        volatile boolean done;
+        // Written once under the monitor, read for the report
+        volatile long startedAtMs = -1;
+        volatile long durationMs;
+        volatile String thread;
+        volatile boolean ranLazily;
+        // Run on the main thread once done, guarded by the graph
+        final List<Runnable> onDone = new ArrayList<>();
+
+        Node(String name, Phase phase, Runnable body, List<Node> dependencies) {
+            this.name = name;
+            this.phase = phase;
+            this.body = body;
+            this.dependencies = dependencies;
+        }
+
+        boolean dependenciesDone() {
+            for (Node dependency : dependencies) {
+                if (!dependency.done) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private final Map<String, Node> nodes = new LinkedHashMap<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final long processStartMs = Process.getStartUptimeMillis();
+
+    private boolean started;
+    // Background nodes already handed to the IO lane, guarded by this
+    private final List<Node> queued = new ArrayList<>();
+    // Main thread only
+    private boolean idleHandlerRegistered;
+    private volatile long criticalPathDoneMs = -1;
+    private volatile long sosReadyMs = -1;
+
+    private final MessageQueue.IdleHandler idleHandler = () -> {
+        Node next = nextRunnableIdleNode();
+        if (next != null) {
+            run(next, false);
+        }
+        // Stay registered while there's something left that can run now, otherwise the next
+        // finished background initialiser registers us again
+        idleHandlerRegistered = nextRunnableIdleNode() != null;
+        if (!idleHandlerRegistered && allDone()) {
+            Log.d(TAG, "Startup finished\n" + getStats());
+        }
+        return idleHandlerRegistered;
+    };
+
+    /**
+     * Register an initialiser
+     * @param name Unique name, also used in the timing report
+     * @param phase When and where it runs
+     * @param body The work, exceptions are logged and count as done
+     * @param dependsOn Names of initialisers that must finish first, already registered
+     * @return This graph
+     */
+    public synchronized StartupGraph add(String name, Phase phase, Runnable body, String... dependsOn) {
+        if (started) {
+            throw new IllegalStateException("Startup already started, can't add " + name);
+        }
+        if (nodes.containsKey(name)) {
+            throw new IllegalArgumentException("Duplicate initialiser " + name);
+        }
+
+        List<Node> dependencies = new ArrayList<>(dependsOn.length);
+        for (String dependencyName : dependsOn) {
+            Node dependency = nodes.get(dependencyName);
+            if (dependency == null) {
+                throw new IllegalArgumentException(name + " depends on unknown initialiser " + dependencyName);
+            }
+            // The critical path can't wait on deferred work, and background threads can't
+            // run main thread initialisers
+            if (dependency.phase.ordinal() > phase.ordinal()) {
+                throw new IllegalArgumentException(phase + " initialiser " + name +
+                        " can't depend on " + dependency.phase + " initialiser " + dependencyName);
+            }
+            dependencies.add(dependency);
+        }
+        nodes.put(name, new Node(name, phase, body, dependencies));
+        return this;
+    }
+
+    /**
+     * Run the critical path now, on the main thread, and schedule everything else
+     */
+    public void start() {
+        synchronized (this) {
+            if (started) {
+                return;
+            }
+            started = true;
+        }
+
+        // Registration order is a valid dependency order
+        for (Node node : nodes.values()) {
+            if (node.phase == Phase.CRITICAL) {
+                run(node, false);
+            }
+        }
+        criticalPathDoneMs = sinceProcessStart();
+        Log.d(TAG, "Critical path done at " + criticalPathDoneMs + "ms");
+
+        dispatchReadyBackgroundNodes();
+        registerIdleHandler();
+    }
+
+    /**
+     * Make sure an initialiser has finished, running it and its dependencies on the calling
+     * thread if they haven't started yet, or waiting for them if they're running elsewhere
+     * @param name Name of the initialiser
+     */
+    public void ensure(String name) {
+        Node node;
+        synchronized (this) {
+            node = nodes.get(name);
+        }
+        if (node == null) {
+            Log.w(TAG, "Unknown initialiser " + name);
+            return;
+        }
+        run(node, true);
+    }
+
+    /**
+     * Like {@link #ensure(String)} for IDLE initialisers, which must run on the main thread.
+     * Called on the main thread it runs the initialiser now. Called elsewhere it posts it to the
+     * main looper and returns without waiting, the main thread may be waiting on the caller.
+     * @param name Name of the initialiser
+     */
+    public void ensureOnMainThread(String name) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            ensure(name);
+        } else {
+            mainHandler.post(() -> ensure(name));
+        }
+    }
+
+    /**
+     * Run a callback on the main thread once an initialiser has finished, without running it
+     * early. If it has already finished the callback is posted straight away.
+     * @param name Name of the initialiser
+     * @param callback Runs on the main thread
+     */
+    public void whenDone(String name, Runnable callback) {
+        synchronized (this) {
+            Node node = nodes.get(name);
+            if (node == null) {
+                Log.w(TAG, "Unknown initialiser " + name);
+                return;
+            }
+            if (!node.done) {
+                node.onDone.add(callback);
+                return;
+            }
+        }
+        mainHandler.post(callback);
+    }
+
+    /**
+     * Record that the SOS button is on screen and accepts taps. Only the first call counts.
+     */
+    public void markSosReady() {
+        if (sosReadyMs >= 0) {
+            return;
+        }
+        sosReadyMs = sinceProcessStart();
+        Log.i(TAG, "SOS button usable " + sosReadyMs + "ms after process start");
+    }
+
+    /**
+     * @return Milliseconds from process start to the SOS button being usable, -1 if not yet
+     */
+    public long getSosReadyMillis() {
+        return sosReadyMs;
+    }
+
+    /**
+     * Per-initialiser timing and the startup milestones
+     * @return Human readable summary, one line per initialiser
+     */
+    public String getStats() {
+        List<Node> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(nodes.values());
+        }
+
+        StringBuilder builder = new StringBuilder();
+        builder.append("criticalPathDoneMs=").append(criticalPathDoneMs)
+                .append(" sosReadyMs=").append(sosReadyMs).append('\n');
+        for (Node node : snapshot) {
+            builder.append(String.format(Locale.US, "%-10s %-22s ", node.phase, node.name));
+            if (node.startedAtMs < 0) {
+                builder.append("pending");
+            } else {
+                builder.append("start=").append(node.startedAtMs).append("ms")
+                        .append(" took=").append(node.durationMs).append("ms")
+                        .append(" thread=").append(node.thread);
+                if (node.ranLazily) {
+                    builder.append(" lazy");
+                }
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    private void run(Node node, boolean lazy) {
+        if (node.done) {
+            return;
+        }
+        // Dependencies first, each under its own monitor. They were registered earlier,
+        // so monitors are always taken in registration order and can't deadlock.
+        for (Node dependency : node.dependencies) {
+            run(dependency, lazy);
+        }
+
+        synchronized (node) {
+            if (node.done) {
+                // Finished on another thread while we waited for the monitor
+                return;
+            }
+            node.startedAtMs = sinceProcessStart();
+            node.thread = Thread.currentThread().getName();
+            node.ranLazily = lazy;
+            long start = SystemClock.uptimeMillis();
+            try {
+                node.body.run();
+            } catch (Exception e) {
+                Log.e(TAG, "Initialiser " + node.name + " failed", e);
+            } finally {
+                node.durationMs = SystemClock.uptimeMillis() - start;
+                node.done = true;
+            }
+        }
+        Log.d(TAG, node.name + " took " + node.durationMs + "ms on " + node.thread);
+
+        List<Runnable> callbacks;
+        synchronized (this) {
+            callbacks = new ArrayList<>(node.onDone);
+            node.onDone.clear();
+        }
+        for (Runnable callback : callbacks) {
+            mainHandler.post(callback);
+        }
+
+        if (node.phase != Phase.CRITICAL && isStarted()) {
+            // Something may have been waiting on this one
+            dispatchReadyBackgroundNodes();
+            mainHandler.post(this::registerIdleHandler);
+        }
+    }
+
+    private void dispatchReadyBackgroundNodes() {
+        List<Node> ready = new ArrayList<>();
+        synchronized (this) {
+            for (Node node : nodes.values()) {
+                // A node is handed to the lane once, ensure() covers the rest
+                if (node.phase == Phase.BACKGROUND && !node.done && !queued.contains(node)
+                        && node.dependenciesDone()) {
+                    queued.add(node);
+                    ready.add(node);
+                }
+            }
+        }
+        for (Node node : ready) {
+            AppExecutors.getInstance().io().execute(() -> run(node, false));
+        }
+    }
+
+    private void registerIdleHandler() {
+        if (idleHandlerRegistered || nextRunnableIdleNode() == null) {
+            return;
+        }
+        idleHandlerRegistered = true;
+        Looper.getMainLooper().getQueue().addIdleHandler(idleHandler);
+    }
+
+    private synchronized Node nextRunnableIdleNode() {
+        for (Node node : nodes.values()) {
+            if (node.phase == Phase.IDLE && !node.done && node.dependenciesDone()) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    private synchronized boolean allDone() {
+        for (Node node : nodes.values()) {
+            if (!node.done) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private synchronized boolean isStarted() {
+        return started;
+    }
+
+    private long sinceProcessStart() {
+        return SystemClock.uptimeMillis() - processStartMs;
+    }
+}
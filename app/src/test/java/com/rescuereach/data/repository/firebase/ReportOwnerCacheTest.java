@@ -0,0 +1,99 @@
+package com.rescuereach.data.repository.firebase;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Status updates mirror into sos_history whether or not this process has seen the report
+ */
+public class ReportOwnerCacheTest {
+
+    // Owners stored on the report documents
+    private final Map<String, String> reports = new HashMap<>();
+    private final List<String> lookups = new ArrayList<>();
+    private final ReportOwnerCache cache = new ReportOwnerCache((reportId, callback) -> {
+        lookups.add(reportId);
+        callback.onOwner(reports.get(reportId));
+    });
+
+    @Test
+    public void knownOwnerNeedsNoRead() {
+        cache.remember("report-1", "owner-1");
+
+        assertEquals("owner-1", cache.getCached("report-1"));
+        List<String> owners = new ArrayList<>();
+        cache.resolve("report-1", owners::add);
+
+        assertEquals("owner-1", owners.get(0));
+        assertTrue(lookups.isEmpty());
+    }
+
+    @Test
+    public void uncachedOwnerIsReadFromTheReportOnce() {
+        // A responder updating a report this process never loaded
+        reports.put("report-2", "owner-2");
+        assertNull(cache.getCached("report-2"));
+
+        List<String> owners = new ArrayList<>();
+        cache.resolve("report-2", owners::add);
+        cache.resolve("report-2", owners::add);
+
+        assertEquals(2, owners.size());
+        assertEquals("owner-2", owners.get(0));
+        assertEquals("owner-2", owners.get(1));
+        assertEquals(1, lookups.size());
+        // The next status update needs no read
+        assertEquals("owner-2", cache.getCached("report-2"));
+    }
+
+    @Test
+    public void missingOwnerIsReportedAndRetriedLater() {
+        List<String> owners = new ArrayList<>();
+        cache.resolve("report-3", owners::add);
+        assertEquals(1, owners.size());
+        assertNull(owners.get(0));
+
+        // Readable on the next update, e.g. after a failed read
+        reports.put("report-3", "owner-3");
+        cache.resolve("report-3", owners::add);
+        assertEquals("owner-3", owners.get(1));
+        assertEquals(2, lookups.size());
+    }
+
+    @Test
+    public void emptyOwnerIsNotRemembered() {
+        cache.remember("report-4", "");
+        cache.remember("report-4", null);
+        assertNull(cache.getCached("report-4"));
+    }
+
+    @Test
+    public void leastRecentlyUsedOwnerIsEvicted() {
+        ReportOwnerCache bounded = new ReportOwnerCache((reportId, callback) -> {
+            lookups.add(reportId);
+            callback.onOwner(reports.get(reportId));
+        }, 2);
+        bounded.remember("report-1", "owner-1");
+        bounded.remember("report-2", "owner-2");
+        // Used again, so report-2 is now the oldest
+        assertEquals("owner-1", bounded.getCached("report-1"));
+        bounded.remember("report-3", "owner-3");
+
+        assertEquals("owner-1", bounded.getCached("report-1"));
+        assertNull(bounded.getCached("report-2"));
+        assertEquals("owner-3", bounded.getCached("report-3"));
+
+        // An evicted owner is read again when needed
+        reports.put("report-2", "owner-2");
+        List<String> owners = new ArrayList<>();
+        bounded.resolve("report-2", owners::add);
+        assertEquals("owner-2", owners.get(0));
+        assertEquals(1, lookups.size());
+    }
+}
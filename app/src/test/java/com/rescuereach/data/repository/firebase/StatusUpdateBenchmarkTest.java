@@ -0,0 +1,252 @@
+package com.rescuereach.data.repository.firebase;
+
+import com.google.firebase.firestore.GeoPoint;
+import com.rescuereach.data.model.EmergencyService;
+import com.rescuereach.data.model.SOSReport;
+import com.rescuereach.util.FirestorePayloadSize;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Bytes and round trips of status changes over the lifecycle of a batch of SOS reports: the
+ * citizen raising and sometimes cancelling, a responder's process acknowledging, responding and
+ * resolving reports it never loaded. Compares the old path, which read the report and rewrote
+ * all of toMap() before mirroring the history, against the field delta with the history mirrored
+ * separately and owners from {@link ReportOwnerCache}.
+ * <p>
+ * Run on its own to see the report:
+ * ./gradlew testCitizenDebugUnitTest --tests '*StatusUpdateBenchmarkTest*' -i
+ */
+public class StatusUpdateBenchmarkTest {
+
+    private static final int REPORTS = 200;
+    // Every fifth SOS is cancelled by the citizen before anyone responds
+    private static final int CANCEL_EVERY = 5;
+    private static final String RESPONDER_UID = "responder-uid-0001";
+
+    private static final class Result {
+        long updates;
+        long bytesUp;
+        long bytesDown;
+        long roundTrips;
+        // Round trips before the caller hears back
+        long criticalRoundTrips;
+    }
+
+    /**
+     * A status change as one of the two processes makes it
+     */
+    private static final class Update {
+        final String reportId;
+        final String status;
+        final Map<String, Object> responderInfo;
+        final boolean byResponder;
+
+        Update(String reportId, String status, Map<String, Object> responderInfo, boolean byResponder) {
+            this.reportId = reportId;
+            this.status = status;
+            this.responderInfo = responderInfo;
+            this.byResponder = byResponder;
+        }
+    }
+
+    private final Map<String, SOSReport> stored = new HashMap<>();
+
+    @Test
+    public void deltaSendsLessAndSkipsTheRead() {
+        List<Update> updates = workload();
+        Result rewrite = runReadThenRewrite(updates);
+        Result delta = runDelta(updates);
+
+        System.out.println(String.format(Locale.US,
+                "Status updates for %d reports\n%-10s %8s %10s %10s %11s %9s\n%s\n%s",
+                REPORTS, "mode", "updates", "kbUp", "kbDown", "roundTrips", "critical",
+                row("rewrite", rewrite), row("delta", delta)));
+
+        assertEquals(rewrite.updates, delta.updates);
+        assertTrue("up " + delta.bytesUp + " vs " + rewrite.bytesUp, delta.bytesUp * 3 < rewrite.bytesUp);
+        assertTrue("down " + delta.bytesDown + " vs " + rewrite.bytesDown, delta.bytesDown < rewrite.bytesDown);
+        assertTrue(delta.roundTrips < rewrite.roundTrips);
+        // The caller waits for one write instead of a read and a write
+        assertEquals(delta.updates, delta.criticalRoundTrips);
+        assertEquals(rewrite.updates * 2, rewrite.criticalRoundTrips);
+    }
+
+    private static String row(String mode, Result result) {
+        return String.format(Locale.US, "%-10s %8d %10.1f %10.1f %11d %9d",
+                mode, result.updates, result.bytesUp / 1024.0, result.bytesDown / 1024.0,
+                result.roundTrips, result.criticalRoundTrips);
+    }
+
+    /**
+     * Read the report, set the whole map back with the new status, then mirror the history
+     */
+    private Result runReadThenRewrite(List<Update> updates) {
+        Result result = new Result();
+        for (Update update : updates) {
+            SOSReport report = stored.get(update.reportId);
+            result.bytesDown += documentSize(report);
+
+            report.setStatus(update.status);
+            report.setStatusUpdatedAt(new Date());
+            Map<String, Object> updateData = documentMap(report);
+            if (update.responderInfo != null) {
+                updateData.put(StatusUpdates.FIELD_RESPONDER_INFO, update.responderInfo);
+            }
+            result.bytesUp += FirestorePayloadSize.estimate(updateData);
+            result.bytesUp += FirestorePayloadSize.estimate(
+                    StatusUpdates.historyEntry(update.reportId, update.status));
+
+            result.updates++;
+            result.roundTrips += 3;
+            result.criticalRoundTrips += 2;
+        }
+        return result;
+    }
+
+    /**
+     * Send the delta, then mirror the history with the owner from each process's cache
+     */
+    private Result runDelta(List<Update> updates) {
+        Result result = new Result();
+        ReportOwnerCache.Lookup lookup = (reportId, callback) -> {
+            // The owner read fetches the whole report
+            SOSReport report = stored.get(reportId);
+            result.bytesDown += documentSize(report);
+            result.roundTrips++;
+            callback.onOwner(report.getUserId());
+        };
+        ReportOwnerCache citizen = new ReportOwnerCache(lookup);
+        ReportOwnerCache responder = new ReportOwnerCache(lookup);
+        for (SOSReport report : stored.values()) {
+            // The citizen's process wrote the report
+            citizen.remember(report.getReportId(), report.getUserId());
+        }
+
+        for (Update update : updates) {
+            String updatedBy = update.byResponder ? RESPONDER_UID : "citizen-uid";
+            Map<String, Object> delta = StatusUpdates.delta(update.status, update.responderInfo, updatedBy);
+            result.bytesUp += FirestorePayloadSize.estimate(delta);
+
+            ReportOwnerCache owners = update.byResponder ? responder : citizen;
+            owners.resolve(update.reportId, owner -> {
+                assertNotNull(owner);
+                result.bytesUp += FirestorePayloadSize.estimate(
+                        StatusUpdates.historyEntry(update.reportId, update.status));
+            });
+
+            result.updates++;
+            result.roundTrips += 2;
+            result.criticalRoundTrips++;
+        }
+        return result;
+    }
+
+    private List<Update> workload() {
+        stored.clear();
+        List<Update> updates = new ArrayList<>();
+        for (int i = 0; i < REPORTS; i++) {
+            SOSReport report = report(i);
+            stored.put(report.getReportId(), report);
+            String id = report.getReportId();
+
+            if (i % CANCEL_EVERY == 0) {
+                updates.add(new Update(id, SOSReport.STATUS_CANCELED, null, false));
+                continue;
+            }
+            updates.add(new Update(id, SOSReport.STATUS_RECEIVED, responderInfo(i, null), true));
+            updates.add(new Update(id, SOSReport.STATUS_RESPONDING, responderInfo(i, 6), true));
+            updates.add(new Update(id, SOSReport.STATUS_RESOLVED, responderInfo(i, 0), true));
+        }
+        return updates;
+    }
+
+    /**
+     * A report filled in the way SOSDataCollectionService fills it
+     */
+    private static SOSReport report(int index) {
+        SOSReport report = new SOSReport("+9198765" + String.format(Locale.US, "%05d", index),
+                "MEDICAL", new GeoPoint(28.6139 + index * 1e-4, 77.2090 - index * 1e-4),
+                "Flat 12, Block C, Sector 21, Dwarka, New Delhi, Delhi 110075, India",
+                "New Delhi", "Delhi");
+        report.setReportId("sos-report-" + index);
+        report.setTimestamp(new Date());
+        report.setIdempotencyKey("3f2c1a9e-7b4d-4c8e-9a51-" + String.format(Locale.US, "%012d", index));
+        report.setOnline(true);
+
+        Map<String, Object> userInfo = new HashMap<>();
+        userInfo.put("fullName", "Citizen Number " + index);
+        userInfo.put("phoneNumber", report.getUserId());
+        userInfo.put("email", "citizen" + index + "@example.com");
+        userInfo.put("bloodGroup", "B+");
+        userInfo.put("medicalConditions", "Asthma, penicillin allergy");
+        report.setUserInfo(userInfo);
+
+        Map<String, Object> deviceInfo = new HashMap<>();
+        deviceInfo.put("model", "Pixel 8");
+        deviceInfo.put("manufacturer", "Google");
+        deviceInfo.put("androidVersion", "15");
+        deviceInfo.put("batteryLevel", 64);
+        deviceInfo.put("networkType", "LTE");
+        deviceInfo.put("locationAccuracy", 12.5);
+        report.setDeviceInfo(deviceInfo);
+
+        List<EmergencyService> services = new ArrayList<>();
+        services.add(new EmergencyService("place-h-" + index, "Venkateshwar Hospital", "HOSPITAL",
+                new GeoPoint(28.5921, 77.0460), "Sector 18A, Dwarka, New Delhi", "011 4855 5555", 1.2, "108"));
+        services.add(new EmergencyService("place-p-" + index, "Dwarka Sector 23 Police Station", "POLICE",
+                new GeoPoint(28.5663, 77.0598), "Sector 23, Dwarka, New Delhi", "011 2507 1234", 2.4, "100"));
+        services.add(new EmergencyService("place-f-" + index, "Dwarka Fire Station", "FIRE",
+                new GeoPoint(28.5823, 77.0500), "Sector 6, Dwarka, New Delhi", "011 2508 0101", 1.9, "101"));
+        report.setNearbyServices(services);
+        report.setEmergencyContactNumbers(Arrays.asList("+919811100001", "+919811100002"));
+        return report;
+    }
+
+    private static Map<String, Object> responderInfo(int index, Integer etaMinutes) {
+        Map<String, Object> info = new HashMap<>();
+        info.put("responderId", RESPONDER_UID);
+        info.put("name", "Unit " + (index % 12));
+        info.put("phone", "+91112345" + String.format(Locale.US, "%04d", index % 10000));
+        if (etaMinutes != null) {
+            info.put("etaMinutes", etaMinutes);
+        }
+        return info;
+    }
+
+    private static long documentSize(SOSReport report) {
+        return FirestorePayloadSize.estimate(documentMap(report));
+    }
+
+    /**
+     * toMap() with the nearby services as the maps Firestore stores them as
+     */
+    private static Map<String, Object> documentMap(SOSReport report) {
+        Map<String, Object> map = report.toMap();
+        List<Map<String, Object>> services = new ArrayList<>();
+        for (EmergencyService service : report.getNearbyServices()) {
+            Map<String, Object> fields = new HashMap<>();
+            fields.put("placeId", service.getPlaceId());
+            fields.put("name", service.getName());
+            fields.put("type", service.getType());
+            fields.put("location", service.getLocation());
+            fields.put("address", service.getAddress());
+            fields.put("phoneNumber", service.getPhoneNumber());
+            fields.put("distance", service.getDistance());
+            fields.put("tollFreeNumber", service.getTollFreeNumber());
+            services.add(fields);
+        }
+        map.put("nearbyServices", services);
+        return map;
+    }
+}
@@ -0,0 +1,80 @@
+package com.rescuereach.service.auth;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Reading sessions back from the session file: the fixed profile keys, the prefixed preference
+ * switches folded in from the old per-category files, and values of the wrong type
+ */
+public class SessionPreferencesTest {
+
+    @Test
+    public void readsProfileKeysAndPrefixedSwitches() {
+        Map<String, Object> stored = new HashMap<>();
+        stored.put("phone_number", "+919876543210");
+        stored.put("full_name", "Asha Verma");
+        stored.put("first_name", "Asha");
+        stored.put("last_name", "Verma");
+        stored.put("state", "Maharashtra");
+        stored.put("is_volunteer", true);
+        stored.put("last_login", 1_700_000_000_000L);
+        stored.put("privacy.location_sharing", false);
+        stored.put("emergency.share_location_emergency", true);
+        stored.put("notification.sos_alerts", false);
+
+        SessionSnapshot session = SessionPreferences.read(stored).build();
+
+        assertEquals("+919876543210", session.getPhoneNumber());
+        assertEquals("Asha", session.getFirstName());
+        assertEquals("Verma", session.getLastName());
+        assertEquals("Maharashtra", session.getState());
+        assertTrue(session.isVolunteer());
+        assertEquals(1_700_000_000_000L, session.getLastLogin());
+        assertFalse(session.getPrivacyPreference("location_sharing", true));
+        assertTrue(session.getEmergencyPreference("share_location_emergency", false));
+        assertFalse(session.getNotificationPreference("sos_alerts", true));
+        // Each prefix belongs to its own category
+        assertTrue(session.getPrivacyPreference("sos_alerts", true));
+        assertFalse(session.getNotificationPreference("location_sharing", false));
+    }
+
+    @Test
+    public void valuesOfTheWrongTypeAreIgnored() {
+        Map<String, Object> stored = new HashMap<>();
+        stored.put("phone_number", 919876543210L);
+        stored.put("is_volunteer", "true");
+        stored.put("last_login", 1_700_000_000);
+        stored.put("privacy.location_sharing", "false");
+        stored.put("notification.sos_alerts", 1);
+        stored.put("preferences_migrated", "yes");
+
+        SessionSnapshot session = SessionPreferences.read(stored).build();
+
+        assertNull(session.getPhoneNumber());
+        assertFalse(session.isVolunteer());
+        assertEquals(0, session.getLastLogin());
+        assertTrue(session.getPrivacyPreference("location_sharing", true));
+        assertTrue(session.getNotificationPreference("sos_alerts", true));
+        assertFalse(SessionPreferences.isMigrated(stored));
+        assertEquals(SessionSnapshot.EMPTY, session);
+    }
+
+    @Test
+    public void unprefixedSwitchesAreNotPreferences() {
+        Map<String, Object> stored = new HashMap<>();
+        stored.put("location_sharing", false);
+        stored.put("privacy", false);
+        stored.put("profile_completed", true);
+
+        SessionSnapshot session = SessionPreferences.read(stored).build();
+
+        assertTrue(session.getPrivacyPreference("location_sharing", true));
+        assertTrue(session.isProfileCompleted());
+        assertEquals(session.toBuilder().build(), session);
+    }
+}
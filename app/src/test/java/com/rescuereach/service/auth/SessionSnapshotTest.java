@@ -0,0 +1,131 @@
+package com.rescuereach.service.auth;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Deriving sessions from a {@link SessionSnapshot}, and the equality
+ * {@link UserSessionManager} uses to skip changes that change nothing
+ */
+public class SessionSnapshotTest {
+
+    private static SessionSnapshot signedIn() {
+        SessionSnapshot.Builder builder = new SessionSnapshot.Builder().fullName("Asha Verma");
+        builder.phoneNumber = "+919876543210";
+        builder.userId = "Xb3kP9qLmN2vR7tY1wZ5aC8dE4f";
+        builder.state = "Maharashtra";
+        builder.emergencyContact = "+919812345678";
+        builder.dateOfBirth = "1994-03-12";
+        builder.volunteer = true;
+        builder.profileCompleted = true;
+        builder.lastLogin = 1_700_000_000_000L;
+        builder.privacyPreferences.put("location_sharing", false);
+        builder.emergencyPreferences.put("share_location_emergency", true);
+        builder.notificationPreferences.put("sos_alerts", true);
+        return builder.build();
+    }
+
+    @Test
+    public void fullNameIsSplitAtTheFirstSpace() {
+        SessionSnapshot twoNames = new SessionSnapshot.Builder().fullName("Asha Verma").build();
+        assertEquals("Asha", twoNames.getFirstName());
+        assertEquals("Verma", twoNames.getLastName());
+
+        // Everything after the first space is the last name
+        SessionSnapshot threeNames = new SessionSnapshot.Builder().fullName("Asha Rani Verma").build();
+        assertEquals("Asha", threeNames.getFirstName());
+        assertEquals("Rani Verma", threeNames.getLastName());
+
+        SessionSnapshot oneName = new SessionSnapshot.Builder().fullName("Asha").build();
+        assertEquals("Asha", oneName.getFirstName());
+        assertEquals("", oneName.getLastName());
+
+        // A leading space isn't a split
+        SessionSnapshot leadingSpace = new SessionSnapshot.Builder().fullName(" Asha").build();
+        assertEquals(" Asha", leadingSpace.getFirstName());
+        assertEquals("", leadingSpace.getLastName());
+    }
+
+    @Test
+    public void unsetStringsReadAsEmptyExceptTheNullableOnes() {
+        SessionSnapshot empty = SessionSnapshot.EMPTY;
+        assertNull(empty.getPhoneNumber());
+        assertNull(empty.getUserId());
+        assertNull(empty.getDateOfBirth());
+        assertEquals("", empty.getFullName());
+        assertEquals("", empty.getState());
+        assertEquals("", empty.getEmergencyContact());
+        assertTrue(empty.getPrivacyPreference("location_sharing", true));
+    }
+
+    @Test
+    public void clearProfileKeepsThePreferenceSwitches() {
+        SessionSnapshot cleared = signedIn().toBuilder().clearProfile().build();
+
+        assertNull(cleared.getPhoneNumber());
+        assertNull(cleared.getUserId());
+        assertNull(cleared.getDateOfBirth());
+        assertEquals("", cleared.getFullName());
+        assertEquals("", cleared.getFirstName());
+        assertEquals("", cleared.getState());
+        assertEquals("", cleared.getEmergencyContact());
+        assertFalse(cleared.isVolunteer());
+        assertFalse(cleared.isProfileCompleted());
+        assertEquals(0, cleared.getLastLogin());
+
+        assertFalse(cleared.getPrivacyPreference("location_sharing", true));
+        assertTrue(cleared.getEmergencyPreference("share_location_emergency", false));
+        assertTrue(cleared.getNotificationPreference("sos_alerts", false));
+    }
+
+    @Test
+    public void unchangedSessionIsEqualSoNoChangeIsPublished() {
+        SessionSnapshot session = signedIn();
+        assertEquals(session, session.toBuilder().build());
+        assertEquals(session.hashCode(), session.toBuilder().build().hashCode());
+
+        // Setting the values it already has
+        SessionSnapshot.Builder same = session.toBuilder().fullName("Asha Verma");
+        same.volunteer = true;
+        same.privacyPreferences.put("location_sharing", false);
+        assertEquals(session, same.build());
+
+        // Clearing twice is a change once
+        SessionSnapshot cleared = session.toBuilder().clearProfile().build();
+        assertEquals(cleared, cleared.toBuilder().clearProfile().build());
+    }
+
+    @Test
+    public void anyChangedFieldMakesADifferentSession() {
+        SessionSnapshot session = signedIn();
+
+        SessionSnapshot.Builder volunteer = session.toBuilder();
+        volunteer.volunteer = false;
+        assertNotEquals(session, volunteer.build());
+
+        assertNotEquals(session, session.toBuilder().fullName("Asha Rani").build());
+
+        SessionSnapshot.Builder state = session.toBuilder();
+        state.state = "Karnataka";
+        assertNotEquals(session, state.build());
+
+        SessionSnapshot.Builder notification = session.toBuilder();
+        notification.notificationPreferences.put("sos_alerts", false);
+        assertNotEquals(session, notification.build());
+
+        // A switch set to its default is still a stored value
+        SessionSnapshot.Builder privacy = session.toBuilder();
+        privacy.privacyPreferences.put("media_sharing", true);
+        assertNotEquals(session, privacy.build());
+    }
+
+    @Test
+    public void builderChangesDontReachTheSnapshot() {
+        SessionSnapshot.Builder builder = signedIn().toBuilder();
+        SessionSnapshot built = builder.build();
+
+        builder.privacyPreferences.put("location_sharing", true);
+        assertFalse(built.getPrivacyPreference("location_sharing", true));
+    }
+}
@@ -0,0 +1,64 @@
+package com.rescuereach.service.location;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A GPS trace from test resources: fixes with their true position, see traces/*.csv
+ */
+final class GpsTrace {
+
+    static final class Fix {
+        final long time;
+        final double latitude;
+        final double longitude;
+        final float accuracy;
+        final double trueLatitude;
+        final double trueLongitude;
+
+        Fix(long time, double latitude, double longitude, float accuracy,
+            double trueLatitude, double trueLongitude) {
+            this.time = time;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.accuracy = accuracy;
+            this.trueLatitude = trueLatitude;
+            this.trueLongitude = trueLongitude;
+        }
+    }
+
+    private GpsTrace() {
+        // Utility class
+    }
+
+    /**
+     * Load traces/{name} from the test resources
+     * @return Null if there is no such trace
+     */
+    static List<Fix> load(String name) throws IOException {
+        InputStream stream = GpsTrace.class.getResourceAsStream("/traces/" + name);
+        if (stream == null) {
+            return null;
+        }
+
+        List<Fix> fixes = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("#") || line.startsWith("time_ms") || line.trim().isEmpty()) {
+                    continue;
+                }
+                String[] columns = line.split(",");
+                fixes.add(new Fix(Long.parseLong(columns[0]), Double.parseDouble(columns[1]),
+                        Double.parseDouble(columns[2]), Float.parseFloat(columns[3]),
+                        Double.parseDouble(columns[4]), Double.parseDouble(columns[5])));
+            }
+        }
+        return fixes;
+    }
+}
@@ -0,0 +1,65 @@
+package com.rescuereach.service.location;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stands in for Firestore behind {@link TrailPipeline}. Queues each commit at once, as
+ * Firestore's local write queue does, keeps the documents a flush would write, acknowledges each
+ * commit after a simulated round trip, and records how long every uploaded point took from
+ * arriving to being acknowledged.
+ */
+final class InMemoryTrailStore implements TrailPipeline.Store {
+
+    private final SimulatedScheduler scheduler;
+    private final long commitLatencyMs;
+
+    // Simulated arrival time of each point handed to the pipeline
+    private final Map<TrailPoint, Long> arrivals = new IdentityHashMap<>();
+
+    final List<Map<String, Object>> lastKnownWrites = new ArrayList<>();
+    final List<List<TrailPoint>> chunkWrites = new ArrayList<>();
+    final List<Long> lagsMs = new ArrayList<>();
+    int commits;
+
+    InMemoryTrailStore(SimulatedScheduler scheduler, long commitLatencyMs) {
+        this.scheduler = scheduler;
+        this.commitLatencyMs = commitLatencyMs;
+    }
+
+    /**
+     * Note when a point reached the pipeline, for the lag of the write that carries it
+     */
+    void arrived(TrailPoint point) {
+        arrivals.put(point, scheduler.now());
+    }
+
+    /**
+     * Documents written: last_known on every commit plus one per trail chunk
+     */
+    int documentWrites() {
+        return lastKnownWrites.size() + chunkWrites.size();
+    }
+
+    @Override
+    public void commit(String owner, Map<String, Object> lastKnown, List<TrailPoint> chunk, int rawCount,
+                       Callback callback) {
+        commits++;
+        scheduler.postAt(() -> {
+            lastKnownWrites.add(lastKnown);
+            if (!chunk.isEmpty()) {
+                chunkWrites.add(chunk);
+            }
+            long ackAt = scheduler.now();
+            for (TrailPoint point : chunk) {
+                Long arrivedAt = arrivals.remove(point);
+                if (arrivedAt != null) {
+                    lagsMs.add(ackAt - arrivedAt);
+                }
+            }
+        }, scheduler.now() + commitLatencyMs);
+        callback.onComplete(true);
+    }
+}
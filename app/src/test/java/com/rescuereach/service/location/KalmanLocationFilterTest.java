@@ -0,0 +1,148 @@
+package com.rescuereach.service.location;
+
+import com.rescuereach.service.location.GpsTrace.Fix;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Replays GPS traces through the location filter and compares it with the raw fixes on
+ * position error against the true route and on trail writes
+ */
+public class KalmanLocationFilterTest {
+
+    private static final class Replay {
+        int accepted;
+        int rejected;
+        double rmsError;
+        double maxError;
+        // Points the trail uploader's decimation would keep
+        int writes;
+    }
+
+    @Test
+    public void indoorStationary_smoothsWanderAndCutsWrites() throws IOException {
+        List<Fix> trace = loadTrace("indoor_stationary.csv");
+
+        Replay raw = replay(trace, new PassThroughLocationFilter());
+        Replay filtered = replay(trace, new KalmanLocationFilter(KalmanLocationFilter.STILL_ACCELERATION_NOISE));
+
+        assertTrue("filtered rms " + filtered.rmsError + " vs raw " + raw.rmsError,
+                filtered.rmsError < raw.rmsError * 0.6);
+        // Short jumps within their reported accuracy can't be told apart from real movement
+        assertTrue("filtered max " + filtered.maxError + " vs raw " + raw.maxError,
+                filtered.maxError < raw.maxError / 2);
+        // The heartbeat alone writes once a minute, so a still phone can't go much lower
+        assertTrue("writes " + filtered.writes + " vs raw " + raw.writes,
+                filtered.writes < raw.writes * 0.6);
+        assertTrue(filtered.rejected > 0);
+    }
+
+    @Test
+    public void walking_followsRouteAndDropsReflections() throws IOException {
+        List<Fix> trace = loadTrace("walking.csv");
+
+        Replay raw = replay(trace, new PassThroughLocationFilter());
+        Replay filtered = replay(trace, new KalmanLocationFilter(KalmanLocationFilter.WALKING_ACCELERATION_NOISE));
+
+        assertTrue("filtered rms " + filtered.rmsError + " vs raw " + raw.rmsError,
+                filtered.rmsError < raw.rmsError);
+        assertTrue("filtered max " + filtered.maxError + " vs raw " + raw.maxError,
+                filtered.maxError < raw.maxError / 2);
+        assertTrue(filtered.rejected >= 2);
+        assertTrue("writes " + filtered.writes + " vs raw " + raw.writes, filtered.writes < raw.writes);
+    }
+
+    @Test
+    public void driving_keepsUpThroughTurns() throws IOException {
+        List<Fix> trace = loadTrace("driving.csv");
+
+        Replay raw = replay(trace, new PassThroughLocationFilter());
+        Replay filtered = replay(trace, new KalmanLocationFilter());
+
+        assertTrue("filtered rms " + filtered.rmsError + " vs raw " + raw.rmsError,
+                filtered.rmsError < raw.rmsError);
+        assertTrue("filtered max " + filtered.maxError, filtered.maxError < 40);
+        // Nearly every fix while driving is real movement and must still be accepted
+        assertTrue(filtered.accepted >= trace.size() - 5);
+    }
+
+    @Test
+    public void consecutiveJumps_restartAtNewPosition() {
+        KalmanLocationFilter filter = new KalmanLocationFilter();
+        long time = 0;
+        for (int i = 0; i < 10; i++) {
+            assertTrue(filter.update(28.6139, 77.2090, 5f, time));
+            time += 1000;
+        }
+
+        // 2 km away with a tight accuracy, e.g. the first fix after leaving a tunnel
+        int rejected = 0;
+        while (!filter.update(28.6319, 77.2090, 5f, time)) {
+            rejected++;
+            time += 1000;
+        }
+        assertTrue(rejected > 0 && rejected <= 3);
+        assertEquals(28.6319, filter.getLatitude(), 1e-6);
+    }
+
+    @Test
+    public void outOfOrderFix_isRejected() {
+        KalmanLocationFilter filter = new KalmanLocationFilter();
+        assertTrue(filter.update(28.6139, 77.2090, 10f, 10000));
+        assertFalse(filter.update(28.6140, 77.2091, 10f, 5000));
+    }
+
+    @Test
+    public void uncertainty_shrinksWithRepeatedFixes() {
+        KalmanLocationFilter filter = new KalmanLocationFilter();
+        filter.update(28.6139, 77.2090, 20f, 0);
+        float first = filter.getAccuracy();
+        for (int i = 1; i <= 5; i++) {
+            filter.update(28.6139, 77.2090, 20f, i * 1000L);
+        }
+        assertTrue(filter.getAccuracy() < first);
+    }
+
+    private static Replay replay(List<Fix> trace, LocationFilter filter) {
+        Replay result = new Replay();
+        double squaredErrorSum = 0;
+        TrailPoint lastWritten = null;
+
+        for (Fix fix : trace) {
+            if (!filter.update(fix.latitude, fix.longitude, fix.accuracy, fix.time)) {
+                result.rejected++;
+                continue;
+            }
+            result.accepted++;
+
+            TrailPoint estimate = new TrailPoint(filter.getLatitude(), filter.getLongitude(),
+                    fix.time, filter.getAccuracy());
+            double error = estimate.distanceTo(new TrailPoint(fix.trueLatitude, fix.trueLongitude, fix.time, 0));
+            squaredErrorSum += error * error;
+            result.maxError = Math.max(result.maxError, error);
+
+            // Same decimation the trail uploader applies before anything is written
+            boolean moved = lastWritten == null ||
+                    estimate.distanceTo(lastWritten) >= TrailPipeline.displacementThreshold(estimate);
+            boolean heartbeat = lastWritten != null &&
+                    estimate.getTime() - lastWritten.getTime() >= TrailPipeline.HEARTBEAT_MS;
+            if (moved || heartbeat) {
+                result.writes++;
+                lastWritten = estimate;
+            }
+        }
+        result.rmsError = Math.sqrt(squaredErrorSum / Math.max(1, result.accepted));
+        return result;
+    }
+
+    private static List<Fix> loadTrace(String name) throws IOException {
+        List<Fix> trace = GpsTrace.load(name);
+        assertNotNull("Missing trace " + name, trace);
+        return trace;
+    }
+}
@@ -0,0 +1,111 @@
+package com.rescuereach.service.location;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Points survive encoding, and a reader that misses one never applies a delta to the wrong base
+ */
+public class LiveTrackCodecTest {
+
+    private static final long START = 1_700_000_000_000L;
+    // Quantisation step, about 1 m
+    private static final double STEP = 1 / LiveTrackCodec.PRECISION;
+
+    private final LiveTrackCodec.Encoder encoder = new LiveTrackCodec.Encoder(START);
+    private final LiveTrackCodec.Decoder decoder = new LiveTrackCodec.Decoder(START);
+
+    private String send(double latitude, double longitude, float accuracy, long time) {
+        String value = encoder.encode(latitude, longitude, accuracy, time);
+        encoder.commit();
+        return value;
+    }
+
+    @Test
+    public void keyframeRoundTrip() {
+        String value = send(28.6139012, 77.2090034, 8f, START + 12_400);
+        assertTrue(value, value.startsWith("k"));
+
+        LiveTrackCodec.Point point = decoder.decode(0, value);
+        assertEquals(28.6139012, point.latitude, STEP);
+        assertEquals(77.2090034, point.longitude, STEP);
+        // Accuracy is sent as its bucket, time as whole seconds
+        assertEquals(10f, point.accuracyMeters, 0);
+        assertEquals(START + 12_000, point.timeMillis);
+    }
+
+    @Test
+    public void negativeDeltasAndCoordinatesRoundTrip() {
+        // South west of the equator and meridian, moving further south west
+        double latitude = -33.8688;
+        double longitude = -70.6693;
+        assertNotNull(decoder.decode(0, send(latitude, longitude, 3f, START)));
+
+        for (int seq = 1; seq < 10; seq++) {
+            latitude -= 0.00037;
+            longitude -= 0.00121;
+            String value = send(latitude, longitude, 3f, START + seq * 1000);
+            assertTrue(value, value.startsWith("-"));
+
+            LiveTrackCodec.Point point = decoder.decode(seq, value);
+            assertEquals(latitude, point.latitude, STEP);
+            assertEquals(longitude, point.longitude, STEP);
+            assertEquals(START + seq * 1000, point.timeMillis);
+        }
+    }
+
+    @Test
+    public void keyframeFollowsTheInterval() {
+        int keyframes = 0;
+        for (int seq = 0; seq <= LiveTrackCodec.KEYFRAME_INTERVAL * 2; seq++) {
+            String value = send(10 + seq * STEP, 20, 5f, START + seq * 1000);
+            if (value.startsWith("k")) {
+                keyframes++;
+            }
+            assertNotNull(decoder.decode(seq, value));
+        }
+        assertEquals(3, keyframes);
+    }
+
+    @Test
+    public void gapDropsDeltasUntilTheNextKeyframe() {
+        assertNotNull(decoder.decode(0, send(51.5007, -0.1246, 5f, START)));
+        assertNotNull(decoder.decode(1, send(51.5010, -0.1240, 5f, START + 1000)));
+
+        // Point 2 never reaches the reader, point 3 was encoded against it
+        send(51.5020, -0.1230, 5f, START + 2000);
+        assertNull(decoder.decode(3, send(51.5030, -0.1220, 5f, START + 3000)));
+        // Still unsynced, this delta follows one that was dropped
+        assertNull(decoder.decode(4, send(51.5040, -0.1210, 5f, START + 4000)));
+
+        // The streamer learns about the failed write and restarts from absolute coordinates
+        encoder.forceKeyframe();
+        String keyframe = send(51.5050, -0.1200, 5f, START + 5000);
+        assertTrue(keyframe, keyframe.startsWith("k"));
+        LiveTrackCodec.Point point = decoder.decode(5, keyframe);
+        assertEquals(51.5050, point.latitude, STEP);
+        assertEquals(-0.1200, point.longitude, STEP);
+
+        point = decoder.decode(6, send(51.5051, -0.1199, 5f, START + 6000));
+        assertEquals(51.5051, point.latitude, STEP);
+        assertEquals(-0.1199, point.longitude, STEP);
+    }
+
+    @Test
+    public void lateJoinerWaitsForAKeyframe() {
+        send(0, 0, 5f, START);
+        String delta = send(0.001, 0.001, 5f, START + 1000);
+        assertNull(decoder.decode(1, delta));
+        assertNull(decoder.decode(2, "not,a,point"));
+    }
+
+    @Test
+    public void accuracyBuckets() {
+        assertEquals(0, LiveTrackCodec.accuracyBucket(5f));
+        assertEquals(1, LiveTrackCodec.accuracyBucket(5.1f));
+        // Unknown goes in the worst bucket
+        assertEquals(1000f, LiveTrackCodec.bucketAccuracy(LiveTrackCodec.accuracyBucket(0)), 0);
+        assertEquals(1000f, LiveTrackCodec.bucketAccuracy(LiveTrackCodec.accuracyBucket(5000f)), 0);
+    }
+}
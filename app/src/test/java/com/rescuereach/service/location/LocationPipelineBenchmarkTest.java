@@ -0,0 +1,198 @@
+package com.rescuereach.service.location;
+
+import com.rescuereach.service.location.GpsTrace.Fix;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Replays GPS traces through the emergency location path with Firebase replaced by an in-memory
+ * store: filtering as {@link LocationHub} does it, the cached latest fix, then decimation and
+ * flush decisions in {@link TrailPipeline}. Reports fixes per second, bytes allocated per fix,
+ * documents written and the lag from a fix arriving to its write being acknowledged, so changes
+ * to the location path can be compared against a baseline.
+ * <p>
+ * Run on its own to see the report:
+ * ./gradlew testCitizenDebugUnitTest --tests '*LocationPipelineBenchmarkTest*' -i
+ */
+public class LocationPipelineBenchmarkTest {
+
+    private static final String[] TRACES = {"indoor_stationary.csv", "walking.csv", "driving.csv"};
+    private static final String USER_ID = "benchmark-user";
+    private static final long COMMIT_LATENCY_MS = 400;
+
+    // Throughput runs replay the traces back to back this many times
+    private static final int WARMUP_REPEATS = 20;
+    private static final int MEASURED_REPEATS = 200;
+
+    private static final class Result {
+        int fixes;
+        int rejected;
+        int documentWrites;
+        int commits;
+        long p50LagMs;
+        long maxLagMs;
+    }
+
+    /**
+     * The pipeline under test, wired the way the app wires it
+     */
+    private static final class Harness {
+        final SimulatedScheduler scheduler = new SimulatedScheduler();
+        final InMemoryTrailStore store = new InMemoryTrailStore(scheduler, COMMIT_LATENCY_MS);
+        final TrailPipeline pipeline = new TrailPipeline(scheduler, store);
+        final KalmanLocationFilter filter = new KalmanLocationFilter();
+        final boolean trackLag;
+        // What LocationHub.getLastFix() would return
+        TrailPoint cached;
+        int fixes;
+        int rejected;
+
+        Harness(boolean trackLag) {
+            this.trackLag = trackLag;
+        }
+
+        /**
+         * @param startTime Time the first fix of the trace is replayed at, the simulated clock
+         *                  and the fix times share one timeline
+         */
+        void replay(List<Fix> trace, long startTime) {
+            long offset = startTime - trace.get(0).time;
+            for (Fix fix : trace) {
+                long time = fix.time + offset;
+                scheduler.advanceTo(time);
+                fixes++;
+
+                if (!filter.update(fix.latitude, fix.longitude, fix.accuracy, time)) {
+                    rejected++;
+                    continue;
+                }
+                cached = new TrailPoint(filter.getLatitude(), filter.getLongitude(), time, filter.getAccuracy());
+
+                // The same last_known fields LocationManager builds for each emergency fix
+                Map<String, Object> status = new HashMap<>();
+                status.put("latitude", cached.getLatitude());
+                status.put("longitude", cached.getLongitude());
+                status.put("accuracy", cached.getAccuracy());
+                status.put("timestamp", time);
+                status.put("isEmergency", true);
+                status.put("userId", USER_ID);
+
+                if (trackLag) {
+                    store.arrived(cached);
+                }
+                pipeline.addFix(USER_ID, cached, status);
+            }
+        }
+
+        void finish() {
+            pipeline.flush();
+            scheduler.drain();
+        }
+    }
+
+    @Test
+    public void traces_writeLessThanTheyReceiveWithBoundedLag() throws IOException {
+        System.out.println("trace                   fixes  rejected  commits  docWrites  writes/fix  p50LagMs  maxLagMs");
+        for (String name : TRACES) {
+            Result result = replayTrace(name);
+            System.out.println(String.format(Locale.US, "%-22s %6d %9d %8d %10d %11.3f %9d %9d",
+                    name, result.fixes, result.rejected, result.commits, result.documentWrites,
+                    result.documentWrites / (double) result.fixes, result.p50LagMs, result.maxLagMs));
+
+            assertTrue(name + " wrote " + result.documentWrites + " documents for " + result.fixes + " fixes",
+                    result.documentWrites < result.fixes);
+            assertTrue(name + " uploaded nothing", result.commits > 0);
+            // Nothing waits longer than the stationary flush interval plus a round trip
+            assertTrue(name + " max lag " + result.maxLagMs,
+                    result.maxLagMs <= TrailPipeline.STATIONARY_FLUSH_MS + COMMIT_LATENCY_MS);
+        }
+    }
+
+    @Test
+    public void throughputAndAllocations() throws IOException {
+        List<List<Fix>> traces = new ArrayList<>();
+        for (String name : TRACES) {
+            traces.add(loadTrace(name));
+        }
+
+        runRepeats(traces, WARMUP_REPEATS);
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean allocations = threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()
+                ? (com.sun.management.ThreadMXBean) threads : null;
+        long threadId = Thread.currentThread().getId();
+
+        long allocatedBefore = allocations != null ? allocations.getThreadAllocatedBytes(threadId) : 0;
+        long startNanos = System.nanoTime();
+        Harness harness = runRepeats(traces, MEASURED_REPEATS);
+        long elapsedNanos = System.nanoTime() - startNanos;
+        long allocatedAfter = allocations != null ? allocations.getThreadAllocatedBytes(threadId) : 0;
+
+        double fixesPerSecond = harness.fixes / (elapsedNanos / 1e9);
+        String allocatedPerFix = allocations != null
+                ? String.format(Locale.US, "%.0f", (allocatedAfter - allocatedBefore) / (double) harness.fixes)
+                : "n/a";
+        System.out.println(String.format(Locale.US,
+                "throughput: %d fixes in %.1f ms, %.0f fixes/s, %s bytes allocated/fix, %d document writes",
+                harness.fixes, elapsedNanos / 1e6, fixesPerSecond, allocatedPerFix, harness.store.documentWrites()));
+
+        assertTrue(harness.fixes > 0);
+        assertTrue(harness.store.documentWrites() < harness.fixes);
+    }
+
+    private Result replayTrace(String name) throws IOException {
+        List<Fix> trace = loadTrace(name);
+        Harness harness = new Harness(true);
+        harness.replay(trace, trace.get(0).time);
+        harness.finish();
+
+        Result result = new Result();
+        result.fixes = harness.fixes;
+        result.rejected = harness.rejected;
+        result.commits = harness.store.commits;
+        result.documentWrites = harness.store.documentWrites();
+
+        List<Long> lags = new ArrayList<>(harness.store.lagsMs);
+        Collections.sort(lags);
+        if (!lags.isEmpty()) {
+            result.p50LagMs = lags.get(lags.size() / 2);
+            result.maxLagMs = lags.get(lags.size() - 1);
+        }
+        return result;
+    }
+
+    /**
+     * Replay the traces back to back, shifted in time so each repeat follows the previous one
+     */
+    private static Harness runRepeats(List<List<Fix>> traces, int repeats) {
+        Harness harness = new Harness(false);
+        long startTime = traces.get(0).get(0).time;
+        for (int i = 0; i < repeats; i++) {
+            for (List<Fix> trace : traces) {
+                harness.replay(trace, startTime);
+                startTime += trace.get(trace.size() - 1).time - trace.get(0).time + 1000;
+            }
+        }
+        harness.finish();
+        return harness;
+    }
+
+    private static List<Fix> loadTrace(String name) throws IOException {
+        List<Fix> trace = GpsTrace.load(name);
+        assertNotNull("Missing trace " + name, trace);
+        return trace;
+    }
+}
@@ -0,0 +1,10 @@
+package com.rescuereach.service.location;
+
+import com.rescuereach.util.ManualClock;
+
+/**
+ * {@link ManualClock} as the clock and timer of a {@link TrailPipeline}, so a half-hour trace
+ * replays in milliseconds and flush timing is deterministic
+ */
+final class SimulatedScheduler extends ManualClock implements TrailPipeline.Scheduler {
+}
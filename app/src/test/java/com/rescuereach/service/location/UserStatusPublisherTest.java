@@ -0,0 +1,115 @@
+package com.rescuereach.service.location;
+
+import com.google.firebase.firestore.GeoPoint;
+import com.rescuereach.util.GeoHash;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Routine fixes keep user_status current enough for the nearby volunteer query, without
+ * writing it for every fix
+ */
+public class UserStatusPublisherTest {
+
+    private static final String USER = "volunteer-1";
+    private static final double LATITUDE = 28.6139;
+    private static final double LONGITUDE = 77.2090;
+    // Same window the nearby volunteer query applies
+    private static final long QUERY_STALE_MS = TimeUnit.MINUTES.toMillis(30);
+
+    private final List<Map<String, Object>> written = new ArrayList<>();
+    private final UserStatusPublisher publisher = new UserStatusPublisher((userId, status) -> {
+        assertEquals(userId, status.get("userId"));
+        written.add(status);
+    });
+
+    @Test
+    public void routineFixProducesQueryableStatus() {
+        long now = 1_700_000_000_000L;
+        assertTrue(publisher.onFix(USER, LATITUDE, LONGITUDE, true, now, false));
+
+        Map<String, Object> status = written.get(0);
+        GeoPoint point = (GeoPoint) status.get(UserStatusPublisher.FIELD_LOCATION);
+        assertEquals(LATITUDE, point.getLatitude(), 0);
+        assertEquals(LONGITUDE, point.getLongitude(), 0);
+        assertEquals(GeoHash.encode(LATITUDE, LONGITUDE, GeoHash.QUERY_PRECISION),
+                status.get(UserStatusPublisher.FIELD_GEOHASH));
+        assertEquals(Boolean.TRUE, status.get("isVolunteer"));
+        assertEquals(Boolean.TRUE, status.get("isOnline"));
+        assertTrue(now - (Long) status.get(UserStatusPublisher.FIELD_LAST_SEEN) < QUERY_STALE_MS);
+
+        // A responder 300 m away searching 1 km finds it with one of the range scans
+        String geohash = (String) status.get(UserStatusPublisher.FIELD_GEOHASH);
+        boolean matched = false;
+        for (String prefix : GeoHash.coveringPrefixes(LATITUDE + 0.0027, LONGITUDE, 1000)) {
+            matched |= geohash.compareTo(prefix) >= 0 &&
+                    geohash.compareTo(prefix + GeoHash.PREFIX_RANGE_END) < 0;
+        }
+        assertTrue(matched);
+    }
+
+    @Test
+    public void nearbyFixesAreSkippedUntilTheStatusNeedsRefreshing() {
+        long now = 0;
+        publisher.onFix(USER, LATITUDE, LONGITUDE, true, now, false);
+
+        // Still, fixes every 10 s
+        int writes = 1;
+        for (long t = 10_000; t < UserStatusPublisher.REFRESH_MS; t += 10_000) {
+            if (publisher.onFix(USER, LATITUDE + 0.00005, LONGITUDE, true, now + t, false)) {
+                writes++;
+            }
+        }
+        assertEquals(1, writes);
+
+        assertTrue(publisher.onFix(USER, LATITUDE, LONGITUDE, true, now + UserStatusPublisher.REFRESH_MS, false));
+        // Refreshed well before the query would drop it
+        assertTrue(UserStatusPublisher.REFRESH_MS < QUERY_STALE_MS);
+    }
+
+    @Test
+    public void movingChangedFlagsAndForceWriteStraightAway() {
+        publisher.onFix(USER, LATITUDE, LONGITUDE, false, 0, false);
+
+        // About 110 m north
+        assertTrue(publisher.onFix(USER, LATITUDE + 0.001, LONGITUDE, false, 1000, false));
+        assertTrue(publisher.onFix(USER, LATITUDE + 0.001, LONGITUDE, true, 2000, false));
+        assertTrue(publisher.onFix(USER, LATITUDE + 0.001, LONGITUDE, true, 3000, true));
+        assertTrue(publisher.onFix("someone-else", LATITUDE + 0.001, LONGITUDE, true, 4000, false));
+        assertFalse(publisher.onFix("someone-else", LATITUDE + 0.001, LONGITUDE, true, 5000, false));
+        assertFalse(publisher.onFix(null, LATITUDE, LONGITUDE, true, 6000, true));
+        assertEquals(5, written.size());
+    }
+
+    @Test
+    public void volunteerChangeRewritesTheLastStatus() {
+        // Nothing to rewrite before the first fix
+        assertFalse(publisher.onVolunteerChanged(true));
+
+        publisher.onFix(USER, LATITUDE, LONGITUDE, false, 1000, false);
+        assertTrue(publisher.onVolunteerChanged(true));
+        assertFalse(publisher.onVolunteerChanged(true));
+
+        Map<String, Object> status = written.get(1);
+        assertEquals(Boolean.TRUE, status.get("isVolunteer"));
+        assertEquals(written.get(0).get(UserStatusPublisher.FIELD_GEOHASH),
+                status.get(UserStatusPublisher.FIELD_GEOHASH));
+        // Still the time of the fix, not of the change
+        assertEquals(1000L, status.get(UserStatusPublisher.FIELD_LAST_SEEN));
+
+        // The next fix doesn't repeat it
+        assertFalse(publisher.onFix(USER, LATITUDE, LONGITUDE, true, 2000, false));
+
+        // Nothing is written for a signed-out user
+        publisher.onSignedOut();
+        assertFalse(publisher.onVolunteerChanged(false));
+        assertEquals(2, written.size());
+    }
+}
@@ -0,0 +1,211 @@
+package com.rescuereach.service.places;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+/**
+ * Nearby Search web service client against a local server
+ */
+public class NearbySearchClientTest {
+
+    private static final String PAGE_ONE = "{" +
+            "\"html_attributions\": []," +
+            "\"next_page_token\": \"token-2\"," +
+            "\"results\": [" +
+            "  {\"business_status\": \"OPERATIONAL\"," +
+            "   \"geometry\": {\"location\": {\"lat\": 28.6139, \"lng\": 77.209}," +
+            "                  \"viewport\": {\"northeast\": {\"lat\": 28.62, \"lng\": 77.21}," +
+            "                                 \"southwest\": {\"lat\": 28.61, \"lng\": 77.20}}}," +
+            "   \"name\": \"City Hospital\"," +
+            "   \"opening_hours\": {\"open_now\": true}," +
+            "   \"photos\": [{\"height\": 100, \"width\": 100, \"html_attributions\": []}]," +
+            "   \"place_id\": \"place-1\"," +
+            "   \"types\": [\"hospital\", \"health\"]," +
+            "   \"vicinity\": \"1 Main Road\"}," +
+            "  {\"geometry\": {\"location\": {\"lat\": 28.60, \"lng\": 77.22}}," +
+            "   \"name\": \"Old Clinic\"," +
+            "   \"place_id\": \"place-2\"," +
+            "   \"business_status\": \"CLOSED_PERMANENTLY\"}," +
+            "  {\"name\": \"No Location\", \"place_id\": \"place-3\"}," +
+            "  {\"geometry\": {\"location\": {\"lat\": 28.59, \"lng\": 77.23}}," +
+            "   \"name\": \"Trauma Centre\"," +
+            "   \"place_id\": \"place-4\"," +
+            "   \"formatted_address\": \"4 Ring Road\"}" +
+            "]," +
+            "\"status\": \"OK\"}";
+
+    private static final String PAGE_TWO = "{" +
+            "\"results\": [" +
+            "  {\"geometry\": {\"location\": {\"lat\": 28.58, \"lng\": 77.24}}," +
+            "   \"name\": \"General Hospital\"," +
+            "   \"place_id\": \"place-5\"," +
+            "   \"vicinity\": \"5 Lake Road\"}" +
+            "]," +
+            "\"status\": \"OK\"}";
+
+    private MockWebServer server;
+    private NearbySearchClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        HttpUrl endpoint = server.url("/maps/api/place/nearbysearch/json");
+        OkHttpClient httpClient = new OkHttpClient.Builder()
+                .readTimeout(5, TimeUnit.SECONDS)
+                .build();
+        client = new NearbySearchClient(httpClient, endpoint, "test-key");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void firstPage_sendsLocationRadiusTypeAndKey() throws Exception {
+        server.enqueue(json(PAGE_ONE));
+
+        client.fetchFirstPage(28.61, 77.2, 1500, "hospital", null);
+
+        RecordedRequest request = server.takeRequest();
+        HttpUrl url = request.getRequestUrl();
+        assertEquals("/maps/api/place/nearbysearch/json", url.encodedPath());
+        assertEquals("28.61,77.2", url.queryParameter("location"));
+        assertEquals("1500", url.queryParameter("radius"));
+        assertEquals("hospital", url.queryParameter("type"));
+        assertEquals("test-key", url.queryParameter("key"));
+        assertNull(url.queryParameter("keyword"));
+    }
+
+    @Test
+    public void firstPage_usesKeywordInsteadOfType() throws Exception {
+        server.enqueue(json(PAGE_TWO));
+
+        client.fetchFirstPage(28.61, 77.2, 1500, "ambulance_service", "ambulance service");
+
+        HttpUrl url = server.takeRequest().getRequestUrl();
+        assertEquals("ambulance service", url.queryParameter("keyword"));
+        assertNull(url.queryParameter("type"));
+    }
+
+    @Test
+    public void page_parsesPlacesAndSkipsUnusableResults() throws Exception {
+        server.enqueue(json(PAGE_ONE));
+
+        NearbySearchClient.Page page = client.fetchFirstPage(28.61, 77.2, 1500, "hospital", null);
+
+        assertEquals(2, page.places.size());
+        assertEquals(2, page.skipped);
+        assertEquals("token-2", page.nextPageToken);
+
+        NearbyPlace first = page.places.get(0);
+        assertEquals("place-1", first.getPlaceId());
+        assertEquals("City Hospital", first.getName());
+        assertEquals("hospital", first.getPlaceType());
+        assertEquals(28.6139, first.getLatitude(), 1e-9);
+        assertEquals(77.209, first.getLongitude(), 1e-9);
+        assertEquals("1 Main Road", first.getAddress());
+        assertNull(first.getPhoneNumber());
+
+        NearbyPlace second = page.places.get(1);
+        assertEquals("place-4", second.getPlaceId());
+        assertEquals("4 Ring Road", second.getAddress());
+    }
+
+    @Test
+    public void nextPage_sendsOnlyTokenAndKey() throws Exception {
+        server.enqueue(json(PAGE_ONE));
+        server.enqueue(json(PAGE_TWO));
+
+        NearbySearchClient.Page first = client.fetchFirstPage(28.61, 77.2, 1500, "hospital", null);
+        NearbySearchClient.Page second = client.fetchNextPage(first.nextPageToken, "hospital");
+
+        server.takeRequest();
+        HttpUrl url = server.takeRequest().getRequestUrl();
+        assertEquals("token-2", url.queryParameter("pagetoken"));
+        assertEquals("test-key", url.queryParameter("key"));
+        assertNull(url.queryParameter("location"));
+        assertNull(url.queryParameter("type"));
+
+        assertEquals(1, second.places.size());
+        assertEquals("place-5", second.places.get(0).getPlaceId());
+        assertNull(second.nextPageToken);
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void zeroResults_returnsEmptyLastPage() throws Exception {
+        server.enqueue(json("{\"html_attributions\": [], \"results\": [], \"status\": \"ZERO_RESULTS\"}"));
+
+        NearbySearchClient.Page page = client.fetchFirstPage(28.61, 77.2, 1500, "police", null);
+
+        assertTrue(page.places.isEmpty());
+        assertNull(page.nextPageToken);
+    }
+
+    @Test
+    public void errorStatus_throwsWithStatus() throws Exception {
+        server.enqueue(json("{\"error_message\": \"Over quota\", \"results\": [], " +
+                "\"status\": \"OVER_QUERY_LIMIT\"}"));
+
+        try {
+            client.fetchFirstPage(28.61, 77.2, 1500, "police", null);
+            fail("Expected NearbySearchException");
+        } catch (NearbySearchClient.NearbySearchException e) {
+            assertEquals("OVER_QUERY_LIMIT", e.getStatus());
+            assertTrue(e.getMessage().contains("Over quota"));
+        }
+    }
+
+    @Test
+    public void pageTokenNotReady_reportsInvalidRequest() throws Exception {
+        server.enqueue(json("{\"results\": [], \"status\": \"INVALID_REQUEST\"}"));
+
+        try {
+            client.fetchNextPage("token-2", "hospital");
+            fail("Expected NearbySearchException");
+        } catch (NearbySearchClient.NearbySearchException e) {
+            assertEquals(NearbySearchClient.STATUS_INVALID_REQUEST, e.getStatus());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void httpError_throws() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503));
+
+        client.fetchFirstPage(28.61, 77.2, 1500, "fire_station", null);
+    }
+
+    @Test(expected = IOException.class)
+    public void malformedBody_throws() throws Exception {
+        server.enqueue(json("{\"results\": {\"unexpected\": true}, \"status\": \"OK\"}"));
+
+        client.fetchFirstPage(28.61, 77.2, 1500, "fire_station", null);
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedBody_throws() throws Exception {
+        server.enqueue(json(PAGE_ONE.substring(0, PAGE_ONE.length() / 2)));
+
+        client.fetchFirstPage(28.61, 77.2, 1500, "hospital", null);
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse()
+                .setHeader("Content-Type", "application/json; charset=UTF-8")
+                .setBody(body);
+    }
+}
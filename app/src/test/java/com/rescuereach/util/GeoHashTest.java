@@ -0,0 +1,149 @@
+package com.rescuereach.util;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Geohash keys and the prefix range scans built on them, including locations next to a cell
+ * edge, where nearby points have unrelated keys
+ */
+public class GeoHashTest {
+
+    private static final double METERS_PER_DEGREE = 111320.0;
+
+    @Test
+    public void encodesKnownVectors() {
+        assertEquals("u4pruydqqvj", GeoHash.encode(57.64911, 10.40744, 11));
+        assertEquals("ezs42", GeoHash.encode(42.6, -5.6, 5));
+        assertEquals("s", GeoHash.encode(0, 0, 1));
+        assertEquals("zzzzzz", GeoHash.encode(89.99999, 179.99999, 6));
+        assertEquals("000000", GeoHash.encode(-90, -180, 6));
+        // Shorter precisions are prefixes of longer ones
+        assertEquals("u4pru", GeoHash.encode(57.64911, 10.40744, 5));
+    }
+
+    @Test
+    public void decodedBoundsContainThePoint() {
+        String hash = GeoHash.encode(57.64911, 10.40744, 8);
+        double[] bounds = GeoHash.decodeBounds(hash);
+        assertTrue(bounds[0] <= 57.64911 && 57.64911 < bounds[2]);
+        assertTrue(bounds[1] <= 10.40744 && 10.40744 < bounds[3]);
+        // 40 bits, 20 each way
+        assertEquals(180.0 / (1 << 20), bounds[2] - bounds[0], 1e-12);
+        assertEquals(360.0 / (1 << 20), bounds[3] - bounds[1], 1e-12);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidCharacters() {
+        GeoHash.decodeBounds("u4pa");
+    }
+
+    @Test
+    public void pointsAcrossTheEquatorAndMeridianShareNoPrefix() {
+        // About a metre apart, in four different top level cells
+        assertEquals('s', GeoHash.encode(0.000005, 0.000005, 9).charAt(0));
+        assertEquals('k', GeoHash.encode(-0.000005, 0.000005, 9).charAt(0));
+        assertEquals('e', GeoHash.encode(0.000005, -0.000005, 9).charAt(0));
+        assertEquals('7', GeoHash.encode(-0.000005, -0.000005, 9).charAt(0));
+
+        List<String> prefixes = GeoHash.coveringPrefixes(0.000005, 0.000005, 100);
+        assertCovered(prefixes, -0.0005, -0.0005);
+        assertCovered(prefixes, -0.0005, 0.0005);
+        assertCovered(prefixes, 0.0005, -0.0005);
+        assertCovered(prefixes, 0.0005, 0.0005);
+    }
+
+    @Test
+    public void coveringPrefixesWrapTheAntimeridian() {
+        List<String> prefixes = GeoHash.coveringPrefixes(10, 179.9995, 200);
+        assertCovered(prefixes, 10, -179.9995);
+        assertCovered(prefixes, 10, 179.999);
+    }
+
+    @Test
+    public void coveringPrefixesCoverTheWholeCircle() {
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            double latitude = random.nextDouble() * 140 - 70;
+            double longitude = random.nextDouble() * 360 - 180;
+            double radius = 50 + random.nextDouble() * 5000;
+
+            List<String> prefixes = GeoHash.coveringPrefixes(latitude, longitude, radius);
+            assertTrue(prefixes.size() + " prefixes", prefixes.size() <= 9);
+
+            // Points on and inside the circle
+            for (int j = 0; j < 16; j++) {
+                double bearing = random.nextDouble() * 2 * Math.PI;
+                double distance = radius * (j == 0 ? 1 : random.nextDouble());
+                double pointLat = latitude + distance * Math.cos(bearing) / METERS_PER_DEGREE;
+                double pointLng = longitude + distance * Math.sin(bearing) /
+                        (METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude)));
+                if (pointLng >= 180) pointLng -= 360;
+                if (pointLng < -180) pointLng += 360;
+                assertCovered(prefixes, pointLat, pointLng);
+            }
+        }
+    }
+
+    @Test
+    public void prefixRangeBoundsMatchExactlyTheCell() {
+        String prefix = GeoHash.encode(28.6139, 77.2090, 6);
+        double[] bounds = GeoHash.decodeBounds(prefix);
+        double height = bounds[2] - bounds[0];
+        double width = bounds[3] - bounds[1];
+
+        // Corners and centre of the cell are inside the range
+        assertInRange(prefix, GeoHash.encode(bounds[0], bounds[1], GeoHash.QUERY_PRECISION));
+        assertInRange(prefix, GeoHash.encode(bounds[2] - 1e-9, bounds[3] - 1e-9, GeoHash.QUERY_PRECISION));
+        assertInRange(prefix, GeoHash.encode(bounds[0] + height / 2, bounds[1] + width / 2, GeoHash.QUERY_PRECISION));
+        // The prefix itself and the last key with it
+        assertInRange(prefix, prefix);
+        assertInRange(prefix, prefix + "zzz");
+
+        // Just outside each edge is outside the range
+        assertNotInRange(prefix, GeoHash.encode(bounds[2], bounds[1] + width / 2, GeoHash.QUERY_PRECISION));
+        assertNotInRange(prefix, GeoHash.encode(bounds[0] - 1e-9, bounds[1] + width / 2, GeoHash.QUERY_PRECISION));
+        assertNotInRange(prefix, GeoHash.encode(bounds[0] + height / 2, bounds[3], GeoHash.QUERY_PRECISION));
+        assertNotInRange(prefix, GeoHash.encode(bounds[0] + height / 2, bounds[1] - 1e-9, GeoHash.QUERY_PRECISION));
+    }
+
+    @Test
+    public void precisionShrinksAsTheRadiusGrows() {
+        assertEquals(GeoHash.QUERY_PRECISION, GeoHash.precisionForRadius(0, 1));
+        assertEquals(5, GeoHash.precisionForRadius(28.6, 1000));
+        // Cells narrow towards the poles
+        assertTrue(GeoHash.precisionForRadius(60, 2000) <= GeoHash.precisionForRadius(0, 2000));
+        assertEquals(0, GeoHash.precisionForRadius(0, 10_000_000));
+
+        List<String> everything = GeoHash.coveringPrefixes(0, 0, 10_000_000);
+        assertEquals(1, everything.size());
+        assertEquals("", everything.get(0));
+    }
+
+    private static void assertCovered(List<String> prefixes, double latitude, double longitude) {
+        String hash = GeoHash.encode(latitude, longitude, GeoHash.QUERY_PRECISION);
+        for (String prefix : prefixes) {
+            if (inRange(prefix, hash)) {
+                return;
+            }
+        }
+        fail(hash + " (" + latitude + ", " + longitude + ") not covered by " + prefixes);
+    }
+
+    private static void assertInRange(String prefix, String hash) {
+        assertTrue(hash + " outside " + prefix, inRange(prefix, hash));
+    }
+
+    private static void assertNotInRange(String prefix, String hash) {
+        assertFalse(hash + " inside " + prefix, inRange(prefix, hash));
+    }
+
+    // The same bounds the geohash range queries use
+    private static boolean inRange(String prefix, String hash) {
+        return hash.compareTo(prefix) >= 0 && hash.compareTo(prefix + GeoHash.PREFIX_RANGE_END) < 0;
+    }
+}
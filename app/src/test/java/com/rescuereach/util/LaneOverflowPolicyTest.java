@@ -0,0 +1,182 @@
+package com.rescuereach.util;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * A full lane never makes the main thread run its work, and only lanes that allow it drop tasks
+ */
+public class LaneOverflowPolicyTest {
+
+    // The test thread plays the main thread
+    private final Thread mainThread = Thread.currentThread();
+    private final ExecutorService overflow = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "overflow"));
+    private final List<LaneOverflowPolicy.Outcome> outcomes =
+            Collections.synchronizedList(new ArrayList<>());
+    private final List<String> ranOn = Collections.synchronizedList(new ArrayList<>());
+
+    private ThreadPoolExecutor pool;
+    private CountDownLatch laneBlocker;
+
+    @After
+    public void tearDown() throws InterruptedException {
+        shutDownLane();
+        overflow.shutdown();
+        overflow.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void overflowNeverRunsOnTheSubmittingMainThread() throws Exception {
+        for (boolean dropOldest : new boolean[]{false, true}) {
+            ranOn.clear();
+            CountDownLatch done = new CountDownLatch(1);
+            ThreadPoolExecutor lane = saturatedLane(dropOldest);
+
+            for (int i = 0; i < 5; i++) {
+                lane.execute(record("extra-" + i));
+            }
+            lane.execute(() -> done.countDown());
+
+            assertEquals(ranOn.toString(), 0, countRunsOn(mainThread.getName()));
+            release(lane);
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(ranOn.toString(), 0, countRunsOn(mainThread.getName()));
+            shutDownLane();
+        }
+    }
+
+    @Test
+    public void criticalLaneKeepsEveryTask() throws Exception {
+        ThreadPoolExecutor lane = saturatedLane(false);
+        for (int i = 0; i < 5; i++) {
+            lane.execute(record("extra-" + i));
+        }
+
+        release(lane);
+        overflow.submit(() -> { }).get(5, TimeUnit.SECONDS);
+        // One queued on the lane, the rest on the overflow thread
+        assertEquals(5, countRuns("extra-"));
+        assertEquals(4, Collections.frequency(outcomes, LaneOverflowPolicy.Outcome.OVERFLOW_THREAD));
+    }
+
+    @Test
+    public void uiLaneDropsTheOldestQueuedTask() throws Exception {
+        ThreadPoolExecutor lane = saturatedLane(true);
+        lane.execute(record("older"));
+        lane.execute(record("newer"));
+
+        release(lane);
+        assertEquals(LaneOverflowPolicy.Outcome.DROPPED_OLDEST, outcomes.get(0));
+        assertEquals(0, countRuns("older"));
+        assertEquals(1, countRuns("newer"));
+    }
+
+    @Test
+    public void backgroundSubmitterRunsTheTaskItself() throws Exception {
+        ThreadPoolExecutor lane = saturatedLane(true);
+        lane.execute(record("queued"));
+
+        Thread producer = new Thread(() -> lane.execute(record("throttled")), "producer");
+        producer.start();
+        producer.join(5000);
+
+        assertEquals(LaneOverflowPolicy.Outcome.RAN_ON_CALLER, outcomes.get(0));
+        assertEquals(1, countRunsOn("producer"));
+        release(lane);
+        assertEquals(1, countRuns("queued"));
+    }
+
+    /**
+     * A lane with one queue slot and its one worker blocked until released
+     */
+    private ThreadPoolExecutor saturatedLane(boolean dropOldest) throws InterruptedException {
+        outcomes.clear();
+        LaneOverflowPolicy policy = new LaneOverflowPolicy(dropOldest,
+                () -> Thread.currentThread() == mainThread, overflow, outcomes::add);
+        pool = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(1), runnable -> new Thread(runnable, "lane"), policy);
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch blocker = new CountDownLatch(1);
+        pool.execute(() -> {
+            started.countDown();
+            awaitQuietly(blocker);
+        });
+        started.await();
+        laneBlocker = blocker;
+        return pool;
+    }
+
+    /**
+     * Unblock the worker and wait until everything queued so far has run
+     */
+    private void release(ThreadPoolExecutor lane) throws InterruptedException {
+        laneBlocker.countDown();
+        // Straight onto the queue behind the rest, the worker is alive and waiting for it
+        CountDownLatch drained = new CountDownLatch(1);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!lane.getQueue().offer(drained::countDown)) {
+            assertTrue("lane didn't drain", System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+        assertTrue(drained.await(5, TimeUnit.SECONDS));
+    }
+
+    private void shutDownLane() throws InterruptedException {
+        if (pool != null) {
+            laneBlocker.countDown();
+            pool.shutdown();
+            pool.awaitTermination(5, TimeUnit.SECONDS);
+            pool = null;
+        }
+    }
+
+    private Runnable record(String name) {
+        return () -> ranOn.add(Thread.currentThread().getName() + ":" + name);
+    }
+
+    private int countRuns(String name) {
+        int count = 0;
+        synchronized (ranOn) {
+            for (String run : ranOn) {
+                if (run.contains(":" + name)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private int countRunsOn(String thread) {
+        int count = 0;
+        synchronized (ranOn) {
+            for (String run : ranOn) {
+                if (run.startsWith(thread + ":")) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.rescuereach.util;
+
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+/**
+ * Simulated clock and timer shared by the tests of time-driven code. Tasks run only when the
+ * test advances time, in time order and on the test's thread, so windows and timeouts are
+ * deterministic and a long trace replays in milliseconds. Subclasses adapt it to the scheduler
+ * interface of the class under test.
+ */
+public class ManualClock {
+
+    private static final class Task implements Comparable<Task> {
+        final long at;
+        final long order;
+        final Runnable runnable;
+
+        Task(long at, long order, Runnable runnable) {
+            this.at = at;
+            this.order = order;
+            this.runnable = runnable;
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            return at != other.at ? Long.compare(at, other.at) : Long.compare(order, other.order);
+        }
+    }
+
+    private final PriorityQueue<Task> tasks = new PriorityQueue<>();
+    private long now;
+    private long posted;
+
+    public long now() {
+        return now;
+    }
+
+    /**
+     * Run a task at a time, or at the next advance if that time has passed
+     */
+    public void postAt(Runnable task, long atMillis) {
+        tasks.add(new Task(Math.max(atMillis, now), posted++, task));
+    }
+
+    public void postDelayed(Runnable task, long delayMillis) {
+        postAt(task, now + delayMillis);
+    }
+
+    /**
+     * Remove every scheduled run of a task
+     */
+    public void cancel(Runnable task) {
+        for (Iterator<Task> it = tasks.iterator(); it.hasNext(); ) {
+            if (it.next().runnable == task) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Run everything due up to a time, in order, then leave the clock there
+     */
+    public void advanceTo(long time) {
+        while (!tasks.isEmpty() && tasks.peek().at <= time) {
+            Task task = tasks.poll();
+            now = task.at;
+            task.runnable.run();
+        }
+        now = Math.max(now, time);
+    }
+
+    /**
+     * Move the clock forward, running everything that comes due
+     */
+    public void advanceBy(long millis) {
+        advanceTo(now + millis);
+    }
+
+    /**
+     * Run everything still scheduled, including what those tasks schedule
+     */
+    public void drain() {
+        while (!tasks.isEmpty()) {
+            advanceTo(tasks.peek().at);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.rescuereach.util;
+
+/**
+ * {@link ManualClock} as the scheduler of a {@link PreferenceStore}, so coalescing windows are
+ * deterministic
+ */
+final class ManualScheduler extends ManualClock implements PreferenceStore.Scheduler {
+}
@@ -0,0 +1,273 @@
+package com.rescuereach.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Reads, coalesced writes, the file format and migration of {@link PreferenceStore}
+ */
+public class PreferenceStoreTest {
+
+    private static final long WINDOW = PreferenceStore.DEFAULT_COALESCE_MILLIS;
+
+    private static final PreferenceKey<String> NAME = PreferenceKey.stringKey("name");
+    private static final PreferenceKey<Boolean> FLAG = PreferenceKey.booleanKey("flag");
+    private static final PreferenceKey<Integer> COUNT = PreferenceKey.intKey("count");
+    private static final PreferenceKey<Long> TIME = PreferenceKey.longKey("time");
+    private static final PreferenceKey<Float> RATIO = PreferenceKey.floatKey("ratio");
+    private static final PreferenceKey<Set<String>> TAGS = PreferenceKey.stringSetKey("tags");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Keeps the last write in memory, can be told to fail
+     */
+    private static final class MemoryStorage implements PreferenceStore.Storage {
+        Map<String, Object> stored;
+        int writes;
+        int failuresLeft;
+
+        @Override
+        public Map<String, Object> read() {
+            return stored != null ? new HashMap<>(stored) : null;
+        }
+
+        @Override
+        public long write(Map<String, Object> values) throws IOException {
+            if (failuresLeft > 0) {
+                failuresLeft--;
+                throw new IOException("disk full");
+            }
+            stored = new HashMap<>(values);
+            writes++;
+            return values.size();
+        }
+    }
+
+    private static final class MapMigration implements PreferenceStore.Migration {
+        final Map<String, Object> legacy = new HashMap<>();
+        int reads;
+        boolean migrated;
+
+        @Override
+        public Map<String, ?> read() {
+            reads++;
+            return legacy;
+        }
+
+        @Override
+        public void onMigrated() {
+            migrated = true;
+        }
+    }
+
+    @Test
+    public void valuesSurviveReopeningTheFile() throws IOException {
+        File file = new File(folder.getRoot(), "prefs.bin");
+        ManualScheduler scheduler = new ManualScheduler();
+        PreferenceStore store = new PreferenceStore(scheduler,
+                new PreferenceStore.FileStorage(file), null, WINDOW);
+        scheduler.drain();
+
+        store.edit()
+                .put(NAME, "Asha")
+                .put(FLAG, true)
+                .put(COUNT, 42)
+                .put(TIME, 1_700_000_000_000L)
+                .put(RATIO, 0.25f)
+                .put(TAGS, new HashSet<>(Arrays.asList("a", "b")))
+                .apply();
+        scheduler.drain();
+
+        ManualScheduler reopenedScheduler = new ManualScheduler();
+        PreferenceStore reopened = new PreferenceStore(reopenedScheduler,
+                new PreferenceStore.FileStorage(file), null, WINDOW);
+        reopenedScheduler.drain();
+
+        assertEquals("Asha", reopened.get(NAME, null));
+        assertEquals(Boolean.TRUE, reopened.get(FLAG, false));
+        assertEquals(Integer.valueOf(42), reopened.get(COUNT, 0));
+        assertEquals(Long.valueOf(1_700_000_000_000L), reopened.get(TIME, 0L));
+        assertEquals(0.25f, reopened.get(RATIO, 0f), 0f);
+        assertEquals(new HashSet<>(Arrays.asList("a", "b")), reopened.get(TAGS, null));
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void editsInsideOneWindowShareOneWrite() {
+        ManualScheduler scheduler = new ManualScheduler();
+        MemoryStorage storage = new MemoryStorage();
+        PreferenceStore store = new PreferenceStore(scheduler, storage, null, WINDOW);
+        scheduler.drain();
+
+        for (int i = 0; i < 10; i++) {
+            store.put(COUNT, i);
+        }
+        // Visible straight away, not written yet
+        assertEquals(Integer.valueOf(9), store.get(COUNT, -1));
+        assertEquals(0, storage.writes);
+
+        scheduler.advanceBy(WINDOW);
+        assertEquals(1, storage.writes);
+        assertEquals(9, storage.stored.get("count"));
+
+        // A new window starts with the next edit
+        store.put(COUNT, 10);
+        scheduler.advanceBy(WINDOW);
+        assertEquals(2, storage.writes);
+    }
+
+    @Test
+    public void immediateEditIsWrittenWithoutWaitingForTheWindow() {
+        ManualScheduler scheduler = new ManualScheduler();
+        MemoryStorage storage = new MemoryStorage();
+        PreferenceStore store = new PreferenceStore(scheduler, storage, null, WINDOW);
+        scheduler.drain();
+
+        // A windowed edit first, the immediate write takes it along
+        store.put(COUNT, 1);
+        store.edit().put(NAME, "report-1").applyImmediately();
+        scheduler.advanceBy(0);
+        assertEquals(1, storage.writes);
+        assertEquals("report-1", storage.stored.get("name"));
+        assertEquals(1, storage.stored.get("count"));
+
+        // Nothing left for the window
+        scheduler.drain();
+        assertEquals(1, storage.writes);
+    }
+
+    @Test
+    public void flushSoonWritesPendingEdits() {
+        ManualScheduler scheduler = new ManualScheduler();
+        MemoryStorage storage = new MemoryStorage();
+        PreferenceStore store = new PreferenceStore(scheduler, storage, null, WINDOW);
+        scheduler.drain();
+
+        store.put(FLAG, true);
+        store.flushSoon();
+        scheduler.advanceBy(0);
+        assertEquals(1, storage.writes);
+
+        // With nothing pending it doesn't write
+        store.flushSoon();
+        scheduler.drain();
+        assertEquals(1, storage.writes);
+        assertEquals(Collections.singletonMap("flag", true), store.getAll());
+    }
+
+    @Test
+    public void unchangedValuesAreNotWritten() {
+        ManualScheduler scheduler = new ManualScheduler();
+        MemoryStorage storage = new MemoryStorage();
+        PreferenceStore store = new PreferenceStore(scheduler, storage, null, WINDOW);
+        scheduler.drain();
+
+        store.put(FLAG, true);
+        scheduler.drain();
+        store.put(FLAG, true);
+        store.remove(NAME);
+        scheduler.drain();
+
+        assertEquals(1, storage.writes);
+    }
+
+    @Test
+    public void clearDropsEarlierValuesAndKeepsLaterOnes() {
+        ManualScheduler scheduler = new ManualScheduler();
+        PreferenceStore store = new PreferenceStore(scheduler, new MemoryStorage(), null, WINDOW);
+        scheduler.drain();
+        store.edit().put(NAME, "Asha").put(COUNT, 1).apply();
+
+        store.edit().put(FLAG, true).clear().put(COUNT, 2).apply();
+
+        assertFalse(store.contains(NAME));
+        assertFalse(store.contains(FLAG));
+        assertEquals(Integer.valueOf(2), store.get(COUNT, 0));
+    }
+
+    @Test
+    public void wrongTypeReadsAsDefault() {
+        ManualScheduler scheduler = new ManualScheduler();
+        PreferenceStore store = new PreferenceStore(scheduler, new MemoryStorage(), null, WINDOW);
+        scheduler.drain();
+        store.put(NAME, "Asha");
+
+        assertEquals(Integer.valueOf(7), store.get(PreferenceKey.intKey("name"), 7));
+    }
+
+    @Test
+    public void failedWriteIsRetried() {
+        ManualScheduler scheduler = new ManualScheduler();
+        MemoryStorage storage = new MemoryStorage();
+        storage.failuresLeft = 1;
+        PreferenceStore store = new PreferenceStore(scheduler, storage, null, WINDOW);
+        scheduler.drain();
+
+        store.put(NAME, "Asha");
+        scheduler.advanceBy(WINDOW);
+        assertEquals(0, storage.writes);
+        assertTrue(store.getStats(), store.getStats().contains("writeFailures=1"));
+
+        scheduler.drain();
+        assertEquals(1, storage.writes);
+        assertEquals("Asha", storage.stored.get("name"));
+    }
+
+    @Test
+    public void legacyValuesAreMigratedOnce() {
+        MapMigration migration = new MapMigration();
+        migration.legacy.put("active_sos_report_id", "report-1");
+        migration.legacy.put("sos_dialog_minimized", true);
+        migration.legacy.put("tags", new HashSet<>(Arrays.asList("x")));
+        // Not a preference type, dropped
+        migration.legacy.put("bogus", new Object());
+
+        ManualScheduler scheduler = new ManualScheduler();
+        MemoryStorage storage = new MemoryStorage();
+        PreferenceStore store = new PreferenceStore(scheduler, storage, migration, WINDOW);
+        scheduler.advanceBy(0);
+
+        assertEquals("report-1", store.get(PreferenceKey.stringKey("active_sos_report_id"), null));
+        assertEquals(Boolean.TRUE, store.get(PreferenceKey.booleanKey("sos_dialog_minimized"), false));
+        assertEquals(1, storage.writes);
+        assertTrue(migration.migrated);
+        assertFalse(storage.stored.containsKey("bogus"));
+
+        // The store has a file now, the legacy values aren't read again
+        ManualScheduler reopenedScheduler = new ManualScheduler();
+        PreferenceStore reopened = new PreferenceStore(reopenedScheduler, storage, migration, WINDOW);
+        reopenedScheduler.drain();
+        assertEquals(1, migration.reads);
+        assertEquals(new HashSet<>(Arrays.asList("x")), reopened.get(TAGS, null));
+    }
+
+    @Test
+    public void legacyValuesStayUntilTheMigrationIsWritten() {
+        MapMigration migration = new MapMigration();
+        migration.legacy.put("name", "Asha");
+
+        ManualScheduler scheduler = new ManualScheduler();
+        MemoryStorage storage = new MemoryStorage();
+        storage.failuresLeft = 1;
+        new PreferenceStore(scheduler, storage, migration, WINDOW);
+        scheduler.advanceBy(0);
+
+        assertFalse(migration.migrated);
+        scheduler.drain();
+        assertTrue(migration.migrated);
+    }
+}
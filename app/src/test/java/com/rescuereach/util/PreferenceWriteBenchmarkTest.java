@@ -0,0 +1,244 @@
+package com.rescuereach.util;
+
+import com.rescuereach.service.auth.SessionPreferences;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * Write amplification of the two preference files under the app's write patterns, with the
+ * keys the app really keeps in them. Both write the same file format to a real file.
+ * <ul>
+ * <li>The app file holds the home screen's SOS state. The old SharedPreferencesManager wrote
+ * the file after every put. Now each change is one edit, and the report ID is written
+ * immediately so it survives the process being killed.</li>
+ * <li>The session file holds the signed-in profile and the settings switches. The old session
+ * code rewrote the file once per change. Now bursts of changes share one write per window.</li>
+ * </ul>
+ * Run on its own to see the report:
+ * ./gradlew testCitizenDebugUnitTest --tests '*PreferenceWriteBenchmarkTest*' -i
+ */
+public class PreferenceWriteBenchmarkTest {
+
+    private static final int REPEATS = 20;
+
+    // The switches the settings screen flips
+    private static final List<PreferenceKey<Boolean>> SWITCHES = new ArrayList<>();
+
+    static {
+        SWITCHES.add(SessionPreferences.privacyKey("location_sharing"));
+        SWITCHES.add(SessionPreferences.privacyKey("media_sharing"));
+        SWITCHES.add(SessionPreferences.privacyKey("profile_visibility"));
+        SWITCHES.add(SessionPreferences.emergencyKey("emergency_alerts_enabled"));
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private enum Mode {
+        // One write per key, SharedPreferencesManager
+        PER_PUT,
+        // One write per change, the old session persist()
+        PER_CHANGE,
+        // One edit per change, written once per window or at once if it can't wait
+        COALESCED
+    }
+
+    /**
+     * Changes the app makes together, and how long after the previous batch
+     */
+    private static final class Batch {
+        final long gapMillis;
+        final boolean immediate;
+        final List<PreferenceKey<?>> keys = new ArrayList<>();
+        final List<Object> values = new ArrayList<>();
+
+        Batch(long gapMillis, boolean immediate) {
+            this.gapMillis = gapMillis;
+            this.immediate = immediate;
+        }
+
+        <T> Batch put(PreferenceKey<T> key, T value) {
+            keys.add(key);
+            values.add(value);
+            return this;
+        }
+    }
+
+    private static final class Result {
+        long writes;
+        long bytes;
+        long keysChanged;
+        long keysWritten;
+        long elapsedNanos;
+    }
+
+    private interface Workload {
+        List<Batch> round(int round);
+    }
+
+    private static List<Batch> sosRound(int round) {
+        List<Batch> batches = new ArrayList<>();
+        // SOS raised, dialog minimised and restored a few times, then cleared
+        batches.add(new Batch(1000, true)
+                .put(AppPreferences.ACTIVE_SOS_REPORT_ID, "report-" + round));
+        batches.add(new Batch(50, false).put(AppPreferences.SOS_DIALOG_MINIMIZED, true));
+        batches.add(new Batch(4000, false).put(AppPreferences.SOS_DIALOG_MINIMIZED, false));
+        batches.add(new Batch(3000, false).put(AppPreferences.SOS_DIALOG_MINIMIZED, true));
+        batches.add(new Batch(60_000, true)
+                .put(AppPreferences.ACTIVE_SOS_REPORT_ID, null)
+                .put(AppPreferences.SOS_DIALOG_MINIMIZED, null)
+                .put(AppPreferences.HAS_ACTIVE_SOS, false));
+        return batches;
+    }
+
+    /**
+     * A session signed in with a complete profile, what every session write carries along
+     */
+    private static Batch signedInSession() {
+        Batch session = new Batch(0, false)
+                .put(SessionPreferences.PHONE_NUMBER, "+919876543210")
+                .put(SessionPreferences.USER_ID, "Xb3kP9qLmN2vR7tY1wZ5aC8dE4f")
+                .put(SessionPreferences.FULL_NAME, "Asha Verma")
+                .put(SessionPreferences.FIRST_NAME, "Asha")
+                .put(SessionPreferences.LAST_NAME, "Verma")
+                .put(SessionPreferences.GENDER, "Female")
+                .put(SessionPreferences.DATE_OF_BIRTH, "1994-03-12")
+                .put(SessionPreferences.STATE, "Maharashtra")
+                .put(SessionPreferences.EMERGENCY_CONTACT, "+919812345678")
+                .put(SessionPreferences.IS_VOLUNTEER, false)
+                .put(SessionPreferences.PROFILE_COMPLETED, true)
+                .put(SessionPreferences.LAST_LOGIN, 1_700_000_000_000L)
+                .put(SessionPreferences.PREFERENCES_MIGRATED, true);
+        for (PreferenceKey<Boolean> key : SWITCHES) {
+            session.put(key, true);
+        }
+        return session;
+    }
+
+    private static List<Batch> sessionRound(int round) {
+        List<Batch> batches = new ArrayList<>();
+        // Sign in, then the profile arrives from Firebase
+        batches.add(new Batch(1000, false)
+                .put(SessionPreferences.LAST_LOGIN, 1_700_000_000_000L + round * 86_400_000L));
+        batches.add(new Batch(150, false)
+                .put(SessionPreferences.IS_VOLUNTEER, round % 2 == 0));
+
+        // Settings screen, switches flipped in quick succession
+        for (PreferenceKey<Boolean> key : SWITCHES) {
+            batches.add(new Batch(120, false).put(key, round % 2 == 0));
+        }
+
+        // Profile save, one change
+        String state = round % 2 == 0 ? "Karnataka" : "Maharashtra";
+        batches.add(new Batch(5000, false)
+                .put(SessionPreferences.STATE, state)
+                .put(SessionPreferences.EMERGENCY_CONTACT, "+9198123456" + (10 + round))
+                .put(SessionPreferences.IS_VOLUNTEER, true));
+        return batches;
+    }
+
+    @Test
+    public void coalescedWritesCutWriteAmplification() {
+        Result sosPerPut = run("sos_per_put.bin", null, PreferenceWriteBenchmarkTest::sosRound, Mode.PER_PUT);
+        Result sosCoalesced = run("sos_coalesced.bin", null, PreferenceWriteBenchmarkTest::sosRound, Mode.COALESCED);
+        Result sessionPerChange = run("session_per_change.bin", signedInSession(),
+                PreferenceWriteBenchmarkTest::sessionRound, Mode.PER_CHANGE);
+        Result sessionCoalesced = run("session_coalesced.bin", signedInSession(),
+                PreferenceWriteBenchmarkTest::sessionRound, Mode.COALESCED);
+
+        System.out.println(String.format(Locale.US,
+                "Preference writes over %d rounds\n" +
+                        "%-18s %8s %10s %12s %12s %10s %10s\n%s\n%s\n%s\n%s",
+                REPEATS,
+                "file/mode", "writes", "kb", "keysChanged", "keysWritten", "amplif.", "ms",
+                row("sos per-put", sosPerPut), row("sos coalesced", sosCoalesced),
+                row("session per-change", sessionPerChange), row("session coalesced", sessionCoalesced)));
+
+        assertEquals(sosPerPut.keysChanged, sosCoalesced.keysChanged);
+        assertEquals(sessionPerChange.keysChanged, sessionCoalesced.keysChanged);
+        // Multi-key SOS changes are one write each, the report ID still goes out at once
+        assertTrue("sos writes " + sosCoalesced.writes + " vs " + sosPerPut.writes,
+                sosCoalesced.writes < sosPerPut.writes);
+        // Settings and sign-in bursts inside one window collapse to one write, a third fewer
+        assertTrue("session writes " + sessionCoalesced.writes + " vs " + sessionPerChange.writes,
+                sessionCoalesced.writes * 3 < sessionPerChange.writes * 2);
+        assertTrue("session bytes " + sessionCoalesced.bytes + " vs " + sessionPerChange.bytes,
+                sessionCoalesced.bytes * 3 < sessionPerChange.bytes * 2);
+    }
+
+    private static String row(String mode, Result result) {
+        return String.format(Locale.US, "%-18s %8d %10.1f %12d %12d %10.1f %10.1f",
+                mode, result.writes, result.bytes / 1024.0, result.keysChanged, result.keysWritten,
+                result.keysWritten / (double) result.keysChanged, result.elapsedNanos / 1e6);
+    }
+
+    /**
+     * @param resident What the file holds before the workload starts, or null
+     */
+    private Result run(String fileName, Batch resident, Workload workload, Mode mode) {
+        File file = new File(folder.getRoot(), fileName);
+        ManualScheduler scheduler = new ManualScheduler();
+        // A zero window written after every edit is the old behaviour
+        PreferenceStore store = new PreferenceStore(scheduler, new PreferenceStore.FileStorage(file),
+                null, mode == Mode.COALESCED ? PreferenceStore.DEFAULT_COALESCE_MILLIS : 0);
+        scheduler.drain();
+
+        if (resident != null) {
+            edit(store, resident).apply();
+            scheduler.drain();
+        }
+        long writesBefore = store.getFileWrites();
+        long bytesBefore = store.getBytesWritten();
+        long keysChangedBefore = store.getKeysChanged();
+        long keysWrittenBefore = store.getKeysWritten();
+
+        long start = System.nanoTime();
+        for (int round = 0; round < REPEATS; round++) {
+            for (Batch batch : workload.round(round)) {
+                scheduler.advanceBy(batch.gapMillis);
+                if (mode == Mode.PER_PUT) {
+                    for (int i = 0; i < batch.keys.size(); i++) {
+                        with(store.edit(), batch.keys.get(i), batch.values.get(i)).apply();
+                        scheduler.advanceBy(0);
+                    }
+                } else if (mode == Mode.COALESCED && batch.immediate) {
+                    edit(store, batch).applyImmediately();
+                } else {
+                    edit(store, batch).apply();
+                }
+            }
+        }
+        scheduler.drain();
+        long elapsed = System.nanoTime() - start;
+
+        Result result = new Result();
+        result.writes = store.getFileWrites() - writesBefore;
+        result.bytes = store.getBytesWritten() - bytesBefore;
+        result.keysChanged = store.getKeysChanged() - keysChangedBefore;
+        result.keysWritten = store.getKeysWritten() - keysWrittenBefore;
+        result.elapsedNanos = elapsed;
+        return result;
+    }
+
+    private static PreferenceStore.Editor edit(PreferenceStore store, Batch batch) {
+        PreferenceStore.Editor editor = store.edit();
+        for (int i = 0; i < batch.keys.size(); i++) {
+            editor = with(editor, batch.keys.get(i), batch.values.get(i));
+        }
+        return editor;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static PreferenceStore.Editor with(PreferenceStore.Editor editor, PreferenceKey<?> key, Object value) {
+        return value == null ? editor.remove(key) : editor.put((PreferenceKey<Object>) key, value);
+    }
+}